@@ -26,18 +26,24 @@ import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.actors.ActorSystemContext;
 import org.thingsboard.server.actors.DefaultTbActorSystem;
+import org.thingsboard.server.actors.TbActorMailboxOverflowPolicy;
+import org.thingsboard.server.actors.TbActorMailboxSettings;
 import org.thingsboard.server.actors.TbActorRef;
 import org.thingsboard.server.actors.TbActorSystem;
 import org.thingsboard.server.actors.TbActorSystemSettings;
+import org.thingsboard.server.actors.TbDispatcherStats;
 import org.thingsboard.server.actors.app.AppActor;
 import org.thingsboard.server.actors.app.AppInitMsg;
 import org.thingsboard.server.actors.stats.StatsActor;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
 import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
 import org.thingsboard.server.queue.util.AfterStartUp;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -53,6 +59,9 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Autowired
     private ActorSystemContext actorContext;
 
+    @Autowired
+    private StatsFactory statsFactory;
+
     private TbActorSystem system;
 
     private TbActorRef appActor;
@@ -78,17 +87,40 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Value("${actors.system.rule_dispatcher_pool_size:8}")
     private int ruleDispatcherSize;
 
+    @Value("${actors.system.tenant_dispatcher_mailbox_capacity:0}")
+    private int tenantDispatcherMailboxCapacity;
+
+    @Value("${actors.system.tenant_dispatcher_mailbox_overflow_policy:REJECT}")
+    private TbActorMailboxOverflowPolicy tenantDispatcherMailboxOverflowPolicy;
+
+    @Value("${actors.system.device_dispatcher_mailbox_capacity:0}")
+    private int deviceDispatcherMailboxCapacity;
+
+    @Value("${actors.system.device_dispatcher_mailbox_overflow_policy:REJECT}")
+    private TbActorMailboxOverflowPolicy deviceDispatcherMailboxOverflowPolicy;
+
+    @Value("${actors.system.rule_dispatcher_mailbox_capacity:0}")
+    private int ruleDispatcherMailboxCapacity;
+
+    @Value("${actors.system.rule_dispatcher_mailbox_overflow_policy:REJECT}")
+    private TbActorMailboxOverflowPolicy ruleDispatcherMailboxOverflowPolicy;
+
     @PostConstruct
     public void initActorSystem() {
         log.info("Initializing actor system.");
         actorContext.setActorService(this);
         TbActorSystemSettings settings = new TbActorSystemSettings(actorThroughput, schedulerPoolSize, maxActorInitAttempts);
+        Map<String, TbActorMailboxSettings> mailboxSettings = new HashMap<>();
+        mailboxSettings.put(TENANT_DISPATCHER_NAME, new TbActorMailboxSettings(tenantDispatcherMailboxCapacity, tenantDispatcherMailboxOverflowPolicy));
+        mailboxSettings.put(DEVICE_DISPATCHER_NAME, new TbActorMailboxSettings(deviceDispatcherMailboxCapacity, deviceDispatcherMailboxOverflowPolicy));
+        mailboxSettings.put(RULE_DISPATCHER_NAME, new TbActorMailboxSettings(ruleDispatcherMailboxCapacity, ruleDispatcherMailboxOverflowPolicy));
+        settings.setMailboxSettings(mailboxSettings);
         system = new DefaultTbActorSystem(settings);
 
-        system.createDispatcher(APP_DISPATCHER_NAME, initDispatcherExecutor(APP_DISPATCHER_NAME, appDispatcherSize));
-        system.createDispatcher(TENANT_DISPATCHER_NAME, initDispatcherExecutor(TENANT_DISPATCHER_NAME, tenantDispatcherSize));
-        system.createDispatcher(DEVICE_DISPATCHER_NAME, initDispatcherExecutor(DEVICE_DISPATCHER_NAME, deviceDispatcherSize));
-        system.createDispatcher(RULE_DISPATCHER_NAME, initDispatcherExecutor(RULE_DISPATCHER_NAME, ruleDispatcherSize));
+        createDispatcher(APP_DISPATCHER_NAME, appDispatcherSize);
+        createDispatcher(TENANT_DISPATCHER_NAME, tenantDispatcherSize);
+        createDispatcher(DEVICE_DISPATCHER_NAME, deviceDispatcherSize);
+        createDispatcher(RULE_DISPATCHER_NAME, ruleDispatcherSize);
 
         actorContext.setActorSystem(system);
 
@@ -101,6 +133,13 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         log.info("Actor system initialized.");
     }
 
+    private void createDispatcher(String dispatcherName, int poolSize) {
+        system.createDispatcher(dispatcherName, initDispatcherExecutor(dispatcherName, poolSize));
+        TbDispatcherStats stats = system.getDispatcherStats(dispatcherName);
+        statsFactory.createGauge("actors.mailbox.queueSize", stats.getQueueSize(), "dispatcher", dispatcherName);
+        statsFactory.createGauge("actors.mailbox.overloaded", stats.getOverloadedMailboxes(), "dispatcher", dispatcherName);
+    }
+
     private ExecutorService initDispatcherExecutor(String dispatcherName, int poolSize) {
         if (poolSize == 0) {
             int cores = Runtime.getRuntime().availableProcessors();
@@ -25,16 +25,20 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -44,7 +48,12 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
 import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.rule.engine.api.AttributesDeleteRequest;
@@ -57,6 +66,7 @@ import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.TenantProfile;
 import org.thingsboard.server.common.data.audit.ActionType;
+import org.thingsboard.server.common.data.exception.ThingsboardErrorCode;
 import org.thingsboard.server.common.data.exception.ThingsboardException;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EntityId;
@@ -92,6 +102,8 @@ import org.thingsboard.server.service.security.AccessValidator;
 import org.thingsboard.server.service.security.model.SecurityUser;
 import org.thingsboard.server.service.security.permission.Operation;
 import org.thingsboard.server.service.telemetry.AttributeData;
+import org.thingsboard.server.service.telemetry.TimeseriesExportFormat;
+import org.thingsboard.server.service.telemetry.TimeseriesExportService;
 import org.thingsboard.server.service.telemetry.TsData;
 
 import java.util.ArrayList;
@@ -99,6 +111,7 @@ import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -149,15 +162,23 @@ import static org.thingsboard.server.controller.ControllerConstants.TS_STRICT_DA
 @Slf4j
 public class TelemetryController extends BaseController {
 
+    private static final String EXPORT_TIMEOUT_INTERCEPTOR_KEY = "timeseriesExportTimeout";
+
     @Autowired
     private TimeseriesService tsService;
 
     @Autowired
     private AccessValidator accessValidator;
 
+    @Autowired
+    private TimeseriesExportService tsExportService;
+
     @Value("${transport.json.max_string_value_length:0}")
     private int maxStringValueLength;
 
+    @Value("${server.rest.timeseries_export.timeout_ms:3600000}")
+    private long exportTimeoutMs;
+
     private ExecutorService executor;
 
     @PostConstruct
@@ -339,6 +360,61 @@ public class TelemetryController extends BaseController {
                 });
     }
 
+    @ApiOperation(value = "Export time series data (exportTimeseries)",
+            notes = "Streams raw time series values of the specified keys for one or more entities of the same type as a file. " +
+                    "Unlike 'getTimeseries', the result is not limited: the values are read page by page and written to the response " +
+                    "as they arrive, so the export of a long time range does not need to fit into memory. " +
+                    "The CSV format produces the 'entityType,entityId,key,ts,value' rows ordered by entity, key and timestamp. " +
+                    "The JSON format produces an array with the 'entityId' and the 'timeseries' values grouped by key for each entity."
+                    + "\n\n" + INVALID_ENTITY_ID_OR_ENTITY_TYPE_DESCRIPTION + TENANT_OR_CUSTOMER_AUTHORITY_PARAGRAPH)
+    @PreAuthorize("hasAnyAuthority('TENANT_ADMIN', 'CUSTOMER_USER')")
+    @RequestMapping(value = "/{entityType}/values/timeseries/export", method = RequestMethod.GET, params = {"entityIds", "keys", "startTs", "endTs"})
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> exportTimeseries(
+            @Parameter(description = ENTITY_TYPE_PARAM_DESCRIPTION, required = true, schema = @Schema(defaultValue = "DEVICE")) @PathVariable("entityType") String entityType,
+            @Parameter(description = "A list of entity ids, separated by comma ','", array = @ArraySchema(schema = @Schema(type = "string")))
+            @RequestParam(name = "entityIds") String[] strEntityIds,
+            @Parameter(description = TELEMETRY_KEYS_BASE_DESCRIPTION, required = true) @RequestParam(name = "keys") String keys,
+            @Parameter(description = "A long value representing the start timestamp of the time range in milliseconds, UTC.")
+            @RequestParam(name = "startTs") Long startTs,
+            @Parameter(description = "A long value representing the end timestamp of the time range in milliseconds, UTC.")
+            @RequestParam(name = "endTs") Long endTs,
+            @Parameter(description = "A string value representing the format of the exported file.", schema = @Schema(allowableValues = {"CSV", "JSON"}))
+            @RequestParam(name = "format", defaultValue = "CSV") TimeseriesExportFormat format,
+            @Parameter(description = STRICT_DATA_TYPES_DESCRIPTION)
+            @RequestParam(name = "useStrictDataTypes", required = false, defaultValue = "false") Boolean useStrictDataTypes,
+            HttpServletRequest request) throws ThingsboardException {
+        checkArrayParameter("entityIds", strEntityIds);
+        List<String> keyList = toKeysList(keys);
+        if (keyList == null) {
+            throw new ThingsboardException("Telemetry keys are not specified!", ThingsboardErrorCode.BAD_REQUEST_PARAMS);
+        }
+        if (startTs >= endTs) {
+            throw new ThingsboardException("Start timestamp must be less than end timestamp!", ThingsboardErrorCode.BAD_REQUEST_PARAMS);
+        }
+        List<EntityId> entityIds = new ArrayList<>(strEntityIds.length);
+        for (String strEntityId : strEntityIds) {
+            EntityId entityId = EntityIdFactory.getByTypeAndId(entityType, strEntityId);
+            checkEntityId(entityId, Operation.READ_TELEMETRY);
+            entityIds.add(entityId);
+        }
+        TenantId tenantId = getTenantId();
+        // the export may take much longer than the default timeout of the asynchronous requests
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_TIMEOUT_INTERCEPTOR_KEY, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                if (webRequest instanceof AsyncWebRequest asyncWebRequest) {
+                    asyncWebRequest.setTimeout(exportTimeoutMs);
+                }
+            }
+        });
+        StreamingResponseBody body = out -> tsExportService.export(tenantId, entityIds, keyList, startTs, endTs, format, useStrictDataTypes, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=timeseries." + format.getFileExtension())
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
+    }
+
     @ApiOperation(value = "Save device attributes (saveDeviceAttributes)",
             notes = "Creates or updates the device attributes based on device id and specified attribute scope. " +
                     SAVE_ATTRIBUTES_REQUEST_PAYLOAD
@@ -0,0 +1,49 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.controller.plugin;
+
+import lombok.RequiredArgsConstructor;
+import org.thingsboard.server.service.ws.WsCborCodec;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * Update of the binary protocol session. The update is encoded only when the message is taken for sending,
+ * so that the key dictionary entries are sent in the same order they are assigned.
+ */
+@RequiredArgsConstructor
+class TbWebSocketBinaryMsg implements TbWebSocketMsg<ByteBuffer> {
+
+    private final WsCborCodec codec;
+    private final Supplier<?> update;
+
+    @Override
+    public TbWebSocketMsgType getType() {
+        return TbWebSocketMsgType.BINARY;
+    }
+
+    @Override
+    public ByteBuffer getMsg() {
+        Object value = update.get();
+        try {
+            return ByteBuffer.wrap(codec.encode(value));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to encode binary update " + value, e);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.controller.plugin;
+
+import lombok.RequiredArgsConstructor;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.service.ws.WsUpdateSerializer;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latest values update that stays mergeable while it waits in the session outbound queue.
+ * Updates of the same command are merged per entity and key until the message is taken for sending.
+ */
+@RequiredArgsConstructor
+class TbWebSocketConflatedMsg implements TbWebSocketMsg<String> {
+
+    private final WsUpdateSerializer serializer;
+    private final int cmdId;
+
+    private final Map<EntityId, Map<EntityKeyType, Map<String, TsValue>>> latest = new LinkedHashMap<>();
+    private long allowedEntities;
+    private boolean sealed;
+
+    synchronized boolean merge(EntityDataUpdate update) {
+        if (sealed) {
+            return false;
+        }
+        allowedEntities = update.getAllowedEntities();
+        for (EntityData entityData : update.getUpdate()) {
+            if (entityData.getLatest() == null) {
+                continue;
+            }
+            Map<EntityKeyType, Map<String, TsValue>> entityLatest = latest.computeIfAbsent(entityData.getEntityId(), id -> new EnumMap<>(EntityKeyType.class));
+            entityData.getLatest().forEach((keyType, values) -> {
+                Map<String, TsValue> merged = entityLatest.computeIfAbsent(keyType, type -> new HashMap<>());
+                // zero ts marks the deleted key, so it always replaces the pending value
+                values.forEach((key, value) -> merged.merge(key, value,
+                        (oldValue, newValue) -> newValue.getTs() == 0 || newValue.getTs() >= oldValue.getTs() ? newValue : oldValue));
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Stops merging and returns the merged update.
+     */
+    synchronized EntityDataUpdate seal() {
+        sealed = true;
+        List<EntityData> entities = new ArrayList<>(latest.size());
+        latest.forEach((entityId, values) -> entities.add(new EntityData(entityId, values, null)));
+        return new EntityDataUpdate(cmdId, null, entities, allowedEntities);
+    }
+
+    @Override
+    public TbWebSocketMsgType getType() {
+        return TbWebSocketMsgType.TEXT;
+    }
+
+    @Override
+    public String getMsg() {
+        try {
+            return serializer.serializeLatest(seal());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to serialize conflated update for cmd " + cmdId, e);
+        }
+    }
+
+}
@@ -33,8 +33,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.adapter.NativeWebSocketSession;
@@ -62,12 +64,18 @@ import org.thingsboard.server.service.ws.WebSocketMsgEndpoint;
 import org.thingsboard.server.service.ws.WebSocketService;
 import org.thingsboard.server.service.ws.WebSocketSessionRef;
 import org.thingsboard.server.service.ws.WebSocketSessionType;
+import org.thingsboard.server.service.ws.WsCborCodec;
 import org.thingsboard.server.service.ws.WsCommandsWrapper;
+import org.thingsboard.server.service.ws.WsUpdateSerializer;
 import org.thingsboard.server.service.ws.notification.cmd.NotificationCmdsWrapper;
 import org.thingsboard.server.service.ws.telemetry.cmd.TelemetryCmdsWrapper;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.InvalidParameterException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
@@ -87,7 +95,7 @@ import static org.thingsboard.server.service.ws.DefaultWebSocketService.NUMBER_O
 @TbCoreComponent
 @Slf4j
 @RequiredArgsConstructor
-public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocketMsgEndpoint {
+public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocketMsgEndpoint, SubProtocolCapable {
 
     private final ConcurrentMap<String, SessionMetaData> internalSessionMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, String> externalSessionMap = new ConcurrentHashMap<>();
@@ -100,6 +108,8 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
     private RateLimitService rateLimitService;
     @Autowired
     private JwtAuthenticationProvider authenticationProvider;
+    @Autowired
+    private WsUpdateSerializer updateSerializer;
 
     @Value("${server.ws.send_timeout:5000}")
     private long sendTimeout;
@@ -109,6 +119,8 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
     private int wsMaxQueueMessagesPerSession;
     @Value("${server.ws.auth_timeout_ms:10000}")
     private int authTimeoutMs;
+    @Value("${server.ws.binary_protocol_enabled:false}")
+    private boolean binaryProtocolEnabled;
 
     private final ConcurrentMap<String, WebSocketSessionRef> blacklistedSessions = new ConcurrentHashMap<>();
 
@@ -140,6 +152,11 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
         internalSessionMap.clear();
     }
 
+    @Override
+    public List<String> getSubProtocols() {
+        return binaryProtocolEnabled ? List.of(WsCborCodec.SUB_PROTOCOL) : Collections.emptyList();
+    }
+
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) {
         try {
@@ -155,6 +172,35 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
         }
     }
 
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        try {
+            SessionMetaData sessionMd = getSessionMd(session.getId());
+            if (sessionMd == null) {
+                log.trace("[{}] Failed to find session", session.getId());
+                session.close(CloseStatus.SERVER_ERROR.withReason("Session not found!"));
+                return;
+            }
+            if (!sessionMd.sessionRef.isBinary()) {
+                session.close(CloseStatus.NOT_ACCEPTABLE.withReason("Binary messages not supported"));
+                return;
+            }
+            ByteBuffer payload = message.getPayload();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            String msg;
+            try {
+                msg = WsCborCodec.decodeCmd(bytes);
+            } catch (Exception e) {
+                onBadPayload(sessionMd.sessionRef, e);
+                return;
+            }
+            sessionMd.onMsg(msg);
+        } catch (IOException e) {
+            log.warn("IO error", e);
+        }
+    }
+
     void processMsg(SessionMetaData sessionMd, String msg) throws IOException {
         WebSocketSessionRef sessionRef = sessionMd.sessionRef;
         WsCommandsWrapper cmdsWrapper;
@@ -173,12 +219,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
                     return;
             }
         } catch (Exception e) {
-            log.debug("{} Failed to decode subscription cmd: {}", sessionRef, e.getMessage(), e);
-            if (sessionRef.getSecurityCtx() != null) {
-                webSocketService.sendError(sessionRef, 1, SubscriptionErrorCode.BAD_REQUEST, "Failed to parse the payload");
-            } else {
-                close(sessionRef, CloseStatus.BAD_DATA.withReason(e.getMessage()));
-            }
+            onBadPayload(sessionRef, e);
             return;
         }
 
@@ -207,6 +248,15 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
         }
     }
 
+    private void onBadPayload(WebSocketSessionRef sessionRef, Exception e) throws IOException {
+        log.debug("{} Failed to decode subscription cmd: {}", sessionRef, e.getMessage(), e);
+        if (sessionRef.getSecurityCtx() != null) {
+            webSocketService.sendError(sessionRef, 1, SubscriptionErrorCode.BAD_REQUEST, "Failed to parse the payload");
+        } else {
+            close(sessionRef, CloseStatus.BAD_DATA.withReason(e.getMessage()));
+        }
+    }
+
     @Override
     protected void handlePongMessage(WebSocketSession session, PongMessage message) throws Exception {
         try {
@@ -338,6 +388,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
                 .localAddress(session.getLocalAddress())
                 .remoteAddress(session.getRemoteAddress())
                 .sessionType(sessionType)
+                .binary(WsCborCodec.SUB_PROTOCOL.equals(session.getAcceptedProtocol()))
                 .build();
     }
 
@@ -353,10 +404,12 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
         private final WebSocketSession session;
         private final RemoteEndpoint.Async asyncRemote;
         private final WebSocketSessionRef sessionRef;
+        private final WsCborCodec binaryCodec;
 
         final AtomicBoolean isSending = new AtomicBoolean(false);
         private final Queue<TbWebSocketMsg<?>> outboundMsgQueue = new ConcurrentLinkedQueue<>();
         private final AtomicInteger outboundMsgQueueSize = new AtomicInteger();
+        private final ConcurrentMap<Integer, TbWebSocketConflatedMsg> conflatedMsgs = new ConcurrentHashMap<>();
         @Setter
         private int maxMsgQueueSize = wsMaxQueueMessagesPerSession;
 
@@ -371,6 +424,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
             Session nativeSession = ((NativeWebSocketSession) session).getNativeSession(Session.class);
             this.asyncRemote = nativeSession.getAsyncRemote();
             this.sessionRef = sessionRef;
+            this.binaryCodec = sessionRef.isBinary() ? new WsCborCodec() : null;
             this.lastActivityTime = System.currentTimeMillis();
         }
 
@@ -396,6 +450,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
                 log.trace("{} Session transport error", sessionRef, ioe);
             } finally {
                 outboundMsgQueue.clear();
+                conflatedMsgs.clear();
             }
         }
 
@@ -418,12 +473,31 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
             }
         }
 
+        void sendConflatedMsg(EntityDataUpdate update) {
+            TbWebSocketConflatedMsg pendingMsg = conflatedMsgs.get(update.getCmdId());
+            if (pendingMsg != null && pendingMsg.merge(update)) {
+                return;
+            }
+            TbWebSocketConflatedMsg msg = new TbWebSocketConflatedMsg(updateSerializer, update.getCmdId());
+            msg.merge(update);
+            conflatedMsgs.put(update.getCmdId(), msg);
+            sendMsg(binaryCodec != null ? new TbWebSocketBinaryMsg(binaryCodec, msg::seal) : msg);
+        }
+
+        void sendBinaryMsg(Object update) {
+            sendMsg(new TbWebSocketBinaryMsg(binaryCodec, () -> update));
+        }
+
+        @SuppressWarnings("unchecked")
         private void sendMsgInternal(TbWebSocketMsg<?> msg) {
             try {
                 if (TbWebSocketMsgType.TEXT.equals(msg.getType())) {
-                    TbWebSocketTextMsg textMsg = (TbWebSocketTextMsg) msg;
+                    TbWebSocketMsg<String> textMsg = (TbWebSocketMsg<String>) msg;
                     this.asyncRemote.sendText(textMsg.getMsg(), this);
                     // isSending status will be reset in the onResult method by call back
+                } else if (TbWebSocketMsgType.BINARY.equals(msg.getType())) {
+                    TbWebSocketMsg<ByteBuffer> binaryMsg = (TbWebSocketMsg<ByteBuffer>) msg;
+                    this.asyncRemote.sendBinary(binaryMsg.getMsg(), this);
                 } else {
                     TbWebSocketPingMsg pingMsg = (TbWebSocketPingMsg) msg;
                     this.asyncRemote.sendPing(pingMsg.getMsg()); // blocking call
@@ -487,6 +561,31 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
     @Override
     public void send(WebSocketSessionRef sessionRef, int subscriptionId, String msg) throws IOException {
         log.debug("{} Sending {}", sessionRef, msg);
+        SessionMetaData sessionMd = getSessionMdForUpdate(sessionRef, subscriptionId);
+        if (sessionMd != null) {
+            sessionMd.sendMsg(msg);
+        }
+    }
+
+    @Override
+    public void sendBinary(WebSocketSessionRef sessionRef, int subscriptionId, Object update) throws IOException {
+        log.debug("{} Sending binary {}", sessionRef, update);
+        SessionMetaData sessionMd = getSessionMdForUpdate(sessionRef, subscriptionId);
+        if (sessionMd != null) {
+            sessionMd.sendBinaryMsg(update);
+        }
+    }
+
+    @Override
+    public void sendConflated(WebSocketSessionRef sessionRef, EntityDataUpdate update) throws IOException {
+        log.debug("{} Sending conflated {}", sessionRef, update);
+        SessionMetaData sessionMd = getSessionMdForUpdate(sessionRef, update.getCmdId());
+        if (sessionMd != null) {
+            sessionMd.sendConflatedMsg(update);
+        }
+    }
+
+    private SessionMetaData getSessionMdForUpdate(WebSocketSessionRef sessionRef, int subscriptionId) {
         String externalId = sessionRef.getSessionId();
         String internalId = externalSessionMap.get(externalId);
         if (internalId != null) {
@@ -498,18 +597,19 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements WebSocke
                         log.info("{} Failed to process session update. Max session updates limit reached", sessionRef);
                         sessionMd.sendMsg("{\"subscriptionId\":" + subscriptionId + ", \"errorCode\":" + ThingsboardErrorCode.TOO_MANY_UPDATES.getErrorCode() + ", \"errorMsg\":\"Too many updates!\"}");
                     }
-                    return;
+                    return null;
                 } else {
                     log.debug("{} Session is no longer blacklisted.", sessionRef);
                     blacklistedSessions.remove(externalId);
                 }
-                sessionMd.sendMsg(msg);
+                return sessionMd;
             } else {
                 log.warn("[{}][{}] Failed to find session by internal id", externalId, internalId);
             }
         } else {
             log.warn("[{}] Failed to find session by external id", externalId);
         }
+        return null;
     }
 
     @Override
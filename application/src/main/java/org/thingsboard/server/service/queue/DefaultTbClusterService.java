@@ -117,6 +117,8 @@ public class DefaultTbClusterService implements TbClusterService {
     private boolean statsEnabled;
     @Value("${edges.enabled:true}")
     protected boolean edgesEnabled;
+    @Value("${server.ws.dynamic_page_link.refresh_on_entity_changes:true}")
+    private boolean refreshOnEntityChanges;
 
     private final AtomicInteger toCoreMsgs = new AtomicInteger(0);
     private final AtomicInteger toCoreNfs = new AtomicInteger(0);
@@ -540,6 +542,11 @@ public class DefaultTbClusterService implements TbClusterService {
         }
     }
 
+    // created and deleted devices and assets are only needed by the core services to refresh the dynamic entity queries
+    private boolean isBroadcastToCore(ComponentLifecycleMsg msg) {
+        return msg.getEvent() == ComponentLifecycleEvent.UPDATED || refreshOnEntityChanges;
+    }
+
     private void broadcast(ComponentLifecycleMsg msg) {
         ComponentLifecycleMsgProto componentLifecycleMsgProto = toProto(msg);
         TbQueueProducer<TbProtoQueueMsg<ToRuleEngineNotificationMsg>> toRuleEngineProducer = producerProvider.getRuleEngineNotificationsMsgProducer();
@@ -548,10 +555,10 @@ public class DefaultTbClusterService implements TbClusterService {
         if (entityType.equals(EntityType.TENANT)
                 || entityType.equals(EntityType.TENANT_PROFILE)
                 || entityType.equals(EntityType.DEVICE_PROFILE)
-                || (entityType.equals(EntityType.ASSET) && msg.getEvent() == ComponentLifecycleEvent.UPDATED)
+                || (entityType.equals(EntityType.ASSET) && isBroadcastToCore(msg))
                 || entityType.equals(EntityType.ASSET_PROFILE)
                 || entityType.equals(EntityType.API_USAGE_STATE)
-                || (entityType.equals(EntityType.DEVICE) && msg.getEvent() == ComponentLifecycleEvent.UPDATED)
+                || (entityType.equals(EntityType.DEVICE) && isBroadcastToCore(msg))
                 || entityType.equals(EntityType.ENTITY_VIEW)
                 || entityType.equals(EntityType.NOTIFICATION_RULE)) {
             TbQueueProducer<TbProtoQueueMsg<ToCoreNotificationMsg>> toCoreNfProducer = producerProvider.getTbCoreNotificationsMsgProducer();
@@ -220,11 +220,15 @@ public class MainQueueConsumerManager<M extends TbQueueMsg, C extends QueueConfi
                 }
             }
         }
+        onConsumerLoopEnd(consumer);
         if (consumer.isStopped()) {
             consumer.unsubscribe();
         }
     }
 
+    protected void onConsumerLoopEnd(TbQueueConsumer<M> consumer) {
+    }
+
     protected void processMsgs(List<M> msgs, TbQueueConsumer<M> consumer, C config) throws Exception {
         msgPackProcessor.process(msgs, consumer, config);
     }
@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.ruleengine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.TbQueueConsumerPosition;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks message packs of a single consumer that are processed concurrently.
+ * Packs may complete in any order, but the consumer position is committed only up to the last pack
+ * for which it and all the packs polled before it are processed (the completion watermark).
+ * A pack that was not processed (e.g. interrupted by the consumer stop) holds the watermark forever,
+ * so its messages are redelivered after restart or rebalance.
+ */
+@Slf4j
+class TbMsgPackPipeline {
+
+    private final TbQueueConsumer<?> consumer;
+    private final int maxPacksInFlight;
+    private final Semaphore permits;
+    private final Deque<Pack> packs = new ArrayDeque<>();
+
+    TbMsgPackPipeline(TbQueueConsumer<?> consumer, int maxPacksInFlight) {
+        this.consumer = consumer;
+        this.maxPacksInFlight = maxPacksInFlight;
+        this.permits = new Semaphore(maxPacksInFlight);
+    }
+
+    /**
+     * Registers a new pack, waiting up to the given timeout for a free slot.
+     * @return the pack, or {@code null} if all slots are still occupied after the timeout
+     */
+    Pack start(TbQueueConsumerPosition position, long timeoutMs) throws InterruptedException {
+        if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        Pack pack = new Pack(position);
+        synchronized (packs) {
+            packs.addLast(pack);
+        }
+        return pack;
+    }
+
+    void complete(Pack pack, boolean processed) {
+        try {
+            synchronized (packs) {
+                pack.processed = processed;
+                TbQueueConsumerPosition watermark = null;
+                while (!packs.isEmpty() && packs.peekFirst().processed) {
+                    watermark = packs.pollFirst().position;
+                }
+                if (watermark != null) {
+                    try {
+                        consumer.commit(watermark);
+                    } catch (Exception e) {
+                        log.warn("[{}] Failed to commit consumer position {}", consumer.getTopic(), watermark, e);
+                    }
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    boolean awaitCompletion(long timeoutMs) throws InterruptedException {
+        if (permits.tryAcquire(maxPacksInFlight, timeoutMs, TimeUnit.MILLISECONDS)) {
+            permits.release(maxPacksInFlight);
+            return true;
+        }
+        return false;
+    }
+
+    static class Pack {
+        private final TbQueueConsumerPosition position;
+        private volatile boolean processed;
+
+        private Pack(TbQueueConsumerPosition position) {
+            this.position = position;
+        }
+    }
+
+}
@@ -18,10 +18,12 @@ package org.thingsboard.server.service.queue.ruleengine;
 import com.google.protobuf.ProtocolStringList;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.actors.TbActorSystem;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.EntityIdFactory;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.queue.Queue;
+import org.thingsboard.server.common.data.queue.SubmitStrategyType;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.gen.MsgProtos;
 import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
@@ -32,6 +34,7 @@ import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
 import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.TbQueueConsumerPosition;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
 import org.thingsboard.server.queue.discovery.QueueKey;
 import org.thingsboard.server.service.queue.TbMsgPackCallback;
@@ -49,6 +52,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -62,6 +66,7 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
 
     private final TbRuleEngineConsumerContext ctx;
     private final TbRuleEngineConsumerStats stats;
+    private final Map<TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>>, TbMsgPackPipeline> pipelines = new ConcurrentHashMap<>();
 
     @Builder(builderMethodName = "create") // not to conflict with super.builder()
     public TbRuleEngineQueueConsumerManager(TbRuleEngineConsumerContext ctx,
@@ -119,9 +124,65 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
     protected void processMsgs(List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs,
                                TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
                                Queue queue) throws Exception {
+        if (isPipelined(queue)) {
+            TbQueueConsumerPosition position = consumer.getPosition();
+            if (position != null) {
+                submitPack(msgs, consumer, queue, position);
+                return;
+            }
+        }
+        awaitPipelineCompletion(consumer); // in case pipelining was just disabled by the queue config update
+        if (processPack(msgs, consumer, queue)) {
+            consumer.commit();
+        }
+    }
+
+    /*
+     * Several packs in flight break the processing order between packs,
+     * so pipelining is only applied to queues that do not guarantee any order anyway.
+     */
+    private boolean isPipelined(Queue queue) {
+        return ctx.getMaxPacksInFlight() > 1 && queue.getSubmitStrategy().getType() == SubmitStrategyType.BURST;
+    }
+
+    private void submitPack(List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs,
+                            TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
+                            Queue queue, TbQueueConsumerPosition position) throws InterruptedException {
+        TbMsgPackPipeline pipeline = pipelines.computeIfAbsent(consumer, c -> new TbMsgPackPipeline(c, ctx.getMaxPacksInFlight()));
+        TbMsgPackPipeline.Pack pack = null;
+        while (pack == null) {
+            if (stopped || consumer.isStopped()) {
+                return;
+            }
+            pack = pipeline.start(position, queue.getPollInterval());
+        }
+        TbMsgPackPipeline.Pack submittedPack = pack;
+        consumerExecutor.submit(() -> {
+            // same as in the sequential mode, a pack that failed unexpectedly does not hold back the commit of the next packs
+            boolean processed = true;
+            try {
+                processed = processPack(msgs, consumer, queue);
+            } catch (InterruptedException e) {
+                processed = false;
+            } catch (Throwable t) {
+                log.warn("[{}] Failed to process messages from queue", queueKey, t);
+            } finally {
+                pipeline.complete(submittedPack, processed);
+            }
+        });
+    }
+
+    /**
+     * Submits the pack and applies the processing strategy decisions until the pack is done.
+     * @return true if the pack is done and may be committed, false if the processing was interrupted by the consumer stop
+     */
+    private boolean processPack(List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs,
+                                TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer,
+                                Queue queue) throws InterruptedException {
         TbRuleEngineSubmitStrategy submitStrategy = getSubmitStrategy(queue);
         TbRuleEngineProcessingStrategy ackStrategy = getProcessingStrategy(queue);
         submitStrategy.init(msgs);
+        awaitActorSystemBackpressure(queue);
         while (!stopped && !consumer.isStopped()) {
             TbMsgPackProcessingContext packCtx = new TbMsgPackProcessingContext(queue.getName(), submitStrategy, ackStrategy.isSkipTimeoutMsgs());
             submitStrategy.submitAttempt((id, msg) -> submitMessage(packCtx, id, msg));
@@ -146,12 +207,42 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
 
             if (decision.isCommit()) {
                 submitStrategy.stop();
-                consumer.commit();
-                break;
+                return true;
             } else {
                 submitStrategy.update(decision.getReprocessMap());
             }
         }
+        return false;
+    }
+
+    @Override
+    protected void onConsumerLoopEnd(TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer) {
+        awaitPipelineCompletion(consumer);
+    }
+
+    private void awaitPipelineCompletion(TbQueueConsumer<TbProtoQueueMsg<ToRuleEngineMsg>> consumer) {
+        TbMsgPackPipeline pipeline = pipelines.remove(consumer);
+        if (pipeline == null) {
+            return;
+        }
+        try {
+            if (!pipeline.awaitCompletion(config.getPackProcessingTimeout())) {
+                log.warn("[{}] Message packs are still being processed after {} ms, not committed messages will be reprocessed", queueKey, config.getPackProcessingTimeout());
+            }
+        } catch (InterruptedException e) {
+            log.trace("[{}] Interrupted while waiting for message packs to complete", queueKey);
+        }
+    }
+
+    private void awaitActorSystemBackpressure(Queue queue) throws InterruptedException {
+        TbActorSystem actorSystem = ctx.getActorContext().getActorSystem();
+        if (actorSystem == null || !actorSystem.getBackpressure().isActive(queue.getName())) {
+            return;
+        }
+        log.debug("[{}] Actors are overloaded by the messages of {} queue, pausing submit", queueKey, queue.getName());
+        if (!actorSystem.getBackpressure().awaitRelease(queue.getName(), queue.getPackProcessingTimeout())) {
+            log.info("[{}] Actors are still overloaded by the messages of {} queue after {} ms, resuming submit", queueKey, queue.getName(), queue.getPackProcessingTimeout());
+        }
     }
 
     private TbRuleEngineSubmitStrategy getSubmitStrategy(Queue queue) {
@@ -181,7 +272,7 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
     }
 
     private void forwardToRuleEngineActor(String queueName, TenantId tenantId, ToRuleEngineMsg toRuleEngineMsg, TbMsgCallback callback) {
-        TbMsg tbMsg = TbMsg.fromBytes(queueName, toRuleEngineMsg.getTbMsg().toByteArray(), callback);
+        TbMsg tbMsg = TbMsg.fromBytes(queueName, toRuleEngineMsg.getTbMsg(), callback);
         QueueToRuleEngineMsg msg;
         ProtocolStringList relationTypesList = toRuleEngineMsg.getRelationTypesList();
         Set<String> relationTypes;
@@ -199,7 +290,7 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
         log.info("[{}] {} to process [{}] messages", queueKey, prefix, map.size());
         for (Map.Entry<UUID, TbProtoQueueMsg<ToRuleEngineMsg>> pending : map.entrySet()) {
             ToRuleEngineMsg tmp = pending.getValue().getValue();
-            TbMsg tmpMsg = TbMsg.fromBytes(config.getName(), tmp.getTbMsg().toByteArray(), TbMsgCallback.EMPTY);
+            TbMsg tmpMsg = TbMsg.fromBytes(config.getName(), tmp.getTbMsg(), TbMsgCallback.EMPTY);
             RuleNodeInfo ruleNodeInfo = ctx.getLastVisitedRuleNode(pending.getKey());
             if (printAll) {
                 log.trace("[{}][{}] {} to process message: {}, Last Rule Node: {}", queueKey, TenantId.fromUUID(new UUID(tmp.getTenantIdMSB(), tmp.getTenantIdLSB())), prefix, tmpMsg, ruleNodeInfo);
@@ -109,7 +109,7 @@ public abstract class RuleNodeScriptEngine<T extends ScriptInvokeService, R> imp
     }
 
     ListenableFuture<R> executeScriptAsync(CustomerId customerId, Object... args) {
-        return Futures.transformAsync(scriptInvokeService.invokeScript(tenantId, customerId, this.scriptId, args),
+        return Futures.transformAsync(invokeScript(customerId, args),
                 o -> {
                     try {
                         return Futures.immediateFuture(convertResult(o));
@@ -125,6 +125,22 @@ public abstract class RuleNodeScriptEngine<T extends ScriptInvokeService, R> imp
                 }, MoreExecutors.directExecutor());
     }
 
+    protected ListenableFuture<Object> invokeScript(CustomerId customerId, Object[] args) {
+        return scriptInvokeService.invokeScript(tenantId, customerId, this.scriptId, args);
+    }
+
+    protected T getScriptInvokeService() {
+        return scriptInvokeService;
+    }
+
+    protected UUID getScriptId() {
+        return scriptId;
+    }
+
+    protected TenantId getTenantId() {
+        return tenantId;
+    }
+
     public void destroy() {
         scriptInvokeService.release(this.scriptId);
     }
@@ -23,8 +23,10 @@ import com.google.common.util.concurrent.MoreExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.script.api.RuleNodeScriptFactory;
+import org.thingsboard.script.api.tbel.TbelCompiledScript;
 import org.thingsboard.script.api.tbel.TbelInvokeService;
 import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
@@ -44,8 +46,19 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RuleNodeTbelScriptEngine extends RuleNodeScriptEngine<TbelInvokeService, Object> {
 
+    private final TbelCompiledScript compiledScript;
+
     public RuleNodeTbelScriptEngine(TenantId tenantId, TbelInvokeService scriptInvokeService, String script, String... argNames) {
         super(tenantId, scriptInvokeService, script, argNames);
+        this.compiledScript = scriptInvokeService.getCompiledScript(getScriptId());
+    }
+
+    @Override
+    protected ListenableFuture<Object> invokeScript(CustomerId customerId, Object[] args) {
+        if (compiledScript != null) {
+            return getScriptInvokeService().invokeScript(getTenantId(), customerId, compiledScript, args);
+        }
+        return super.invokeScript(customerId, args);
     }
 
     @Override
@@ -123,22 +136,23 @@ public class RuleNodeTbelScriptEngine extends RuleNodeScriptEngine<TbelInvokeSer
     @Override
     protected Object[] prepareArgs(TbMsg msg) {
         Object[] args = new Object[3];
-        if (msg.getData() != null) {
-            args[0] = JacksonUtil.fromString(msg.getData(), Object.class);
+        JsonNode data = msg.getDataAsJson();
+        if (data != null) {
+            args[0] = JacksonUtil.convertValue(data, Object.class);
         } else {
             args[0] = new HashMap<>();
         }
-        args[1] = new HashMap<>(msg.getMetaData().getData());
+        args[1] = msg.getMetaData().values();
         args[2] = msg.getType();
         return args;
     }
 
     private static TbMsg unbindMsg(Map msgData, TbMsg msg) {
-        String data = null;
+        JsonNode data = null;
         Map<String, String> metadata = null;
         String messageType = null;
-        if (msgData.containsKey(RuleNodeScriptFactory.MSG)) {
-            data = JacksonUtil.toString(msgData.get(RuleNodeScriptFactory.MSG));
+        if (msgData.get(RuleNodeScriptFactory.MSG) != null) {
+            data = JacksonUtil.valueToTree(msgData.get(RuleNodeScriptFactory.MSG));
         }
         if (msgData.containsKey(RuleNodeScriptFactory.METADATA)) {
             Object msgMetadataObj = msgData.get(RuleNodeScriptFactory.METADATA);
@@ -153,14 +167,15 @@ public class RuleNodeTbelScriptEngine extends RuleNodeScriptEngine<TbelInvokeSer
         if (msgData.containsKey(RuleNodeScriptFactory.MSG_TYPE)) {
             messageType = msgData.get(RuleNodeScriptFactory.MSG_TYPE).toString();
         }
-        String newData = data != null ? data : msg.getData();
         TbMsgMetaData newMetadata = metadata != null ? new TbMsgMetaData(metadata) : msg.getMetaData().copy();
         String newMessageType = !StringUtils.isEmpty(messageType) ? messageType : msg.getType();
-        return msg.transform()
+        TbMsg.TbMsgBuilder builder = msg.transform()
                 .type(newMessageType)
-                .metaData(newMetadata)
-                .data(newData)
-                .build();
+                .metaData(newMetadata);
+        if (data != null) {
+            builder.dataAsJson(data);
+        }
+        return builder.build();
     }
 
     private static <T> ListenableFuture<T> wrongResultType(Object result) {
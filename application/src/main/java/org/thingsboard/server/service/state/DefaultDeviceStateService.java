@@ -126,6 +126,8 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     public static final String INACTIVITY_ALARM_TIME = "inactivityAlarmTime";
     public static final String INACTIVITY_TIMEOUT = "inactivityTimeout";
 
+    private static final int INACTIVITY_TIMER_WHEEL_SIZE = 4096;
+
     private static final List<EntityKey> PERSISTENT_TELEMETRY_KEYS = Arrays.asList(
             new EntityKey(EntityKeyType.TIME_SERIES, LAST_ACTIVITY_TIME),
             new EntityKey(EntityKeyType.TIME_SERIES, INACTIVITY_ALARM_TIME),
@@ -195,6 +197,20 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     @Getter
     private int telemetryTtl;
 
+    @Value("${state.inactivityTimer.enabled:true}")
+    @Getter
+    private boolean inactivityTimerEnabled;
+
+    @Value("${state.inactivityTimer.tickMs:100}")
+    @Getter
+    private long inactivityTimerTickMs;
+
+    @Value("${state.inactivityTimer.fallbackCheckIntervalInSec:600}")
+    @Getter
+    private int inactivityTimerFallbackCheckIntervalInSec;
+
+    private DeviceInactivityTimingWheel inactivityTimer;
+
     private ListeningExecutorService deviceStateExecutor;
     private ListeningExecutorService deviceStateCallbackExecutor;
 
@@ -207,7 +223,17 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
                 Math.max(4, Runtime.getRuntime().availableProcessors()), "device-state"));
         deviceStateCallbackExecutor = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(
                 Math.max(4, Runtime.getRuntime().availableProcessors()), "device-state-callback"));
-        scheduledExecutor.scheduleWithFixedDelay(this::checkStates, new Random().nextInt(defaultStateCheckIntervalInSec), defaultStateCheckIntervalInSec, TimeUnit.SECONDS);
+        if (inactivityTimerEnabled && inactivityTimerTickMs > 0) {
+            inactivityTimer = new DeviceInactivityTimingWheel(inactivityTimerTickMs, INACTIVITY_TIMER_WHEEL_SIZE);
+            scheduledExecutor.scheduleWithFixedDelay(this::checkExpiredStates, inactivityTimerTickMs, inactivityTimerTickMs, TimeUnit.MILLISECONDS);
+            // only the devices with loaded state are on the timer, the full check loads the rest of the partitioned devices
+            if (inactivityTimerFallbackCheckIntervalInSec > 0) {
+                scheduledExecutor.scheduleWithFixedDelay(this::checkStates, new Random().nextInt(inactivityTimerFallbackCheckIntervalInSec),
+                        inactivityTimerFallbackCheckIntervalInSec, TimeUnit.SECONDS);
+            }
+        } else {
+            scheduledExecutor.scheduleWithFixedDelay(this::checkStates, new Random().nextInt(defaultStateCheckIntervalInSec), defaultStateCheckIntervalInSec, TimeUnit.SECONDS);
+        }
         scheduledExecutor.scheduleWithFixedDelay(this::reportActivityStats, defaultActivityStatsIntervalInSec, defaultActivityStatsIntervalInSec, TimeUnit.SECONDS);
     }
 
@@ -282,6 +308,7 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
                 }
                 onDeviceActivityStatusChange(deviceId, true, stateData);
             }
+            scheduleInactivityCheck(deviceId, stateData);
         } else {
             log.debug("updateActivityState - fetched state IS NULL for device {}, lastReportedActivity {}", deviceId, lastReportedActivity);
             cleanupEntity(deviceId);
@@ -417,6 +444,9 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
 
     private void initializeActivityState(DeviceId deviceId, DeviceStateData fetchedState) {
         DeviceStateData cachedState = deviceStates.putIfAbsent(fetchedState.getDeviceId(), fetchedState);
+        if (cachedState == null) {
+            scheduleInactivityCheck(deviceId, fetchedState);
+        }
         boolean activityState = Objects.requireNonNullElse(cachedState, fetchedState).getState().isActive();
         save(deviceId, ACTIVITY_STATE, activityState);
     }
@@ -500,6 +530,49 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
                 }
             }
         }
+        scheduleInactivityCheck(deviceId, state);
+    }
+
+    void checkExpiredStates() {
+        try {
+            final long ts = getCurrentTimeMillis();
+            inactivityTimer.advance(ts, deviceId -> {
+                DeviceStateData stateData = deviceStates.get(deviceId);
+                if (stateData == null) {
+                    return;
+                }
+                try {
+                    updateInactivityStateIfExpired(ts, deviceId, stateData);
+                    if (deviceStates.get(deviceId) == stateData) {
+                        // the deadline might have been moved by the device activity since the device was scheduled
+                        scheduleInactivityCheck(deviceId, stateData);
+                    }
+                } catch (TenantNotFoundException e) {
+                    partitionedEntities.values().forEach(deviceIds -> deviceIds.remove(deviceId));
+                    cleanupEntity(deviceId);
+                } catch (Exception e) {
+                    log.warn("[{}] Failed to update inactivity state [{}]", deviceId, e.getMessage());
+                }
+            });
+        } catch (Throwable t) {
+            log.warn("Failed to check expired devices states", t);
+        }
+    }
+
+    /*
+     * Schedules the device on the inactivity timer if the expiration of its inactivity deadline would be reported.
+     * It is cheap to call on each activity: a device that is already scheduled for an earlier deadline is left as is
+     * and gets rescheduled when that deadline expires.
+     */
+    private void scheduleInactivityCheck(DeviceId deviceId, DeviceStateData stateData) {
+        if (inactivityTimer == null) {
+            return;
+        }
+        DeviceState state = stateData.getState();
+        if (state.getLastInactivityAlarmTime() == 0L || state.getLastInactivityAlarmTime() <= state.getLastActivityTime()) {
+            long deadline = Math.max(state.getLastActivityTime(), stateData.getDeviceCreationTime()) + state.getInactivityTimeout();
+            inactivityTimer.schedule(deviceId, deadline);
+        }
     }
 
     void checkStates() {
@@ -593,7 +666,11 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
 
     @Nonnull
     DeviceStateData getOrFetchDeviceStateData(DeviceId deviceId) {
-        return deviceStates.computeIfAbsent(deviceId, this::fetchDeviceStateDataUsingSeparateRequests);
+        return deviceStates.computeIfAbsent(deviceId, id -> {
+            DeviceStateData stateData = fetchDeviceStateDataUsingSeparateRequests(id);
+            scheduleInactivityCheck(id, stateData);
+            return stateData;
+        });
     }
 
     DeviceStateData fetchDeviceStateDataUsingSeparateRequests(final DeviceId deviceId) {
@@ -641,6 +718,9 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
 
     private void cleanupEntity(DeviceId deviceId) {
         deviceStates.remove(deviceId);
+        if (inactivityTimer != null) {
+            inactivityTimer.cancel(deviceId);
+        }
     }
 
 
@@ -716,8 +796,19 @@ public class DefaultDeviceStateService extends AbstractPartitionBasedService<Dev
     private List<DeviceStateData> fetchDeviceStateDataUsingSeparateRequests(List<DeviceIdInfo> deviceIds) {
         List<Device> devices = deviceService.findDevicesByIds(deviceIds.stream().map(DeviceIdInfo::getDeviceId).collect(Collectors.toList()));
         List<ListenableFuture<DeviceStateData>> deviceStateFutures = new ArrayList<>();
-        for (Device device : devices) {
-            deviceStateFutures.add(fetchDeviceState(device));
+        if (persistToTelemetry) {
+            Map<EntityId, List<String>> keysByDevice = new HashMap<>();
+            devices.forEach(device -> keysByDevice.put(device.getId(), PERSISTENT_ATTRIBUTES));
+            ListenableFuture<Map<EntityId, List<TsKvEntry>>> tsData = tsService.findLatest(TenantId.SYS_TENANT_ID, keysByDevice);
+            for (Device device : devices) {
+                Function<List<TsKvEntry>, DeviceStateData> extractor = extractDeviceStateData(device);
+                deviceStateFutures.add(transformInactivityTimeout(Futures.transform(tsData,
+                        data -> extractor.apply(data.getOrDefault(device.getId(), Collections.emptyList())), MoreExecutors.directExecutor())));
+            }
+        } else {
+            for (Device device : devices) {
+                deviceStateFutures.add(fetchDeviceState(device));
+            }
         }
         try {
             List<DeviceStateData> result = Futures.successfulAsList(deviceStateFutures).get(5, TimeUnit.MINUTES);
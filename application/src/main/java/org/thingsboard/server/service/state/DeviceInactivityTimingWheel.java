@@ -0,0 +1,130 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.state;
+
+import org.thingsboard.server.common.data.id.DeviceId;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel of device inactivity deadlines.
+ * <p>
+ * Every device is placed at most once, into the bucket of its earliest known deadline.
+ * Scheduling a later deadline for an already scheduled device is a no-op, so device activity costs a single map lookup:
+ * the owner is expected to re-check the device when its entry expires and schedule it again if the deadline has moved.
+ * Deadlines further than one wheel revolution stay in their bucket and are skipped until the corresponding round.
+ */
+class DeviceInactivityTimingWheel {
+
+    private final long tickMs;
+    private final Set<DeviceId>[] buckets;
+    private final ConcurrentMap<DeviceId, Long> deadlines = new ConcurrentHashMap<>();
+    // guards lastTick: a device must not be put into the bucket that is being (or was already) passed by advance()
+    private final ReadWriteLock tickLock = new ReentrantReadWriteLock();
+    private volatile long lastTick = -1;
+
+    @SuppressWarnings("unchecked")
+    DeviceInactivityTimingWheel(long tickMs, int wheelSize) {
+        this.tickMs = tickMs;
+        this.buckets = new Set[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    void schedule(DeviceId deviceId, long ts) {
+        Lock lock = tickLock.readLock();
+        lock.lock();
+        try {
+            // deadlines that are already passed go to the next tick instead of waiting for the next revolution
+            long deadline = Math.max(ts, (lastTick + 1) * tickMs);
+            deadlines.compute(deviceId, (id, current) -> {
+                if (current != null) {
+                    if (current <= deadline) {
+                        return current;
+                    }
+                    bucket(current).remove(id);
+                }
+                bucket(deadline).add(id);
+                return deadline;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void cancel(DeviceId deviceId) {
+        deadlines.computeIfPresent(deviceId, (id, current) -> {
+            bucket(current).remove(id);
+            return null;
+        });
+    }
+
+    /**
+     * Passes to the consumer every device whose deadline is not after the given time, removing it from the wheel.
+     * Not thread-safe, expected to be called periodically by a single thread.
+     */
+    void advance(long ts, Consumer<DeviceId> onExpired) {
+        // only the ticks that are completely passed, so that the processed bucket has no deadlines of the current round left
+        long currentTick = (ts + 1) / tickMs - 1;
+        long fromTick = lastTick < 0 || currentTick - lastTick > buckets.length ? Math.max(0, currentTick - buckets.length + 1) : lastTick + 1;
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            setLastTick(tick);
+            Set<DeviceId> bucket = buckets[(int) (tick % buckets.length)];
+            for (Iterator<DeviceId> it = bucket.iterator(); it.hasNext(); ) {
+                DeviceId deviceId = it.next();
+                boolean[] expired = new boolean[1];
+                deadlines.computeIfPresent(deviceId, (id, deadline) -> {
+                    if (deadline > ts) {
+                        return deadline;
+                    }
+                    bucket.remove(id);
+                    expired[0] = true;
+                    return null;
+                });
+                if (expired[0]) {
+                    onExpired.accept(deviceId);
+                }
+            }
+        }
+    }
+
+    private void setLastTick(long tick) {
+        Lock lock = tickLock.writeLock();
+        lock.lock();
+        try {
+            lastTick = tick;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return deadlines.size();
+    }
+
+    private Set<DeviceId> bucket(long deadline) {
+        return buckets[(int) ((deadline / tickMs) % buckets.length)];
+    }
+
+}
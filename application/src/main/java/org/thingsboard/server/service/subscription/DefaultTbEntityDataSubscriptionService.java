@@ -18,7 +18,6 @@ package org.thingsboard.server.service.subscription;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.MoreExecutors;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.Getter;
@@ -28,12 +27,15 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
 import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.data.alarm.AlarmInfo;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
@@ -47,6 +49,7 @@ import org.thingsboard.server.common.data.query.EntityDataQuery;
 import org.thingsboard.server.common.data.query.EntityKey;
 import org.thingsboard.server.common.data.query.EntityKeyType;
 import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.common.msg.plugin.ComponentLifecycleMsg;
 import org.thingsboard.server.common.msg.tools.TbRateLimitsException;
 import org.thingsboard.server.dao.alarm.AlarmService;
 import org.thingsboard.server.dao.attributes.AttributesService;
@@ -78,6 +81,7 @@ import org.thingsboard.server.service.ws.telemetry.sub.AlarmSubscriptionUpdate;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -138,6 +142,10 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
     private long dynamicPageLinkRefreshInterval;
     @Value("${server.ws.dynamic_page_link.refresh_pool_size:1}")
     private int dynamicPageLinkRefreshPoolSize;
+    @Value("${server.ws.dynamic_page_link.refresh_on_entity_changes:true}")
+    private boolean refreshOnEntityChanges;
+    @Value("${server.ws.dynamic_page_link.forced_refresh_interval:600}")
+    private long dynamicPageLinkForcedRefreshInterval;
     @Value("${server.ws.max_entities_per_data_subscription:1000}")
     private int maxEntitiesPerDataSubscription;
     @Value("${server.ws.max_entities_per_alarm_subscription:1000}")
@@ -475,10 +483,29 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
         return true;
     }
 
+    @EventListener(ComponentLifecycleMsg.class)
+    public void onComponentLifecycleEvent(ComponentLifecycleMsg event) {
+        if (!refreshOnEntityChanges) {
+            return;
+        }
+        TenantId tenantId = event.getTenantId();
+        EntityId entityId = event.getEntityId();
+        subscriptionsBySessionId.values().forEach(sessionSubs -> sessionSubs.values().forEach(ctx -> {
+            if (ctx instanceof TbAbstractEntityQuerySubCtx<?> queryCtx && queryCtx.isDynamic() && tenantId.equals(queryCtx.getTenantId())) {
+                queryCtx.onEntityChange(entityId);
+            }
+        }));
+    }
+
     private void refreshDynamicQuery(TbAbstractEntityQuerySubCtx<?> finalCtx) {
         try {
             if (validate(finalCtx)) {
                 long start = System.currentTimeMillis();
+                if (refreshOnEntityChanges && !finalCtx.checkAndResetRefreshRequired(start, TimeUnit.SECONDS.toMillis(dynamicPageLinkForcedRefreshInterval))) {
+                    log.trace("[{}][{}] Skipping query refresh, no entity changes found", finalCtx.getSessionId(), finalCtx.getCmdId());
+                    stats.getDynamicQuerySkippedCnt().incrementAndGet();
+                    return;
+                }
                 finalCtx.update();
                 long end = System.currentTimeMillis();
                 log.trace("[{}][{}] Executing query: {}", finalCtx.getSessionId(), finalCtx.getCmdId(), finalCtx.getQuery());
@@ -508,13 +535,14 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
         long regularQueryInvocationTimeValue = stats.getRegularQueryTimeSpent().getAndSet(0);
         int dynamicQueryInvocationCntValue = stats.getDynamicQueryInvocationCnt().getAndSet(0);
         long dynamicQueryInvocationTimeValue = stats.getDynamicQueryTimeSpent().getAndSet(0);
+        int dynamicQuerySkippedCntValue = stats.getDynamicQuerySkippedCnt().getAndSet(0);
         long dynamicQueryCnt = subscriptionsBySessionId.values().stream().mapToLong(m -> m.values().stream().filter(TbAbstractSubCtx::isDynamic).count()).sum();
         if (regularQueryInvocationCntValue > 0 || dynamicQueryInvocationCntValue > 0 || dynamicQueryCnt > 0 || alarmQueryInvocationCntValue > 0) {
             log.info("Stats: regularQueryInvocationCnt = [{}], regularQueryInvocationTime = [{}], " +
-                            "dynamicQueryCnt = [{}] dynamicQueryInvocationCnt = [{}], dynamicQueryInvocationTime = [{}], " +
+                            "dynamicQueryCnt = [{}] dynamicQueryInvocationCnt = [{}], dynamicQueryInvocationTime = [{}], dynamicQuerySkippedCnt = [{}], " +
                             "alarmQueryInvocationCnt = [{}], alarmQueryInvocationTime = [{}]",
                     regularQueryInvocationCntValue, regularQueryInvocationTimeValue,
-                    dynamicQueryCnt, dynamicQueryInvocationCntValue, dynamicQueryInvocationTimeValue,
+                    dynamicQueryCnt, dynamicQueryInvocationCntValue, dynamicQueryInvocationTimeValue, dynamicQuerySkippedCntValue,
                     alarmQueryInvocationCntValue, alarmQueryInvocationTimeValue);
         }
     }
@@ -684,7 +712,7 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
                     .filter(key -> key.getType().equals(EntityKeyType.TIME_SERIES))
                     .map(EntityKey::getKey).collect(Collectors.toList());
 
-            Map<EntityData, ListenableFuture<Map<String, TsValue>>> missingTelemetryFutures = new HashMap<>();
+            Map<EntityId, Set<String>> missingTsKeysByEntity = new HashMap<>();
             for (EntityData entityData : ctx.getData().getData()) {
                 Map<EntityKeyType, Map<String, TsValue>> latestEntityData = entityData.getLatest();
                 Map<String, TsValue> tsEntityData = latestEntityData.get(EntityKeyType.TIME_SERIES);
@@ -696,19 +724,25 @@ public class DefaultTbEntityDataSubscriptionService implements TbEntityDataSubsc
                     latestEntityData.put(EntityKeyType.TIME_SERIES, tsEntityData);
                 }
 
-                ListenableFuture<List<TsKvEntry>> missingTsData = tsService.findLatest(ctx.getTenantId(), entityData.getEntityId(), missingTsKeys);
-                missingTelemetryFutures.put(entityData, Futures.transform(missingTsData, this::toTsValue, MoreExecutors.directExecutor()));
+                if (!missingTsKeys.isEmpty()) {
+                    missingTsKeysByEntity.put(entityData.getEntityId(), missingTsKeys);
+                }
             }
-            Futures.addCallback(Futures.allAsList(missingTelemetryFutures.values()), new FutureCallback<>() {
+            // Single bulk lookup for all entities of the page instead of a separate request per entity
+            ListenableFuture<Map<EntityId, List<TsKvEntry>>> missingTsData = tsService.findLatest(ctx.getTenantId(), missingTsKeysByEntity);
+            Futures.addCallback(missingTsData, new FutureCallback<>() {
                 @Override
-                public void onSuccess(@Nullable List<Map<String, TsValue>> result) {
-                    missingTelemetryFutures.forEach((key, value) -> {
-                        try {
-                            key.getLatest().get(EntityKeyType.TIME_SERIES).putAll(value.get());
-                        } catch (InterruptedException | ExecutionException e) {
-                            log.warn("[{}][{}] Failed to lookup latest telemetry: {}:{}", ctx.getSessionId(), ctx.getCmdId(), key.getEntityId(), allTsKeys, e);
+                public void onSuccess(Map<EntityId, List<TsKvEntry>> result) {
+                    long ts = System.currentTimeMillis();
+                    for (EntityData entityData : ctx.getData().getData()) {
+                        Set<String> missingTsKeys = missingTsKeysByEntity.get(entityData.getEntityId());
+                        if (missingTsKeys == null) {
+                            continue;
                         }
-                    });
+                        Map<String, TsValue> tsEntityData = entityData.getLatest().get(EntityKeyType.TIME_SERIES);
+                        Map<String, TsValue> found = toTsValue(result.getOrDefault(entityData.getEntityId(), Collections.emptyList()));
+                        missingTsKeys.forEach(key -> tsEntityData.put(key, found.getOrDefault(key, new TsValue(ts, null))));
+                    }
                     EntityDataUpdate update;
                     ctx.getWsLock().lock();
                     try {
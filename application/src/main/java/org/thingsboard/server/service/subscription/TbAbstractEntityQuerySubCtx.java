@@ -66,6 +66,9 @@ public abstract class TbAbstractEntityQuerySubCtx<T extends EntityCountQuery> ex
     protected T query;
     @Setter
     protected volatile ScheduledFuture<?> refreshTask;
+    private volatile TbEntityQueryChangeFilter changeFilter;
+    private volatile boolean entitiesChanged;
+    private volatile long lastRefreshTs;
 
     public TbAbstractEntityQuerySubCtx(String serviceId, WebSocketService wsService, EntityService entityService, TbLocalSubscriptionService localSubscriptionService,
                                        AttributesService attributesService, SubscriptionServiceStatistics stats, WebSocketSessionRef sessionRef, int cmdId) {
@@ -93,6 +96,10 @@ public abstract class TbAbstractEntityQuerySubCtx<T extends EntityCountQuery> ex
     public void setAndResolveQuery(T query) {
         dynamicValues.clear();
         this.query = query;
+        this.changeFilter = buildChangeFilter(query);
+        // the data is fetched right after the query is set
+        this.entitiesChanged = false;
+        this.lastRefreshTs = System.currentTimeMillis();
         if (query != null && query.getKeyFilters() != null) {
             for (KeyFilter filter : query.getKeyFilters()) {
                 registerDynamicValues(filter.getPredicate());
@@ -151,6 +158,35 @@ public abstract class TbAbstractEntityQuerySubCtx<T extends EntityCountQuery> ex
 
     }
 
+    /**
+     * Returns the filter of entity changes that may affect the query result,
+     * or null if the result may change without any entity lifecycle event and should be refreshed periodically.
+     */
+    protected TbEntityQueryChangeFilter buildChangeFilter(T query) {
+        return null;
+    }
+
+    public void onEntityChange(EntityId entityId) {
+        TbEntityQueryChangeFilter filter = changeFilter;
+        if (filter == null || filter.matches(entityId)) {
+            entitiesChanged = true;
+        }
+    }
+
+    /**
+     * Checks whether the periodic refresh of the dynamic query is needed and resets the entity changes flag if so.
+     * Queries without the change filter are always refreshed,
+     * others only if any matching entity has changed since the last refresh or the forced refresh interval has passed.
+     */
+    public boolean checkAndResetRefreshRequired(long ts, long forcedRefreshIntervalMs) {
+        if (changeFilter != null && !entitiesChanged && (forcedRefreshIntervalMs <= 0 || ts - lastRefreshTs < forcedRefreshIntervalMs)) {
+            return false;
+        }
+        entitiesChanged = false;
+        lastRefreshTs = ts;
+        return true;
+    }
+
     private void dynamicValueSubUpdate(String sessionId, TelemetrySubscriptionUpdate subscriptionUpdate,
                                        Map<String, DynamicValueKeySub> dynamicValueKeySubMap) {
         Map<String, TsValue> latestUpdate = new HashMap<>();
@@ -49,6 +49,11 @@ public class TbEntityCountSubCtx extends TbAbstractEntityQuerySubCtx<EntityCount
         }
     }
 
+    @Override
+    protected TbEntityQueryChangeFilter buildChangeFilter(EntityCountQuery query) {
+        return TbEntityQueryChangeFilter.of(query);
+    }
+
     @Override
     public boolean isDynamic() {
         return true;
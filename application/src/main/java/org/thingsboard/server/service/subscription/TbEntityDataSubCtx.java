@@ -127,7 +127,17 @@ public class TbEntityDataSubCtx extends TbAbstractDataSubCtx<EntityDataQuery> {
         if (!latestUpdate.isEmpty()) {
             Map<EntityKeyType, Map<String, TsValue>> latestMap = Collections.singletonMap(keyType, latestUpdate);
             entityData = new EntityData(entityId, latestMap, null);
-            sendWsMsg(new EntityDataUpdate(cmdId, null, Collections.singletonList(entityData), maxEntitiesPerDataSubscription));
+            sendLatestWsMsg(new EntityDataUpdate(cmdId, null, Collections.singletonList(entityData), maxEntitiesPerDataSubscription));
+        }
+    }
+
+    private void sendLatestWsMsg(EntityDataUpdate update) {
+        boolean conflate = latestValueCmd != null && latestValueCmd.isConflate();
+        wsLock.lock();
+        try {
+            getWsService().sendLatestUpdate(sessionRef.getSessionId(), update, conflate);
+        } finally {
+            wsLock.unlock();
         }
     }
 
@@ -235,6 +245,11 @@ public class TbEntityDataSubCtx extends TbAbstractDataSubCtx<EntityDataQuery> {
         latestValueCmd = cmd.getLatestCmd();
     }
 
+    @Override
+    protected TbEntityQueryChangeFilter buildChangeFilter(EntityDataQuery query) {
+        return TbEntityQueryChangeFilter.of(query);
+    }
+
     @Override
     protected EntityDataQuery buildEntityDataQuery() {
         return query;
@@ -0,0 +1,111 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.subscription;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.query.EntityCountQuery;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityFilter;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityListFilter;
+import org.thingsboard.server.common.data.query.EntityNameFilter;
+import org.thingsboard.server.common.data.query.EntityTypeFilter;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.SingleEntityFilter;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Tells whether a change of the entity may affect the result of the entity query.
+ * <p>
+ * Only the queries that depend solely on the entity fields of the entity types with cluster-wide lifecycle events
+ * (created, updated, deleted) are supported. Queries that use relations, attributes or time series in the filters
+ * or sort order may change without any lifecycle event, so {@link #of(EntityCountQuery)} returns null for them.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+class TbEntityQueryChangeFilter {
+
+    private static final Set<EntityType> SUPPORTED_ENTITY_TYPES = EnumSet.of(EntityType.DEVICE, EntityType.ASSET, EntityType.ENTITY_VIEW);
+
+    private final EntityType entityType;
+    private final Set<UUID> entityIds;
+
+    static TbEntityQueryChangeFilter of(EntityCountQuery query) {
+        if (query == null || query.getEntityFilter() == null) {
+            return null;
+        }
+        if (query.getKeyFilters() != null) {
+            for (KeyFilter keyFilter : query.getKeyFilters()) {
+                if (!isEntityField(keyFilter.getKey())) {
+                    return null;
+                }
+            }
+        }
+        if (query instanceof EntityDataQuery dataQuery && dataQuery.getPageLink() != null) {
+            EntityDataSortOrder sortOrder = dataQuery.getPageLink().getSortOrder();
+            if (sortOrder != null && sortOrder.getKey() != null && !isEntityField(sortOrder.getKey())) {
+                return null;
+            }
+        }
+        TbEntityQueryChangeFilter filter = of(query.getEntityFilter());
+        return filter != null && SUPPORTED_ENTITY_TYPES.contains(filter.entityType) ? filter : null;
+    }
+
+    private static TbEntityQueryChangeFilter of(EntityFilter entityFilter) {
+        return switch (entityFilter.getType()) {
+            case SINGLE_ENTITY -> {
+                EntityId entityId = ((SingleEntityFilter) entityFilter).getSingleEntity();
+                yield entityId != null ? new TbEntityQueryChangeFilter(entityId.getEntityType(), Collections.singleton(entityId.getId())) : null;
+            }
+            case ENTITY_LIST -> {
+                EntityListFilter listFilter = (EntityListFilter) entityFilter;
+                if (listFilter.getEntityType() == null || listFilter.getEntityList() == null) {
+                    yield null;
+                }
+                try {
+                    yield new TbEntityQueryChangeFilter(listFilter.getEntityType(),
+                            listFilter.getEntityList().stream().map(UUID::fromString).collect(Collectors.toSet()));
+                } catch (IllegalArgumentException e) {
+                    yield null;
+                }
+            }
+            case ENTITY_TYPE -> new TbEntityQueryChangeFilter(((EntityTypeFilter) entityFilter).getEntityType(), null);
+            case ENTITY_NAME -> new TbEntityQueryChangeFilter(((EntityNameFilter) entityFilter).getEntityType(), null);
+            case DEVICE_TYPE -> new TbEntityQueryChangeFilter(EntityType.DEVICE, null);
+            case ASSET_TYPE -> new TbEntityQueryChangeFilter(EntityType.ASSET, null);
+            case ENTITY_VIEW_TYPE -> new TbEntityQueryChangeFilter(EntityType.ENTITY_VIEW, null);
+            default -> null;
+        };
+    }
+
+    private static boolean isEntityField(EntityKey key) {
+        return key != null && key.getType() == EntityKeyType.ENTITY_FIELD;
+    }
+
+    boolean matches(EntityId entityId) {
+        return entityType == entityId.getEntityType() && (entityIds == null || entityIds.contains(entityId.getId()));
+    }
+
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.telemetry;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.timeseries.TimeseriesService;
+import org.thingsboard.server.queue.util.TbCoreComponent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reads every (entity, key) series page by page using the timestamp of the last returned
+ * entry as the cursor of the next page. Each page is a regular ascending raw query, so it is
+ * served by the partition cursor of the Cassandra DAO and by an index range scan in SQL,
+ * while only one page is kept in memory and no connection is held open between pages.
+ */
+@Slf4j
+@Service
+@TbCoreComponent
+@RequiredArgsConstructor
+public class DefaultTimeseriesExportService implements TimeseriesExportService {
+
+    private static final String CSV_HEADER = "entityType,entityId,key,ts,value";
+
+    private final TimeseriesService tsService;
+
+    @Value("${server.rest.timeseries_export.page_size:1000}")
+    private int pageSize;
+
+    @Override
+    public void export(TenantId tenantId, List<EntityId> entityIds, List<String> keys, long startTs, long endTs,
+                       TimeseriesExportFormat format, boolean useStrictDataTypes, OutputStream out) throws IOException {
+        try (ExportWriter writer = format == TimeseriesExportFormat.CSV ? new CsvExportWriter(out) : new JsonExportWriter(out, useStrictDataTypes)) {
+            for (EntityId entityId : entityIds) {
+                writer.startEntity(entityId);
+                for (String key : keys) {
+                    writer.startKey(key);
+                    exportSeries(tenantId, entityId, key, startTs, endTs, writer);
+                    writer.endKey();
+                }
+                writer.endEntity();
+            }
+            writer.finish();
+        }
+    }
+
+    private void exportSeries(TenantId tenantId, EntityId entityId, String key, long startTs, long endTs, ExportWriter writer) throws IOException {
+        long cursor = startTs;
+        while (cursor < endTs) {
+            List<TsKvEntry> page = fetchPage(tenantId, entityId, key, cursor, endTs);
+            for (TsKvEntry entry : page) {
+                writer.write(entry);
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            cursor = page.get(page.size() - 1).getTs() + 1;
+        }
+    }
+
+    private List<TsKvEntry> fetchPage(TenantId tenantId, EntityId entityId, String key, long startTs, long endTs) throws IOException {
+        try {
+            return tsService.findAll(tenantId, entityId, List.of(new BaseReadTsKvQuery(key, startTs, endTs, pageSize, "ASC"))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Time series export was interrupted", e);
+        } catch (ExecutionException e) {
+            log.warn("[{}][{}] Failed to fetch time series [{}] for export", tenantId, entityId, key, e.getCause());
+            throw new IOException("Failed to fetch time series for export", e.getCause());
+        }
+    }
+
+    private interface ExportWriter extends AutoCloseable {
+
+        void startEntity(EntityId entityId) throws IOException;
+
+        void startKey(String key) throws IOException;
+
+        void write(TsKvEntry entry) throws IOException;
+
+        void endKey() throws IOException;
+
+        void endEntity() throws IOException;
+
+        void finish() throws IOException;
+
+        @Override
+        void close() throws IOException;
+
+    }
+
+    private static class CsvExportWriter implements ExportWriter {
+
+        private final Writer writer;
+        private String entityPrefix;
+        private String keyPrefix;
+
+        CsvExportWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void startEntity(EntityId entityId) {
+            entityPrefix = entityId.getEntityType().name() + ',' + entityId.getId() + ',';
+        }
+
+        @Override
+        public void startKey(String key) {
+            keyPrefix = entityPrefix + escape(key) + ',';
+        }
+
+        @Override
+        public void write(TsKvEntry entry) throws IOException {
+            writer.write(keyPrefix);
+            writer.write(Long.toString(entry.getTs()));
+            writer.write(',');
+            writer.write(escape(entry.getValueAsString()));
+            writer.write('\n');
+        }
+
+        @Override
+        public void endKey() {
+        }
+
+        @Override
+        public void endEntity() {
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+    }
+
+    private static class JsonExportWriter implements ExportWriter {
+
+        private final JsonGenerator generator;
+        private final boolean useStrictDataTypes;
+
+        JsonExportWriter(OutputStream out, boolean useStrictDataTypes) throws IOException {
+            this.generator = JacksonUtil.OBJECT_MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            this.useStrictDataTypes = useStrictDataTypes;
+            generator.writeStartArray();
+        }
+
+        @Override
+        public void startEntity(EntityId entityId) throws IOException {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("entityId");
+            generator.writeStringField("entityType", entityId.getEntityType().name());
+            generator.writeStringField("id", entityId.getId().toString());
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("timeseries");
+        }
+
+        @Override
+        public void startKey(String key) throws IOException {
+            generator.writeArrayFieldStart(key);
+        }
+
+        @Override
+        public void write(TsKvEntry entry) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("ts", entry.getTs());
+            generator.writeFieldName("value");
+            if (!useStrictDataTypes) {
+                generator.writeString(entry.getValueAsString());
+            } else {
+                switch (entry.getDataType()) {
+                    case BOOLEAN -> generator.writeBoolean(entry.getBooleanValue().get());
+                    case LONG -> generator.writeNumber(entry.getLongValue().get());
+                    case DOUBLE -> generator.writeNumber(entry.getDoubleValue().get());
+                    case JSON -> generator.writeTree(JacksonUtil.toJsonNode(entry.getJsonValue().get()));
+                    default -> generator.writeString(entry.getValueAsString());
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void endKey() throws IOException {
+            generator.writeEndArray();
+        }
+
+        @Override
+        public void endEntity() throws IOException {
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeEndArray();
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+
+    }
+
+}
@@ -31,7 +31,6 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
-import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.server.common.data.AttributeScope;
 import org.thingsboard.server.common.data.StringUtils;
@@ -135,6 +134,7 @@ public class DefaultWebSocketService implements WebSocketService {
     private final TimeseriesService tsService;
     private final TbServiceInfoProvider serviceInfoProvider;
     private final TbTenantProfileCache tenantProfileCache;
+    private final WsUpdateSerializer updateSerializer;
 
     @Value("${server.ws.ping_timeout:30000}")
     private long pingTimeout;
@@ -279,6 +279,33 @@ public class DefaultWebSocketService implements WebSocketService {
         doSendUpdate(sessionId, update.getCmdId(), update);
     }
 
+    @Override
+    public void sendLatestUpdate(String sessionId, EntityDataUpdate update, boolean conflate) {
+        WsSessionMetaData md = wsSessionsMap.get(sessionId);
+        if (md == null) {
+            return;
+        }
+        WebSocketSessionRef sessionRef = md.getSessionRef();
+        if (conflate) {
+            // serialization is postponed until the session is ready to send, so pending updates can be merged
+            executor.submit(() -> {
+                try {
+                    msgEndpoint.sendConflated(sessionRef, update);
+                } catch (IOException e) {
+                    log.warn("[{}] Failed to send reply: {}", sessionRef.getSessionId(), update, e);
+                }
+            });
+        } else if (sessionRef.isBinary()) {
+            sendUpdate(sessionRef, update.getCmdId(), update);
+        } else {
+            try {
+                sendMsg(sessionRef, update.getCmdId(), updateSerializer.serializeLatest(update));
+            } catch (JsonProcessingException e) {
+                log.warn("[{}] Failed to encode reply: {}", sessionRef.getSessionId(), update, e);
+            }
+        }
+    }
+
     @Override
     public void sendError(WebSocketSessionRef sessionRef, int subId, SubscriptionErrorCode errorCode, String errorMsg) {
         TelemetrySubscriptionUpdate update = new TelemetrySubscriptionUpdate(subId, errorCode, errorMsg);
@@ -855,20 +882,34 @@ public class DefaultWebSocketService implements WebSocketService {
     }
 
     private void sendUpdate(WebSocketSessionRef sessionRef, int cmdId, Object update) {
-        try {
-            String msg = JacksonUtil.OBJECT_MAPPER.writeValueAsString(update);
+        if (sessionRef.isBinary()) {
+            // binary updates are encoded when the session is ready to send, since they refer to the session key dictionary
             executor.submit(() -> {
                 try {
-                    msgEndpoint.send(sessionRef, cmdId, msg);
+                    msgEndpoint.sendBinary(sessionRef, cmdId, update);
                 } catch (IOException e) {
                     log.warn("[{}] Failed to send reply: {}", sessionRef.getSessionId(), update, e);
                 }
             });
+            return;
+        }
+        try {
+            sendMsg(sessionRef, cmdId, updateSerializer.serialize(update));
         } catch (JsonProcessingException e) {
             log.warn("[{}] Failed to encode reply: {}", sessionRef.getSessionId(), update, e);
         }
     }
 
+    private void sendMsg(WebSocketSessionRef sessionRef, int cmdId, String msg) {
+        executor.submit(() -> {
+            try {
+                msgEndpoint.send(sessionRef, cmdId, msg);
+            } catch (IOException e) {
+                log.warn("[{}] Failed to send reply: {}", sessionRef.getSessionId(), msg, e);
+            }
+        });
+    }
+
     private void sendPing() {
         long currentTime = System.currentTimeMillis();
         wsSessionsMap.values().forEach(md ->
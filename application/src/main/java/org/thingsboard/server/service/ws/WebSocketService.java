@@ -19,6 +19,7 @@ import org.springframework.web.socket.CloseStatus;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.service.subscription.SubscriptionErrorCode;
 import org.thingsboard.server.service.ws.telemetry.cmd.v2.CmdUpdate;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
 import org.thingsboard.server.service.ws.telemetry.sub.TelemetrySubscriptionUpdate;
 
 /**
@@ -34,6 +35,8 @@ public interface WebSocketService {
 
     void sendUpdate(String sessionId, CmdUpdate update);
 
+    void sendLatestUpdate(String sessionId, EntityDataUpdate update, boolean conflate);
+
     void sendError(WebSocketSessionRef sessionRef, int subId, SubscriptionErrorCode errorCode, String errorMsg);
 
     void close(String sessionId, CloseStatus status);
@@ -0,0 +1,224 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.ws;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
+import org.thingsboard.server.service.ws.telemetry.sub.TelemetrySubscriptionUpdate;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec of the binary WebSocket protocol negotiated with the {@link #SUB_PROTOCOL} subprotocol.
+ * <p>
+ * Commands are sent by the client as CBOR documents with the same structure as the JSON commands.
+ * Updates are sent as CBOR documents with the same structure as the JSON updates, except for
+ * {@link EntityDataUpdate} and {@link TelemetrySubscriptionUpdate}, which are encoded compactly:
+ * <ul>
+ *     <li>telemetry key names are replaced with the ids of the per-session key dictionary. The dictionary entries
+ *     that are used for the first time are sent in the {@code keys} map ({@code id -> name}) of the same update.
+ *     When the dictionary grows over {@link #MAX_DICTIONARY_SIZE} keys, it is reset and the update has {@code keysReset} flag set;</li>
+ *     <li>values are sent as {@code [ts, value]} or {@code [ts, value, count]} arrays instead of objects;</li>
+ *     <li>timestamps are delta encoded: the latest value ts and the first ts of a series are relative to {@code baseTs}
+ *     of the update, other series timestamps are relative to the previous timestamp of the same series;</li>
+ *     <li>the {@code latestValues} of {@link TelemetrySubscriptionUpdate} are omitted, since they are derived from the data.</li>
+ * </ul>
+ * The codec is stateful and is not thread safe: the updates of a session must be encoded in the order they are sent.
+ */
+public class WsCborCodec {
+
+    public static final String SUB_PROTOCOL = "tb-cbor";
+    static final int MAX_DICTIONARY_SIZE = 10000;
+
+    private static final CBORMapper CBOR_MAPPER = new CBORMapper();
+    private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
+
+    private final Map<String, Integer> keyIds = new HashMap<>();
+
+    public static String decodeCmd(byte[] payload) throws IOException {
+        return JacksonUtil.toString(CBOR_MAPPER.readTree(payload));
+    }
+
+    public byte[] encode(Object update) throws IOException {
+        JsonNode node;
+        if (update instanceof EntityDataUpdate entityDataUpdate) {
+            node = encodeEntityDataUpdate(entityDataUpdate);
+        } else if (update instanceof TelemetrySubscriptionUpdate telemetryUpdate) {
+            node = encodeTelemetryUpdate(telemetryUpdate);
+        } else {
+            node = JacksonUtil.valueToTree(update);
+        }
+        return CBOR_MAPPER.writeValueAsBytes(node);
+    }
+
+    private ObjectNode encodeEntityDataUpdate(EntityDataUpdate update) {
+        EncodingCtx ctx = newCtx();
+        ObjectNode node = NODE_FACTORY.objectNode();
+        node.put("cmdId", update.getCmdId());
+        node.put("cmdUpdateType", update.getCmdUpdateType().name());
+        node.put("errorCode", update.getErrorCode());
+        node.put("errorMsg", update.getErrorMsg());
+        node.put("allowedEntities", update.getAllowedEntities());
+        PageData<EntityData> data = update.getData();
+        if (data != null) {
+            ObjectNode pageNode = node.putObject("data");
+            pageNode.set("data", encodeEntities(ctx, data.getData()));
+            pageNode.put("totalPages", data.getTotalPages());
+            pageNode.put("totalElements", data.getTotalElements());
+            pageNode.put("hasNext", data.hasNext());
+        }
+        if (update.getUpdate() != null) {
+            node.set("update", encodeEntities(ctx, update.getUpdate()));
+        }
+        return ctx.complete(node);
+    }
+
+    private ArrayNode encodeEntities(EncodingCtx ctx, List<EntityData> entities) {
+        ArrayNode entitiesNode = NODE_FACTORY.arrayNode(entities.size());
+        for (EntityData entityData : entities) {
+            ObjectNode entityNode = entitiesNode.addObject();
+            entityNode.set("entityId", JacksonUtil.valueToTree(entityData.getEntityId()));
+            if (entityData.getLatest() != null) {
+                ObjectNode latestNode = entityNode.putObject("latest");
+                entityData.getLatest().forEach((keyType, values) -> {
+                    ObjectNode valuesNode = latestNode.putObject(keyType.name());
+                    values.forEach((key, value) -> {
+                        ArrayNode valueNode = valuesNode.putArray(ctx.keyId(key));
+                        valueNode.add(value.getTs() - ctx.baseTs(value.getTs()));
+                        addValue(valueNode, value);
+                    });
+                });
+            }
+            if (entityData.getTimeseries() != null) {
+                ObjectNode tsNode = entityNode.putObject("timeseries");
+                entityData.getTimeseries().forEach((key, values) -> {
+                    ArrayNode seriesNode = tsNode.putArray(ctx.keyId(key));
+                    long prevTs = values.length > 0 ? ctx.baseTs(values[0].getTs()) : 0;
+                    for (TsValue value : values) {
+                        ArrayNode valueNode = seriesNode.addArray();
+                        valueNode.add(value.getTs() - prevTs);
+                        addValue(valueNode, value);
+                        prevTs = value.getTs();
+                    }
+                });
+            }
+            if (entityData.getAggLatest() != null) {
+                entityNode.set("aggLatest", JacksonUtil.valueToTree(entityData.getAggLatest()));
+            }
+        }
+        return entitiesNode;
+    }
+
+    private static void addValue(ArrayNode valueNode, TsValue value) {
+        valueNode.add(value.getValue());
+        if (value.getCount() != null) {
+            valueNode.add(value.getCount());
+        }
+    }
+
+    private ObjectNode encodeTelemetryUpdate(TelemetrySubscriptionUpdate update) {
+        EncodingCtx ctx = newCtx();
+        ObjectNode node = NODE_FACTORY.objectNode();
+        node.put("subscriptionId", update.getSubscriptionId());
+        node.put("errorCode", update.getErrorCode());
+        node.put("errorMsg", update.getErrorMsg());
+        Map<String, List<Object>> data = update.getData();
+        if (data != null) {
+            ObjectNode dataNode = node.putObject("data");
+            data.forEach((key, values) -> {
+                ArrayNode seriesNode = dataNode.putArray(ctx.keyId(key));
+                long prevTs = 0;
+                for (int i = 0; i < values.size(); i++) {
+                    Object[] value = (Object[]) values.get(i);
+                    long ts = (long) value[0];
+                    if (i == 0) {
+                        prevTs = ctx.baseTs(ts);
+                    }
+                    ArrayNode valueNode = seriesNode.addArray();
+                    valueNode.add(ts - prevTs);
+                    valueNode.add(JacksonUtil.valueToTree(value[1]));
+                    prevTs = ts;
+                }
+            });
+        }
+        return ctx.complete(node);
+    }
+
+    private EncodingCtx newCtx() {
+        boolean keysReset = keyIds.size() >= MAX_DICTIONARY_SIZE;
+        if (keysReset) {
+            keyIds.clear();
+        }
+        return new EncodingCtx(keysReset);
+    }
+
+    private class EncodingCtx {
+
+        private final boolean keysReset;
+        private ObjectNode newKeys;
+        private Long baseTs;
+
+        EncodingCtx(boolean keysReset) {
+            this.keysReset = keysReset;
+        }
+
+        String keyId(String key) {
+            Integer id = keyIds.get(key);
+            if (id == null) {
+                id = keyIds.size();
+                keyIds.put(key, id);
+                if (newKeys == null) {
+                    newKeys = NODE_FACTORY.objectNode();
+                }
+                newKeys.put(id.toString(), key);
+            }
+            return id.toString();
+        }
+
+        long baseTs(long ts) {
+            if (baseTs == null) {
+                baseTs = ts;
+            }
+            return baseTs;
+        }
+
+        ObjectNode complete(ObjectNode node) {
+            if (keysReset) {
+                node.put("keysReset", true);
+            }
+            if (newKeys != null) {
+                node.set("keys", newKeys);
+            }
+            if (baseTs != null) {
+                node.put("baseTs", baseTs);
+            }
+            return node;
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.ws;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.queue.util.TbCoreComponent;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.CmdUpdateType;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the WebSocket updates. The JSON of the latest values updates is cached by the entity data value,
+ * so that an identical update delivered to many sessions subscribed to the same entity is serialized only once.
+ */
+@Component
+@TbCoreComponent
+public class WsUpdateSerializer {
+
+    @Value("${server.ws.shared_serialization.cache_size:10000}")
+    private int cacheSize;
+    @Value("${server.ws.shared_serialization.cache_ttl_ms:5000}")
+    private long cacheTtlMs;
+
+    private Cache<EntityData, String> entityDataCache;
+
+    @PostConstruct
+    public void init() {
+        if (cacheSize > 0) {
+            entityDataCache = Caffeine.newBuilder()
+                    .maximumSize(cacheSize)
+                    .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+    }
+
+    public String serialize(Object update) throws JsonProcessingException {
+        return JacksonUtil.OBJECT_MAPPER.writeValueAsString(update);
+    }
+
+    /**
+     * Serializes the update that carries the latest values of entities. The entity data of such an update must not be
+     * modified after it was passed here, since it is used as a key of the shared serialization cache.
+     */
+    public String serializeLatest(EntityDataUpdate update) throws JsonProcessingException {
+        List<EntityData> entities = update.getUpdate();
+        if (entityDataCache == null || update.getData() != null || entities == null || update.getErrorMsg() != null) {
+            return serialize(update);
+        }
+        StringBuilder json = new StringBuilder(256)
+                .append("{\"cmdId\":").append(update.getCmdId())
+                .append(",\"errorCode\":").append(update.getErrorCode())
+                .append(",\"errorMsg\":null,\"data\":null,\"update\":[");
+        for (int i = 0; i < entities.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(serializeEntityData(entities.get(i)));
+        }
+        return json.append("],\"allowedEntities\":").append(update.getAllowedEntities())
+                .append(",\"cmdUpdateType\":\"").append(CmdUpdateType.ENTITY_DATA.name()).append("\"}")
+                .toString();
+    }
+
+    private String serializeEntityData(EntityData entityData) throws JsonProcessingException {
+        String json = entityDataCache.getIfPresent(entityData);
+        if (json == null) {
+            json = JacksonUtil.OBJECT_MAPPER.writeValueAsString(entityData);
+            entityDataCache.put(entityData, json);
+        }
+        return json;
+    }
+
+}
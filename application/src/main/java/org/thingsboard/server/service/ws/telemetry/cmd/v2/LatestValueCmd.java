@@ -24,5 +24,10 @@ import java.util.List;
 public class LatestValueCmd {
 
     private List<EntityKey> keys;
+    /**
+     * When enabled, updates that are still pending delivery to a slow client are merged per entity and key,
+     * so that only the most recent values are sent instead of every intermediate update.
+     */
+    private boolean conflate;
 
 }
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.controller.plugin;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.websocket.RemoteEndpoint;
 import jakarta.websocket.SendHandler;
 import jakarta.websocket.SendResult;
@@ -27,14 +28,25 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.TsValue;
 import org.thingsboard.server.service.ws.WebSocketSessionRef;
+import org.thingsboard.server.service.ws.WsUpdateSerializer;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
@@ -184,4 +196,34 @@ class TbWebSocketHandlerTest {
         assertThat(msgs).map(Integer::parseInt).doesNotHaveDuplicates().hasSize(100);
     }
 
+    @Test
+    void sendHandler_sendConflatedMsg_mergesPendingUpdates() {
+        ReflectionTestUtils.setField(wsHandler, "updateSerializer", new WsUpdateSerializer());
+        List<String> outputs = new ArrayList<>();
+        willAnswer(invocation -> outputs.add(invocation.getArgument(0))).given(asyncRemote).sendText(anyString(), any());
+        sendHandler.sendMsg("first message to stay in-flight until the updates are merged");
+
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        for (int i = 1; i <= maxMsgQueuePerSession * 2; i++) {
+            sendHandler.sendConflatedMsg(createLatestUpdate(deviceId, "temperature", i));
+        }
+        sendHandler.sendConflatedMsg(createLatestUpdate(deviceId, "humidity", 5));
+        sendHandler.onResult(new SendResult());
+
+        verify(sendHandler, never()).closeSession(any());
+        assertThat(outputs).hasSize(2);
+        JsonNode latest = JacksonUtil.toJsonNode(outputs.get(1)).get("update").get(0).get("latest").get(EntityKeyType.TIME_SERIES.name());
+        assertThat(latest.get("temperature").get("ts").asLong()).isEqualTo(maxMsgQueuePerSession * 2);
+        assertThat(latest.get("humidity").get("ts").asLong()).isEqualTo(5);
+
+        sendHandler.sendConflatedMsg(createLatestUpdate(deviceId, "temperature", 1000));
+        sendHandler.onResult(new SendResult());
+        assertThat(outputs).hasSize(3);
+    }
+
+    private EntityDataUpdate createLatestUpdate(DeviceId deviceId, String key, long ts) {
+        Map<EntityKeyType, Map<String, TsValue>> latest = Map.of(EntityKeyType.TIME_SERIES, Map.of(key, new TsValue(ts, String.valueOf(ts))));
+        return new EntityDataUpdate(1, null, List.of(new EntityData(deviceId, latest, null)), 100);
+    }
+
 }
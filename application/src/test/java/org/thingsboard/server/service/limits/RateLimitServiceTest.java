@@ -23,6 +23,7 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.thingsboard.server.cache.limits.DefaultRateLimitService;
 import org.thingsboard.server.cache.limits.RateLimitService;
+import org.thingsboard.server.cache.limits.TbRateLimitsFactory;
 import org.thingsboard.server.common.data.TenantProfile;
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.NotificationRuleId;
@@ -51,7 +52,8 @@ public class RateLimitServiceTest {
     @BeforeEach
     public void beforeEach() {
         tenantProfileCache = Mockito.mock(DefaultTbTenantProfileCache.class);
-        rateLimitService = new DefaultRateLimitService(tenantProfileCache, mock(NotificationRuleProcessor.class), 60, 100);
+        rateLimitService = new DefaultRateLimitService(tenantProfileCache, mock(NotificationRuleProcessor.class),
+                new TbRateLimitsFactory(null, 0, 0), 60, 100);
         tenantId = new TenantId(UUID.randomUUID());
     }
 
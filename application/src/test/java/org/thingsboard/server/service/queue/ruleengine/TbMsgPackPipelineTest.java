@@ -0,0 +1,84 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.ruleengine;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.TbQueueConsumerPosition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TbMsgPackPipelineTest {
+
+    private final TbQueueConsumer<?> consumer = mock(TbQueueConsumer.class);
+    private final TbMsgPackPipeline pipeline = new TbMsgPackPipeline(consumer, 3);
+
+    @Test
+    public void givenPacksCompletedOutOfOrder_thenCommitUpToWatermark() throws Exception {
+        TbQueueConsumerPosition position1 = mock(TbQueueConsumerPosition.class);
+        TbQueueConsumerPosition position2 = mock(TbQueueConsumerPosition.class);
+        TbQueueConsumerPosition position3 = mock(TbQueueConsumerPosition.class);
+        var pack1 = pipeline.start(position1, 0);
+        var pack2 = pipeline.start(position2, 0);
+        var pack3 = pipeline.start(position3, 0);
+
+        pipeline.complete(pack3, true);
+        pipeline.complete(pack2, true);
+        verify(consumer, never()).commit(any());
+
+        pipeline.complete(pack1, true);
+        verify(consumer).commit(position3);
+        verify(consumer, never()).commit(position1);
+        verify(consumer, never()).commit(position2);
+    }
+
+    @Test
+    public void givenNoFreeSlots_thenStartReturnsNullUntilPackCompleted() throws Exception {
+        var pack1 = pipeline.start(mock(TbQueueConsumerPosition.class), 0);
+        pipeline.start(mock(TbQueueConsumerPosition.class), 0);
+        pipeline.start(mock(TbQueueConsumerPosition.class), 0);
+        assertThat(pipeline.start(mock(TbQueueConsumerPosition.class), 10)).isNull();
+        assertThat(pipeline.awaitCompletion(10)).isFalse();
+
+        pipeline.complete(pack1, true);
+        assertThat(pipeline.start(mock(TbQueueConsumerPosition.class), 10)).isNotNull();
+    }
+
+    @Test
+    public void givenNotProcessedPack_thenWatermarkStopsBeforeIt() throws Exception {
+        TbQueueConsumerPosition position1 = mock(TbQueueConsumerPosition.class);
+        TbQueueConsumerPosition position3 = mock(TbQueueConsumerPosition.class);
+        var pack1 = pipeline.start(position1, 0);
+        var pack2 = pipeline.start(mock(TbQueueConsumerPosition.class), 0);
+        var pack3 = pipeline.start(position3, 0);
+
+        pipeline.complete(pack1, true);
+        pipeline.complete(pack2, false);
+        pipeline.complete(pack3, true);
+
+        InOrder inOrder = inOrder(consumer);
+        inOrder.verify(consumer).commit(position1);
+        inOrder.verify(consumer, never()).commit(any());
+        assertThat(pipeline.awaitCompletion(0)).isTrue();
+    }
+
+}
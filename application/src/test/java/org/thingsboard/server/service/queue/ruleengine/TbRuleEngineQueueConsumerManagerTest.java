@@ -45,10 +45,12 @@ import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
 import org.thingsboard.server.queue.TbQueueAdmin;
+import org.thingsboard.server.queue.TbQueueConsumerPosition;
 import org.thingsboard.server.queue.TbQueueProducer;
 import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
 import org.thingsboard.server.queue.common.TbProtoQueueMsg;
@@ -76,6 +78,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -621,6 +624,37 @@ public class TbRuleEngineQueueConsumerManagerTest {
         });
     }
 
+    @Test
+    public void testPipelinedProcessing_slowMsgDoesNotBlockNextPacksButHoldsCommit() {
+        ruleEngineConsumerContext.setMaxPacksInFlight(3);
+        AtomicReference<TbMsgCallback> slowMsgCallback = new AtomicReference<>();
+        doAnswer(inv -> {
+            QueueToRuleEngineMsg msg = inv.getArgument(0);
+            if (!slowMsgCallback.compareAndSet(null, msg.getMsg().getCallback())) {
+                msg.getMsg().getCallback().onSuccess();
+                totalProcessedMsgs.incrementAndGet();
+            }
+            return null;
+        }).when(actorContext).tell(any());
+        queue.setConsumerPerPartition(true);
+        queue.setPackProcessingTimeout(10000);
+        consumerManager.init(queue);
+        consumerManager.update(createTpis(1));
+        TestConsumer consumer = getConsumer(1);
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> totalProcessedMsgs.get() >= 3);
+        verify(consumer, never()).doCommit(any(TbQueueConsumerPosition.class));
+        verify(consumer, never()).doCommit();
+
+        slowMsgCallback.get().onSuccess();
+        totalProcessedMsgs.incrementAndGet();
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> verify(consumer, atLeastOnce()).doCommit(any(TbQueueConsumerPosition.class)));
+        verify(consumer, never()).doCommit();
+    }
+
     private void verifySubscribedAndLaunched(TestConsumer consumer, Set<TopicPartitionInfo> expectedPartitions) {
         await().atMost(2, TimeUnit.SECONDS)
                 .until(() -> consumer.subscribed && consumer.getPartitions().equals(expectedPartitions) && consumer.pollingStarted);
@@ -710,6 +744,8 @@ public class TbRuleEngineQueueConsumerManagerTest {
         private boolean pollingStarted;
 
         private TbMsg testMsg;
+        private int polledMsgs;
+        private int committedMsgs;
 
         public TestConsumer(String topic) {
             super(topic);
@@ -725,6 +761,7 @@ public class TbRuleEngineQueueConsumerManagerTest {
             pollingStarted = true;
             if (testMsg != null && RandomUtils.nextBoolean()) {
                 Thread.sleep(100);
+                polledMsgs++;
                 return List.of(testMsg);
             }
             return Collections.emptyList();
@@ -754,7 +791,24 @@ public class TbRuleEngineQueueConsumerManagerTest {
             if (!subscribed) {
                 throw new IllegalStateException("Cannot commit because not subscribed");
             }
-            log.debug("doCommit() totalConsumedMsgs = {}", totalConsumedMsgs.incrementAndGet());
+            log.debug("doCommit() totalConsumedMsgs = {}", totalConsumedMsgs.addAndGet(polledMsgs - committedMsgs));
+            committedMsgs = polledMsgs;
+        }
+
+        @Override
+        protected TbQueueConsumerPosition doGetPosition() {
+            return new TestConsumerPosition(polledMsgs);
+        }
+
+        @Override
+        protected void doCommit(TbQueueConsumerPosition position) {
+            if (!subscribed) {
+                throw new IllegalStateException("Cannot commit because not subscribed");
+            }
+            int committed = ((TestConsumerPosition) position).polledMsgs;
+            assertThat(committed).isGreaterThan(committedMsgs);
+            log.debug("doCommit({}) totalConsumedMsgs = {}", committed, totalConsumedMsgs.addAndGet(committed - committedMsgs));
+            committedMsgs = committed;
         }
 
         @Override
@@ -791,4 +845,6 @@ public class TbRuleEngineQueueConsumerManagerTest {
         }
     }
 
+    record TestConsumerPosition(int polledMsgs) implements TbQueueConsumerPosition {}
+
 }
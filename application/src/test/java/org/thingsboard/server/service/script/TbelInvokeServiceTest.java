@@ -17,6 +17,7 @@ package org.thingsboard.server.service.script;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.jupiter.api.Test;
@@ -24,7 +25,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.script.api.tbel.TbelCompiledScript;
 import org.thingsboard.script.api.tbel.TbelScript;
+import org.thingsboard.server.common.data.id.TenantId;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -34,16 +37,19 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_REQUEST;
 
 @TestPropertySource(properties = {
         "tbel.max_script_body_size=100",
         "tbel.max_total_args_size=50",
         "tbel.max_result_size=50",
         "tbel.max_errors=2",
-        "tbel.compiled_scripts_cache_size=100"
+        "tbel.compiled_scripts_cache_size=100",
+        "tbel.max_requests_timeout=500"
 })
 class TbelInvokeServiceTest extends AbstractTbelInvokeTest {
 
@@ -195,6 +201,61 @@ class TbelInvokeServiceTest extends AbstractTbelInvokeTest {
         assertThat(compiledScriptsCache.getIfPresent(scriptIdToHash.get(scriptRemovedFromCache))).isNotNull();
     }
 
+    @Test
+    void givenCompiledScript_whenInvokedSynchronously_thenReturnCompletedFuture() throws Exception {
+        UUID scriptId = evalScript("return msg.temperature > 20;");
+        TbelCompiledScript compiledScript = invokeService.getCompiledScript(scriptId);
+        assertThat(compiledScript).isNotNull();
+
+        for (int i = 15; i < 25; i++) {
+            var future = invokeCompiledScript(compiledScript, "{\"temperature\":" + i + "}");
+            assertThat(future.isDone()).isTrue();
+            assertThat(future.get()).isEqualTo(i > 20);
+        }
+    }
+
+    @Test
+    void whenCompiledScriptInvocationResultIsTooBig_thenReturnErrorAndReportScriptExecutionError() throws Exception {
+        UUID scriptId = evalScript("var s = 'a'; for(int i=0; i<50; i++){ s +='a';} return { s: s};");
+        TbelCompiledScript compiledScript = invokeService.getCompiledScript(scriptId);
+
+        for (int i = 0; i < maxJsErrors; i++) {
+            assertThatThrownBy(() -> invokeCompiledScript(compiledScript, "{}").get())
+                    .hasMessageContaining("result exceeds maximum allowed size");
+        }
+        assertThatThrownBy(() -> invokeCompiledScript(compiledScript, "{}").get())
+                .hasMessageContaining("invocation is blocked due to maximum error");
+    }
+
+    @Test
+    void whenCompiledScriptRunsTooLong_thenStopItByWatchdogAndBlockScript() throws Exception {
+        UUID scriptId = evalScript("var i = 0; while (true) { i++; } return i;");
+        TbelCompiledScript compiledScript = invokeService.getCompiledScript(scriptId);
+
+        for (int i = 0; i < maxJsErrors; i++) {
+            assertThatThrownBy(() -> invokeCompiledScript(compiledScript, "{}").get())
+                    .hasCauseInstanceOf(TimeoutException.class);
+        }
+        assertThatThrownBy(() -> invokeCompiledScript(compiledScript, "{}").get())
+                .hasMessageContaining("invocation is blocked due to maximum error");
+    }
+
+    @Test
+    void whenScriptIsReleased_thenCompiledScriptInvocationFails() throws Exception {
+        UUID scriptId = evalScript("return msg.temperature > 20;");
+        TbelCompiledScript compiledScript = invokeService.getCompiledScript(scriptId);
+        invokeService.release(scriptId);
+
+        assertThat(invokeService.getCompiledScript(scriptId)).isNull();
+        assertThatThrownBy(() -> invokeCompiledScript(compiledScript, "{}").get())
+                .hasMessageContaining("No compiled script found");
+    }
+
+    private ListenableFuture<Object> invokeCompiledScript(TbelCompiledScript compiledScript, String str) {
+        var msg = JacksonUtil.fromString(str, Map.class);
+        return invokeService.invokeScript(TenantId.SYS_TENANT_ID, null, compiledScript, msg, "{}", POST_TELEMETRY_REQUEST.name());
+    }
+
     private void assertThatScriptIsBlocked(UUID scriptId) {
         assertThatThrownBy(() -> {
             invokeScriptResultString(scriptId, "{}");
@@ -84,6 +84,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.thingsboard.server.service.state.DefaultDeviceStateService.ACTIVITY_STATE;
@@ -602,6 +603,45 @@ public class DefaultDeviceStateServiceTest {
         activityVerify(false);
     }
 
+    @Test
+    public void givenInactivityTimerEnabled_whenDeadlineExpires_thenReportInactivityWithoutFullCheck() throws Exception {
+        ReflectionTestUtils.setField(service, "inactivityTimerEnabled", true);
+        ReflectionTestUtils.setField(service, "inactivityTimerTickMs", 10L);
+        final long defaultTimeout = 200;
+        initStateService(defaultTimeout);
+        DeviceState deviceState = DeviceState.builder().inactivityTimeout(defaultTimeout).build();
+        DeviceStateData deviceStateData = DeviceStateData.builder()
+                .tenantId(tenantId)
+                .deviceId(deviceId)
+                .state(deviceState)
+                .metaData(new TbMsgMetaData())
+                .build();
+
+        service.deviceStates.put(deviceId, deviceStateData);
+        service.getPartitionedEntities(tpi).add(deviceId);
+
+        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        activityVerify(true);
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> activityVerify(false));
+        verify(service, never()).checkStates();
+
+        reset(telemetrySubscriptionService);
+
+        service.onDeviceActivity(tenantId, deviceId, System.currentTimeMillis());
+        activityVerify(true);
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> activityVerify(false));
+    }
+
+    @Test
+    public void givenInactivityTimerEnabled_whenFallbackCheckIntervalIsSet_thenFullCheckIsScheduled() throws Exception {
+        ReflectionTestUtils.setField(service, "inactivityTimerEnabled", true);
+        ReflectionTestUtils.setField(service, "inactivityTimerTickMs", 10L);
+        ReflectionTestUtils.setField(service, "inactivityTimerFallbackCheckIntervalInSec", 1);
+        initStateService(1000);
+
+        verify(service, timeout(5000).atLeastOnce()).checkStates();
+    }
+
     @Test
     public void increaseInactivityForActiveDeviceTest() throws Exception {
         final long defaultTimeout = 1000;
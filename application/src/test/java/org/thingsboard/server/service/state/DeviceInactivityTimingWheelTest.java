@@ -0,0 +1,127 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.state;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeviceInactivityTimingWheelTest {
+
+    private static final long START_TS = 1_700_000_000_000L;
+
+    private final DeviceInactivityTimingWheel wheel = new DeviceInactivityTimingWheel(100, 16);
+    private final List<DeviceId> expired = new ArrayList<>();
+
+    @Test
+    public void givenScheduledDevices_whenAdvance_thenOnlyExpiredAreReturned() {
+        DeviceId first = new DeviceId(UUID.randomUUID());
+        DeviceId second = new DeviceId(UUID.randomUUID());
+        wheel.advance(START_TS, expired::add);
+        wheel.schedule(first, START_TS + 500);
+        wheel.schedule(second, START_TS + 1000);
+
+        wheel.advance(START_TS + 598, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(START_TS + 599, expired::add);
+        assertThat(expired).containsExactly(first);
+
+        wheel.advance(START_TS + 1099, expired::add);
+        assertThat(expired).containsExactly(first, second);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void givenLaterDeadline_whenSchedule_thenEarlierDeadlineIsKept() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        wheel.advance(START_TS, expired::add);
+        wheel.schedule(deviceId, START_TS + 500);
+        wheel.schedule(deviceId, START_TS + 900);
+
+        wheel.advance(START_TS + 599, expired::add);
+        assertThat(expired).containsExactly(deviceId);
+    }
+
+    @Test
+    public void givenEarlierDeadline_whenSchedule_thenDeviceIsMoved() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        wheel.advance(START_TS, expired::add);
+        wheel.schedule(deviceId, START_TS + 900);
+        wheel.schedule(deviceId, START_TS + 300);
+
+        wheel.advance(START_TS + 399, expired::add);
+        assertThat(expired).containsExactly(deviceId);
+        wheel.advance(START_TS + 999, expired::add);
+        assertThat(expired).containsExactly(deviceId);
+    }
+
+    @Test
+    public void givenDeadlineBeyondWheelRevolution_whenAdvance_thenExpiresOnlyAtDeadline() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        wheel.advance(START_TS, expired::add);
+        wheel.schedule(deviceId, START_TS + 5_000); // 50 ticks, wheel has 16 buckets
+
+        for (long ts = START_TS; ts < START_TS + 5_000; ts += 100) {
+            wheel.advance(ts, expired::add);
+        }
+        assertThat(expired).isEmpty();
+
+        wheel.advance(START_TS + 5_099, expired::add);
+        assertThat(expired).containsExactly(deviceId);
+    }
+
+    @Test
+    public void givenDeadlineWithinCurrentTick_whenAdvance_thenExpiresWithThatTick() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        wheel.advance(START_TS, expired::add);
+        wheel.schedule(deviceId, START_TS + 250);
+
+        wheel.advance(START_TS + 220, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(START_TS + 320, expired::add);
+        assertThat(expired).containsExactly(deviceId);
+    }
+
+    @Test
+    public void givenPassedDeadline_whenSchedule_thenExpiresOnNextTick() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        wheel.advance(START_TS, expired::add);
+        wheel.schedule(deviceId, START_TS - 1_000);
+
+        wheel.advance(START_TS + 200, expired::add);
+        assertThat(expired).containsExactly(deviceId);
+    }
+
+    @Test
+    public void givenCancelledDevice_whenAdvance_thenNotReturned() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        wheel.advance(START_TS, expired::add);
+        wheel.schedule(deviceId, START_TS + 500);
+        wheel.cancel(deviceId);
+
+        wheel.advance(START_TS + 10_000, expired::add);
+        assertThat(expired).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.subscription;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.query.DeviceTypeFilter;
+import org.thingsboard.server.common.data.query.EntityCountQuery;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityDataSortOrder;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityListFilter;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.RelationsQueryFilter;
+import org.thingsboard.server.common.data.query.SingleEntityFilter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbEntityQueryChangeFilterTest {
+
+    @Test
+    public void givenDeviceTypeQuery_whenEntityChanges_thenOnlyDevicesMatch() {
+        TbEntityQueryChangeFilter filter = TbEntityQueryChangeFilter.of(new EntityCountQuery(new DeviceTypeFilter(List.of("default"), null)));
+
+        assertThat(filter).isNotNull();
+        assertThat(filter.matches(new DeviceId(UUID.randomUUID()))).isTrue();
+        assertThat(filter.matches(new AssetId(UUID.randomUUID()))).isFalse();
+    }
+
+    @Test
+    public void givenEntityListQuery_whenEntityChanges_thenOnlyListedEntitiesMatch() {
+        DeviceId listed = new DeviceId(UUID.randomUUID());
+        EntityListFilter entityListFilter = new EntityListFilter();
+        entityListFilter.setEntityType(EntityType.DEVICE);
+        entityListFilter.setEntityList(List.of(listed.getId().toString()));
+        TbEntityQueryChangeFilter filter = TbEntityQueryChangeFilter.of(new EntityCountQuery(entityListFilter));
+
+        assertThat(filter).isNotNull();
+        assertThat(filter.matches(listed)).isTrue();
+        assertThat(filter.matches(new DeviceId(UUID.randomUUID()))).isFalse();
+    }
+
+    @Test
+    public void givenQueryWithNonEntityFieldKeys_whenBuildFilter_thenNotSupported() {
+        DeviceTypeFilter entityFilter = new DeviceTypeFilter(List.of("default"), null);
+        KeyFilter attributeFilter = new KeyFilter();
+        attributeFilter.setKey(new EntityKey(EntityKeyType.SERVER_ATTRIBUTE, "active"));
+        assertThat(TbEntityQueryChangeFilter.of(new EntityCountQuery(entityFilter, List.of(attributeFilter)))).isNull();
+
+        EntityDataPageLink pageLink = new EntityDataPageLink(10, 0, null,
+                new EntityDataSortOrder(new EntityKey(EntityKeyType.TIME_SERIES, "temperature")));
+        assertThat(TbEntityQueryChangeFilter.of(new EntityDataQuery(entityFilter, pageLink, Collections.emptyList(), Collections.emptyList(), Collections.emptyList()))).isNull();
+
+        pageLink = new EntityDataPageLink(10, 0, null, new EntityDataSortOrder(new EntityKey(EntityKeyType.ENTITY_FIELD, "name")));
+        assertThat(TbEntityQueryChangeFilter.of(new EntityDataQuery(entityFilter, pageLink, Collections.emptyList(), Collections.emptyList(), Collections.emptyList()))).isNotNull();
+    }
+
+    @Test
+    public void givenRelationsOrUnsupportedEntityTypeQuery_whenBuildFilter_thenNotSupported() {
+        assertThat(TbEntityQueryChangeFilter.of(new EntityCountQuery(new RelationsQueryFilter()))).isNull();
+
+        SingleEntityFilter singleEntityFilter = new SingleEntityFilter();
+        singleEntityFilter.setSingleEntity(new CustomerId(UUID.randomUUID()));
+        assertThat(TbEntityQueryChangeFilter.of(new EntityCountQuery(singleEntityFilter))).isNull();
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.telemetry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.timeseries.TimeseriesService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+public class DefaultTimeseriesExportServiceTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    @Mock
+    private TimeseriesService tsService;
+
+    private DefaultTimeseriesExportService exportService;
+
+    @BeforeEach
+    public void setUp() {
+        exportService = new DefaultTimeseriesExportService(tsService);
+        ReflectionTestUtils.setField(exportService, "pageSize", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenMoreValuesThanPageSize_whenExportCsv_thenPagesAreReadAfterLastTimestamp() throws Exception {
+        given(tsService.findAll(eq(tenantId), eq(deviceId), any())).willReturn(
+                Futures.immediateFuture(List.of(entry("temperature", 10, 1), entry("temperature", 20, 2))),
+                Futures.immediateFuture(List.of(entry("temperature", 30, 3))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(tenantId, List.of(deviceId), List.of("temperature"), 0, 100, TimeseriesExportFormat.CSV, false, out);
+
+        String prefix = "DEVICE," + deviceId.getId() + ",temperature,";
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("entityType,entityId,key,ts,value\n" +
+                prefix + "10,1\n" + prefix + "20,2\n" + prefix + "30,3\n");
+
+        ArgumentCaptor<List<ReadTsKvQuery>> captor = ArgumentCaptor.forClass(List.class);
+        then(tsService).should(times(2)).findAll(eq(tenantId), eq(deviceId), captor.capture());
+        List<ReadTsKvQuery> first = captor.getAllValues().get(0);
+        List<ReadTsKvQuery> second = captor.getAllValues().get(1);
+        assertThat(first.get(0).getStartTs()).isEqualTo(0);
+        assertThat(second.get(0).getStartTs()).isEqualTo(21);
+        assertThat(second.get(0).getEndTs()).isEqualTo(100);
+        assertThat(second.get(0).getOrder()).isEqualTo("ASC");
+        assertThat(second.get(0).getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenStringValueWithSeparators_whenExportCsv_thenValueIsQuoted() throws Exception {
+        given(tsService.findAll(eq(tenantId), eq(deviceId), any())).willReturn(
+                Futures.immediateFuture(List.of(new BasicTsKvEntry(10, new StringDataEntry("status", "ok, \"fine\"")))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(tenantId, List.of(deviceId), List.of("status"), 0, 100, TimeseriesExportFormat.CSV, false, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).endsWith(",status,10,\"ok, \"\"fine\"\"\"\n");
+    }
+
+    @Test
+    public void givenStrictDataTypes_whenExportJson_thenValuesAreGroupedByEntityAndKey() throws Exception {
+        given(tsService.findAll(eq(tenantId), eq(deviceId), any())).willReturn(
+                Futures.immediateFuture(List.of(entry("temperature", 10, 1))),
+                Futures.immediateFuture(List.of()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(tenantId, List.of(deviceId), List.of("temperature", "humidity"), 0, 100, TimeseriesExportFormat.JSON, true, out);
+
+        JsonNode result = JacksonUtil.toJsonNode(out.toString(StandardCharsets.UTF_8));
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).get("entityId").get("entityType").asText()).isEqualTo("DEVICE");
+        assertThat(result.get(0).get("entityId").get("id").asText()).isEqualTo(deviceId.getId().toString());
+        JsonNode timeseries = result.get(0).get("timeseries");
+        assertThat(timeseries.get("temperature").get(0).get("ts").asLong()).isEqualTo(10);
+        assertThat(timeseries.get("temperature").get(0).get("value").isNumber()).isTrue();
+        assertThat(timeseries.get("humidity").isEmpty()).isTrue();
+    }
+
+    private TsKvEntry entry(String key, long ts, long value) {
+        return new BasicTsKvEntry(ts, new LongDataEntry(key, value));
+    }
+
+}
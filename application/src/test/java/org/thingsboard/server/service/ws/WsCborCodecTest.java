@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.ws;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
+import org.thingsboard.server.service.ws.telemetry.sub.TelemetrySubscriptionUpdate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WsCborCodecTest {
+
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+    private final WsCborCodec codec = new WsCborCodec();
+
+    @Test
+    public void givenLatestUpdates_whenEncode_thenKeysAreSentOnceAndTsIsDeltaEncoded() throws Exception {
+        JsonNode first = decode(codec.encode(createUpdate(1000, 1500)));
+
+        assertThat(first.get("cmdId").asInt()).isEqualTo(7);
+        assertThat(first.get("cmdUpdateType").asText()).isEqualTo("ENTITY_DATA");
+        assertThat(first.get("keys")).isEqualTo(JacksonUtil.toJsonNode("{\"0\":\"temperature\",\"1\":\"humidity\"}"));
+        assertThat(first.get("baseTs").asLong()).isEqualTo(1000);
+        JsonNode latest = first.get("update").get(0).get("latest").get("TIME_SERIES");
+        assertThat(latest.get("0")).isEqualTo(JacksonUtil.toJsonNode("[0,\"21\"]"));
+        assertThat(latest.get("1")).isEqualTo(JacksonUtil.toJsonNode("[500,\"42\"]"));
+
+        JsonNode second = decode(codec.encode(createUpdate(2000, 2100)));
+
+        assertThat(second.has("keys")).isFalse();
+        assertThat(second.get("baseTs").asLong()).isEqualTo(2000);
+        assertThat(second.get("update").get(0).get("latest").get("TIME_SERIES").get("1")).isEqualTo(JacksonUtil.toJsonNode("[100,\"42\"]"));
+    }
+
+    @Test
+    public void givenTelemetryUpdate_whenEncode_thenSeriesTsIsRelativeToPreviousValue() throws Exception {
+        TelemetrySubscriptionUpdate update = new TelemetrySubscriptionUpdate(3, List.of(
+                new BasicTsKvEntry(1000, new LongDataEntry("temperature", 21L)),
+                new BasicTsKvEntry(1200, new LongDataEntry("temperature", 22L))));
+
+        JsonNode node = decode(codec.encode(update));
+
+        assertThat(node.get("subscriptionId").asInt()).isEqualTo(3);
+        assertThat(node.get("keys")).isEqualTo(JacksonUtil.toJsonNode("{\"0\":\"temperature\"}"));
+        assertThat(node.get("baseTs").asLong()).isEqualTo(1000);
+        assertThat(node.get("data").get("0")).isEqualTo(JacksonUtil.toJsonNode("[[0,\"21\"],[200,\"22\"]]"));
+        assertThat(node.has("latestValues")).isFalse();
+    }
+
+    @Test
+    public void givenCborCmd_whenDecode_thenJsonCmdIsReturned() throws Exception {
+        JsonNode cmd = JacksonUtil.toJsonNode("{\"authCmd\":{\"cmdId\":0,\"token\":\"token\"}}");
+
+        String json = WsCborCodec.decodeCmd(cborMapper.writeValueAsBytes(cmd));
+
+        assertThat(JacksonUtil.toJsonNode(json)).isEqualTo(cmd);
+    }
+
+    private EntityDataUpdate createUpdate(long temperatureTs, long humidityTs) {
+        Map<String, TsValue> values = new LinkedHashMap<>();
+        values.put("temperature", new TsValue(temperatureTs, "21"));
+        values.put("humidity", new TsValue(humidityTs, "42"));
+        EntityData entityData = new EntityData(deviceId, Map.of(EntityKeyType.TIME_SERIES, values), null);
+        return new EntityDataUpdate(7, null, List.of(entityData), 1);
+    }
+
+    private JsonNode decode(byte[] payload) throws Exception {
+        return cborMapper.readTree(payload);
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.ws;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.service.ws.telemetry.cmd.v2.EntityDataUpdate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WsUpdateSerializerTest {
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+    private WsUpdateSerializer serializer;
+
+    @BeforeEach
+    public void setUp() {
+        serializer = new WsUpdateSerializer();
+        ReflectionTestUtils.setField(serializer, "cacheSize", 100);
+        ReflectionTestUtils.setField(serializer, "cacheTtlMs", 60000L);
+        serializer.init();
+    }
+
+    @Test
+    public void givenLatestUpdate_whenSerializeLatest_thenJsonIsSameAsRegularSerialization() throws Exception {
+        EntityDataUpdate update = new EntityDataUpdate(7, null, List.of(createEntityData(42)), 100);
+
+        String json = serializer.serializeLatest(update);
+
+        assertThat(JacksonUtil.toJsonNode(json)).isEqualTo(JacksonUtil.toJsonNode(serializer.serialize(update)));
+    }
+
+    @Test
+    public void givenIdenticalUpdatesOfDifferentCommands_whenSerializeLatest_thenEntityDataIsSerializedOnce() throws Exception {
+        String first = serializer.serializeLatest(new EntityDataUpdate(1, null, List.of(createEntityData(42)), 100));
+        String second = serializer.serializeLatest(new EntityDataUpdate(2, null, List.of(createEntityData(42)), 100));
+
+        Cache<?, ?> cache = (Cache<?, ?>) ReflectionTestUtils.getField(serializer, "entityDataCache");
+        assertThat(cache.estimatedSize()).isEqualTo(1);
+        assertThat(JacksonUtil.toJsonNode(first).get("cmdId").asInt()).isEqualTo(1);
+        assertThat(JacksonUtil.toJsonNode(second).get("cmdId").asInt()).isEqualTo(2);
+        assertThat(JacksonUtil.toJsonNode(first).get("update")).isEqualTo(JacksonUtil.toJsonNode(second).get("update"));
+    }
+
+    private EntityData createEntityData(long ts) {
+        return new EntityData(deviceId, Map.of(EntityKeyType.TIME_SERIES, Map.of("temperature", new TsValue(ts, "25.5"))), null);
+    }
+
+}
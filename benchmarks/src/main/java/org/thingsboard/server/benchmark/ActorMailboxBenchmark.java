@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.actors.AbstractTbActor;
+import org.thingsboard.server.actors.DefaultTbActorSystem;
+import org.thingsboard.server.actors.TbActor;
+import org.thingsboard.server.actors.TbActorCreator;
+import org.thingsboard.server.actors.TbActorId;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.actors.TbActorSystemSettings;
+import org.thingsboard.server.actors.TbStringActorId;
+import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorMsg;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivery of messages through {@link org.thingsboard.server.actors.TbActorMailbox}:
+ * enqueue, scheduling on the dispatcher and processing by the actor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ActorMailboxBenchmark {
+
+    private static final String DISPATCHER_ID = "benchmark-dispatcher";
+    private static final int MESSAGES_PER_INVOCATION = 100_000;
+    private static final TbActorMsg MSG = () -> MsgType.QUEUE_TO_RULE_ENGINE_MSG;
+
+    @Param({"1", "100", "10000"})
+    private int actors;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    @Param({"5", "50"})
+    private int actorThroughput;
+
+    private DefaultTbActorSystem actorSystem;
+    private ExecutorService executor;
+    private TbActorRef[] actorRefs;
+    private volatile CountDownLatch processed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        actorSystem = new DefaultTbActorSystem(new TbActorSystemSettings(actorThroughput, 1, 42));
+        executor = threads == 1 ? Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("benchmark-actors"))
+                : ThingsBoardExecutors.newWorkStealingPool(threads, "benchmark-actors");
+        actorSystem.createDispatcher(DISPATCHER_ID, executor);
+        actorRefs = new TbActorRef[actors];
+        for (int i = 0; i < actors; i++) {
+            actorRefs[i] = actorSystem.createRootActor(DISPATCHER_ID, new CountingActorCreator(new TbStringActorId("actor-" + i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        actorSystem.stop();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void tell() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(MESSAGES_PER_INVOCATION);
+        processed = latch;
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            actorRefs[i % actors].tell(MSG);
+        }
+        latch.await();
+    }
+
+    private class CountingActorCreator implements TbActorCreator {
+
+        private final TbActorId actorId;
+
+        private CountingActorCreator(TbActorId actorId) {
+            this.actorId = actorId;
+        }
+
+        @Override
+        public TbActorId createActorId() {
+            return actorId;
+        }
+
+        @Override
+        public TbActor createActor() {
+            return new AbstractTbActor() {
+                @Override
+                public boolean process(TbActorMsg msg) {
+                    processed.countDown();
+                    return true;
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.TsKvEntryAggWrapper;
+import org.thingsboard.server.dao.nosql.TbResultSet;
+import org.thingsboard.server.dao.timeseries.AggregatePartitionsFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merge of per-partition aggregation rows returned by Cassandra into a single aggregated value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class AggregatePartitionsFunctionBenchmark {
+
+    private static final String KEY = "temperature";
+    private static final long TS = 1700000000000L;
+
+    @Param({"1", "12", "120"})
+    private int partitions;
+
+    @Param({"AVG", "MIN", "COUNT"})
+    private Aggregation aggregation;
+
+    @Param({"LONG", "DOUBLE", "MIXED"})
+    private String valueType;
+
+    private AggregatePartitionsFunction function;
+    private List<TbResultSet> resultSets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        function = new AggregatePartitionsFunction(aggregation, KEY, TS, MoreExecutors.directExecutor());
+        Random random = new Random(42);
+        resultSets = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            boolean isDouble = "DOUBLE".equals(valueType) || ("MIXED".equals(valueType) && i % 2 == 1);
+            long count = 1 + random.nextInt(10000);
+            Object[] columns = {
+                    isDouble ? 0L : count, isDouble ? count : 0L, 0L, 0L, 0L, TS + random.nextInt(1000000),
+                    (long) random.nextInt(100000), random.nextDouble() * 100000, null, null, null
+            };
+            Row row = BenchmarkStubs.stub(Row.class, (method, args) -> args != null && args.length == 1 && args[0] instanceof Integer ?
+                    columns[(Integer) args[0]] : null);
+            AsyncResultSet rs = BenchmarkStubs.stub(AsyncResultSet.class, (method, args) ->
+                    "currentPage".equals(method.getName()) ? List.of(row) : null);
+            resultSets.add(new TbResultSet(null, rs, null));
+        }
+    }
+
+    @Benchmark
+    public Optional<TsKvEntryAggWrapper> aggregate() throws ExecutionException, InterruptedException {
+        return function.apply(resultSets).get();
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic telemetry payloads, so results of different runs are comparable.
+ */
+final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Flat telemetry object with the given number of keys, e.g. {"key0": 42, "key1": 21.5, "key2": true, "key3": "a1b2"}.
+     */
+    static String telemetryJson(Random random, int keys, boolean withTs) {
+        StringBuilder values = new StringBuilder("{");
+        for (int i = 0; i < keys; i++) {
+            if (i > 0) {
+                values.append(',');
+            }
+            appendValue(values, random, i);
+        }
+        values.append('}');
+        return withTs ? "{\"ts\":" + (1700000000000L + random.nextInt(1000000)) + ",\"values\":" + values + "}" : values.toString();
+    }
+
+    /**
+     * Flat telemetry object of approximately the given size in bytes.
+     */
+    static String telemetryJson(Random random, int size) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; json.length() < size - 1; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendValue(json, random, i);
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendValue(StringBuilder json, Random random, int i) {
+        json.append("\"key").append(i).append("\":");
+        switch (i % 4) {
+            case 0 -> json.append(random.nextInt(100000));
+            case 1 -> json.append(Math.round(random.nextDouble() * 10000) / 100.0);
+            case 2 -> json.append(random.nextBoolean());
+            default -> json.append('"').append(Long.toHexString(random.nextLong())).append('"');
+        }
+    }
+
+}
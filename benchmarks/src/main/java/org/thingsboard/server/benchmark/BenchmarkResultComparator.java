@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.thingsboard.common.util.JacksonUtil;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, e.g. produced by {@link BenchmarkRunner} on two commits:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar org.thingsboard.server.benchmark.BenchmarkResultComparator base.json new.json [thresholdPercent]
+ * </pre>
+ * Prints the relative change of every benchmark present in both files and exits with code 1
+ * if any of them regressed by more than the threshold (10% by default).
+ */
+public class BenchmarkResultComparator {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkResultComparator <base.json> <new.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, JsonNode> base = readResults(args[0]);
+        Map<String, JsonNode> current = readResults(args[1]);
+
+        int regressions = 0;
+        System.out.printf("%-100s %15s %15s %10s %-10s%n", "Benchmark", "Base", "New", "Change", "Unit");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode baseResult = base.get(entry.getKey());
+            if (baseResult == null) {
+                continue;
+            }
+            JsonNode result = entry.getValue();
+            double baseScore = baseResult.get("primaryMetric").get("score").asDouble();
+            double score = result.get("primaryMetric").get("score").asDouble();
+            double change = baseScore == 0 ? 0 : (score - baseScore) / baseScore * 100;
+            // throughput is better when higher, all other modes measure time
+            double improvement = "thrpt".equals(result.get("mode").asText()) ? change : -change;
+            boolean regression = improvement < -threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-100s %15.3f %15.3f %+9.2f%% %-10s%s%n", entry.getKey(), baseScore, score, change,
+                    result.get("primaryMetric").get("scoreUnit").asText(), regression ? " REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> readResults(String file) {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : JacksonUtil.toJsonNode(Path.of(file))) {
+            results.put(toKey(result), result);
+        }
+        return results;
+    }
+
+    private static String toKey(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").asText()).append(" [").append(result.get("mode").asText());
+        JsonNode params = result.get("params");
+        if (params != null) {
+            Map<String, String> sorted = new TreeMap<>();
+            params.fields().forEachRemaining(param -> sorted.put(param.getKey(), param.getValue().asText()));
+            sorted.forEach((name, value) -> key.append(", ").append(name).append('=').append(value));
+        }
+        return key.append(']').toString();
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.gen.transport.TransportProtos.ServiceInfo;
+import org.thingsboard.server.queue.discovery.HashPartitionService;
+import org.thingsboard.server.queue.discovery.QueueRoutingInfoService;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+import org.thingsboard.server.queue.discovery.TenantRoutingInfoService;
+import org.thingsboard.server.queue.discovery.TopicService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the queue partition responsible for an entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class HashPartitionServiceBenchmark {
+
+    private static final int ENTITIES = 1 << 16;
+    private static final int SERVICES = 3;
+
+    @Param({"10", "100"})
+    private int partitions;
+
+    @Param({"murmur3_32", "murmur3_128", "sha256"})
+    private String hashFunction;
+
+    private HashPartitionService partitionService;
+    private DeviceId[] entityIds;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TopicService topicService = new TopicService();
+        BenchmarkStubs.setField(topicService, "prefix", "");
+        partitionService = new HashPartitionService(BenchmarkStubs.stub(TbServiceInfoProvider.class),
+                BenchmarkStubs.stub(TenantRoutingInfoService.class),
+                BenchmarkStubs.stub(ApplicationEventPublisher.class),
+                BenchmarkStubs.stub(QueueRoutingInfoService.class),
+                topicService);
+        BenchmarkStubs.setField(partitionService, "coreTopic", "tb_core");
+        BenchmarkStubs.setField(partitionService, "corePartitions", partitions);
+        BenchmarkStubs.setField(partitionService, "vcTopic", "tb_version_control");
+        BenchmarkStubs.setField(partitionService, "vcPartitions", 10);
+        BenchmarkStubs.setField(partitionService, "edgeTopic", "tb_edge");
+        BenchmarkStubs.setField(partitionService, "edgePartitions", 10);
+        BenchmarkStubs.setField(partitionService, "hashFunctionName", hashFunction);
+        partitionService.init();
+        partitionService.partitionsInit();
+
+        List<ServiceInfo> otherServices = new ArrayList<>();
+        for (int i = 1; i < SERVICES; i++) {
+            otherServices.add(coreServiceInfo("tb-core-" + i));
+        }
+        partitionService.recalculatePartitions(coreServiceInfo("tb-core-0"), otherServices);
+
+        Random random = new Random(42);
+        entityIds = new DeviceId[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) {
+            entityIds[i] = new DeviceId(new UUID(random.nextLong(), random.nextLong()));
+        }
+    }
+
+    @Benchmark
+    public TopicPartitionInfo resolve(Cursor cursor) {
+        return doResolve(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TopicPartitionInfo resolve4Threads(Cursor cursor) {
+        return doResolve(cursor);
+    }
+
+    private TopicPartitionInfo doResolve(Cursor cursor) {
+        DeviceId entityId = entityIds[cursor.next++ & (ENTITIES - 1)];
+        return partitionService.resolve(ServiceType.TB_CORE, TenantId.SYS_TENANT_ID, entityId);
+    }
+
+    private static ServiceInfo coreServiceInfo(String serviceId) {
+        return ServiceInfo.newBuilder()
+                .setServiceId(serviceId)
+                .addServiceTypes(ServiceType.TB_CORE.name())
+                .build();
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.gson.JsonParser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.adaptor.JsonConverter;
+import org.thingsboard.server.gen.transport.TransportProtos.PostTelemetryMsg;
+import org.thingsboard.server.transport.mqtt.util.ByteBufUtf8Reader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a device JSON telemetry payload, as received by the transport, to {@link PostTelemetryMsg}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class JsonConverterBenchmark {
+
+    private static final long SYSTEM_TS = 1700000000000L;
+
+    @Param({"10", "100", "1000"})
+    private int keys;
+
+    @Param({"false", "true"})
+    private boolean withTs;
+
+    private ByteBuf payload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String json = BenchmarkPayloads.telemetryJson(new Random(42), keys, withTs);
+        payload = Unpooled.wrappedBuffer(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public PostTelemetryMsg tree() {
+        return JsonConverter.convertToTelemetryProto(JsonParser.parseString(payload.toString(StandardCharsets.UTF_8)), SYSTEM_TS);
+    }
+
+    @Benchmark
+    public PostTelemetryMsg streaming() throws IOException {
+        return JsonConverter.convertToTelemetryProto(new ByteBufUtf8Reader(payload), SYSTEM_TS);
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.stats.DefaultMessagesStats;
+import org.thingsboard.server.common.stats.StatsCounter;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueue;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batching of entities by {@link TbSqlBlockingQueue}: time from adding elements until their batches are "saved".
+ * The save function does no I/O, so the result reflects the queue overhead and the batching delays only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SqlBlockingQueueBenchmark {
+
+    private static final int ELEMENTS_PER_INVOCATION = 1000;
+
+    @Param({"100", "1000", "10000"})
+    private int batchSize;
+
+    @Param({"10", "100"})
+    private long maxDelayMs;
+
+    private ScheduledLogExecutorComponent logExecutor;
+    private TbSqlBlockingQueue<Long, Long> queue;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        logExecutor = new ScheduledLogExecutorComponent();
+        logExecutor.init();
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("Benchmark")
+                .batchSize(batchSize)
+                .maxDelay(maxDelayMs)
+                .statsPrintIntervalMs(TimeUnit.MINUTES.toMillis(10))
+                .statsNamePrefix("benchmark")
+                .batchSortEnabled(true)
+                .withResponse(true)
+                .build();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        queue = new TbSqlBlockingQueue<>(params, new DefaultMessagesStats(counter(registry, "total"),
+                counter(registry, "successful"), counter(registry, "failed")));
+        queue.init(logExecutor, entities -> entities, Comparator.naturalOrder(), entities -> entities, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queue.destroy();
+        logExecutor.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS_PER_INVOCATION)
+    public List<Long> add() throws ExecutionException, InterruptedException {
+        return doAdd();
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(ELEMENTS_PER_INVOCATION)
+    public List<Long> add8Producers() throws ExecutionException, InterruptedException {
+        return doAdd();
+    }
+
+    private List<Long> doAdd() throws ExecutionException, InterruptedException {
+        List<ListenableFuture<Long>> futures = new ArrayList<>(ELEMENTS_PER_INVOCATION);
+        for (long i = 0; i < ELEMENTS_PER_INVOCATION; i++) {
+            futures.add(queue.add(i));
+        }
+        return Futures.allAsList(futures).get();
+    }
+
+    private static StatsCounter counter(SimpleMeterRegistry registry, String name) {
+        return new StatsCounter(new AtomicInteger(), registry.counter("benchmark." + name), name);
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of {@link TbMsg} to and from the queue representation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TbMsgSerializationBenchmark {
+
+    private static final String QUEUE_NAME = "Main";
+
+    @Param({"128", "4096", "65536"})
+    private int payloadSize;
+
+    @Param({"4", "32"})
+    private int metadataEntries;
+
+    private TbMsg msg;
+    private byte[] bytes;
+    private ByteString byteString;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        for (int i = 0; i < metadataEntries; i++) {
+            metaData.putValue("metadataKey" + i, Long.toHexString(random.nextLong()));
+        }
+        msg = TbMsg.newMsg()
+                .queueName(QUEUE_NAME)
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(new DeviceId(new UUID(random.nextLong(), random.nextLong())))
+                .copyMetaData(metaData)
+                .data(BenchmarkPayloads.telemetryJson(random, payloadSize))
+                .ruleChainId(new RuleChainId(new UUID(random.nextLong(), random.nextLong())))
+                .build();
+        bytes = TbMsg.toByteArray(msg);
+        byteString = TbMsg.toByteString(msg);
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return TbMsg.toByteArray(msg);
+    }
+
+    @Benchmark
+    public ByteString toByteString() {
+        return TbMsg.toByteString(msg);
+    }
+
+    @Benchmark
+    public TbMsg fromBytes() {
+        return TbMsg.fromBytes(QUEUE_NAME, bytes, TbMsgCallback.EMPTY);
+    }
+
+    @Benchmark
+    public TbMsg fromByteString() {
+        return TbMsg.fromBytes(QUEUE_NAME, byteString, TbMsgCallback.EMPTY);
+    }
+
+    @Benchmark
+    public TbMsg roundTrip() {
+        return TbMsg.fromBytes(QUEUE_NAME, TbMsg.toByteArray(msg), TbMsgCallback.EMPTY);
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.script.api.ScriptType;
+import org.thingsboard.script.api.tbel.DefaultTbelInvokeService;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution of rule node TBEL scripts by {@link DefaultTbelInvokeService}, including the hand-off to the script executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TbelInvokeBenchmark {
+
+    private static final Map<String, String> SCRIPTS = Map.of(
+            "filter", "return msg.key0 > 50000;",
+            "transform", "msg.key0 = msg.key0 * 1.8 + 32; metadata.converted = 'true'; return {msg: msg, metadata: metadata, msgType: msgType};",
+            "loop", "var sum = 0; for (var i = 0; i < 100; i += 4) { var v = msg['key' + i]; if (v != null) { sum += v; } } return {msg: {sum: sum}, metadata: metadata, msgType: msgType};"
+    );
+
+    @Param({"filter", "transform", "loop"})
+    private String script;
+
+    @Param({"10", "100"})
+    private int keys;
+
+    private DefaultTbelInvokeService invokeService;
+    private UUID scriptId;
+    private Map<String, Object> msg;
+    private Map<String, String> metadata;
+
+    @Setup(Level.Trial)
+    public void setup() throws ExecutionException, InterruptedException {
+        invokeService = new DefaultTbelInvokeService(Optional.empty(), Optional.empty()) {};
+        BenchmarkStubs.setField(invokeService, "maxTotalArgsSize", 100000L);
+        BenchmarkStubs.setField(invokeService, "maxResultSize", 300000L);
+        BenchmarkStubs.setField(invokeService, "maxScriptBodySize", 50000L);
+        BenchmarkStubs.setField(invokeService, "maxErrors", 3);
+        BenchmarkStubs.setField(invokeService, "maxBlackListDurationSec", 60);
+        BenchmarkStubs.setField(invokeService, "threadPoolSize", 8);
+        BenchmarkStubs.setField(invokeService, "maxMemoryLimitMb", 8L);
+        BenchmarkStubs.setField(invokeService, "compiledScriptsCacheSize", 1000);
+        invokeService.init();
+        scriptId = invokeService.eval(TenantId.SYS_TENANT_ID, ScriptType.RULE_NODE_SCRIPT, SCRIPTS.get(script), "msg", "metadata", "msgType").get();
+        msg = JacksonUtil.fromString(BenchmarkPayloads.telemetryJson(new Random(42), keys, false), Map.class);
+        metadata = Map.of("deviceName", "Device A", "deviceType", "default", "ts", "1700000000000");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        invokeService.stop();
+    }
+
+    @Benchmark
+    public Object invoke() throws ExecutionException, InterruptedException {
+        return doInvoke();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object invoke8Threads() throws ExecutionException, InterruptedException {
+        return doInvoke();
+    }
+
+    private Object doInvoke() throws ExecutionException, InterruptedException {
+        return invokeService.invokeScript(TenantId.SYS_TENANT_ID, null, scriptId,
+                new HashMap<>(msg), new HashMap<>(metadata), TbMsgType.POST_TELEMETRY_REQUEST.name()).get();
+    }
+
+}
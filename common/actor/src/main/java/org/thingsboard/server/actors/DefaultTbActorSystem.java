@@ -47,6 +47,8 @@ public class DefaultTbActorSystem implements TbActorSystem {
     private final TbActorSystemSettings settings;
     @Getter
     private final ScheduledExecutorService scheduler;
+    @Getter
+    private final TbActorBackpressure backpressure = new TbActorBackpressure();
 
     public DefaultTbActorSystem(TbActorSystemSettings settings) {
         this.settings = settings;
@@ -55,7 +57,7 @@ public class DefaultTbActorSystem implements TbActorSystem {
 
     @Override
     public void createDispatcher(String dispatcherId, ExecutorService executor) {
-        Dispatcher current = dispatchers.putIfAbsent(dispatcherId, new Dispatcher(dispatcherId, executor));
+        Dispatcher current = dispatchers.putIfAbsent(dispatcherId, new Dispatcher(dispatcherId, executor, settings.getMailboxSettings(dispatcherId)));
         if (current != null) {
             throw new RuntimeException("Dispatcher with id [" + dispatcherId + "] is already registered!");
         }
@@ -71,6 +73,16 @@ public class DefaultTbActorSystem implements TbActorSystem {
         }
     }
 
+    @Override
+    public TbDispatcherStats getDispatcherStats(String dispatcherId) {
+        Dispatcher dispatcher = dispatchers.get(dispatcherId);
+        if (dispatcher != null) {
+            return dispatcher.getStats();
+        } else {
+            throw new RuntimeException("Dispatcher with id [" + dispatcherId + "] is not registered!");
+        }
+    }
+
     @Override
     public TbActorRef getActor(TbActorId actorId) {
         return actors.get(actorId);
@@ -24,5 +24,7 @@ class Dispatcher {
 
     private final String dispatcherId;
     private final ExecutorService executor;
+    private final TbActorMailboxSettings mailboxSettings;
+    private final TbDispatcherStats stats = new TbDispatcherStats();
 
 }
@@ -0,0 +1,84 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the mailboxes with {@link TbActorMailboxOverflowPolicy#BACKPRESSURE} policy that exceeded their capacity,
+ * grouped by the backpressure key of the messages that filled them (e.g. the rule engine queue name),
+ * so that only the producers of those messages are slowed down.
+ */
+public class TbActorBackpressure {
+
+    private final Map<String, Integer> overloadedMailboxes = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    void onOverloaded(String key) {
+        lock.lock();
+        try {
+            overloadedMailboxes.merge(key, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onReleased(String key) {
+        lock.lock();
+        try {
+            if (overloadedMailboxes.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null) == null) {
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isActive(String key) {
+        lock.lock();
+        try {
+            return overloadedMailboxes.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all the mailboxes overloaded by the messages with the given key are drained.
+     * @return false if the backpressure is still active after the timeout
+     */
+    public boolean awaitRelease(String key, long timeoutMs) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (overloadedMailboxes.containsKey(key)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = released.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
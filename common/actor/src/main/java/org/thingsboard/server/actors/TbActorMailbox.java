@@ -25,9 +25,12 @@ import org.thingsboard.server.common.msg.TbActorMsg;
 import org.thingsboard.server.common.msg.TbActorStopReason;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -52,6 +55,9 @@ public final class TbActorMailbox implements TbActorCtx {
     private final Dispatcher dispatcher;
     private final ConcurrentLinkedQueue<TbActorMsg> highPriorityMsgs = new ConcurrentLinkedQueue<>();
     private final ConcurrentLinkedQueue<TbActorMsg> normalPriorityMsgs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger normalPriorityMsgsCount = new AtomicInteger();
+    private final AtomicBoolean overloaded = new AtomicBoolean();
+    private final Set<String> overloadedKeys = ConcurrentHashMap.newKeySet();
     private final AtomicBoolean busy = new AtomicBoolean(FREE);
     private final AtomicBoolean ready = new AtomicBoolean(NOT_READY);
     private final AtomicBoolean destroyInProgress = new AtomicBoolean();
@@ -107,8 +113,9 @@ public final class TbActorMailbox implements TbActorCtx {
         if (!destroyInProgress.get()) {
             if (highPriority) {
                 highPriorityMsgs.add(msg);
-            } else {
-                normalPriorityMsgs.add(msg);
+                dispatcher.getStats().getQueueSize().incrementAndGet();
+            } else if (!offerNormalPriority(msg)) {
+                return;
             }
             tryProcessQueue(true);
         } else {
@@ -128,6 +135,79 @@ public final class TbActorMailbox implements TbActorCtx {
         }
     }
 
+    private boolean offerNormalPriority(TbActorMsg msg) {
+        TbActorMailboxSettings mailboxSettings = dispatcher.getMailboxSettings();
+        if (mailboxSettings.isBounded() && normalPriorityMsgsCount.get() >= mailboxSettings.getCapacity()) {
+            switch (mailboxSettings.getOverflowPolicy()) {
+                case REJECT:
+                    log.debug("[{}] Mailbox is full, rejecting message: {}", selfId, msg);
+                    msg.onTbActorMailboxOverflow();
+                    return false;
+                case DROP_OLDEST:
+                    TbActorMsg oldest = pollNormalPriority();
+                    if (oldest != null) {
+                        log.debug("[{}] Mailbox is full, dropping oldest message: {}", selfId, oldest);
+                        oldest.onTbActorMailboxOverflow();
+                    }
+                    break;
+                case BACKPRESSURE:
+                    if (overloaded.compareAndSet(false, true)) {
+                        log.info("[{}] Mailbox size reached {} messages, signaling backpressure", selfId, normalPriorityMsgsCount.get());
+                        dispatcher.getStats().getOverloadedMailboxes().incrementAndGet();
+                    }
+                    String key = msg.getBackpressureKey();
+                    if (key != null && overloadedKeys.add(key)) {
+                        system.getBackpressure().onOverloaded(key);
+                    }
+                    break;
+            }
+        }
+        normalPriorityMsgs.add(msg);
+        normalPriorityMsgsCount.incrementAndGet();
+        dispatcher.getStats().getQueueSize().incrementAndGet();
+        return true;
+    }
+
+    private TbActorMsg pollHighPriority() {
+        TbActorMsg msg = highPriorityMsgs.poll();
+        if (msg != null) {
+            dispatcher.getStats().getQueueSize().decrementAndGet();
+        }
+        return msg;
+    }
+
+    private TbActorMsg pollNormalPriority() {
+        TbActorMsg msg = normalPriorityMsgs.poll();
+        if (msg != null) {
+            int size = normalPriorityMsgsCount.decrementAndGet();
+            dispatcher.getStats().getQueueSize().decrementAndGet();
+            // Backpressure is released once the mailbox is drained to the half of its capacity to avoid flapping
+            if (size <= dispatcher.getMailboxSettings().getCapacity() / 2) {
+                releaseBackpressure();
+            }
+        }
+        return msg;
+    }
+
+    private void releaseBackpressure() {
+        if (overloaded.compareAndSet(true, false)) {
+            log.info("[{}] Mailbox is drained, releasing backpressure", selfId);
+            dispatcher.getStats().getOverloadedMailboxes().decrementAndGet();
+        }
+        // checked regardless of the flag, since a key may be added concurrently with the release
+        if (!overloadedKeys.isEmpty()) {
+            for (String key : overloadedKeys) {
+                if (overloadedKeys.remove(key)) {
+                    system.getBackpressure().onReleased(key);
+                }
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return normalPriorityMsgsCount.get() + highPriorityMsgs.size();
+    }
+
     private void tryProcessQueue(boolean newMsg) {
         if (ready.get() == READY) {
             if (newMsg || !highPriorityMsgs.isEmpty() || !normalPriorityMsgs.isEmpty()) {
@@ -147,9 +227,9 @@ public final class TbActorMailbox implements TbActorCtx {
     private void processMailbox() {
         boolean noMoreElements = false;
         for (int i = 0; i < settings.getActorThroughput(); i++) {
-            TbActorMsg msg = highPriorityMsgs.poll();
+            TbActorMsg msg = pollHighPriority();
             if (msg == null) {
-                msg = normalPriorityMsgs.poll();
+                msg = pollNormalPriority();
             }
             if (msg != null) {
                 try {
@@ -237,8 +317,14 @@ public final class TbActorMailbox implements TbActorCtx {
             try {
                 ready.set(NOT_READY);
                 actor.destroy(stopReason, cause);
-                highPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
-                normalPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
+                TbActorMsg msg;
+                while ((msg = pollHighPriority()) != null) {
+                    msg.onTbActorStopped(stopReason);
+                }
+                while ((msg = pollNormalPriority()) != null) {
+                    msg.onTbActorStopped(stopReason);
+                }
+                releaseBackpressure();
             } catch (Throwable t) {
                 log.warn("[{}] Failed to destroy actor: ", selfId, t);
             }
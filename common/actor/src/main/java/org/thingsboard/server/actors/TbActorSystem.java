@@ -30,6 +30,10 @@ public interface TbActorSystem {
 
     void destroyDispatcher(String dispatcherId);
 
+    TbDispatcherStats getDispatcherStats(String dispatcherId);
+
+    TbActorBackpressure getBackpressure();
+
     TbActorRef getActor(TbActorId actorId);
 
     TbActorRef createRootActor(String dispatcherId, TbActorCreator creator);
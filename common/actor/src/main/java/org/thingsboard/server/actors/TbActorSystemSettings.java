@@ -17,11 +17,19 @@ package org.thingsboard.server.actors;
 
 import lombok.Data;
 
+import java.util.Collections;
+import java.util.Map;
+
 @Data
 public class TbActorSystemSettings {
 
     private final int actorThroughput;
     private final int schedulerPoolSize;
     private final int maxActorInitAttempts;
+    private Map<String, TbActorMailboxSettings> mailboxSettings = Collections.emptyMap();
+
+    public TbActorMailboxSettings getMailboxSettings(String dispatcherId) {
+        return mailboxSettings.getOrDefault(dispatcherId, TbActorMailboxSettings.UNBOUNDED);
+    }
 
 }
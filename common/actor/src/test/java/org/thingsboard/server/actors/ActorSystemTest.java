@@ -27,6 +27,7 @@ import org.thingsboard.server.common.data.id.DeviceId;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
@@ -45,6 +46,7 @@ public class ActorSystemTest {
     private static final int _100K = 100 * 1024;
     public static final int TIMEOUT_AWAIT_MAX_SEC = 30;
 
+    private volatile TbActorSystemSettings settings;
     private volatile TbActorSystem actorSystem;
     private volatile ExecutorService submitPool;
     private ExecutorService executor;
@@ -55,7 +57,7 @@ public class ActorSystemTest {
         int cores = Runtime.getRuntime().availableProcessors();
         parallelism = Math.max(2, cores / 2);
         log.debug("parallelism {}", parallelism);
-        TbActorSystemSettings settings = new TbActorSystemSettings(5, parallelism, 42);
+        settings = new TbActorSystemSettings(5, parallelism, 42);
         actorSystem = new DefaultTbActorSystem(settings);
         submitPool = Executors.newFixedThreadPool(parallelism, ThingsBoardThreadFactory.forName(getClass().getSimpleName() + "-submit-test-scope")); //order guaranteed
     }
@@ -217,6 +219,78 @@ public class ActorSystemTest {
         Assertions.assertTrue(testCtx1.getLatch().await(3, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testMailboxOverflowReject() throws InterruptedException {
+        settings.setMailboxSettings(Map.of(ROOT_DISPATCHER, new TbActorMailboxSettings(2, TbActorMailboxOverflowPolicy.REJECT)));
+        executor = ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass());
+        actorSystem.createDispatcher(ROOT_DISPATCHER, executor);
+        ActorTestCtx testCtx = getActorTestCtx(2);
+        AtomicInteger rejected = new AtomicInteger();
+
+        TbActorRef actorRef = actorSystem.createRootActor(ROOT_DISPATCHER, new SlowInitActor.SlowInitActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), testCtx));
+        for (int i = 0; i < 5; i++) {
+            actorRef.tell(new IntTbActorMsg(i) {
+                @Override
+                public void onTbActorMailboxOverflow() {
+                    rejected.incrementAndGet();
+                }
+            });
+        }
+
+        Assertions.assertEquals(3, rejected.get());
+        Assertions.assertTrue(testCtx.getLatch().await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, testCtx.getActual().get());
+        Awaitility.await().atMost(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS)
+                .until(() -> actorSystem.getDispatcherStats(ROOT_DISPATCHER).getQueueSize().get() == 0);
+    }
+
+    @Test
+    public void testMailboxOverflowDropOldest() throws InterruptedException {
+        settings.setMailboxSettings(Map.of(ROOT_DISPATCHER, new TbActorMailboxSettings(2, TbActorMailboxOverflowPolicy.DROP_OLDEST)));
+        executor = ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass());
+        actorSystem.createDispatcher(ROOT_DISPATCHER, executor);
+        ActorTestCtx testCtx = getActorTestCtx(2);
+        AtomicInteger dropped = new AtomicInteger();
+
+        TbActorRef actorRef = actorSystem.createRootActor(ROOT_DISPATCHER, new SlowInitActor.SlowInitActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), testCtx));
+        for (int i = 0; i < 5; i++) {
+            actorRef.tell(new IntTbActorMsg(i) {
+                @Override
+                public void onTbActorMailboxOverflow() {
+                    dropped.incrementAndGet();
+                }
+            });
+        }
+
+        Assertions.assertEquals(3, dropped.get());
+        Assertions.assertTrue(testCtx.getLatch().await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        Assertions.assertEquals(3 + 4, testCtx.getActual().get());
+    }
+
+    @Test
+    public void testMailboxOverflowBackpressure() throws InterruptedException {
+        settings.setMailboxSettings(Map.of(ROOT_DISPATCHER, new TbActorMailboxSettings(2, TbActorMailboxOverflowPolicy.BACKPRESSURE)));
+        executor = ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass());
+        actorSystem.createDispatcher(ROOT_DISPATCHER, executor);
+        ActorTestCtx testCtx = getActorTestCtx(5);
+
+        TbActorRef actorRef = actorSystem.createRootActor(ROOT_DISPATCHER, new SlowInitActor.SlowInitActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), testCtx));
+        for (int i = 0; i < 5; i++) {
+            actorRef.tell(new IntTbActorMsg(i, "Main"));
+        }
+
+        Assertions.assertTrue(actorSystem.getBackpressure().isActive("Main"));
+        Assertions.assertFalse(actorSystem.getBackpressure().isActive("HighPriority"));
+        Assertions.assertEquals(1, actorSystem.getDispatcherStats(ROOT_DISPATCHER).getOverloadedMailboxes().get());
+        Assertions.assertTrue(actorSystem.getBackpressure().awaitRelease("HighPriority", 0));
+        Assertions.assertTrue(actorSystem.getBackpressure().awaitRelease("Main", TimeUnit.SECONDS.toMillis(TIMEOUT_AWAIT_MAX_SEC)));
+        Assertions.assertTrue(testCtx.getLatch().await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        Assertions.assertEquals(10, testCtx.getActual().get());
+        Assertions.assertFalse(actorSystem.getBackpressure().isActive("Main"));
+    }
 
     public void testActorsAndMessages(int actorsCount, int msgNumber, int times) throws InterruptedException {
         Random random = new Random();
@@ -23,9 +23,16 @@ public class IntTbActorMsg implements TbActorMsg {
 
     @Getter
     private final int value;
+    @Getter
+    private final String backpressureKey;
 
     public IntTbActorMsg(int value) {
+        this(value, null);
+    }
+
+    public IntTbActorMsg(int value, String backpressureKey) {
         this.value = value;
+        this.backpressureKey = backpressureKey;
     }
 
     @Override
@@ -34,9 +34,13 @@ import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.util.JedisClusterCRC16;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -91,20 +95,58 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
             return null;
         }
         try (var connection = connectionFactory.getConnection()) {
-            byte[] rawValue = doGet(key, connection);
-            if (rawValue == null || rawValue.length == 0) {
-                return null;
-            } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
-                return SimpleTbCacheValueWrapper.empty();
-            } else {
-                long startTime = System.nanoTime();
-                V value = valueSerializer.deserialize(key, rawValue);
-                if (value != null) {
-                    fstStatsService.recordDecodeTime(value.getClass(), startTime);
-                    fstStatsService.incrementDecode(value.getClass());
+            return toValueWrapper(key, doGet(key, connection));
+        }
+    }
+
+    /**
+     * Sends the reads of all keys in a single pipeline, so the values are fetched in one network round-trip.
+     * Pipelines are not supported by the cluster connection, so the keys are read one by one in the cluster mode.
+     */
+    @Override
+    public Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys) {
+        if (!cacheEnabled || keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (connectionFactory.isRedisClusterAware()) {
+            return TbTransactionalCache.super.getAll(keys);
+        }
+        List<K> keysList = new ArrayList<>(keys);
+        List<Object> rawValues;
+        try (var connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                for (K key : keysList) {
+                    doGet(key, connection);
                 }
-                return SimpleTbCacheValueWrapper.wrap(value);
+            } finally {
+                rawValues = connection.closePipeline();
+            }
+        }
+        Map<K, TbCacheValueWrapper<V>> result = new HashMap<>();
+        for (int i = 0; i < keysList.size(); i++) {
+            K key = keysList.get(i);
+            TbCacheValueWrapper<V> value = toValueWrapper(key, (byte[]) rawValues.get(i));
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    private TbCacheValueWrapper<V> toValueWrapper(K key, byte[] rawValue) {
+        if (rawValue == null || rawValue.length == 0) {
+            return null;
+        } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
+            return SimpleTbCacheValueWrapper.empty();
+        } else {
+            long startTime = System.nanoTime();
+            V value = valueSerializer.deserialize(key, rawValue);
+            if (value != null) {
+                fstStatsService.recordDecodeTime(value.getClass(), startTime);
+                fstStatsService.incrementDecode(value.getClass());
             }
+            return SimpleTbCacheValueWrapper.wrap(value);
         }
     }
 
@@ -41,13 +41,16 @@ public class DefaultRateLimitService implements RateLimitService {
 
     private final TenantProfileProvider tenantProfileProvider;
     private final NotificationRuleProcessor notificationRuleProcessor;
+    private final TbRateLimitsFactory rateLimitsFactory;
 
     public DefaultRateLimitService(TenantProfileProvider tenantProfileProvider,
                                    @Lazy NotificationRuleProcessor notificationRuleProcessor,
+                                   TbRateLimitsFactory rateLimitsFactory,
                                    @Value("${cache.rateLimits.timeToLiveInMinutes:120}") int rateLimitsTtl,
                                    @Value("${cache.rateLimits.maxSize:200000}") int rateLimitsCacheMaxSize) {
         this.tenantProfileProvider = tenantProfileProvider;
         this.notificationRuleProcessor = notificationRuleProcessor;
+        this.rateLimitsFactory = rateLimitsFactory;
         this.rateLimits = Caffeine.newBuilder()
                 .expireAfterAccess(rateLimitsTtl, TimeUnit.MINUTES)
                 .maximumSize(rateLimitsCacheMaxSize)
@@ -105,7 +108,7 @@ public class DefaultRateLimitService implements RateLimitService {
 
         TbRateLimits rateLimit = rateLimits.asMap().compute(key, (k, limit) -> {
             if (limit == null || !limit.getConfiguration().equals(rateLimitConfig)) {
-                limit = new TbRateLimits(rateLimitConfig, api.isRefillRateLimitIntervally());
+                limit = rateLimitsFactory.create(api.name() + ":" + level, rateLimitConfig, api.isRefillRateLimitIntervally());
                 log.trace("[{}] Created new rate limit bucket for {} ({})", level, api, rateLimitConfig);
             }
             return limit;
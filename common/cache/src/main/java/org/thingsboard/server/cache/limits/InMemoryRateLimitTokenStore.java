@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.limits;
+
+import org.thingsboard.server.common.msg.tools.TbRateLimits;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single-process stand-in for the shared token store, used to run the distributed rate limits without Redis.
+ */
+public class InMemoryRateLimitTokenStore implements RateLimitTokenStore {
+
+    private final ConcurrentMap<String, TbRateLimits> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, String configuration, boolean refillIntervally, long min, long max) {
+        TbRateLimits bucket = buckets.computeIfAbsent(key + ":" + configuration, k -> new TbRateLimits(configuration, refillIntervally));
+        synchronized (bucket) {
+            if (bucket.getAvailableTokens() < min) {
+                return 0;
+            }
+            return bucket.tryConsumeAsMuchAsPossible(max);
+        }
+    }
+
+}
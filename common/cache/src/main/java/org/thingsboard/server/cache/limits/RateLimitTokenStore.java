@@ -0,0 +1,31 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.limits;
+
+/**
+ * Shared token buckets used by the distributed rate limits.
+ * Nodes borrow tokens from the shared bucket in batches and consume them locally.
+ */
+public interface RateLimitTokenStore {
+
+    /**
+     * Takes from {@code min} up to {@code max} tokens from the shared bucket identified by the key and the limits configuration.
+     *
+     * @return number of granted tokens, or 0 if less than {@code min} tokens are available
+     */
+    long tryAcquire(String key, String configuration, boolean refillIntervally, long min, long max);
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.limits;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConditionalOnExpression("'${cache.type:caffeine}'=='redis' && '${cache.rateLimits.distributed.enabled:false}'=='true'")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisRateLimitTokenStore implements RateLimitTokenStore {
+
+    private static final String KEY_PREFIX = "rateLimits::";
+
+    /*
+     * Bucket state is kept in a hash with the tokens and the last refill time of each bandwidth.
+     * ARGV: min, max, refill intervally flag, followed by (capacity, period in ms) of every bandwidth.
+     * Redis TIME is used, so all nodes refill the bucket using the same clock.
+     */
+    static final byte[] TRY_ACQUIRE_LUA_SCRIPT = StringRedisSerializer.UTF_8.serialize("""
+            local key = KEYS[1]
+            local min = tonumber(ARGV[1])
+            local max = tonumber(ARGV[2])
+            local intervally = ARGV[3] == '1'
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bandwidths = (#ARGV - 3) / 2
+            local tokens = {}
+            local refilledAt = {}
+            local available = max
+            local ttl = 0
+            for i = 1, bandwidths do
+                local capacity = tonumber(ARGV[2 + i * 2])
+                local period = tonumber(ARGV[3 + i * 2])
+                local t = tonumber(redis.call('HGET', key, 't' .. i))
+                local ts = tonumber(redis.call('HGET', key, 'ts' .. i))
+                if t == nil or ts == nil then
+                    t = capacity
+                    ts = now
+                elseif now > ts then
+                    if intervally then
+                        local periods = math.floor((now - ts) / period)
+                        t = math.min(capacity, t + periods * capacity)
+                        ts = ts + periods * period
+                    else
+                        t = math.min(capacity, t + (now - ts) * capacity / period)
+                        ts = now
+                    end
+                end
+                tokens[i] = t
+                refilledAt[i] = ts
+                available = math.min(available, math.floor(t))
+                ttl = math.max(ttl, period)
+            end
+            local granted = 0
+            if available >= min then
+                granted = available
+            end
+            for i = 1, bandwidths do
+                redis.call('HSET', key, 't' .. i, tostring(tokens[i] - granted), 'ts' .. i, tostring(refilledAt[i]))
+            end
+            redis.call('PEXPIRE', key, ttl * 2)
+            return granted
+            """);
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private volatile byte[] scriptSha;
+
+    @Override
+    public long tryAcquire(String key, String configuration, boolean refillIntervally, long min, long max) {
+        byte[][] keysAndArgs = toKeysAndArgs(key, configuration, refillIntervally, min, max);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            byte[] sha = scriptSha;
+            if (sha == null) {
+                scriptSha = sha = StringRedisSerializer.UTF_8.serialize(connection.scriptingCommands().scriptLoad(TRY_ACQUIRE_LUA_SCRIPT));
+            }
+            Long granted;
+            try {
+                granted = connection.scriptingCommands().evalSha(sha, ReturnType.INTEGER, 1, keysAndArgs);
+            } catch (Exception e) {
+                log.debug("Failed to evaluate rate limits script by SHA, falling back to eval", e);
+                scriptSha = null;
+                granted = connection.scriptingCommands().eval(TRY_ACQUIRE_LUA_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs);
+            }
+            return granted != null ? granted : 0;
+        }
+    }
+
+    private static byte[][] toKeysAndArgs(String key, String configuration, boolean refillIntervally, long min, long max) {
+        List<String> keysAndArgs = new ArrayList<>();
+        keysAndArgs.add(KEY_PREFIX + key + ":" + configuration);
+        keysAndArgs.add(Long.toString(min));
+        keysAndArgs.add(Long.toString(max));
+        keysAndArgs.add(refillIntervally ? "1" : "0");
+        for (String limitSrc : configuration.split(",")) {
+            String[] parts = limitSrc.split(":");
+            keysAndArgs.add(Long.toString(Long.parseLong(parts[0].trim())));
+            keysAndArgs.add(Long.toString(Long.parseLong(parts[1].trim()) * 1000));
+        }
+        byte[][] result = new byte[keysAndArgs.size()][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = StringRedisSerializer.UTF_8.serialize(keysAndArgs.get(i));
+        }
+        return result;
+    }
+
+}
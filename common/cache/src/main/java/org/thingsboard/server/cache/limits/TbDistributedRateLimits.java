@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.limits;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.msg.tools.TbRateLimits;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limits shared by all nodes of the cluster.
+ * <p>
+ * Tokens are borrowed from the {@link RateLimitTokenStore} in leases and consumed locally without locking.
+ * Unused tokens of an expired lease are dropped, so a node can not hoard the quota of the other nodes.
+ * If the store is not available, the node falls back to the local bucket with the same configuration.
+ */
+@Slf4j
+public class TbDistributedRateLimits extends TbRateLimits {
+
+    private final RateLimitTokenStore tokenStore;
+    private final String key;
+    private final boolean refillIntervally;
+    private final long leaseSize;
+    private final long leaseTtlMs;
+
+    private final AtomicLong leasedTokens = new AtomicLong();
+    private final Lock leaseLock = new ReentrantLock();
+    private volatile long leaseExpirationTs;
+    private volatile long deniedUntilTs;
+
+    public TbDistributedRateLimits(RateLimitTokenStore tokenStore, String key, String limitsConfiguration, boolean refillIntervally,
+                                   long leaseSize, long leaseTtlMs) {
+        super(limitsConfiguration, refillIntervally);
+        this.tokenStore = tokenStore;
+        this.key = key;
+        this.refillIntervally = refillIntervally;
+        // a lease may not take more than a tenth of the smallest bandwidth, otherwise a single node could exhaust it
+        this.leaseSize = Math.max(1, Math.min(leaseSize, getMinCapacity(limitsConfiguration) / 10));
+        this.leaseTtlMs = leaseTtlMs;
+    }
+
+    @Override
+    public boolean tryConsume() {
+        return tryConsume(1);
+    }
+
+    @Override
+    public boolean tryConsume(long number) {
+        if (consumeLeased(number)) {
+            return true;
+        }
+        leaseLock.lock();
+        try {
+            if (consumeLeased(number)) {
+                return true;
+            }
+            long now = System.currentTimeMillis();
+            if (now < deniedUntilTs) {
+                return false;
+            }
+            long granted;
+            try {
+                granted = tokenStore.tryAcquire(key, getConfiguration(), refillIntervally, number, Math.max(number, leaseSize));
+            } catch (Exception e) {
+                log.debug("[{}] Failed to acquire rate limit tokens, using local rate limits", key, e);
+                return super.tryConsume(number);
+            }
+            if (granted < number) {
+                deniedUntilTs = now + Math.max(1, leaseTtlMs / 10);
+                return false;
+            }
+            leasedTokens.set(granted - number);
+            leaseExpirationTs = now + leaseTtlMs;
+            return true;
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+
+    private boolean consumeLeased(long number) {
+        if (System.currentTimeMillis() > leaseExpirationTs) {
+            return false;
+        }
+        long tokens;
+        do {
+            tokens = leasedTokens.get();
+            if (tokens < number) {
+                return false;
+            }
+        } while (!leasedTokens.compareAndSet(tokens, tokens - number));
+        return true;
+    }
+
+    private static long getMinCapacity(String limitsConfiguration) {
+        long minCapacity = Long.MAX_VALUE;
+        for (String limitSrc : limitsConfiguration.split(",")) {
+            minCapacity = Math.min(minCapacity, Long.parseLong(limitSrc.split(":")[0].trim()));
+        }
+        return minCapacity;
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.limits;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.msg.tools.TbRateLimits;
+
+import java.util.Optional;
+
+@Component
+@Slf4j
+public class TbRateLimitsFactory {
+
+    private final RateLimitTokenStore tokenStore;
+
+    @Value("${cache.rateLimits.distributed.enabled:false}")
+    private boolean distributed;
+    @Value("${cache.rateLimits.distributed.leaseSize:100}")
+    private long leaseSize;
+    @Value("${cache.rateLimits.distributed.leaseTtlInMs:1000}")
+    private long leaseTtlMs;
+
+    @Autowired
+    public TbRateLimitsFactory(Optional<RateLimitTokenStore> tokenStore) {
+        this.tokenStore = tokenStore.orElse(null);
+    }
+
+    public TbRateLimitsFactory(RateLimitTokenStore tokenStore, long leaseSize, long leaseTtlMs) {
+        this.tokenStore = tokenStore;
+        this.distributed = tokenStore != null;
+        this.leaseSize = leaseSize;
+        this.leaseTtlMs = leaseTtlMs;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (distributed && tokenStore == null) {
+            log.warn("Distributed rate limits require the Redis cache, local rate limits will be used");
+        }
+    }
+
+    /**
+     * Creates rate limits for the given key. The key has to identify the limited API and entity across the cluster.
+     */
+    public TbRateLimits create(String key, String configuration, boolean refillIntervally) {
+        if (distributed && tokenStore != null) {
+            return new TbDistributedRateLimits(tokenStore, key, configuration, refillIntervally, leaseSize, leaseTtlMs);
+        }
+        return new TbRateLimits(configuration, refillIntervally);
+    }
+
+    public TbRateLimits create(String key, String configuration) {
+        return create(key, configuration, false);
+    }
+
+}
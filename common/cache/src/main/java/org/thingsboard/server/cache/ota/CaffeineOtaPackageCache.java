@@ -16,14 +16,14 @@
 package org.thingsboard.server.cache.ota;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import static org.thingsboard.server.common.data.CacheConstants.OTA_PACKAGE_DATA_CACHE;
 
 @Service
-@ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "caffeine", matchIfMissing = true)
+@ConditionalOnExpression("'${cache.type:caffeine}'=='caffeine' && '${cache.otaPackagesData.localFile.enabled:false}'!='true'")
 @RequiredArgsConstructor
 public class CaffeineOtaPackageCache implements OtaPackageDataCache {
 
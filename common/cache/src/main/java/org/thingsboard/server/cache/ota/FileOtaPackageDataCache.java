@@ -0,0 +1,286 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.ota;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps OTA package data in files of the local disk and serves it through read-only memory mappings,
+ * so the package bytes live in the OS page cache instead of the JVM heap.
+ * Packages are evicted in LRU order once the total size of the files exceeds the configured limit.
+ * <p>
+ * The limit is soft: a package is always stored, even if it is larger than the limit on its own, and chunks of an evicted
+ * package may still be in use by the transports, so its mapping is released only once they are garbage collected.
+ * If the package can not be written to the disk, its data is kept on the heap instead.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("'${cache.type:caffeine}'=='caffeine' && '${cache.otaPackagesData.localFile.enabled:false}'=='true'")
+public class FileOtaPackageDataCache implements OtaPackageDataCache {
+
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+
+    private final Map<String, MappedPackage> packages = new LinkedHashMap<>(16, 0.75f, true);
+    private final Lock lock = new ReentrantLock();
+    private final ReferenceQueue<ByteBuffer> releasedMappings = new ReferenceQueue<>();
+    private final Set<EvictedMapping> evictedMappings = new HashSet<>();
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private long totalSize;
+    private long evictedSize;
+
+    public FileOtaPackageDataCache(@Value("${cache.otaPackagesData.localFile.directory:}") String directory,
+                                   @Value("${cache.otaPackagesData.localFile.maxSizeInMb:1024}") long maxSizeInMb) {
+        this.directory = directory == null || directory.isBlank() ?
+                Paths.get(System.getProperty("java.io.tmpdir"), "tb-ota-packages") : Paths.get(directory);
+        this.maxSizeInBytes = maxSizeInMb * 1024 * 1024;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+        // Files left by the previous run are not tracked, so we remove them
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + FILE_SUFFIX + "," + TMP_FILE_SUFFIX + "}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        log.info("Using local file cache for OTA packages data in [{}] limited to {} bytes", directory, maxSizeInBytes);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        lock.lock();
+        try {
+            packages.values().forEach(this::delete);
+            packages.clear();
+            totalSize = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return get(key, 0, 0);
+    }
+
+    @Override
+    public byte[] get(String key, int chunkSize, int chunk) {
+        ByteBuffer data = getChunk(key, chunkSize, chunk);
+        if (data == null) {
+            return null;
+        }
+        byte[] result = new byte[data.remaining()];
+        data.get(result);
+        return result;
+    }
+
+    @Override
+    public ByteBuffer getChunk(String key, int chunkSize, int chunk) {
+        MappedPackage mappedPackage = getPackage(key);
+        if (mappedPackage == null) {
+            return chunkSize < 1 ? null : ByteBuffer.allocate(0);
+        }
+        ByteBuffer data = mappedPackage.data;
+        if (chunkSize < 1) {
+            return data.duplicate();
+        }
+        long startIndex = (long) chunkSize * chunk;
+        if (startIndex >= data.capacity()) {
+            return ByteBuffer.allocate(0);
+        }
+        int size = (int) Math.min(data.capacity() - startIndex, chunkSize);
+        return data.slice((int) startIndex, size);
+    }
+
+    @Override
+    public void put(String key, byte[] value) {
+        if (value == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (packages.containsKey(key)) {
+                return;
+            }
+            expungeReleasedMappings();
+            if (value.length > maxSizeInBytes || evictedSize + value.length > maxSizeInBytes) {
+                log.debug("[{}] Storing {} bytes of OTA package data over the local file cache limit of {} bytes, evicted packages of {} bytes are still in use",
+                        key, value.length, maxSizeInBytes, evictedSize);
+            }
+            MappedPackage mappedPackage;
+            try {
+                mappedPackage = writeAndMap(key, value);
+            } catch (IOException e) {
+                log.warn("[{}] Failed to store OTA package data in the local file cache, keeping it on the heap", key, e);
+                mappedPackage = new MappedPackage(null, null, ByteBuffer.wrap(value.clone()).asReadOnlyBuffer(), value.length);
+            }
+            packages.put(key, mappedPackage);
+            totalSize += mappedPackage.size;
+            evictIfNeeded(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void evict(String key) {
+        lock.lock();
+        try {
+            MappedPackage mappedPackage = packages.remove(key);
+            if (mappedPackage != null) {
+                totalSize -= mappedPackage.size;
+                delete(mappedPackage);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean has(String otaPackageId) {
+        return getPackage(otaPackageId) != null;
+    }
+
+    long getTotalSize() {
+        lock.lock();
+        try {
+            return totalSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getEvictedSize() {
+        lock.lock();
+        try {
+            expungeReleasedMappings();
+            return evictedSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private MappedPackage getPackage(String key) {
+        lock.lock();
+        try {
+            return packages.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private MappedPackage writeAndMap(String key, byte[] value) throws IOException {
+        Path tmpFile = directory.resolve(UUID.randomUUID() + TMP_FILE_SUFFIX);
+        Path file = directory.resolve(UUID.randomUUID() + FILE_SUFFIX);
+        Files.write(tmpFile, value);
+        Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed and even after the file is deleted,
+            // so chunks handed out to the transports are not affected by the eviction of the package.
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, value.length);
+            log.debug("[{}] Stored {} bytes of OTA package data in [{}]", key, value.length, file);
+            return new MappedPackage(file, data, data.asReadOnlyBuffer(), value.length);
+        }
+    }
+
+    private void evictIfNeeded(String storedKey) {
+        Iterator<Map.Entry<String, MappedPackage>> iterator = packages.entrySet().iterator();
+        while (totalSize > maxSizeInBytes && iterator.hasNext()) {
+            Map.Entry<String, MappedPackage> eldest = iterator.next();
+            if (eldest.getKey().equals(storedKey)) {
+                // the package that was just stored stays cached even if it exceeds the limit on its own
+                continue;
+            }
+            iterator.remove();
+            totalSize -= eldest.getValue().size;
+            delete(eldest.getValue());
+            log.debug("[{}] Evicted OTA package data from the local file cache", eldest.getKey());
+        }
+    }
+
+    private void delete(MappedPackage mappedPackage) {
+        if (mappedPackage.file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(mappedPackage.file);
+        } catch (IOException e) {
+            log.warn("Failed to delete OTA package data file [{}]", mappedPackage.file, e);
+        }
+        // every chunk handed out references the mapping, so it is collected once the transports are done with the chunks
+        evictedMappings.add(new EvictedMapping(mappedPackage.mapping, mappedPackage.size, releasedMappings));
+        evictedSize += mappedPackage.size;
+    }
+
+    private void expungeReleasedMappings() {
+        Reference<? extends ByteBuffer> released;
+        while ((released = releasedMappings.poll()) != null) {
+            if (evictedMappings.remove(released)) {
+                evictedSize -= ((EvictedMapping) released).size;
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class MappedPackage {
+        private final Path file;
+        private final MappedByteBuffer mapping;
+        private final ByteBuffer data;
+        private final long size;
+    }
+
+    private static class EvictedMapping extends PhantomReference<ByteBuffer> {
+        private final long size;
+
+        EvictedMapping(ByteBuffer mapping, long size, ReferenceQueue<ByteBuffer> queue) {
+            super(mapping, queue);
+            this.size = size;
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.limits;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.msg.tools.TbRateLimits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TbDistributedRateLimitsTest {
+
+    @Test
+    public void testNodesShareConfiguredLimit() {
+        TbRateLimitsFactory factory = new TbRateLimitsFactory(new InMemoryRateLimitTokenStore(), 100, 60000);
+        TbRateLimits node1 = factory.create("TENANT:1", "1000:60");
+        TbRateLimits node2 = factory.create("TENANT:1", "1000:60");
+        TbRateLimits node3 = factory.create("TENANT:1", "1000:60");
+
+        int consumed = 0;
+        for (int i = 0; i < 1000; i++) {
+            for (TbRateLimits node : new TbRateLimits[]{node1, node2, node3}) {
+                if (node.tryConsume()) {
+                    consumed++;
+                }
+            }
+        }
+
+        assertThat(consumed).isEqualTo(1000);
+    }
+
+    @Test
+    public void testLeaseIsLimitedByCapacity() {
+        InMemoryRateLimitTokenStore store = new InMemoryRateLimitTokenStore();
+        TbRateLimitsFactory factory = new TbRateLimitsFactory(store, 100, 60000);
+        TbRateLimits node1 = factory.create("DEVICE:1", "20:60");
+        TbRateLimits node2 = factory.create("DEVICE:1", "20:60");
+
+        assertThat(node1.tryConsume()).isTrue();
+        // the first node borrowed 2 tokens only, the rest is still available for the second one
+        for (int i = 0; i < 18; i++) {
+            assertThat(node2.tryConsume()).isTrue();
+        }
+    }
+
+    @Test
+    public void testDifferentKeysUseDifferentBuckets() {
+        TbRateLimitsFactory factory = new TbRateLimitsFactory(new InMemoryRateLimitTokenStore(), 100, 60000);
+        TbRateLimits tenant1 = factory.create("TENANT:1", "1:60");
+        TbRateLimits tenant2 = factory.create("TENANT:2", "1:60");
+
+        assertThat(tenant1.tryConsume()).isTrue();
+        assertThat(tenant1.tryConsume()).isFalse();
+        assertThat(tenant2.tryConsume()).isTrue();
+    }
+
+    @Test
+    public void testFallbackToLocalLimitsWhenStoreFails() {
+        RateLimitTokenStore store = mock(RateLimitTokenStore.class);
+        when(store.tryAcquire(anyString(), anyString(), anyBoolean(), anyLong(), anyLong())).thenThrow(new IllegalStateException("Connection refused"));
+        TbRateLimits limits = new TbRateLimitsFactory(store, 100, 60000).create("TENANT:1", "2:60");
+
+        assertThat(limits.tryConsume()).isTrue();
+        assertThat(limits.tryConsume()).isTrue();
+        assertThat(limits.tryConsume()).isFalse();
+    }
+
+    @Test
+    public void testLocalLimitsWhenStoreIsNotConfigured() {
+        TbRateLimits limits = new TbRateLimitsFactory(null, 100, 60000).create("TENANT:1", "2:60");
+
+        assertThat(limits).isNotInstanceOf(TbDistributedRateLimits.class);
+    }
+
+}
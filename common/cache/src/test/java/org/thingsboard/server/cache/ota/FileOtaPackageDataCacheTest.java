@@ -0,0 +1,173 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.ota;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileOtaPackageDataCacheTest {
+
+    @TempDir
+    Path dir;
+
+    FileOtaPackageDataCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new FileOtaPackageDataCache(dir.toString(), 1);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.destroy();
+    }
+
+    @Test
+    void givenPackage_whenGetChunks_thenReturnSlicesOfData() {
+        byte[] data = data(25, 1);
+        cache.put("p1", data);
+
+        assertThat(cache.has("p1")).isTrue();
+        assertThat(cache.get("p1")).isEqualTo(data);
+        assertThat(cache.get("p1", 10, 1)).containsExactly(slice(data, 10, 10));
+        assertThat(cache.get("p1", 10, 2)).containsExactly(slice(data, 20, 5));
+        assertThat(cache.get("p1", 10, 3)).isEmpty();
+
+        ByteBuffer chunk = cache.getChunk("p1", 10, 2);
+        assertThat(chunk.isReadOnly()).isTrue();
+        assertThat(chunk.remaining()).isEqualTo(5);
+        assertThat(chunk.get(0)).isEqualTo(data[20]);
+    }
+
+    @Test
+    void givenMissingPackage_whenGet_thenBehaveAsOtherCaches() {
+        assertThat(cache.has("p1")).isFalse();
+        assertThat(cache.get("p1")).isNull();
+        assertThat(cache.get("p1", 10, 0)).isEmpty();
+    }
+
+    @Test
+    void givenPackage_whenEvict_thenFileIsRemoved() throws IOException {
+        cache.put("p1", data(100, 2));
+        assertThat(listFiles()).hasSize(1);
+
+        cache.evict("p1");
+
+        assertThat(cache.has("p1")).isFalse();
+        assertThat(cache.getTotalSize()).isZero();
+        assertThat(listFiles()).isEmpty();
+    }
+
+    @Test
+    void givenSizeLimitExceeded_whenPut_thenEvictLeastRecentlyUsed() {
+        int size = 400 * 1024;
+        cache.put("p1", data(size, 1));
+        cache.put("p2", data(size, 2));
+        cache.get("p1", 10, 0);
+
+        cache.put("p3", data(size, 3));
+
+        assertThat(cache.has("p1")).isTrue();
+        assertThat(cache.has("p2")).isFalse();
+        assertThat(cache.has("p3")).isTrue();
+        assertThat(cache.getTotalSize()).isEqualTo(2L * size);
+    }
+
+    @Test
+    void givenChunkServed_whenPackageEvicted_thenChunkIsStillReadable() {
+        byte[] data = data(50, 4);
+        cache.put("p1", data);
+        ByteBuffer chunk = cache.getChunk("p1", 20, 1);
+
+        cache.evict("p1");
+
+        byte[] result = new byte[chunk.remaining()];
+        chunk.get(result);
+        assertThat(result).containsExactly(slice(data, 20, 20));
+    }
+
+    @Test
+    void givenChunksOfEvictedPackageInUse_whenPut_thenStoredOverTheLimit() {
+        int size = 600 * 1024;
+        cache.put("p1", data(size, 1));
+        ByteBuffer chunk = cache.getChunk("p1", 1024, 0);
+        cache.evict("p1");
+
+        cache.put("p2", data(size, 2));
+
+        assertThat(cache.getEvictedSize()).isEqualTo(size);
+        assertThat(cache.has("p2")).isTrue();
+        Reference.reachabilityFence(chunk);
+    }
+
+    @Test
+    void givenPackageLargerThanLimit_whenPut_thenStoredAndOthersEvicted() {
+        cache.put("p1", data(100, 1));
+        byte[] data = data(2 * 1024 * 1024, 2);
+
+        cache.put("p2", data);
+
+        assertThat(cache.has("p1")).isFalse();
+        assertThat(cache.get("p2")).isEqualTo(data);
+        assertThat(cache.getTotalSize()).isEqualTo(data.length);
+    }
+
+    @Test
+    void givenDirectoryNotWritable_whenPut_thenDataKeptOnHeap() throws IOException {
+        byte[] data = data(25, 1);
+        Files.delete(dir);
+
+        cache.put("p1", data);
+
+        assertThat(cache.has("p1")).isTrue();
+        assertThat(cache.get("p1", 10, 2)).containsExactly(slice(data, 20, 5));
+        cache.evict("p1");
+        assertThat(cache.has("p1")).isFalse();
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+
+    private static byte[] data(int size, int seed) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    private static byte[] slice(byte[] data, int from, int size) {
+        byte[] result = new byte[size];
+        System.arraycopy(data, from, result, 0, size);
+        return result;
+    }
+
+}
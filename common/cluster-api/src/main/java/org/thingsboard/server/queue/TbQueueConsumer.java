@@ -36,6 +36,22 @@ public interface TbQueueConsumer<T extends TbQueueMsg> {
 
     void commit();
 
+    /**
+     * Returns the position reached by the last {@link #poll(long)}, to be committed later via
+     * {@link #commit(TbQueueConsumerPosition)}, or {@code null} if only the current position can be committed.
+     */
+    default TbQueueConsumerPosition getPosition() {
+        return null;
+    }
+
+    /**
+     * Commits the position returned by {@link #getPosition()}.
+     * Consumers that do not track positions commit their current position instead.
+     */
+    default void commit(TbQueueConsumerPosition position) {
+        commit();
+    }
+
     boolean isStopped();
 
     List<String> getFullTopicNames();
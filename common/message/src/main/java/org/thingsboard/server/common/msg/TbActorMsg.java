@@ -30,4 +30,19 @@ public interface TbActorMsg {
     default void onTbActorStopped(TbActorStopReason reason) {
     }
 
+    /**
+     * Executed when the message is rejected or dropped because the mailbox of the target TbActor is full.
+     * Implementation should cleanup the resources.
+     */
+    default void onTbActorMailboxOverflow() {
+    }
+
+    /**
+     * Key of the producers that should be slowed down when this message overloads the mailbox of the target TbActor,
+     * e.g. the rule engine queue the message was polled from. Null if the producers can't be slowed down.
+     */
+    default String getBackpressureKey() {
+        return null;
+    }
+
 }
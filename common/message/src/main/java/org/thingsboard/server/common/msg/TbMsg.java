@@ -16,12 +16,17 @@
 package org.thingsboard.server.common.msg;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.id.CustomerId;
@@ -33,6 +38,8 @@ import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.msg.gen.MsgProtos;
 import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Objects;
 import java.util.UUID;
@@ -57,7 +64,18 @@ public final class TbMsg implements Serializable {
     private final CustomerId customerId;
     private final TbMsgMetaData metaData;
     private final TbMsgDataType dataType;
-    private final String data;
+    @Setter(value = AccessLevel.NONE)
+    private volatile String data;
+    /*
+     * Parsed form of the data, shared between the messages produced by transformations.
+     * Either data or jsonData is set on creation, the other one is materialized on first access.
+     * */
+    @Getter(value = AccessLevel.NONE)
+    @Setter(value = AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @JsonIgnore
+    transient private volatile JsonNode jsonData;
     private final RuleChainId ruleChainId;
     private final RuleNodeId ruleNodeId;
 
@@ -112,7 +130,7 @@ public final class TbMsg implements Serializable {
     }
 
     private TbMsg(String queueName, UUID id, long ts, TbMsgType internalType, String type, EntityId originator, CustomerId customerId, TbMsgMetaData metaData, TbMsgDataType dataType, String data,
-                  RuleChainId ruleChainId, RuleNodeId ruleNodeId, UUID correlationId, Integer partition, TbMsgProcessingCtx ctx, TbMsgCallback callback) {
+                  JsonNode jsonData, RuleChainId ruleChainId, RuleNodeId ruleNodeId, UUID correlationId, Integer partition, TbMsgProcessingCtx ctx, TbMsgCallback callback) {
         this.id = id != null ? id : UUID.randomUUID();
         this.queueName = queueName;
         if (ts > 0) {
@@ -135,6 +153,7 @@ public final class TbMsg implements Serializable {
         this.metaData = metaData;
         this.dataType = dataType != null ? dataType : TbMsgDataType.JSON;
         this.data = data;
+        this.jsonData = jsonData;
         this.ruleChainId = ruleChainId;
         this.ruleNodeId = ruleNodeId;
         this.correlationId = correlationId;
@@ -144,10 +163,14 @@ public final class TbMsg implements Serializable {
     }
 
     public static ByteString toByteString(TbMsg msg) {
-        return ByteString.copyFrom(toByteArray(msg));
+        return toProto(msg).toByteString();
     }
 
     public static byte[] toByteArray(TbMsg msg) {
+        return toProto(msg).toByteArray();
+    }
+
+    private static MsgProtos.TbMsgProto toProto(TbMsg msg) {
         MsgProtos.TbMsgProto.Builder builder = MsgProtos.TbMsgProto.newBuilder();
         builder.setId(msg.getId().toString());
         builder.setTs(msg.getTs());
@@ -172,7 +195,7 @@ public final class TbMsg implements Serializable {
         }
 
         if (msg.getMetaData() != null) {
-            builder.setMetaData(MsgProtos.TbMsgMetaDataProto.newBuilder().putAllData(msg.getMetaData().getData()).build());
+            builder.setMetaData(MsgProtos.TbMsgMetaDataProto.newBuilder().putAllData(msg.getMetaData().getDataView()).build());
         }
 
         builder.setDataType(msg.getDataType().ordinal());
@@ -187,49 +210,92 @@ public final class TbMsg implements Serializable {
         }
 
         builder.setCtx(msg.ctx.toProto());
-        return builder.build().toByteArray();
+        return builder.build();
     }
 
     public static TbMsg fromBytes(String queueName, byte[] data, TbMsgCallback callback) {
         try {
-            MsgProtos.TbMsgProto proto = MsgProtos.TbMsgProto.parseFrom(data);
-            TbMsgMetaData metaData = new TbMsgMetaData(proto.getMetaData().getDataMap());
-            EntityId entityId = EntityIdFactory.getByTypeAndUuid(proto.getEntityType(), new UUID(proto.getEntityIdMSB(), proto.getEntityIdLSB()));
-            CustomerId customerId = null;
-            RuleChainId ruleChainId = null;
-            RuleNodeId ruleNodeId = null;
-            UUID correlationId = null;
-            Integer partition = null;
-            if (proto.getCustomerIdMSB() != 0L && proto.getCustomerIdLSB() != 0L) {
-                customerId = new CustomerId(new UUID(proto.getCustomerIdMSB(), proto.getCustomerIdLSB()));
-            }
-            if (proto.getRuleChainIdMSB() != 0L && proto.getRuleChainIdLSB() != 0L) {
-                ruleChainId = new RuleChainId(new UUID(proto.getRuleChainIdMSB(), proto.getRuleChainIdLSB()));
-            }
-            if (proto.getRuleNodeIdMSB() != 0L && proto.getRuleNodeIdLSB() != 0L) {
-                ruleNodeId = new RuleNodeId(new UUID(proto.getRuleNodeIdMSB(), proto.getRuleNodeIdLSB()));
-            }
-            if (proto.getCorrelationIdMSB() != 0L && proto.getCorrelationIdLSB() != 0L) {
-                correlationId = new UUID(proto.getCorrelationIdMSB(), proto.getCorrelationIdLSB());
-                partition = proto.getPartition();
-            }
-
-            TbMsgProcessingCtx ctx;
-            if (proto.hasCtx()) {
-                ctx = TbMsgProcessingCtx.fromProto(proto.getCtx());
-            } else {
-                // Backward compatibility with unprocessed messages fetched from queue after update.
-                ctx = new TbMsgProcessingCtx(proto.getRuleNodeExecCounter());
-            }
+            return fromProto(queueName, MsgProtos.TbMsgProto.parseFrom(data), callback);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Could not parse protobuf for TbMsg", e);
+        }
+    }
 
-            TbMsgDataType dataType = TbMsgDataType.values()[proto.getDataType()];
-            return new TbMsg(queueName, UUID.fromString(proto.getId()), proto.getTs(), null, proto.getType(), entityId, customerId,
-                    metaData, dataType, proto.getData(), ruleChainId, ruleNodeId, correlationId, partition, ctx, callback);
+    public static TbMsg fromBytes(String queueName, ByteString data, TbMsgCallback callback) {
+        try {
+            return fromProto(queueName, MsgProtos.TbMsgProto.parseFrom(data), callback);
         } catch (InvalidProtocolBufferException e) {
             throw new IllegalStateException("Could not parse protobuf for TbMsg", e);
         }
     }
 
+    private static TbMsg fromProto(String queueName, MsgProtos.TbMsgProto proto, TbMsgCallback callback) {
+        // the metadata map of the parsed proto is immutable, so it is shared until the metadata is modified
+        TbMsgMetaData metaData = new TbMsgMetaData(proto.getMetaData().getDataMap(), true);
+        EntityId entityId = EntityIdFactory.getByTypeAndUuid(proto.getEntityType(), new UUID(proto.getEntityIdMSB(), proto.getEntityIdLSB()));
+        CustomerId customerId = null;
+        RuleChainId ruleChainId = null;
+        RuleNodeId ruleNodeId = null;
+        UUID correlationId = null;
+        Integer partition = null;
+        if (proto.getCustomerIdMSB() != 0L && proto.getCustomerIdLSB() != 0L) {
+            customerId = new CustomerId(new UUID(proto.getCustomerIdMSB(), proto.getCustomerIdLSB()));
+        }
+        if (proto.getRuleChainIdMSB() != 0L && proto.getRuleChainIdLSB() != 0L) {
+            ruleChainId = new RuleChainId(new UUID(proto.getRuleChainIdMSB(), proto.getRuleChainIdLSB()));
+        }
+        if (proto.getRuleNodeIdMSB() != 0L && proto.getRuleNodeIdLSB() != 0L) {
+            ruleNodeId = new RuleNodeId(new UUID(proto.getRuleNodeIdMSB(), proto.getRuleNodeIdLSB()));
+        }
+        if (proto.getCorrelationIdMSB() != 0L && proto.getCorrelationIdLSB() != 0L) {
+            correlationId = new UUID(proto.getCorrelationIdMSB(), proto.getCorrelationIdLSB());
+            partition = proto.getPartition();
+        }
+
+        TbMsgProcessingCtx ctx;
+        if (proto.hasCtx()) {
+            ctx = TbMsgProcessingCtx.fromProto(proto.getCtx());
+        } else {
+            // Backward compatibility with unprocessed messages fetched from queue after update.
+            ctx = new TbMsgProcessingCtx(proto.getRuleNodeExecCounter());
+        }
+
+        TbMsgDataType dataType = TbMsgDataType.values()[proto.getDataType()];
+        return new TbMsg(queueName, UUID.fromString(proto.getId()), proto.getTs(), null, proto.getType(), entityId, customerId,
+                metaData, dataType, proto.getData(), null, ruleChainId, ruleNodeId, correlationId, partition, ctx, callback);
+    }
+
+    public String getData() {
+        String data = this.data;
+        if (data == null && jsonData != null) {
+            data = JacksonUtil.toString(jsonData);
+            this.data = data;
+        }
+        return data;
+    }
+
+    /**
+     * Returns the message data parsed as JSON. The result is parsed once per message and shared with the messages
+     * created from it by {@link #transform()} or {@link #copy()}, so it must not be modified: use {@link JsonNode#deepCopy()} first.
+     *
+     * @return parsed data or null if the data is null or empty.
+     * @throws IllegalArgumentException if the data is not a valid JSON.
+     */
+    @JsonIgnore
+    public JsonNode getDataAsJson() {
+        JsonNode jsonData = this.jsonData;
+        if (jsonData == null && data != null) {
+            jsonData = JacksonUtil.toJsonNode(data);
+            this.jsonData = jsonData;
+        }
+        return jsonData;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getData();
+        out.defaultWriteObject();
+    }
+
     public int getAndIncrementRuleNodeCounter() {
         return ctx.getAndIncrementRuleNodeCounter();
     }
@@ -339,6 +405,7 @@ public final class TbMsg implements Serializable {
         protected TbMsgMetaData metaData;
         protected TbMsgDataType dataType;
         protected String data;
+        protected JsonNode jsonData;
         protected RuleChainId ruleChainId;
         protected RuleNodeId ruleNodeId;
         protected UUID correlationId;
@@ -359,6 +426,7 @@ public final class TbMsg implements Serializable {
             this.metaData = tbMsg.metaData;
             this.dataType = tbMsg.dataType;
             this.data = tbMsg.data;
+            this.jsonData = tbMsg.jsonData;
             this.ruleChainId = tbMsg.ruleChainId;
             this.ruleNodeId = tbMsg.ruleNodeId;
             this.correlationId = tbMsg.correlationId;
@@ -426,10 +494,23 @@ public final class TbMsg implements Serializable {
         }
 
         public TbMsgBuilder data(String data) {
+            if (this.data == null || !this.data.equals(data)) {
+                this.jsonData = null;
+            }
             this.data = data;
             return this;
         }
 
+        /**
+         * Sets the data in the parsed form. It is serialized to string only when needed, e.g. when the message is pushed to a queue.
+         * The node must not be modified afterwards.
+         * */
+        public TbMsgBuilder dataAsJson(JsonNode jsonData) {
+            this.jsonData = jsonData;
+            this.data = null;
+            return this;
+        }
+
         public TbMsgBuilder ruleChainId(RuleChainId ruleChainId) {
             this.ruleChainId = ruleChainId;
             return this;
@@ -465,14 +546,14 @@ public final class TbMsg implements Serializable {
         }
 
         public TbMsg build() {
-            return new TbMsg(queueName, id, ts, internalType, type, originator, customerId, metaData, dataType, data, ruleChainId, ruleNodeId, correlationId, partition, ctx, callback);
+            return new TbMsg(queueName, id, ts, internalType, type, originator, customerId, metaData, dataType, data, jsonData, ruleChainId, ruleNodeId, correlationId, partition, ctx, callback);
         }
 
         public String toString() {
             return "TbMsg.TbMsgBuilder(queueName=" + this.queueName + ", id=" + this.id + ", ts=" + this.ts +
                     ", type=" + this.type + ", internalType=" + this.internalType + ", originator=" + this.originator +
                     ", customerId=" + this.customerId + ", metaData=" + this.metaData + ", dataType=" + this.dataType +
-                    ", data=" + this.data + ", ruleChainId=" + this.ruleChainId + ", ruleNodeId=" + this.ruleNodeId +
+                    ", data=" + (this.data != null ? this.data : this.jsonData) + ", ruleChainId=" + this.ruleChainId + ", ruleNodeId=" + this.ruleNodeId +
                     ", correlationId=" + this.correlationId + ", partition=" + this.partition + ", ctx=" + this.ctx +
                     ", callback=" + this.callback + ")";
         }
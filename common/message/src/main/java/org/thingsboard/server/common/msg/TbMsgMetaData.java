@@ -15,23 +15,43 @@
  */
 package org.thingsboard.server.common.msg;
 
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Created by ashvayka on 13.01.18.
+ * <p>
+ * The metadata map is copy-on-write: {@link #copy()} and the metadata parsed from the queue share the map,
+ * which is copied only when the shared metadata is modified. The map returned by {@link #getData()} may be modified
+ * by the caller at any time, so it is never shared: the copies of such metadata copy the map eagerly. The keys are interned, since the same small set of keys
+ * (deviceName, deviceType, ts, etc.) repeats in most of the messages.
  */
-@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
 public final class TbMsgMetaData implements Serializable {
 
     public static final TbMsgMetaData EMPTY = new TbMsgMetaData(0);
 
-    private final Map<String, String> data;
+    private static final int MAX_INTERNED_KEYS = 10000;
+    private static final ConcurrentMap<String, String> INTERNED_KEYS = new ConcurrentHashMap<>();
+
+    @EqualsAndHashCode.Include
+    @ToString.Include
+    private transient volatile Map<String, String> data;
+    // the data map is shared with other metadata instances and must not be modified in place
+    private transient volatile boolean shared;
+    // the data map was handed out by getData() and must not be shared with other metadata instances
+    private transient volatile boolean exposed;
 
     public TbMsgMetaData() {
         this.data = new ConcurrentHashMap<>();
@@ -42,6 +62,14 @@ public final class TbMsgMetaData implements Serializable {
         data.forEach(this::putValue);
     }
 
+    /**
+     * Internal constructor to wrap the immutable map without copying it
+     * */
+    TbMsgMetaData(Map<String, String> data, boolean shared) {
+        this.data = data;
+        this.shared = shared;
+    }
+
     /**
      * Internal constructor to create immutable TbMsgMetaData.EMPTY
      * */
@@ -53,17 +81,79 @@ public final class TbMsgMetaData implements Serializable {
         return this.data.get(key);
     }
 
-    public void putValue(String key, String value) {
+    public synchronized void putValue(String key, String value) {
         if (key != null && value != null) {
-            this.data.put(key, value);
+            if (this == EMPTY) {
+                throw new UnsupportedOperationException("Empty metadata is immutable");
+            }
+            ownData().put(internKey(key), value);
         }
     }
 
+    /**
+     * Returns the modifiable metadata map, copying the shared map first.
+     * Use {@link #values()} or {@link #getValue(String)} for the read-only access.
+     */
+    public synchronized Map<String, String> getData() {
+        if (this == EMPTY) {
+            return this.data;
+        }
+        Map<String, String> data = ownData();
+        exposed = true;
+        return data;
+    }
+
+    Map<String, String> getDataView() {
+        return Collections.unmodifiableMap(this.data);
+    }
+
+    private Map<String, String> ownData() {
+        if (shared) {
+            Map<String, String> copy = new ConcurrentHashMap<>(Math.max(16, data.size() * 2));
+            this.data.forEach((k, v) -> copy.put(internKey(k), v));
+            this.data = copy;
+            this.shared = false;
+        }
+        return this.data;
+    }
+
     public Map<String, String> values() {
         return new HashMap<>(this.data);
     }
 
-    public TbMsgMetaData copy() {
-        return new TbMsgMetaData(this.data);
+    public synchronized TbMsgMetaData copy() {
+        if (this == EMPTY) {
+            return new TbMsgMetaData();
+        }
+        if (exposed) {
+            return new TbMsgMetaData(new ConcurrentHashMap<>(this.data), false);
+        }
+        this.shared = true;
+        return new TbMsgMetaData(this.data, true);
+    }
+
+    // the map shared with the parsed proto message is not serializable, so the data is always written as a plain map
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(new HashMap<>(this.data));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.data = new ConcurrentHashMap<>((Map<String, String>) in.readObject());
+    }
+
+    static String internKey(String key) {
+        String interned = INTERNED_KEYS.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (INTERNED_KEYS.size() >= MAX_INTERNED_KEYS) {
+            return key;
+        }
+        interned = INTERNED_KEYS.putIfAbsent(key, key);
+        return interned != null ? interned : key;
     }
+
 }
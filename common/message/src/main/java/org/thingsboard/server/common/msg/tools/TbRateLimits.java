@@ -63,4 +63,12 @@ public class TbRateLimits {
         return bucket.tryConsume(number);
     }
 
+    public long tryConsumeAsMuchAsPossible(long limit) {
+        return bucket.tryConsumeAsMuchAsPossible(limit);
+    }
+
+    public long getAvailableTokens() {
+        return bucket.getAvailableTokens();
+    }
+
 }
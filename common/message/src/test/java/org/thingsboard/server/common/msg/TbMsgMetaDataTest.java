@@ -24,6 +24,10 @@ import org.junit.jupiter.api.Test;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TbMsgMetaDataTest {
 
@@ -53,4 +57,54 @@ public class TbMsgMetaDataTest {
         Map<String, String> dataActual = tbMsgMetaData.copy().getData();
         assertEquals(metadataExpected.size() - 1, dataActual.size());
     }
+
+    @Test
+    public void testCopy_whenCopyOrOriginalIsModified_thenOtherIsNotChanged() {
+        TbMsgMetaData original = new TbMsgMetaData(metadataExpected);
+        TbMsgMetaData copy = original.copy();
+
+        copy.putValue("deviceName", "Copy Device");
+        original.putValue("ts", "1");
+
+        assertEquals("Test Device", original.getValue("deviceName"));
+        assertEquals("Copy Device", copy.getValue("deviceName"));
+        assertEquals("1645112691407", copy.getValue("ts"));
+        assertEquals("1", original.getValue("ts"));
+    }
+
+    @Test
+    public void testCopy_whenDataMapOfOriginalIsModified_thenCopyIsNotChanged() {
+        TbMsgMetaData original = new TbMsgMetaData(metadataExpected);
+        Map<String, String> originalData = original.getData();
+        TbMsgMetaData copy = original.copy();
+
+        originalData.put("deviceName", "Modified Device");
+        original.copy().getData().remove("ts");
+
+        assertEquals("Modified Device", original.getValue("deviceName"));
+        assertEquals("Test Device", copy.getValue("deviceName"));
+        assertEquals("1645112691407", original.getValue("ts"));
+    }
+
+    @Test
+    public void testPutValue_whenKeyIsPut_thenKeyIsInterned() {
+        TbMsgMetaData first = new TbMsgMetaData();
+        TbMsgMetaData second = new TbMsgMetaData();
+        first.putValue(new String("deviceType"), "default");
+        second.putValue(new String("deviceType"), "thermostat");
+
+        assertSame(first.getData().keySet().iterator().next(), second.getData().keySet().iterator().next());
+    }
+
+    @Test
+    public void testEmpty_whenPutValue_thenThrowsException() {
+        assertThrows(UnsupportedOperationException.class, () -> TbMsgMetaData.EMPTY.putValue("key", "value"));
+        TbMsgMetaData copy = TbMsgMetaData.EMPTY.copy();
+        copy.putValue("key", "value");
+        copy.getData().put("other", "value");
+        assertEquals("value", copy.getValue("key"));
+        assertNotSame(copy.getData(), TbMsgMetaData.EMPTY.copy().getData());
+        assertTrue(TbMsgMetaData.EMPTY.copy().getData().isEmpty());
+        assertTrue(TbMsgMetaData.EMPTY.getData().isEmpty());
+    }
 }
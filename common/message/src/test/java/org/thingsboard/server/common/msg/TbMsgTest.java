@@ -0,0 +1,106 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbMsgTest {
+
+    private static final String DATA = "{\"temperature\":42,\"humidity\":77}";
+
+    @Test
+    public void givenStringData_whenGetDataAsJson_thenParseOnceAndShareWithTransformedMsgs() {
+        TbMsg msg = newMsg().data(DATA).build();
+
+        JsonNode json = msg.getDataAsJson();
+        assertThat(json.get("temperature").asInt()).isEqualTo(42);
+        assertThat(msg.getDataAsJson()).isSameAs(json);
+
+        TbMsg transformed = msg.transform().type(TbMsgType.POST_ATTRIBUTES_REQUEST).data(msg.getData()).build();
+        assertThat(transformed.getDataAsJson()).isSameAs(json);
+
+        TbMsg changed = msg.transform().data("{\"temperature\":43}").build();
+        assertThat(changed.getDataAsJson().get("temperature").asInt()).isEqualTo(43);
+    }
+
+    @Test
+    public void givenJsonData_whenGetData_thenSerializeLazily() {
+        JsonNode json = JacksonUtil.toJsonNode(DATA);
+        TbMsg msg = newMsg().dataAsJson(json).build();
+
+        assertThat(msg.getDataAsJson()).isSameAs(json);
+        assertThat(msg.getData()).isEqualTo(DATA);
+    }
+
+    @Test
+    public void givenJsonData_whenSerializeToBytes_thenDataIsPreserved() {
+        TbMsg msg = newMsg().dataAsJson(JacksonUtil.toJsonNode(DATA)).build();
+
+        TbMsg restored = TbMsg.fromBytes("Main", TbMsg.toByteArray(msg), TbMsgCallback.EMPTY);
+
+        assertThat(restored.getData()).isEqualTo(DATA);
+        assertThat(restored.getDataAsJson()).isEqualTo(msg.getDataAsJson());
+    }
+
+    @Test
+    public void givenMsgFromByteString_whenModifyMetaData_thenParsedMetaDataIsCopied() throws Exception {
+        TbMsgMetaData metaData = new TbMsgMetaData();
+        metaData.putValue("deviceName", "Test Device");
+        TbMsg msg = newMsg().metaData(metaData).data(DATA).build();
+
+        TbMsg restored = TbMsg.fromBytes("Main", TbMsg.toByteString(msg), TbMsgCallback.EMPTY);
+        TbMsgMetaData copy = restored.getMetaData().copy();
+        copy.putValue("deviceType", "default");
+
+        assertThat(restored.getMetaData()).isEqualTo(metaData);
+        assertThat(copy.getData()).containsOnlyKeys("deviceName", "deviceType");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(restored);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(((TbMsg) ois.readObject()).getMetaData()).isEqualTo(metaData);
+        }
+    }
+
+    @Test
+    public void givenEmptyData_whenGetDataAsJson_thenReturnNull() {
+        assertThat(newMsg().data("").build().getDataAsJson()).isNull();
+        assertThat(newMsg().build().getDataAsJson()).isNull();
+    }
+
+    private static TbMsg.TbMsgBuilder newMsg() {
+        return TbMsg.newMsg()
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(new DeviceId(UUID.randomUUID()))
+                .metaData(TbMsgMetaData.EMPTY);
+    }
+
+}
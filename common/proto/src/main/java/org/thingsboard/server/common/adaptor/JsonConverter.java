@@ -22,6 +22,9 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.StringUtils;
@@ -53,10 +56,13 @@ import org.thingsboard.server.gen.transport.TransportProtos.ValidateBasicMqttCre
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceX509CertRequestMsg;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -68,6 +74,7 @@ import java.util.stream.Collectors;
 public class JsonConverter {
 
     private static final Gson GSON = new Gson();
+    private static final TypeAdapter<JsonElement> JSON_ELEMENT_ADAPTER = GSON.getAdapter(JsonElement.class);
     private static final String CAN_T_PARSE_VALUE = "Can't parse value: ";
     private static final String DEVICE_PROPERTY = "device";
 
@@ -99,15 +106,7 @@ public class JsonConverter {
                         if (metadataResult == null) {
                             metadataResult = new ArrayList<>();
                         }
-                        if (metadataElem.isJsonObject()) {
-                            JsonObject metadataObj = metadataElem.getAsJsonObject();
-                            var connector = getAndValidateMetadataElement(metadataObj, "connector").getAsString();
-                            var receivedTs = getAndValidateMetadataElement(metadataObj, "receivedTs").getAsLong();
-                            var publishedTs = getAndValidateMetadataElement(metadataObj, "publishedTs").getAsLong();
-                            metadataResult.add(new GatewayMetadata(connector, receivedTs, publishedTs));
-                        } else {
-                            throw new JsonSyntaxException("Can't parse gateway metadata: " + metadataElem);
-                        }
+                        metadataResult.add(toGatewayMetadata(metadataElem));
                     }
                     parseObject(systemTs, null, builder, jo);
                 } else {
@@ -120,6 +119,157 @@ public class JsonConverter {
         return TbPair.of(builder.build(), metadataResult);
     }
 
+    /**
+     * Streaming counterpart of {@link #convertToTelemetryProto(JsonElement, long)}.
+     * Reads the payload token by token instead of building the document tree first; only nested objects and arrays
+     * that end up as JSON values are materialized. Any malformed or ambiguous input (duplicate keys, "values" without "ts",
+     * non-numeric "ts", etc.) results in an exception, so the caller should fall back to the tree-based conversion
+     * which remains the reference behavior.
+     */
+    public static PostTelemetryMsg convertToTelemetryProto(Reader payload, long systemTs) throws IOException {
+        JsonReader reader = newJsonReader(payload);
+        PostTelemetryMsg.Builder builder = PostTelemetryMsg.newBuilder();
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            builder.addTsKvList(readTsKvList(reader, systemTs, null));
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                builder.addTsKvList(readTsKvList(reader, systemTs, null));
+            }
+            reader.endArray();
+        } else {
+            throw new JsonSyntaxException(CAN_T_PARSE_VALUE + token);
+        }
+        checkFullyConsumed(reader);
+        return builder.build();
+    }
+
+    /**
+     * Streaming counterpart of {@link #convertToGatewayTelemetry(JsonElement, long)} for the whole gateway payload:
+     * {"device A": [{...}, ...], "device B": [...]}. Returns the converted telemetry per device in payload order.
+     * Same as {@link #convertToTelemetryProto(Reader, long)}, throws on anything the tree-based conversion could treat differently.
+     */
+    public static Map<String, TbPair<PostTelemetryMsg, List<GatewayMetadata>>> convertToGatewayTelemetry(Reader payload, long systemTs) throws IOException {
+        JsonReader reader = newJsonReader(payload);
+        Map<String, TbPair<PostTelemetryMsg, List<GatewayMetadata>>> result = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String deviceName = reader.nextName();
+            PostTelemetryMsg.Builder builder = PostTelemetryMsg.newBuilder();
+            List<GatewayMetadata> metadata = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                builder.addTsKvList(readTsKvList(reader, systemTs, metadata));
+            }
+            reader.endArray();
+            if (result.put(deviceName, TbPair.of(builder.build(), metadata.isEmpty() ? null : metadata)) != null) {
+                throw new JsonSyntaxException("Duplicate device name: " + deviceName);
+            }
+        }
+        reader.endObject();
+        checkFullyConsumed(reader);
+        return result;
+    }
+
+    private static JsonReader newJsonReader(Reader payload) {
+        JsonReader reader = new JsonReader(payload);
+        // same leniency as JsonParser.parseString
+        reader.setLenient(true);
+        return reader;
+    }
+
+    private static void checkFullyConsumed(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonSyntaxException("Did not consume the entire document.");
+        }
+    }
+
+    private static TsKvListProto readTsKvList(JsonReader reader, long systemTs, List<GatewayMetadata> metadata) throws IOException {
+        List<KeyValueProto> kvList = new ArrayList<>();
+        List<KeyValueProto> tsValues = null;
+        String tsLiteral = null;
+        boolean hasTs = false;
+        boolean hasValues = false;
+        Set<String> keys = new HashSet<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (!keys.add(key)) {
+                throw new JsonSyntaxException("Duplicate key: " + key);
+            }
+            if (metadata != null && "metadata".equals(key)) {
+                metadata.add(toGatewayMetadata(JSON_ELEMENT_ADAPTER.read(reader)));
+                continue;
+            }
+            if ("values".equals(key)) {
+                hasValues = true;
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    tsValues = readProtoValues(reader);
+                    continue;
+                }
+            } else if ("ts".equals(key)) {
+                hasTs = true;
+                if (reader.peek() == JsonToken.NUMBER) {
+                    tsLiteral = reader.nextString();
+                    kvList.add(buildNumericKeyValueProto(tsLiteral, key));
+                    continue;
+                }
+            }
+            readProtoValue(reader, key, kvList);
+        }
+        reader.endObject();
+        if (hasTs && hasValues) {
+            if (tsValues == null || tsLiteral == null) {
+                throw new JsonSyntaxException("Unsupported telemetry format: ts [" + tsLiteral + "]");
+            }
+            return TsKvListProto.newBuilder().setTs(Long.parseLong(tsLiteral)).addAllKv(tsValues).build();
+        } else if (tsValues != null) {
+            throw new JsonSyntaxException("Unsupported telemetry format: values without ts");
+        }
+        return TsKvListProto.newBuilder().setTs(systemTs).addAllKv(kvList).build();
+    }
+
+    private static List<KeyValueProto> readProtoValues(JsonReader reader) throws IOException {
+        List<KeyValueProto> result = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (!keys.add(key)) {
+                throw new JsonSyntaxException("Duplicate key: " + key);
+            }
+            readProtoValue(reader, key, result);
+        }
+        reader.endObject();
+        return result;
+    }
+
+    private static void readProtoValue(JsonReader reader, String key, List<KeyValueProto> result) throws IOException {
+        switch (reader.peek()) {
+            case STRING -> result.add(buildStringKeyValueProto(reader.nextString(), key));
+            case NUMBER -> result.add(buildNumericKeyValueProto(reader.nextString(), key));
+            case BOOLEAN -> result.add(KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.BOOLEAN_V)
+                    .setBoolV(reader.nextBoolean()).build());
+            case NULL -> reader.nextNull();
+            case BEGIN_OBJECT, BEGIN_ARRAY -> result.add(KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.JSON_V)
+                    .setJsonV(JSON_ELEMENT_ADAPTER.read(reader).toString()).build());
+            default -> throw new JsonSyntaxException(CAN_T_PARSE_VALUE + reader.peek());
+        }
+    }
+
+    private static GatewayMetadata toGatewayMetadata(JsonElement metadataElem) {
+        if (metadataElem.isJsonObject()) {
+            JsonObject metadataObj = metadataElem.getAsJsonObject();
+            var connector = getAndValidateMetadataElement(metadataObj, "connector").getAsString();
+            var receivedTs = getAndValidateMetadataElement(metadataObj, "receivedTs").getAsLong();
+            var publishedTs = getAndValidateMetadataElement(metadataObj, "publishedTs").getAsLong();
+            return new GatewayMetadata(connector, receivedTs, publishedTs);
+        } else {
+            throw new JsonSyntaxException("Can't parse gateway metadata: " + metadataElem);
+        }
+    }
+
     private static JsonElement getAndValidateMetadataElement(JsonObject metadata, String elementName) {
         var element = metadata.get(elementName);
         if (element == null || element.isJsonNull()) {
@@ -237,26 +387,12 @@ public class JsonConverter {
             if (element.isJsonPrimitive()) {
                 JsonPrimitive value = element.getAsJsonPrimitive();
                 if (value.isString()) {
-                    if (maxStringValueLength > 0 && value.getAsString().length() > maxStringValueLength) {
-                        String message = String.format("String value length [%d] for key [%s] is greater than maximum allowed [%d]", value.getAsString().length(), valueEntry.getKey(), maxStringValueLength);
-                        throw new JsonSyntaxException(message);
-                    }
-                    if (isTypeCastEnabled && NumberUtils.isParsable(value.getAsString())) {
-                        try {
-                            result.add(buildNumericKeyValueProto(value, valueEntry.getKey()));
-                        } catch (RuntimeException th) {
-                            result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.STRING_V)
-                                    .setStringV(value.getAsString()).build());
-                        }
-                    } else {
-                        result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.STRING_V)
-                                .setStringV(value.getAsString()).build());
-                    }
+                    result.add(buildStringKeyValueProto(value.getAsString(), valueEntry.getKey()));
                 } else if (value.isBoolean()) {
                     result.add(KeyValueProto.newBuilder().setKey(valueEntry.getKey()).setType(KeyValueType.BOOLEAN_V)
                             .setBoolV(value.getAsBoolean()).build());
                 } else if (value.isNumber()) {
-                    result.add(buildNumericKeyValueProto(value, valueEntry.getKey()));
+                    result.add(buildNumericKeyValueProto(value.getAsString(), valueEntry.getKey()));
                 } else if (!value.isJsonNull()) {
                     throw new JsonSyntaxException(CAN_T_PARSE_VALUE + value);
                 }
@@ -269,8 +405,22 @@ public class JsonConverter {
         return result;
     }
 
-    private static KeyValueProto buildNumericKeyValueProto(JsonPrimitive value, String key) {
-        String valueAsString = value.getAsString();
+    private static KeyValueProto buildStringKeyValueProto(String value, String key) {
+        if (maxStringValueLength > 0 && value.length() > maxStringValueLength) {
+            String message = String.format("String value length [%d] for key [%s] is greater than maximum allowed [%d]", value.length(), key, maxStringValueLength);
+            throw new JsonSyntaxException(message);
+        }
+        if (isTypeCastEnabled && NumberUtils.isParsable(value)) {
+            try {
+                return buildNumericKeyValueProto(value, key);
+            } catch (RuntimeException th) {
+                return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.STRING_V).setStringV(value).build();
+            }
+        }
+        return KeyValueProto.newBuilder().setKey(key).setType(KeyValueType.STRING_V).setStringV(value).build();
+    }
+
+    private static KeyValueProto buildNumericKeyValueProto(String valueAsString, String key) {
         KeyValueProto.Builder builder = KeyValueProto.newBuilder().setKey(key);
         var bd = new BigDecimal(valueAsString);
         if (bd.stripTrailingZeros().scale() <= 0 && !isSimpleDouble(valueAsString)) {
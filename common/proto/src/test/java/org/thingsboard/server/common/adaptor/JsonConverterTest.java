@@ -23,7 +23,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Isolated;
 
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.List;
 
 @Isolated("JsonConverter static settings being modified")
 public class JsonConverterTest {
@@ -108,4 +110,51 @@ public class JsonConverterTest {
             JsonConverter.convertToTelemetry(JsonParser.parseString("{\"meterReadingDelta\": 9.9701010061400066E19}"), 0L);
         });
     }
+
+    @Test
+    public void testStreamingTelemetryMatchesTreeConversion() throws Exception {
+        String[] payloads = {
+                "{\"temperature\": 42, \"humidity\": 73.5, \"active\": true, \"name\": \"sensor\", \"skip\": null}",
+                "{\"ts\": 1451649600512, \"values\": {\"key1\": \"value1\", \"key2\": \"12\", \"key3\": 1E+1}}",
+                "[{\"ts\": 1451649600512, \"values\": {\"a\": 1}}, {\"b\": {\"nested\": [1, 2, {\"c\": \"d\"}]}, \"e\": [true, null]}]",
+                "{\"ts\": 1451649600512, \"other\": \"value\"}",
+                "{\"big\": 99701010061400066001, \"unicode\": \"\u00fc\u00f1\u00ef\u00e7\u00f8d\u00e9 \ud83d\ude00\"}"
+        };
+        for (String payload : payloads) {
+            var expected = JsonConverter.convertToTelemetryProto(JsonParser.parseString(payload), 100L);
+            var actual = JsonConverter.convertToTelemetryProto(new StringReader(payload), 100L);
+            Assertions.assertEquals(expected, actual, payload);
+        }
+    }
+
+    @Test
+    public void testStreamingTelemetryRejectsAmbiguousPayloads() {
+        String[] payloads = {
+                "{\"values\": {\"a\": 1}}",
+                "{\"ts\": \"1451649600512\", \"values\": {\"a\": 1}}",
+                "{\"ts\": 1451649600512, \"values\": 1}",
+                "{\"a\": 1, \"a\": 2}",
+                "{\"a\": 1} {\"b\": 2}",
+                "42",
+                ""
+        };
+        for (String payload : payloads) {
+            Assertions.assertThrows(Exception.class, () -> JsonConverter.convertToTelemetryProto(new StringReader(payload), 100L), payload);
+        }
+    }
+
+    @Test
+    public void testStreamingGatewayTelemetryMatchesTreeConversion() throws Exception {
+        String payload = "{\"Device A\": [{\"ts\": 1483228800000, \"values\": {\"temperature\": 42}, " +
+                "\"metadata\": {\"connector\": \"MQTT\", \"receivedTs\": 1483228800001, \"publishedTs\": 1483228800002}}], " +
+                "\"Device B\": [{\"humidity\": 73}, {\"ts\": 1483228801000, \"values\": {\"humidity\": 74}}]}";
+        var result = JsonConverter.convertToGatewayTelemetry(new StringReader(payload), 100L);
+        Assertions.assertEquals(List.of("Device A", "Device B"), new ArrayList<>(result.keySet()));
+        var json = JsonParser.parseString(payload).getAsJsonObject();
+        for (var entry : result.entrySet()) {
+            var expected = JsonConverter.convertToGatewayTelemetry(json.get(entry.getKey()), 100L);
+            Assertions.assertEquals(expected.getFirst(), entry.getValue().getFirst());
+            Assertions.assertEquals(expected.getSecond(), entry.getValue().getSecond());
+        }
+    }
 }
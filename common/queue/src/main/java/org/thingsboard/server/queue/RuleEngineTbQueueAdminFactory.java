@@ -22,6 +22,8 @@ import org.springframework.context.annotation.Configuration;
 import org.thingsboard.server.queue.kafka.TbKafkaAdmin;
 import org.thingsboard.server.queue.kafka.TbKafkaSettings;
 import org.thingsboard.server.queue.kafka.TbKafkaTopicConfigs;
+import org.thingsboard.server.queue.local.TbLocalQueueAdmin;
+import org.thingsboard.server.queue.local.TbLocalQueueStorage;
 
 @Configuration
 public class RuleEngineTbQueueAdminFactory {
@@ -30,6 +32,8 @@ public class RuleEngineTbQueueAdminFactory {
     private TbKafkaTopicConfigs kafkaTopicConfigs;
     @Autowired(required = false)
     private TbKafkaSettings kafkaSettings;
+    @Autowired(required = false)
+    private TbLocalQueueStorage localQueueStorage;
 
     @ConditionalOnExpression("'${queue.type:null}'=='kafka'")
     @Bean
@@ -55,4 +59,10 @@ public class RuleEngineTbQueueAdminFactory {
             }
         };
     }
-}
\ No newline at end of file
+
+    @ConditionalOnExpression("'${queue.type:null}'=='local'")
+    @Bean
+    public TbQueueAdmin createLocalAdmin() {
+        return new TbLocalQueueAdmin(localQueueStorage);
+    }
+}
@@ -20,6 +20,7 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.TbQueueConsumerPosition;
 import org.thingsboard.server.queue.TbQueueMsg;
 
 import java.io.IOException;
@@ -159,6 +160,26 @@ public abstract class AbstractTbQueueConsumerTemplate<R, T extends TbQueueMsg> i
         }
     }
 
+    @Override
+    public TbQueueConsumerPosition getPosition() {
+        consumerLock.lock();
+        try {
+            return subscribed ? doGetPosition() : null;
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    @Override
+    public void commit(TbQueueConsumerPosition position) {
+        consumerLock.lock();
+        try {
+            doCommit(position);
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
     @Override
     public void stop() {
         stopped = true;
@@ -193,6 +214,14 @@ public abstract class AbstractTbQueueConsumerTemplate<R, T extends TbQueueMsg> i
 
     abstract protected void doUnsubscribe();
 
+    protected TbQueueConsumerPosition doGetPosition() {
+        return null;
+    }
+
+    protected void doCommit(TbQueueConsumerPosition position) {
+        doCommit();
+    }
+
     @Override
     public List<String> getFullTopicNames() {
         if (partitions == null) {
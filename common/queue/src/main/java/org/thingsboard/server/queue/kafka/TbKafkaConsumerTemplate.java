@@ -21,8 +21,11 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.util.StopWatch;
 import org.thingsboard.server.queue.TbQueueAdmin;
+import org.thingsboard.server.queue.TbQueueConsumerPosition;
 import org.thingsboard.server.queue.TbQueueMsg;
 import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
 
@@ -30,8 +33,11 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Created by ashvayka on 24.09.18.
@@ -111,6 +117,24 @@ public class TbKafkaConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQue
         consumer.commitSync();
     }
 
+    @Override
+    protected TbQueueConsumerPosition doGetPosition() {
+        Set<TopicPartition> assignment = consumer.assignment();
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(assignment.size());
+        for (TopicPartition partition : assignment) {
+            offsets.put(partition, new OffsetAndMetadata(consumer.position(partition)));
+        }
+        return new KafkaTbQueueConsumerPosition(offsets);
+    }
+
+    @Override
+    protected void doCommit(TbQueueConsumerPosition position) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = ((KafkaTbQueueConsumerPosition) position).getOffsets();
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+
     @Override
     protected void doUnsubscribe() {
         if (consumer != null) {
@@ -0,0 +1,107 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.common.AbstractTbQueueConsumerTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumer of the local queue. Read positions are kept in memory and persisted as committed offsets of the consumer group
+ * on {@link #commit()}, so everything polled but not committed before a restart is delivered again.
+ */
+@Slf4j
+public class TbLocalQueueConsumerTemplate<T extends TbQueueMsg> extends AbstractTbQueueConsumerTemplate<TbLocalQueueMsg, T> {
+
+    private final TbLocalQueueStorage storage;
+    private final TbLocalQueueDecoder<T> decoder;
+    private final String groupId;
+    private final int maxPollRecords;
+
+    private final Map<TbLocalQueuePartition, TbLocalQueuePartition.Cursor> cursors = new LinkedHashMap<>();
+
+    public TbLocalQueueConsumerTemplate(TbLocalQueueStorage storage, TbLocalQueueSettings settings,
+                                        TbLocalQueueDecoder<T> decoder, String topic, String groupId) {
+        super(topic);
+        this.storage = storage;
+        this.decoder = decoder;
+        this.groupId = TbLocalQueueStorage.toDirName(groupId);
+        this.maxPollRecords = settings.getMaxPollRecords();
+    }
+
+    @Override
+    protected void doSubscribe(List<String> topicNames) {
+        cursors.clear();
+        for (String topicName : topicNames) {
+            TbLocalQueuePartition partition = storage.getPartition(topicName);
+            cursors.put(partition, new TbLocalQueuePartition.Cursor(partition.getCommittedOffset(groupId)));
+        }
+    }
+
+    @Override
+    protected List<TbLocalQueueMsg> doPoll(long durationInMillis) {
+        List<TbLocalQueueMsg> result = null;
+        for (Map.Entry<TbLocalQueuePartition, TbLocalQueuePartition.Cursor> entry : cursors.entrySet()) {
+            int limit = maxPollRecords - (result != null ? result.size() : 0);
+            if (limit <= 0) {
+                break;
+            }
+            List<TbLocalQueueMsg> records = entry.getKey().read(entry.getValue(), limit);
+            if (!records.isEmpty()) {
+                if (result == null) {
+                    result = new ArrayList<>(records);
+                } else {
+                    result.addAll(records);
+                }
+            }
+        }
+        return result != null ? result : Collections.emptyList();
+    }
+
+    @Override
+    protected T decode(TbLocalQueueMsg record) throws IOException {
+        try {
+            return decoder.decode(record);
+        } finally {
+            record.release();
+        }
+    }
+
+    @Override
+    protected void doCommit() {
+        cursors.forEach((partition, cursor) -> {
+            try {
+                partition.commit(groupId, cursor.getOffset());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to commit offset for " + partition.getTopic(), e);
+            }
+        });
+    }
+
+    @Override
+    protected void doUnsubscribe() {
+        cursors.clear();
+    }
+
+}
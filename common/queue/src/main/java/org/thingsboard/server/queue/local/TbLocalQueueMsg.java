@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.Getter;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgHeaders;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Record read from a local queue segment. The value is a read-only view of the memory-mapped segment,
+ * so decoders should prefer {@link #getValue()} over {@link #getData()} to parse it without copying.
+ * The value must not be accessed after {@link #release()}.
+ */
+public class TbLocalQueueMsg implements TbQueueMsg {
+
+    private final UUID key;
+    private final TbQueueMsgHeaders headers;
+    private final ByteBuffer value;
+    @Getter
+    private final long offset;
+    private final TbLocalQueueSegment segment;
+
+    public TbLocalQueueMsg(UUID key, TbQueueMsgHeaders headers, ByteBuffer value, long offset) {
+        this(key, headers, value, offset, null);
+    }
+
+    TbLocalQueueMsg(UUID key, TbQueueMsgHeaders headers, ByteBuffer value, long offset, TbLocalQueueSegment segment) {
+        this.key = key;
+        this.headers = headers;
+        this.value = value;
+        this.offset = offset;
+        this.segment = segment;
+    }
+
+    @Override
+    public UUID getKey() {
+        return key;
+    }
+
+    @Override
+    public TbQueueMsgHeaders getHeaders() {
+        return headers;
+    }
+
+    public ByteBuffer getValue() {
+        return value.duplicate();
+    }
+
+    /**
+     * Releases the reference to the segment, so that it may be unmapped once it is deleted.
+     */
+    void release() {
+        if (segment != null) {
+            segment.release();
+        }
+    }
+
+    @Override
+    public byte[] getData() {
+        ByteBuffer buffer = value.duplicate();
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+}
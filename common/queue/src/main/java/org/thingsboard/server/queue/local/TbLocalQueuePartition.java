@@ -0,0 +1,266 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of a single topic partition, split into memory-mapped segments, with committed offsets per consumer group.
+ * <p>
+ * Segments are removed only once every known consumer group has committed past them.
+ * If the partition reaches the configured number of segments, new messages are rejected until the consumers catch up.
+ */
+@Slf4j
+class TbLocalQueuePartition {
+
+    private static final String OFFSETS_DIR = "offsets";
+
+    @Getter
+    private final String topic;
+    private final Path dir;
+    private final Path offsetsDir;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final List<TbLocalQueueSegment> segments = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, Long> committedOffsets = new ConcurrentHashMap<>();
+
+    TbLocalQueuePartition(String topic, Path dir, int segmentSize, int maxSegments) throws IOException {
+        this.topic = topic;
+        this.dir = dir;
+        this.offsetsDir = dir.resolve(OFFSETS_DIR);
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(offsetsDir);
+        load();
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(TbLocalQueueSegment::isSegmentFile)
+                    .sorted(Comparator.comparingLong(TbLocalQueueSegment::parseBaseOffset))
+                    .toList();
+        }
+        for (Path file : files) {
+            TbLocalQueueSegment segment = TbLocalQueueSegment.open(file, segmentSize);
+            if (!segments.isEmpty()) {
+                segments.get(segments.size() - 1).seal();
+            }
+            segments.add(segment);
+        }
+        if (segments.isEmpty()) {
+            segments.add(TbLocalQueueSegment.create(dir, 0, segmentSize));
+        }
+        try (Stream<Path> stream = Files.list(offsetsDir)) {
+            for (Path file : stream.toList()) {
+                String group = file.getFileName().toString();
+                committedOffsets.put(group, Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim()));
+            }
+        }
+        log.debug("[{}] Loaded {} segments, offsets {}-{}", topic, segments.size(), getStartOffset(), getEndOffset());
+    }
+
+    synchronized boolean append(TbQueueMsg msg) throws IOException {
+        TbLocalQueueSegment active = getActiveSegment();
+        if (active.append(msg)) {
+            return true;
+        }
+        if (active.getRecordCount() == 0) {
+            throw new IllegalArgumentException("Message " + msg.getKey() + " does not fit into an empty segment of " + segmentSize + " bytes");
+        }
+        deleteConsumedSegments();
+        if (segments.size() >= maxSegments) {
+            return false;
+        }
+        active.seal();
+        TbLocalQueueSegment next = TbLocalQueueSegment.create(dir, active.getEndOffset(), segmentSize);
+        segments.add(next);
+        return next.append(msg);
+    }
+
+    /**
+     * Reads up to maxRecords starting from the cursor position and advances the cursor.
+     */
+    List<TbLocalQueueMsg> read(Cursor cursor, int maxRecords) {
+        if (cursor.segment == null || cursor.offset < getStartOffset()) {
+            seek(cursor, Math.max(cursor.offset, getStartOffset()));
+        }
+        List<TbLocalQueueMsg> result = null;
+        while (result == null || result.size() < maxRecords) {
+            TbLocalQueueSegment segment = cursor.segment;
+            if (!segment.retain()) {
+                // the segment was deleted after all the groups committed past it
+                seek(cursor, Math.max(cursor.offset, getStartOffset()));
+                continue;
+            }
+            boolean sealed = segment.isSealed();
+            TbLocalQueueMsg msg = segment.read(cursor.position, cursor.offset);
+            if (msg == null) {
+                segment.release();
+                if (!sealed) {
+                    break;
+                }
+                TbLocalQueueSegment next = findSegment(segment.getEndOffset());
+                if (next == null || next == segment) {
+                    break;
+                }
+                cursor.segment = next;
+                cursor.position = 0;
+                continue;
+            }
+            if (result == null) {
+                result = new ArrayList<>(Math.min(maxRecords, 256));
+            }
+            result.add(msg);
+            // the segment is still retained by the record
+            cursor.position = segment.nextPosition(cursor.position);
+            cursor.offset++;
+        }
+        return result != null ? result : Collections.emptyList();
+    }
+
+    private void seek(Cursor cursor, long offset) {
+        TbLocalQueueSegment segment;
+        do {
+            segment = findSegment(offset);
+            if (segment == null) {
+                segment = getActiveSegment();
+            }
+        } while (!segment.retain());
+        try {
+            long target = Math.min(offset, segment.getEndOffset());
+            int position = 0;
+            for (long o = segment.getBaseOffset(); o < target; o++) {
+                position = segment.nextPosition(position);
+            }
+            cursor.segment = segment;
+            cursor.position = position;
+            cursor.offset = target;
+        } finally {
+            segment.release();
+        }
+    }
+
+    private TbLocalQueueSegment findSegment(long offset) {
+        for (TbLocalQueueSegment segment : segments) {
+            if (offset >= segment.getBaseOffset() && (offset < segment.getEndOffset() || !segment.isSealed())) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the committed offset of the group and makes the group known to the segment retention.
+     */
+    long getCommittedOffset(String group) {
+        return committedOffsets.computeIfAbsent(group, g -> getStartOffset());
+    }
+
+    synchronized void commit(String group, long offset) throws IOException {
+        Long previous = committedOffsets.put(group, offset);
+        if (previous != null && previous == offset) {
+            return;
+        }
+        Path file = offsetsDir.resolve(group);
+        Path tmp = offsetsDir.resolve(group + ".tmp");
+        Files.writeString(tmp, Long.toString(offset), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteConsumedSegments();
+    }
+
+    private void deleteConsumedSegments() throws IOException {
+        if (committedOffsets.isEmpty()) {
+            return;
+        }
+        long minCommitted = Collections.min(committedOffsets.values());
+        while (segments.size() > 1 && segments.get(0).getEndOffset() <= minCommitted) {
+            TbLocalQueueSegment segment = segments.remove(0);
+            segment.delete();
+            log.debug("[{}] Deleted consumed segment {}", topic, segment.getFile());
+        }
+    }
+
+    long getStartOffset() {
+        return segments.get(0).getBaseOffset();
+    }
+
+    long getEndOffset() {
+        return getActiveSegment().getEndOffset();
+    }
+
+    long getLag() {
+        long endOffset = getEndOffset();
+        if (committedOffsets.isEmpty()) {
+            return endOffset - getStartOffset();
+        }
+        return endOffset - Collections.min(committedOffsets.values());
+    }
+
+    void flush() {
+        getActiveSegment().flush();
+    }
+
+    synchronized void delete() throws IOException {
+        for (TbLocalQueueSegment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private TbLocalQueueSegment getActiveSegment() {
+        return segments.get(segments.size() - 1);
+    }
+
+    /**
+     * Read position of a single consumer in the partition. Not thread-safe.
+     */
+    static class Cursor {
+
+        private TbLocalQueueSegment segment;
+        private int position;
+        @Getter
+        private long offset;
+
+        Cursor(long offset) {
+            this.offset = offset;
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.TbQueueCallback;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueProducer;
+
+@Slf4j
+public class TbLocalQueueProducerTemplate<T extends TbQueueMsg> implements TbQueueProducer<T> {
+
+    private final TbLocalQueueStorage storage;
+
+    @Getter
+    private final String defaultTopic;
+
+    public TbLocalQueueProducerTemplate(TbLocalQueueStorage storage, String defaultTopic) {
+        this.storage = storage;
+        this.defaultTopic = defaultTopic;
+    }
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    public void send(TopicPartitionInfo tpi, T msg, TbQueueCallback callback) {
+        String topic = tpi.getFullTopicName();
+        try {
+            if (storage.put(topic, msg)) {
+                if (callback != null) {
+                    callback.onSuccess(null);
+                }
+            } else {
+                log.debug("[{}] Local queue partition is full, rejecting msg {}", topic, msg.getKey());
+                if (callback != null) {
+                    callback.onFailure(new RuntimeException("Local queue partition " + topic + " is full"));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[{}] Failed to add msg {} to local queue", topic, msg.getKey(), e);
+            if (callback != null) {
+                callback.onFailure(e);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+    }
+
+}
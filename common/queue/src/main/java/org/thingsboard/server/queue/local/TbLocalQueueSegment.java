@@ -0,0 +1,316 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import com.google.protobuf.CodedOutputStream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.queue.TbQueueMsg;
+import org.thingsboard.server.queue.TbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.DefaultTbQueueMsgHeaders;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped, pre-allocated file holding a contiguous range of partition records.
+ * <p>
+ * Each record is stored as {@code [int length][int crc32c][body]}, where body is the message key, the headers and the value.
+ * A zero length marks the end of the written data, since the file is zero-filled on allocation.
+ * Records are written by a single producer thread at a time (guarded by the partition) and become visible to readers
+ * only after {@link #getWritePosition()} is advanced.
+ * <p>
+ * The mapping is reference counted: the partition holds one reference until the segment is deleted and every record
+ * handed out to a consumer holds one until it is decoded. The mapping is released explicitly once the count drops to zero,
+ * instead of waiting for the garbage collector to unmap the deleted file.
+ */
+@Slf4j
+class TbLocalQueueSegment {
+
+    static final String FILE_SUFFIX = ".log";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    @Getter
+    private final long baseOffset;
+    @Getter
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private volatile int writePosition;
+    private volatile int recordCount;
+    private volatile boolean sealed;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private final AtomicBoolean deleted = new AtomicBoolean();
+
+    private TbLocalQueueSegment(long baseOffset, Path file, MappedByteBuffer buffer) {
+        this.baseOffset = baseOffset;
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+    }
+
+    static TbLocalQueueSegment create(Path dir, long baseOffset, int size) throws IOException {
+        Path file = dir.resolve(fileName(baseOffset));
+        return new TbLocalQueueSegment(baseOffset, file, map(file, size));
+    }
+
+    static TbLocalQueueSegment open(Path file, int size) throws IOException {
+        long baseOffset = parseBaseOffset(file);
+        int fileSize = (int) Math.max(size, Files.size(file));
+        TbLocalQueueSegment segment = new TbLocalQueueSegment(baseOffset, file, map(file, fileSize));
+        segment.recover();
+        return segment;
+    }
+
+    static boolean isSegmentFile(Path file) {
+        return file.getFileName().toString().endsWith(FILE_SUFFIX);
+    }
+
+    static long parseBaseOffset(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - FILE_SUFFIX.length()));
+    }
+
+    private static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, FILE_SUFFIX);
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Scans the segment up to the last complete record. Anything after it (e.g. a record torn by a crash) is discarded.
+     */
+    private void recover() {
+        int position = 0;
+        int count = 0;
+        while (position + RECORD_HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > capacity) {
+                break;
+            }
+            if (crc(position + RECORD_HEADER_SIZE, length) != buffer.getInt(position + 4)) {
+                log.warn("[{}] Discarding corrupted record at position {}", file, position);
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+            count++;
+        }
+        if (position + 4 <= capacity) {
+            buffer.putInt(position, 0);
+        }
+        this.writePosition = position;
+        this.recordCount = count;
+    }
+
+    /**
+     * @return false if there is not enough space left in the segment for the message
+     */
+    boolean append(TbQueueMsg msg) {
+        Map<String, byte[]> headers = msg.getHeaders() != null ? msg.getHeaders().getData() : Map.of();
+        byte[][] headerKeys = new byte[headers.size()][];
+        int headersSize = 2;
+        int i = 0;
+        for (Map.Entry<String, byte[]> header : headers.entrySet()) {
+            headerKeys[i] = header.getKey().getBytes(StandardCharsets.UTF_8);
+            headersSize += 2 + headerKeys[i].length + 4 + header.getValue().length;
+            i++;
+        }
+        byte[] data = null;
+        int dataSize;
+        if (msg instanceof TbProtoQueueMsg<?> protoMsg) {
+            dataSize = protoMsg.getValue().getSerializedSize();
+        } else {
+            data = msg.getData();
+            dataSize = data.length;
+        }
+        int length = 16 + headersSize + dataSize;
+        int position = writePosition;
+        if (position + RECORD_HEADER_SIZE + length > capacity) {
+            return false;
+        }
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(position + RECORD_HEADER_SIZE);
+        UUID key = msg.getKey();
+        body.putLong(key.getMostSignificantBits());
+        body.putLong(key.getLeastSignificantBits());
+        body.putShort((short) headers.size());
+        i = 0;
+        for (byte[] value : headers.values()) {
+            body.putShort((short) headerKeys[i].length);
+            body.put(headerKeys[i]);
+            body.putInt(value.length);
+            body.put(value);
+            i++;
+        }
+        if (data != null) {
+            body.put(data);
+        } else {
+            ByteBuffer valueBuffer = body.slice(body.position(), dataSize);
+            try {
+                CodedOutputStream output = CodedOutputStream.newInstance(valueBuffer);
+                ((TbProtoQueueMsg<?>) msg).getValue().writeTo(output);
+                output.flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to serialize message " + key, e);
+            }
+        }
+        buffer.putInt(position + 4, crc(position + RECORD_HEADER_SIZE, length));
+        buffer.putInt(position, length);
+        recordCount++;
+        writePosition = position + RECORD_HEADER_SIZE + length;
+        return true;
+    }
+
+    /**
+     * Must be called by the reader before accessing the segment.
+     * @return false if the segment is already deleted and unmapped
+     */
+    boolean retain() {
+        int count;
+        do {
+            count = refCount.get();
+            if (count <= 0) {
+                return false;
+            }
+        } while (!refCount.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    void release() {
+        if (refCount.decrementAndGet() == 0) {
+            unmap();
+        }
+    }
+
+    boolean isReleased() {
+        return refCount.get() <= 0;
+    }
+
+    /**
+     * The reader must hold a reference to the segment. The reference is handed over to the returned record.
+     * @return the record at the given position, or null if nothing is written there yet
+     */
+    TbLocalQueueMsg read(int position, long offset) {
+        if (position >= writePosition) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        ByteBuffer body = buffer.slice(position + RECORD_HEADER_SIZE, length).asReadOnlyBuffer();
+        UUID key = new UUID(body.getLong(), body.getLong());
+        int headersCount = body.getShort();
+        TbQueueMsgHeaders headers = new DefaultTbQueueMsgHeaders();
+        for (int i = 0; i < headersCount; i++) {
+            byte[] headerKey = new byte[body.getShort()];
+            body.get(headerKey);
+            byte[] headerValue = new byte[body.getInt()];
+            body.get(headerValue);
+            headers.put(new String(headerKey, StandardCharsets.UTF_8), headerValue);
+        }
+        return new TbLocalQueueMsg(key, headers, body.slice(), offset, this);
+    }
+
+    int nextPosition(int position) {
+        return position + RECORD_HEADER_SIZE + buffer.getInt(position);
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    long getEndOffset() {
+        return baseOffset + recordCount;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void seal() {
+        sealed = true;
+        flush();
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        if (deleted.compareAndSet(false, true)) {
+            Files.deleteIfExists(file);
+            release();
+        }
+    }
+
+    private void unmap() {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+            log.trace("[{}] Unmapped segment", file);
+        } catch (Throwable t) {
+            log.warn("[{}] Failed to unmap segment", file, t);
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (Exception e) {
+            log.info("Deleted queue segments will be unmapped by the garbage collector: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private int crc(int position, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position, length));
+        return (int) crc.getValue();
+    }
+
+}
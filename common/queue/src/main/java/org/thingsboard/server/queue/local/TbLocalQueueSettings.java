@@ -0,0 +1,46 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConditionalOnProperty(prefix = "queue", value = "type", havingValue = "local")
+public class TbLocalQueueSettings {
+
+    @Value("${queue.local.dir:}")
+    private String dir;
+
+    @Value("${install.data_dir:}")
+    private String dataDir;
+
+    @Value("${queue.local.segment_size_bytes:67108864}")
+    private int segmentSizeBytes;
+
+    @Value("${queue.local.max_segments_per_partition:16}")
+    private int maxSegmentsPerPartition;
+
+    @Value("${queue.local.max_poll_records:1000}")
+    private int maxPollRecords;
+
+    @Value("${queue.local.flush_interval_ms:1000}")
+    private long flushIntervalMs;
+
+}
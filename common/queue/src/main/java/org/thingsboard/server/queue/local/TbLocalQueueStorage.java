@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.queue.TbQueueMsg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable storage for the local queue: one directory with a segmented memory-mapped log per full topic name
+ * (i.e. per topic partition).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "queue", value = "type", havingValue = "local")
+public class TbLocalQueueStorage {
+
+    private final TbLocalQueueSettings settings;
+
+    private final ConcurrentMap<String, TbLocalQueuePartition> partitions = new ConcurrentHashMap<>();
+    private Path rootDir;
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        rootDir = resolveRootDir();
+        Files.createDirectories(rootDir);
+        if (settings.getFlushIntervalMs() > 0) {
+            flushExecutor = ThingsBoardExecutors.newSingleThreadScheduledExecutor("local-queue-flush");
+            flushExecutor.scheduleWithFixedDelay(this::flush, settings.getFlushIntervalMs(), settings.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+        log.info("Using local queue storage at {}", rootDir.toAbsolutePath());
+    }
+
+    private Path resolveRootDir() {
+        if (StringUtils.isNotBlank(settings.getDir())) {
+            return Paths.get(settings.getDir());
+        }
+        if (StringUtils.isNotBlank(settings.getDataDir())) {
+            return Paths.get(settings.getDataDir(), "queue");
+        }
+        // a temporary directory may be cleaned on reboot or live in memory, which breaks the durability of the queue
+        throw new IllegalStateException("Neither 'queue.local.dir' nor 'install.data_dir' is set. " +
+                "Please set 'queue.local.dir' to a directory on persistent storage to use the local queue");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        flush();
+    }
+
+    public boolean put(String topic, TbQueueMsg msg) throws IOException {
+        return getPartition(topic).append(msg);
+    }
+
+    public void deleteTopic(String topic) throws IOException {
+        TbLocalQueuePartition partition = partitions.remove(topic);
+        if (partition != null) {
+            partition.delete();
+        } else {
+            Path dir = rootDir.resolve(toDirName(topic));
+            if (Files.isDirectory(dir)) {
+                new TbLocalQueuePartition(topic, dir, settings.getSegmentSizeBytes(), settings.getMaxSegmentsPerPartition()).delete();
+            }
+        }
+    }
+
+    public long getLag(String topic) {
+        return Optional.ofNullable(partitions.get(topic)).map(TbLocalQueuePartition::getLag).orElse(0L);
+    }
+
+    public void printStats() {
+        if (log.isDebugEnabled()) {
+            partitions.forEach((topic, partition) -> {
+                long lag = partition.getLag();
+                if (lag > 0) {
+                    log.debug("[{}] Queue lag [{}]", topic, lag);
+                }
+            });
+        }
+    }
+
+    TbLocalQueuePartition getPartition(String topic) {
+        return partitions.computeIfAbsent(topic, t -> {
+            try {
+                return new TbLocalQueuePartition(t, rootDir.resolve(toDirName(t)), settings.getSegmentSizeBytes(), settings.getMaxSegmentsPerPartition());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open local queue partition " + t, e);
+            }
+        });
+    }
+
+    private void flush() {
+        partitions.values().forEach(partition -> {
+            try {
+                partition.flush();
+            } catch (Exception e) {
+                log.warn("[{}] Failed to flush local queue partition", partition.getTopic(), e);
+            }
+        });
+    }
+
+    static String toDirName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+}
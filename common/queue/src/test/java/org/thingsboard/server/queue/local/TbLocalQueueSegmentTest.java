@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceActivityProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ToCoreMsg;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbLocalQueueSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void givenRecordHandedOut_whenSegmentDeleted_thenUnmapOnlyAfterRecordIsReleased() throws Exception {
+        TbLocalQueueSegment segment = TbLocalQueueSegment.create(dir, 0, 4096);
+        ToCoreMsg value = ToCoreMsg.newBuilder().setDeviceActivityMsg(DeviceActivityProto.newBuilder().setDeviceIdMSB(42).build()).build();
+        assertThat(segment.append(new TbProtoQueueMsg<>(UUID.randomUUID(), value))).isTrue();
+
+        assertThat(segment.retain()).isTrue();
+        TbLocalQueueMsg msg = segment.read(0, 0);
+        segment.delete();
+
+        assertThat(Files.exists(segment.getFile())).isFalse();
+        assertThat(segment.isReleased()).isFalse();
+        assertThat(ToCoreMsg.parseFrom(msg.getValue())).isEqualTo(value);
+
+        msg.release();
+
+        assertThat(segment.isReleased()).isTrue();
+        assertThat(segment.retain()).isFalse();
+    }
+
+    @Test
+    public void givenNoRecordsHandedOut_whenSegmentDeleted_thenUnmapImmediately() throws Exception {
+        TbLocalQueueSegment segment = TbLocalQueueSegment.create(dir, 0, 4096);
+
+        segment.delete();
+        segment.delete();
+
+        assertThat(segment.isReleased()).isTrue();
+        assertThat(segment.retain()).isFalse();
+    }
+
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.queue.local;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.gen.transport.TransportProtos.DeviceActivityProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ToCoreMsg;
+import org.thingsboard.server.queue.TbQueueCallback;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TbLocalQueueStorageTest {
+
+    private static final String TOPIC = "tb_core";
+    private static final String GROUP = "monolith-core-consumer";
+
+    @TempDir
+    Path dir;
+
+    TbLocalQueueSettings settings;
+    TbLocalQueueStorage storage;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        settings = new TbLocalQueueSettings();
+        settings.setDir(dir.toString());
+        settings.setSegmentSizeBytes(4096);
+        settings.setMaxSegmentsPerPartition(4);
+        settings.setMaxPollRecords(1000);
+        storage = new TbLocalQueueStorage(settings);
+        storage.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        storage.destroy();
+    }
+
+    @Test
+    public void givenProducedMessages_whenPoll_thenReturnSameMessagesInOrder() {
+        var producer = new TbLocalQueueProducerTemplate<TbProtoQueueMsg<ToCoreMsg>>(storage, TOPIC);
+        List<TbProtoQueueMsg<ToCoreMsg>> sent = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TbProtoQueueMsg<ToCoreMsg> msg = newMsg(i);
+            msg.getHeaders().put("header", ("value" + i).getBytes(StandardCharsets.UTF_8));
+            sent.add(msg);
+            producer.send(tpi(0), msg, null);
+        }
+
+        var consumer = newConsumer(0);
+        List<TbProtoQueueMsg<ToCoreMsg>> received = consumer.poll(1);
+
+        assertThat(received).hasSize(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(received.get(i).getKey()).isEqualTo(sent.get(i).getKey());
+            assertThat(received.get(i).getValue()).isEqualTo(sent.get(i).getValue());
+            assertThat(new String(received.get(i).getHeaders().get("header"), StandardCharsets.UTF_8)).isEqualTo("value" + i);
+        }
+        assertThat(consumer.poll(1)).isEmpty();
+    }
+
+    @Test
+    public void givenUncommittedMessages_whenRestart_thenRedeliverThem() throws Exception {
+        var producer = new TbLocalQueueProducerTemplate<TbProtoQueueMsg<ToCoreMsg>>(storage, TOPIC);
+        for (int i = 0; i < 5; i++) {
+            producer.send(tpi(0), newMsg(i), null);
+        }
+        var consumer = newConsumer(0);
+        assertThat(consumer.poll(1)).hasSize(5);
+        consumer.commit();
+        for (int i = 5; i < 8; i++) {
+            producer.send(tpi(0), newMsg(i), null);
+        }
+        assertThat(consumer.poll(1)).hasSize(3);
+
+        storage.destroy();
+        storage = new TbLocalQueueStorage(settings);
+        storage.init();
+
+        List<TbProtoQueueMsg<ToCoreMsg>> redelivered = newConsumer(0).poll(1);
+        assertThat(redelivered).hasSize(3);
+        assertThat(redelivered.get(0).getValue().getDeviceActivityMsg().getDeviceIdMSB()).isEqualTo(5);
+    }
+
+    @Test
+    public void givenManySegments_whenCommitted_thenConsumedSegmentsAreDeleted() {
+        var producer = new TbLocalQueueProducerTemplate<TbProtoQueueMsg<ToCoreMsg>>(storage, TOPIC);
+        var consumer = newConsumer(0);
+        consumer.poll(1);
+        int count = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 100; i++) {
+                TbQueueCallback callback = mock(TbQueueCallback.class);
+                producer.send(tpi(0), newMsg(count++), callback);
+                verify(callback).onSuccess(any());
+            }
+            assertThat(consumer.poll(1)).hasSize(100);
+            consumer.commit();
+        }
+        assertThat(storage.getLag(tpi(0).getFullTopicName())).isZero();
+        assertThat(dir.resolve(tpi(0).getFullTopicName()).toFile().list((d, name) -> name.endsWith(TbLocalQueueSegment.FILE_SUFFIX)))
+                .hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void givenSlowConsumer_whenPartitionIsFull_thenRejectMessages() {
+        var producer = new TbLocalQueueProducerTemplate<TbProtoQueueMsg<ToCoreMsg>>(storage, TOPIC);
+        newConsumer(0).poll(1);
+        TbQueueCallback callback = mock(TbQueueCallback.class);
+        for (int i = 0; i < 1000; i++) {
+            producer.send(tpi(0), newMsg(i), callback);
+        }
+        verify(callback, atLeastOnce()).onFailure(any());
+    }
+
+    @Test
+    public void givenSeveralPartitions_whenSubscribe_thenPollOnlyAssignedPartitions() {
+        var producer = new TbLocalQueueProducerTemplate<TbProtoQueueMsg<ToCoreMsg>>(storage, TOPIC);
+        producer.send(tpi(0), newMsg(0), null);
+        producer.send(tpi(1), newMsg(1), null);
+        producer.send(tpi(1), newMsg(2), null);
+
+        assertThat(newConsumer(1).poll(1)).hasSize(2);
+    }
+
+    @Test
+    public void givenDirNotSet_whenInit_thenUseDataDirOrFail() throws Exception {
+        TbLocalQueueSettings defaultSettings = new TbLocalQueueSettings();
+        TbLocalQueueStorage defaultStorage = new TbLocalQueueStorage(defaultSettings);
+        assertThatThrownBy(defaultStorage::init).isInstanceOf(IllegalStateException.class);
+
+        defaultSettings.setDataDir(dir.resolve("data").toString());
+        defaultStorage.init();
+        defaultStorage.destroy();
+        assertThat(Files.isDirectory(dir.resolve("data").resolve("queue"))).isTrue();
+    }
+
+    private TbLocalQueueConsumerTemplate<TbProtoQueueMsg<ToCoreMsg>> newConsumer(int partition) {
+        var consumer = new TbLocalQueueConsumerTemplate<TbProtoQueueMsg<ToCoreMsg>>(storage, settings,
+                msg -> new TbProtoQueueMsg<>(msg.getKey(), ToCoreMsg.parseFrom(msg.getValue()), msg.getHeaders()), TOPIC, GROUP);
+        consumer.subscribe(Set.of(tpi(partition)));
+        return consumer;
+    }
+
+    private static TopicPartitionInfo tpi(int partition) {
+        return new TopicPartitionInfo(TOPIC, null, partition, true);
+    }
+
+    private static TbProtoQueueMsg<ToCoreMsg> newMsg(int i) {
+        return new TbProtoQueueMsg<>(UUID.randomUUID(), ToCoreMsg.newBuilder()
+                .setDeviceActivityMsg(DeviceActivityProto.newBuilder().setDeviceIdMSB(i).build())
+                .build());
+    }
+
+}
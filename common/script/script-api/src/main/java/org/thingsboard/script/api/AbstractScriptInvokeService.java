@@ -27,6 +27,7 @@ import org.thingsboard.server.common.data.id.TenantId;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
@@ -127,42 +128,76 @@ public abstract class AbstractScriptInvokeService implements ScriptInvokeService
 
     @Override
     public ListenableFuture<Object> invokeScript(TenantId tenantId, CustomerId customerId, UUID scriptId, Object... args) {
-        if (isExecEnabled(tenantId)) {
-            if (!isScriptPresent(scriptId)) {
-                return error("No compiled script found for scriptId: [" + scriptId + "]!");
-            }
-            if (!isDisabled(scriptId)) {
-                if (argsSizeExceeded(args)) {
-                    TbScriptException t = new TbScriptException(scriptId, TbScriptException.ErrorCode.OTHER, null, new IllegalArgumentException(
-                            format("Script input arguments exceed maximum allowed total args size of %s symbols", getMaxTotalArgsSize())
-                    ));
-                    return Futures.immediateFailedFuture(handleScriptException(scriptId, null, t));
-                }
-                reportExecution(tenantId, customerId);
-                pushedMsgs.incrementAndGet();
-                log.trace("[{}] InvokeScript uuid {} with timeout {}ms", tenantId, scriptId, getMaxInvokeRequestsTimeout());
-                var task = doInvokeFunction(scriptId, args);
-
-                var resultFuture = Futures.transform(task.getResultFuture(), output -> {
-                    String result = JacksonUtil.toString(output);
-                    if (resultSizeExceeded(result)) {
-                        throw new TbScriptException(scriptId, TbScriptException.ErrorCode.OTHER, null, new RuntimeException(
-                                format("Script invocation result exceeds maximum allowed size of %s symbols", getMaxResultSize())
-                        ));
-                    }
-                    return output;
-                }, MoreExecutors.directExecutor());
-
-                return withTimeoutAndStatsCallback(scriptId, task, resultFuture, invokeCallback, getMaxInvokeRequestsTimeout());
-            } else {
-                String message = "Script invocation is blocked due to maximum error count "
-                        + getMaxErrors() + ", scriptId " + scriptId + "!";
-                log.warn("[{}] " + message, tenantId);
-                return error(message);
-            }
-        } else {
+        ListenableFuture<Object> rejected = checkInvocation(tenantId, scriptId, args);
+        if (rejected != null) {
+            return rejected;
+        }
+        reportExecution(tenantId, customerId);
+        pushedMsgs.incrementAndGet();
+        log.trace("[{}] InvokeScript uuid {} with timeout {}ms", tenantId, scriptId, getMaxInvokeRequestsTimeout());
+        var task = doInvokeFunction(scriptId, args);
+
+        var resultFuture = Futures.transform(task.getResultFuture(), output -> {
+            checkResultSize(scriptId, output);
+            return output;
+        }, MoreExecutors.directExecutor());
+
+        return withTimeoutAndStatsCallback(scriptId, task, resultFuture, invokeCallback, getMaxInvokeRequestsTimeout());
+    }
+
+    /**
+     * Same checks, usage reporting, stats and block-listing as {@link #invokeScript(TenantId, CustomerId, UUID, Object...)},
+     * but the invocation is executed on the calling thread and the returned future is already completed.
+     * The invocation is responsible for enforcing the timeout itself and must signal it by throwing {@link TimeoutException}.
+     */
+    protected ListenableFuture<Object> invokeScriptSync(TenantId tenantId, CustomerId customerId, UUID scriptId, Object[] args, Callable<Object> invocation) {
+        ListenableFuture<Object> rejected = checkInvocation(tenantId, scriptId, args);
+        if (rejected != null) {
+            return rejected;
+        }
+        reportExecution(tenantId, customerId);
+        pushedMsgs.incrementAndGet();
+        log.trace("[{}] InvokeScript uuid {} synchronously", tenantId, scriptId);
+        try {
+            Object output = invocation.call();
+            checkResultSize(scriptId, output);
+            invokeCallback.onSuccess(output);
+            return Futures.immediateFuture(output);
+        } catch (Exception e) {
+            invokeCallback.onFailure(e);
+            return Futures.immediateFailedFuture(handleScriptException(scriptId, null, e));
+        }
+    }
+
+    private ListenableFuture<Object> checkInvocation(TenantId tenantId, UUID scriptId, Object[] args) {
+        if (!isExecEnabled(tenantId)) {
             return error("Script execution is disabled due to API limits!");
         }
+        if (!isScriptPresent(scriptId)) {
+            return error("No compiled script found for scriptId: [" + scriptId + "]!");
+        }
+        if (isDisabled(scriptId)) {
+            String message = "Script invocation is blocked due to maximum error count "
+                    + getMaxErrors() + ", scriptId " + scriptId + "!";
+            log.warn("[{}] " + message, tenantId);
+            return error(message);
+        }
+        if (argsSizeExceeded(args)) {
+            TbScriptException t = new TbScriptException(scriptId, TbScriptException.ErrorCode.OTHER, null, new IllegalArgumentException(
+                    format("Script input arguments exceed maximum allowed total args size of %s symbols", getMaxTotalArgsSize())
+            ));
+            return Futures.immediateFailedFuture(handleScriptException(scriptId, null, t));
+        }
+        return null;
+    }
+
+    private void checkResultSize(UUID scriptId, Object output) {
+        String result = JacksonUtil.toString(output);
+        if (resultSizeExceeded(result)) {
+            throw new TbScriptException(scriptId, TbScriptException.ErrorCode.OTHER, null, new RuntimeException(
+                    format("Script invocation result exceeds maximum allowed size of %s symbols", getMaxResultSize())
+            ));
+        }
     }
 
     private <T extends V, V> ListenableFuture<T> withTimeoutAndStatsCallback(UUID scriptId, TbScriptExecutionTask task, ListenableFuture<T> future, FutureCallback<V> statsCallback, long timeout) {
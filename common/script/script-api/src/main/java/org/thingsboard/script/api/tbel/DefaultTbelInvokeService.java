@@ -57,6 +57,7 @@ import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -108,6 +109,14 @@ public class DefaultTbelInvokeService extends AbstractScriptInvokeService implem
     @Value("${tbel.compiled_scripts_cache_size:1000}")
     private int compiledScriptsCacheSize;
 
+    @Value("${tbel.sync_invoke.enabled:false}")
+    private boolean syncInvokeEnabled;
+
+    @Value("${tbel.sync_invoke.max_script_body_size:1000}")
+    private int syncInvokeMaxScriptBodySize;
+
+    private TbelScriptWatchdog watchdog;
+
     private ListeningExecutorService executor;
 
     private final Lock lock = new ReentrantLock();
@@ -135,6 +144,10 @@ public class DefaultTbelInvokeService extends AbstractScriptInvokeService implem
         parserConfig.registerDataType("Calendar", Calendar.class, date -> 8L);
         TbUtils.register(parserConfig);
         executor = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(threadPoolSize, "tbel-executor"));
+        if (syncInvokeEnabled && maxInvokeRequestsTimeout > 0) {
+            watchdog = new TbelScriptWatchdog(maxInvokeRequestsTimeout);
+            watchdog.start(timeoutExecutorService);
+        }
         try {
             // Special command to warm up TBEL engine
             Serializable script = compileScript("var warmUp = {}; warmUp");
@@ -221,6 +234,46 @@ public class DefaultTbelInvokeService extends AbstractScriptInvokeService implem
         }));
     }
 
+    @Override
+    public TbelCompiledScript getCompiledScript(UUID scriptId) {
+        if (!syncInvokeEnabled) {
+            return null;
+        }
+        String scriptHash = scriptIdToHash.get(scriptId);
+        TbelScript script = scriptHash != null ? scriptMap.get(scriptHash) : null;
+        if (script == null || script.getScriptBody().length() > syncInvokeMaxScriptBodySize) {
+            return null;
+        }
+        Serializable compiledScript = compiledScriptsCache.get(scriptHash, k -> compileScript(script.getScriptBody()));
+        return new TbelCompiledScript(scriptId, script, compiledScript);
+    }
+
+    @Override
+    public ListenableFuture<Object> invokeScript(TenantId tenantId, CustomerId customerId, TbelCompiledScript compiledScript, Object... args) {
+        return invokeScriptSync(tenantId, customerId, compiledScript.getScriptId(), args, () -> doInvokeFunctionSync(compiledScript, args));
+    }
+
+    private Object doInvokeFunctionSync(TbelCompiledScript compiledScript, Object[] args) throws TimeoutException {
+        ExecutionContext executionContext = new ExecutionContext(this.parserConfig, maxMemoryLimitMb * 1024 * 1024);
+        Map<String, Object> vars = compiledScript.bindVars(args);
+        TbelScriptWatchdog.Execution execution = watchdog != null ? watchdog.watch(executionContext) : null;
+        try {
+            return MVEL.executeTbExpression(compiledScript.getCompiledScript(), executionContext, vars);
+        } catch (ScriptMemoryOverflowException e) {
+            throw new TbScriptException(compiledScript.getScriptId(), TbScriptException.ErrorCode.OTHER, compiledScript.getScriptBody(), new RuntimeException("Script memory overflow!"));
+        } catch (Exception e) {
+            if (execution != null && execution.isStopped()) {
+                throw new TimeoutException("Script timeout!");
+            }
+            throw new TbScriptException(compiledScript.getScriptId(), TbScriptException.ErrorCode.RUNTIME, compiledScript.getScriptBody(), e);
+        } finally {
+            if (execution != null) {
+                watchdog.release(execution);
+            }
+            compiledScript.unbindVars(vars);
+        }
+    }
+
     @Override
     protected void doRelease(UUID scriptId) {
         String scriptHash = scriptIdToHash.remove(scriptId);
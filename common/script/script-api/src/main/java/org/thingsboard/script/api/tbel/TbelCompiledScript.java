@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.script.api.tbel;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compiled TBEL script bound to a single script id, intended to be held by the caller for the lifetime of the script.
+ * Skips the per-invocation hash and compiled scripts cache lookups and reuses a per-thread variables map,
+ * which is safe because the engine copies variables into its own resolver and never writes back into the map.
+ */
+public class TbelCompiledScript {
+
+    @Getter
+    private final UUID scriptId;
+    @Getter
+    private final String scriptBody;
+    @Getter
+    private final Serializable compiledScript;
+    private final String[] argNames;
+    private final ThreadLocal<Map<String, Object>> vars;
+
+    TbelCompiledScript(UUID scriptId, TbelScript script, Serializable compiledScript) {
+        this.scriptId = scriptId;
+        this.scriptBody = script.getScriptBody();
+        this.compiledScript = compiledScript;
+        this.argNames = script.getArgNames();
+        this.vars = ThreadLocal.withInitial(() -> new HashMap<>(argNames.length * 2));
+    }
+
+    Map<String, Object> bindVars(Object[] args) {
+        if (args == null || args.length != argNames.length) {
+            throw new IllegalArgumentException("Invalid number of argument values");
+        }
+        Map<String, Object> result = vars.get();
+        for (int i = 0; i < argNames.length; i++) {
+            result.put(argNames[i], args[i]);
+        }
+        return result;
+    }
+
+    void unbindVars(Map<String, Object> bound) {
+        // keep the keys, so the next invocation only replaces values, but do not retain the message
+        for (String argName : argNames) {
+            bound.put(argName, null);
+        }
+    }
+
+}
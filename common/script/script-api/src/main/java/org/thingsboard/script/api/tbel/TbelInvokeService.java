@@ -15,9 +15,14 @@
  */
 package org.thingsboard.script.api.tbel;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.thingsboard.script.api.ScriptInvokeService;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.script.ScriptLanguage;
 
+import java.util.UUID;
+
 public interface TbelInvokeService extends ScriptInvokeService {
 
     @Override
@@ -25,4 +30,12 @@ public interface TbelInvokeService extends ScriptInvokeService {
         return ScriptLanguage.TBEL;
     }
 
+    /**
+     * Returns the compiled form of a previously evaluated script that can be invoked on the calling thread,
+     * or {@code null} if the script is unknown or not eligible for synchronous invocation.
+     */
+    TbelCompiledScript getCompiledScript(UUID scriptId);
+
+    ListenableFuture<Object> invokeScript(TenantId tenantId, CustomerId customerId, TbelCompiledScript compiledScript, Object... args);
+
 }
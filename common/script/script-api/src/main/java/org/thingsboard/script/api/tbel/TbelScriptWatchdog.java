@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.script.api.tbel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.mvel2.ExecutionContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces the invocation timeout of scripts executed on the calling thread.
+ * Instead of scheduling a timeout task per invocation, every thread publishes its in-flight execution
+ * to a per-thread slot and a single periodic check stops the executions that are past their deadline.
+ * The timeout is therefore enforced with a precision of the check interval.
+ */
+@Slf4j
+class TbelScriptWatchdog {
+
+    private final long timeoutNanos;
+    private final long checkIntervalMs;
+    private final List<Slot> slots = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Slot> threadSlot = ThreadLocal.withInitial(this::newSlot);
+
+    TbelScriptWatchdog(long timeoutMs) {
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.checkIntervalMs = Math.max(1, timeoutMs / 4);
+    }
+
+    void start(ScheduledExecutorService scheduler) {
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    Execution watch(ExecutionContext context) {
+        Execution execution = new Execution(context, System.nanoTime() + timeoutNanos);
+        Slot slot = threadSlot.get();
+        slot.current = execution;
+        execution.slot = slot;
+        return execution;
+    }
+
+    void release(Execution execution) {
+        execution.slot.current = null;
+    }
+
+    void check() {
+        try {
+            long now = System.nanoTime();
+            for (Slot slot : slots) {
+                Execution execution = slot.current;
+                if (execution != null) {
+                    if (now - execution.deadline >= 0 && !execution.stopped) {
+                        execution.stopped = true;
+                        execution.context.stop();
+                        log.debug("[{}] Stopped script execution after {}ms", slot.thread.getName(), TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+                    }
+                } else if (!slot.thread.isAlive()) {
+                    slots.remove(slot);
+                }
+            }
+        } catch (Throwable t) {
+            log.warn("Failed to check script executions", t);
+        }
+    }
+
+    private Slot newSlot() {
+        Slot slot = new Slot(Thread.currentThread());
+        slots.add(slot);
+        return slot;
+    }
+
+    private static class Slot {
+        private final Thread thread;
+        private volatile Execution current;
+
+        private Slot(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    static class Execution {
+        private final ExecutionContext context;
+        private final long deadline;
+        private Slot slot;
+        private volatile boolean stopped;
+
+        private Execution(ExecutionContext context, long deadline) {
+            this.context = context;
+            this.deadline = deadline;
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+    }
+
+}
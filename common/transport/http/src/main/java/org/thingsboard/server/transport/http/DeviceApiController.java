@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.transport.http;
 
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
@@ -28,7 +29,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -71,6 +72,8 @@ import org.thingsboard.server.gen.transport.TransportProtos.ToServerRpcRequestMs
 import org.thingsboard.server.gen.transport.TransportProtos.ToServerRpcResponseMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
@@ -512,8 +515,8 @@ public class DeviceApiController implements TbTransportService {
                 responseWriter.setResult(new ResponseEntity<>(HttpStatus.NOT_FOUND));
             } else if (title.equals(otaPackageResponseMsg.getTitle()) && version.equals(otaPackageResponseMsg.getVersion())) {
                 String otaPackageId = new UUID(otaPackageResponseMsg.getOtaPackageIdMSB(), otaPackageResponseMsg.getOtaPackageIdLSB()).toString();
-                ByteArrayResource resource = new ByteArrayResource(transportContext.getOtaPackageDataCache().get(otaPackageId, chunkSize, chunk));
-                ResponseEntity<ByteArrayResource> response = ResponseEntity.ok()
+                ByteBufferResource resource = new ByteBufferResource(transportContext.getOtaPackageDataCache().getChunk(otaPackageId, chunkSize, chunk));
+                ResponseEntity<ByteBufferResource> response = ResponseEntity.ok()
                         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + otaPackageResponseMsg.getFileName())
                         .header("x-filename", otaPackageResponseMsg.getFileName())
                         .contentLength(resource.contentLength())
@@ -633,4 +636,28 @@ public class DeviceApiController implements TbTransportService {
         return DataConstants.HTTP_TRANSPORT_NAME;
     }
 
+    /**
+     * Streams the OTA package chunk straight from the buffer returned by the cache,
+     * without copying the whole chunk to the heap first.
+     */
+    @RequiredArgsConstructor
+    static class ByteBufferResource extends AbstractResource {
+        private final ByteBuffer buffer;
+
+        @Override
+        public String getDescription() {
+            return "OTA package chunk";
+        }
+
+        @Override
+        public long contentLength() {
+            return buffer != null ? buffer.remaining() : 0;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferBackedInputStream(buffer != null ? buffer.duplicate() : ByteBuffer.allocate(0));
+        }
+    }
+
 }
@@ -67,6 +67,7 @@ import org.thingsboard.server.transport.mqtt.adaptors.JsonMqttAdaptor;
 import org.thingsboard.server.transport.mqtt.adaptors.MqttTransportAdaptor;
 import org.thingsboard.server.transport.mqtt.adaptors.ProtoMqttAdaptor;
 import org.thingsboard.server.transport.mqtt.gateway.GatewayMetricsService;
+import org.thingsboard.server.transport.mqtt.util.ByteBufUtf8Reader;
 import org.thingsboard.server.transport.mqtt.util.sparkplug.SparkplugConnectionState;
 
 import java.util.ArrayList;
@@ -394,6 +395,14 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
     }
 
     protected void onDeviceTelemetryJson(int msgId, ByteBuf payload) throws AdaptorException {
+        long systemTs = System.currentTimeMillis();
+        Map<String, TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>>> telemetry = streamGatewayTelemetry(payload, systemTs);
+        if (telemetry != null) {
+            telemetry.forEach((deviceName, deviceTelemetry) ->
+                    process(deviceName, deviceCtx -> processPostTelemetryMsg(deviceCtx, deviceTelemetry, systemTs, deviceName, msgId),
+                            t -> failedToProcessLog(deviceName, TELEMETRY, t)));
+            return;
+        }
         JsonElement json = JsonMqttAdaptor.validateJsonPayload(sessionId, payload);
         validateJsonObject(json);
         for (Map.Entry<String, JsonElement> deviceEntry : json.getAsJsonObject().entrySet()) {
@@ -407,22 +416,46 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
         }
     }
 
+    private Map<String, TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>>> streamGatewayTelemetry(ByteBuf payload, long systemTs) {
+        try {
+            return JsonConverter.convertToGatewayTelemetry(new ByteBufUtf8Reader(payload), systemTs);
+        } catch (Exception e) {
+            log.trace("[{}] Failed to stream gateway telemetry, falling back to tree parsing", sessionId, e);
+            return null;
+        }
+    }
+
     private void processPostTelemetryMsg(T deviceCtx, JsonElement msg, String deviceName, int msgId) {
         try {
             long systemTs = System.currentTimeMillis();
             TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>> gatewayPayloadPair = JsonConverter.convertToGatewayTelemetry(msg.getAsJsonArray(), systemTs);
-            TransportProtos.PostTelemetryMsg postTelemetryMsg = gatewayPayloadPair.getFirst();
-            List<GatewayMetadata> metadata = gatewayPayloadPair.getSecond();
-            if (!CollectionUtils.isEmpty(metadata)) {
-                gatewayMetricsService.process(deviceSessionCtx.getSessionInfo(), gateway.getDeviceId(), metadata, systemTs);
-            }
-            transportService.process(deviceCtx.getSessionInfo(), postTelemetryMsg, getPubAckCallback(channel, deviceName, msgId, postTelemetryMsg));
+            sendPostTelemetryMsg(deviceCtx, gatewayPayloadPair, systemTs, deviceName, msgId);
         } catch (Throwable e) {
             log.warn("[{}][{}][{}] Failed to convert telemetry: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceName, msg, e);
             ackOrClose(msgId);
         }
     }
 
+    private void processPostTelemetryMsg(T deviceCtx, TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>> gatewayPayloadPair,
+                                         long systemTs, String deviceName, int msgId) {
+        try {
+            sendPostTelemetryMsg(deviceCtx, gatewayPayloadPair, systemTs, deviceName, msgId);
+        } catch (Throwable e) {
+            log.warn("[{}][{}][{}] Failed to process telemetry: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceName, gatewayPayloadPair.getFirst(), e);
+            ackOrClose(msgId);
+        }
+    }
+
+    private void sendPostTelemetryMsg(T deviceCtx, TbPair<TransportProtos.PostTelemetryMsg, List<GatewayMetadata>> gatewayPayloadPair,
+                                      long systemTs, String deviceName, int msgId) {
+        TransportProtos.PostTelemetryMsg postTelemetryMsg = gatewayPayloadPair.getFirst();
+        List<GatewayMetadata> metadata = gatewayPayloadPair.getSecond();
+        if (!CollectionUtils.isEmpty(metadata)) {
+            gatewayMetricsService.process(deviceSessionCtx.getSessionInfo(), gateway.getDeviceId(), metadata, systemTs);
+        }
+        transportService.process(deviceCtx.getSessionInfo(), postTelemetryMsg, getPubAckCallback(channel, deviceName, msgId, postTelemetryMsg));
+    }
+
     protected void onDeviceTelemetryProto(int msgId, ByteBuf payload) throws AdaptorException {
         try {
             TransportApiProtos.GatewayTelemetryMsg telemetryMsgProto = TransportApiProtos.GatewayTelemetryMsg.parseFrom(getBytes(payload));
@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.mqtt.util;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the readable bytes of a {@link ByteBuf} as UTF-8 directly into the caller's buffer,
+ * without building an intermediate String of the whole payload.
+ * Does not change the reader index of the buffer, so the same payload may be read again afterwards.
+ * Malformed input is replaced the same way as {@link ByteBuf#toString(java.nio.charset.Charset)} does.
+ */
+public class ByteBufUtf8Reader extends Reader {
+
+    private final ByteBuffer source;
+    private final CharsetDecoder decoder;
+    private final CharBuffer pending = CharBuffer.allocate(2);
+    private boolean flushed;
+
+    public ByteBufUtf8Reader(ByteBuf buf) {
+        this.source = buf.nioBuffer();
+        this.decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.pending.flip();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (pending.hasRemaining()) {
+            cbuf[off] = pending.get();
+            return 1;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        decode(out);
+        int read = out.position() - off;
+        if (read == 0 && !flushed) {
+            // the next char is a surrogate pair that does not fit into the destination
+            pending.clear();
+            decode(pending);
+            pending.flip();
+            if (pending.hasRemaining()) {
+                cbuf[off] = pending.get();
+                return 1;
+            }
+        }
+        return read == 0 && flushed ? -1 : read;
+    }
+
+    private void decode(CharBuffer out) {
+        if (source.hasRemaining()) {
+            CoderResult result = decoder.decode(source, out, true);
+            if (result.isOverflow()) {
+                return;
+            }
+        }
+        if (!flushed && decoder.flush(out).isUnderflow()) {
+            flushed = true;
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
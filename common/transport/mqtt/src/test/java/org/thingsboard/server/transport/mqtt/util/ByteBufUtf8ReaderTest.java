@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.mqtt.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ByteBufUtf8ReaderTest {
+
+    @Test
+    public void testReadsWholePayloadWithoutMovingReaderIndex() throws IOException {
+        String payload = "{\"temperature\": 42, \"name\": \"üñïçødé 😀\"}";
+        ByteBuf buf = Unpooled.copiedBuffer("prefix" + payload, StandardCharsets.UTF_8);
+        buf.skipBytes("prefix".length());
+        int readerIndex = buf.readerIndex();
+
+        assertThat(readAll(new ByteBufUtf8Reader(buf), 1024)).isEqualTo(payload);
+        assertThat(buf.readerIndex()).isEqualTo(readerIndex);
+        assertThat(readAll(new ByteBufUtf8Reader(buf), 1)).isEqualTo(payload);
+    }
+
+    @Test
+    public void testReplacesMalformedInputLikeByteBufToString() throws IOException {
+        ByteBuf buf = Unpooled.wrappedBuffer(new byte[]{'a', (byte) 0xC3, 'b', (byte) 0xFF});
+
+        assertThat(readAll(new ByteBufUtf8Reader(buf), 16)).isEqualTo(buf.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String readAll(ByteBufUtf8Reader reader, int chunkSize) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] chunk = new char[chunkSize];
+        int read;
+        while ((read = reader.read(chunk, 0, chunkSize)) != -1) {
+            result.append(chunk, 0, read);
+        }
+        return result.toString();
+    }
+
+}
@@ -18,6 +18,7 @@ package org.thingsboard.server.common.transport.limits;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.thingsboard.server.cache.limits.TbRateLimitsFactory;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.TenantProfile;
@@ -51,6 +52,9 @@ import static org.thingsboard.server.common.transport.limits.TransportLimitsType
 public class DefaultTransportRateLimitService implements TransportRateLimitService {
 
     private final static DummyTransportRateLimit ALLOW = new DummyTransportRateLimit();
+    private static final String REGULAR_MSG = "regularMsg";
+    private static final String TELEMETRY_MSG = "telemetryMsg";
+    private static final String TELEMETRY_DATA_POINTS = "telemetryDataPoints";
     private final ConcurrentMap<TenantId, Boolean> tenantAllowed = new ConcurrentHashMap<>();
     private final ConcurrentMap<TenantId, Set<DeviceId>> tenantDevices = new ConcurrentHashMap<>();
     private final ConcurrentMap<TenantId, Set<DeviceId>> tenantGateways = new ConcurrentHashMap<>();
@@ -62,6 +66,7 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
     private final Map<InetAddress, InetAddressRateLimitStats> ipMap = new ConcurrentHashMap<>();
 
     private final TransportTenantProfileCache tenantProfileCache;
+    private final TbRateLimitsFactory rateLimitsFactory;
 
     @Value("${transport.rate_limits.ip_limits_enabled:false}")
     private boolean ipRateLimitsEnabled;
@@ -70,8 +75,9 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
     @Value("${transport.rate_limits.ip_block_timeout:60000}")
     private long ipBlockTimeout;
 
-    public DefaultTransportRateLimitService(TransportTenantProfileCache tenantProfileCache) {
+    public DefaultTransportRateLimitService(TransportTenantProfileCache tenantProfileCache, TbRateLimitsFactory rateLimitsFactory) {
         this.tenantProfileCache = tenantProfileCache;
+        this.rateLimitsFactory = rateLimitsFactory;
     }
 
     @Override
@@ -106,10 +112,10 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
     @Override
     public void update(TenantProfileUpdateResult update) {
         log.info("Received tenant profile update: {}", update.getProfile());
-        EntityTransportRateLimits tenantRateLimitPrototype = createRateLimits(update.getProfile(), TENANT_LIMITS);
-        EntityTransportRateLimits deviceRateLimitPrototype = createRateLimits(update.getProfile(), DEVICE_LIMITS);
-        EntityTransportRateLimits gatewayRateLimitPrototype = createRateLimits(update.getProfile(), GATEWAY_LIMITS);
-        EntityTransportRateLimits gatewayDeviceRateLimitPrototype = createRateLimits(update.getProfile(), GATEWAY_DEVICE_LIMITS);
+        EntityTransportRateLimits tenantRateLimitPrototype = createRateLimits(update.getProfile(), TENANT_LIMITS, null);
+        EntityTransportRateLimits deviceRateLimitPrototype = createRateLimits(update.getProfile(), DEVICE_LIMITS, null);
+        EntityTransportRateLimits gatewayRateLimitPrototype = createRateLimits(update.getProfile(), GATEWAY_LIMITS, null);
+        EntityTransportRateLimits gatewayDeviceRateLimitPrototype = createRateLimits(update.getProfile(), GATEWAY_DEVICE_LIMITS, null);
         for (TenantId tenantId : update.getAffectedTenants()) {
             update(tenantId, tenantRateLimitPrototype, deviceRateLimitPrototype, gatewayRateLimitPrototype, gatewayDeviceRateLimitPrototype);
         }
@@ -117,19 +123,19 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
 
     @Override
     public void update(TenantId tenantId) {
-        EntityTransportRateLimits tenantRateLimitPrototype = createRateLimits(tenantProfileCache.get(tenantId), TENANT_LIMITS);
-        EntityTransportRateLimits deviceRateLimitPrototype = createRateLimits(tenantProfileCache.get(tenantId), DEVICE_LIMITS);
-        EntityTransportRateLimits gatewayRateLimitPrototype = createRateLimits(tenantProfileCache.get(tenantId), GATEWAY_LIMITS);
-        EntityTransportRateLimits gatewayDeviceRateLimitPrototype = createRateLimits(tenantProfileCache.get(tenantId), GATEWAY_DEVICE_LIMITS);
+        EntityTransportRateLimits tenantRateLimitPrototype = createRateLimits(tenantProfileCache.get(tenantId), TENANT_LIMITS, null);
+        EntityTransportRateLimits deviceRateLimitPrototype = createRateLimits(tenantProfileCache.get(tenantId), DEVICE_LIMITS, null);
+        EntityTransportRateLimits gatewayRateLimitPrototype = createRateLimits(tenantProfileCache.get(tenantId), GATEWAY_LIMITS, null);
+        EntityTransportRateLimits gatewayDeviceRateLimitPrototype = createRateLimits(tenantProfileCache.get(tenantId), GATEWAY_DEVICE_LIMITS, null);
         update(tenantId, tenantRateLimitPrototype, deviceRateLimitPrototype, gatewayRateLimitPrototype, gatewayDeviceRateLimitPrototype);
     }
 
     private void update(TenantId tenantId, EntityTransportRateLimits tenantRateLimitPrototype, EntityTransportRateLimits deviceRateLimitPrototype,
                         EntityTransportRateLimits gatewayRateLimitPrototype, EntityTransportRateLimits gatewayDeviceRateLimitPrototype) {
-        mergeLimits(tenantId, tenantRateLimitPrototype, perTenantLimits::get, perTenantLimits::put);
-        getTenantDevices(tenantId).forEach(deviceId -> mergeLimits(deviceId, deviceRateLimitPrototype, perDeviceLimits::get, perDeviceLimits::put));
-        getTenantGateways(tenantId).forEach(gatewayId -> mergeLimits(gatewayId, gatewayRateLimitPrototype, perGatewayLimits::get, perGatewayLimits::put));
-        getTenantGatewayDevices(tenantId).forEach(gatewayId -> mergeLimits(gatewayId, gatewayDeviceRateLimitPrototype, perGatewayDeviceLimits::get, perGatewayDeviceLimits::put));
+        mergeLimits(tenantId, TENANT_LIMITS, tenantRateLimitPrototype, perTenantLimits::get, perTenantLimits::put);
+        getTenantDevices(tenantId).forEach(deviceId -> mergeLimits(deviceId, DEVICE_LIMITS, deviceRateLimitPrototype, perDeviceLimits::get, perDeviceLimits::put));
+        getTenantGateways(tenantId).forEach(gatewayId -> mergeLimits(gatewayId, GATEWAY_LIMITS, gatewayRateLimitPrototype, perGatewayLimits::get, perGatewayLimits::put));
+        getTenantGatewayDevices(tenantId).forEach(gatewayId -> mergeLimits(gatewayId, GATEWAY_DEVICE_LIMITS, gatewayDeviceRateLimitPrototype, perGatewayDeviceLimits::get, perGatewayDeviceLimits::put));
     }
 
     @Override
@@ -224,11 +230,15 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
         }
     }
 
-    private <T extends EntityId> void mergeLimits(T entityId, EntityTransportRateLimits newRateLimits,
+    private <T extends EntityId> void mergeLimits(T entityId, TransportLimitsType limitsType, EntityTransportRateLimits newRateLimits,
                                                   Function<T, EntityTransportRateLimits> getFunction,
                                                   BiConsumer<T, EntityTransportRateLimits> putFunction) {
         EntityTransportRateLimits oldRateLimits = getFunction.apply(entityId);
         if (oldRateLimits == null) {
+            newRateLimits = new EntityTransportRateLimits(
+                    newLimit(newRateLimits.getRegularMsgRateLimit().getConfiguration(), limitsType, entityId, REGULAR_MSG),
+                    newLimit(newRateLimits.getTelemetryMsgRateLimit().getConfiguration(), limitsType, entityId, TELEMETRY_MSG),
+                    newLimit(newRateLimits.getTelemetryDataPointsRateLimit().getConfiguration(), limitsType, entityId, TELEMETRY_DATA_POINTS));
             if (EntityType.TENANT.equals(entityId.getEntityType())) {
                 log.info("[{}] New rate limits: {}", entityId, newRateLimits);
             } else {
@@ -236,7 +246,7 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
             }
             putFunction.accept(entityId, newRateLimits);
         } else {
-            EntityTransportRateLimits updated = merge(oldRateLimits, newRateLimits);
+            EntityTransportRateLimits updated = merge(entityId, limitsType, oldRateLimits, newRateLimits);
             if (updated != null) {
                 if (EntityType.TENANT.equals(entityId.getEntityType())) {
                     log.info("[{}] Updated rate limits: {}", entityId, updated);
@@ -248,21 +258,22 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
         }
     }
 
-    private EntityTransportRateLimits merge(EntityTransportRateLimits oldRateLimits, EntityTransportRateLimits newRateLimits) {
+    private EntityTransportRateLimits merge(EntityId entityId, TransportLimitsType limitsType,
+                                            EntityTransportRateLimits oldRateLimits, EntityTransportRateLimits newRateLimits) {
         boolean regularUpdate = !oldRateLimits.getRegularMsgRateLimit().getConfiguration().equals(newRateLimits.getRegularMsgRateLimit().getConfiguration());
         boolean telemetryMsgRateUpdate = !oldRateLimits.getTelemetryMsgRateLimit().getConfiguration().equals(newRateLimits.getTelemetryMsgRateLimit().getConfiguration());
         boolean telemetryDataPointUpdate = !oldRateLimits.getTelemetryDataPointsRateLimit().getConfiguration().equals(newRateLimits.getTelemetryDataPointsRateLimit().getConfiguration());
         if (regularUpdate || telemetryMsgRateUpdate || telemetryDataPointUpdate) {
             return new EntityTransportRateLimits(
-                    regularUpdate ? newLimit(newRateLimits.getRegularMsgRateLimit().getConfiguration()) : oldRateLimits.getRegularMsgRateLimit(),
-                    telemetryMsgRateUpdate ? newLimit(newRateLimits.getTelemetryMsgRateLimit().getConfiguration()) : oldRateLimits.getTelemetryMsgRateLimit(),
-                    telemetryDataPointUpdate ? newLimit(newRateLimits.getTelemetryDataPointsRateLimit().getConfiguration()) : oldRateLimits.getTelemetryDataPointsRateLimit());
+                    regularUpdate ? newLimit(newRateLimits.getRegularMsgRateLimit().getConfiguration(), limitsType, entityId, REGULAR_MSG) : oldRateLimits.getRegularMsgRateLimit(),
+                    telemetryMsgRateUpdate ? newLimit(newRateLimits.getTelemetryMsgRateLimit().getConfiguration(), limitsType, entityId, TELEMETRY_MSG) : oldRateLimits.getTelemetryMsgRateLimit(),
+                    telemetryDataPointUpdate ? newLimit(newRateLimits.getTelemetryDataPointsRateLimit().getConfiguration(), limitsType, entityId, TELEMETRY_DATA_POINTS) : oldRateLimits.getTelemetryDataPointsRateLimit());
         } else {
             return null;
         }
     }
 
-    private EntityTransportRateLimits createRateLimits(TenantProfile tenantProfile, TransportLimitsType limitsType) {
+    private EntityTransportRateLimits createRateLimits(TenantProfile tenantProfile, TransportLimitsType limitsType, EntityId entityId) {
         TenantProfileData profileData = tenantProfile.getProfileData();
         DefaultTenantProfileConfiguration profile = (DefaultTenantProfileConfiguration) profileData.getConfiguration();
         if (profile == null) {
@@ -273,24 +284,24 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
             TransportRateLimit telemetryDpRateLimit;
             switch (limitsType) {
                 case TENANT_LIMITS -> {
-                    regularMsgRateLimit = newLimit(profile.getTransportTenantMsgRateLimit());
-                    telemetryMsgRateLimit = newLimit(profile.getTransportTenantTelemetryMsgRateLimit());
-                    telemetryDpRateLimit = newLimit(profile.getTransportTenantTelemetryDataPointsRateLimit());
+                    regularMsgRateLimit = newLimit(profile.getTransportTenantMsgRateLimit(), limitsType, entityId, REGULAR_MSG);
+                    telemetryMsgRateLimit = newLimit(profile.getTransportTenantTelemetryMsgRateLimit(), limitsType, entityId, TELEMETRY_MSG);
+                    telemetryDpRateLimit = newLimit(profile.getTransportTenantTelemetryDataPointsRateLimit(), limitsType, entityId, TELEMETRY_DATA_POINTS);
                 }
                 case DEVICE_LIMITS -> {
-                    regularMsgRateLimit = newLimit(profile.getTransportDeviceMsgRateLimit());
-                    telemetryMsgRateLimit = newLimit(profile.getTransportDeviceTelemetryMsgRateLimit());
-                    telemetryDpRateLimit = newLimit(profile.getTransportDeviceTelemetryDataPointsRateLimit());
+                    regularMsgRateLimit = newLimit(profile.getTransportDeviceMsgRateLimit(), limitsType, entityId, REGULAR_MSG);
+                    telemetryMsgRateLimit = newLimit(profile.getTransportDeviceTelemetryMsgRateLimit(), limitsType, entityId, TELEMETRY_MSG);
+                    telemetryDpRateLimit = newLimit(profile.getTransportDeviceTelemetryDataPointsRateLimit(), limitsType, entityId, TELEMETRY_DATA_POINTS);
                 }
                 case GATEWAY_LIMITS -> {
-                    regularMsgRateLimit = newLimit(profile.getTransportGatewayMsgRateLimit());
-                    telemetryMsgRateLimit = newLimit(profile.getTransportGatewayTelemetryMsgRateLimit());
-                    telemetryDpRateLimit = newLimit(profile.getTransportGatewayTelemetryDataPointsRateLimit());
+                    regularMsgRateLimit = newLimit(profile.getTransportGatewayMsgRateLimit(), limitsType, entityId, REGULAR_MSG);
+                    telemetryMsgRateLimit = newLimit(profile.getTransportGatewayTelemetryMsgRateLimit(), limitsType, entityId, TELEMETRY_MSG);
+                    telemetryDpRateLimit = newLimit(profile.getTransportGatewayTelemetryDataPointsRateLimit(), limitsType, entityId, TELEMETRY_DATA_POINTS);
                 }
                 case GATEWAY_DEVICE_LIMITS -> {
-                    regularMsgRateLimit = newLimit(profile.getTransportGatewayDeviceMsgRateLimit());
-                    telemetryMsgRateLimit = newLimit(profile.getTransportGatewayDeviceTelemetryMsgRateLimit());
-                    telemetryDpRateLimit = newLimit(profile.getTransportGatewayDeviceTelemetryDataPointsRateLimit());
+                    regularMsgRateLimit = newLimit(profile.getTransportGatewayDeviceMsgRateLimit(), limitsType, entityId, REGULAR_MSG);
+                    telemetryMsgRateLimit = newLimit(profile.getTransportGatewayDeviceTelemetryMsgRateLimit(), limitsType, entityId, TELEMETRY_MSG);
+                    telemetryDpRateLimit = newLimit(profile.getTransportGatewayDeviceTelemetryDataPointsRateLimit(), limitsType, entityId, TELEMETRY_DATA_POINTS);
                 }
                 default -> throw new IllegalStateException("Unknown limits type: " + limitsType);
             }
@@ -299,17 +310,27 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
         }
     }
 
-    private static TransportRateLimit newLimit(String config) {
-        return StringUtils.isEmpty(config) ? ALLOW : new SimpleTransportRateLimit(config);
+    /**
+     * Creates the limit of the entity. Limits without the entity are only used as prototypes to compare configurations.
+     */
+    private TransportRateLimit newLimit(String config, TransportLimitsType limitsType, EntityId entityId, String name) {
+        if (StringUtils.isEmpty(config)) {
+            return ALLOW;
+        }
+        if (entityId == null) {
+            return new SimpleTransportRateLimit(config);
+        }
+        String key = "transport:" + limitsType.name() + ":" + entityId.getId() + ":" + name;
+        return new SimpleTransportRateLimit(rateLimitsFactory.create(key, config), config);
     }
 
     private EntityTransportRateLimits getTenantRateLimits(TenantId tenantId) {
-        return perTenantLimits.computeIfAbsent(tenantId, k -> createRateLimits(tenantProfileCache.get(tenantId), TENANT_LIMITS));
+        return perTenantLimits.computeIfAbsent(tenantId, k -> createRateLimits(tenantProfileCache.get(tenantId), TENANT_LIMITS, tenantId));
     }
 
     private EntityTransportRateLimits getDeviceRateLimits(TenantId tenantId, DeviceId deviceId) {
         return perDeviceLimits.computeIfAbsent(deviceId, k -> {
-            EntityTransportRateLimits limits = createRateLimits(tenantProfileCache.get(tenantId), DEVICE_LIMITS);
+            EntityTransportRateLimits limits = createRateLimits(tenantProfileCache.get(tenantId), DEVICE_LIMITS, deviceId);
             getTenantDevices(tenantId).add(deviceId);
             return limits;
         });
@@ -317,7 +338,7 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
 
     private EntityTransportRateLimits getGatewayRateLimits(TenantId tenantId, DeviceId gatewayId) {
         return perGatewayLimits.computeIfAbsent(gatewayId, k -> {
-            EntityTransportRateLimits limits = createRateLimits(tenantProfileCache.get(tenantId), GATEWAY_LIMITS);
+            EntityTransportRateLimits limits = createRateLimits(tenantProfileCache.get(tenantId), GATEWAY_LIMITS, gatewayId);
             getTenantGateways(tenantId).add(gatewayId);
             return limits;
         });
@@ -325,7 +346,7 @@ public class DefaultTransportRateLimitService implements TransportRateLimitServi
 
     private EntityTransportRateLimits getGatewayDeviceRateLimits(TenantId tenantId, DeviceId gatewayId) {
         return perGatewayDeviceLimits.computeIfAbsent(gatewayId, k -> {
-            EntityTransportRateLimits limits = createRateLimits(tenantProfileCache.get(tenantId), GATEWAY_DEVICE_LIMITS);
+            EntityTransportRateLimits limits = createRateLimits(tenantProfileCache.get(tenantId), GATEWAY_DEVICE_LIMITS, gatewayId);
             getTenantGatewayDevices(tenantId).add(gatewayId);
             return limits;
         });
@@ -51,6 +51,8 @@ public interface AttributesDao {
 
     List<String> findAllKeysByEntityIdsAndAttributeType(TenantId tenantId, List<EntityId> entityIds, String attributeType);
 
+    List<AttributeCacheKey> findAllKeysWithScopeByEntityIds(TenantId tenantId, List<EntityId> entityIds);
+
     List<Pair<AttributeScope, String>> removeAllByEntityId(TenantId tenantId, EntityId entityId);
 
 }
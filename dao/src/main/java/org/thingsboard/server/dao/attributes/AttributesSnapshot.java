@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.attributes;
+
+import lombok.EqualsAndHashCode;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All attributes of the entity within the scope. A key that is not in the snapshot is known to be absent.
+ */
+@EqualsAndHashCode
+public class AttributesSnapshot implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 4217930268127146580L;
+
+    private final Map<String, AttributeKvEntry> attributes;
+
+    public AttributesSnapshot(Collection<AttributeKvEntry> attributes) {
+        this.attributes = new LinkedHashMap<>(attributes.size());
+        attributes.forEach(attribute -> this.attributes.put(attribute.getKey(), attribute));
+    }
+
+    public AttributeKvEntry get(String key) {
+        return attributes.get(key);
+    }
+
+    public List<AttributeKvEntry> getAttributes() {
+        return new ArrayList<>(attributes.values());
+    }
+
+    public int size() {
+        return attributes.size();
+    }
+
+}
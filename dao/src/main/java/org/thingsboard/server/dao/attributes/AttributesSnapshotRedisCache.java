@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.attributes;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.cache.CacheSpecsMap;
+import org.thingsboard.server.cache.RedisTbTransactionalCache;
+import org.thingsboard.server.cache.TBRedisCacheConfiguration;
+import org.thingsboard.server.cache.TbRedisSerializer;
+import org.thingsboard.server.common.data.CacheConstants;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.util.ProtoUtils;
+import org.thingsboard.server.gen.transport.TransportProtos.AttributeValueProto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
+@Service("AttributesSnapshotCache")
+public class AttributesSnapshotRedisCache extends RedisTbTransactionalCache<AttributesSnapshotCacheKey, AttributesSnapshot> {
+
+    public AttributesSnapshotRedisCache(TBRedisCacheConfiguration configuration, CacheSpecsMap cacheSpecsMap, RedisConnectionFactory connectionFactory) {
+        super(CacheConstants.ATTRIBUTES_SNAPSHOT_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbRedisSerializer<>() {
+            @Override
+            public byte[] serialize(AttributesSnapshot snapshot) throws SerializationException {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try {
+                    for (AttributeKvEntry attribute : snapshot.getAttributes()) {
+                        ProtoUtils.toProto(attribute).writeDelimitedTo(out);
+                    }
+                } catch (IOException e) {
+                    throw new SerializationException(e.getMessage());
+                }
+                return out.toByteArray();
+            }
+
+            @Override
+            public AttributesSnapshot deserialize(AttributesSnapshotCacheKey key, byte[] bytes) throws SerializationException {
+                ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+                List<AttributeKvEntry> attributes = new ArrayList<>();
+                try {
+                    AttributeValueProto proto;
+                    while ((proto = AttributeValueProto.parseDelimitedFrom(in)) != null) {
+                        attributes.add(ProtoUtils.fromProto(proto));
+                    }
+                } catch (IOException e) {
+                    throw new SerializationException(e.getMessage());
+                }
+                return new AttributesSnapshot(attributes);
+            }
+        });
+    }
+
+}
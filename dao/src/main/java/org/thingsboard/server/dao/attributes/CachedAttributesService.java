@@ -26,7 +26,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import org.thingsboard.server.cache.SimpleTbCacheValueWrapper;
+import org.thingsboard.server.cache.TbCacheTransaction;
 import org.thingsboard.server.cache.TbCacheValueWrapper;
+import org.thingsboard.server.cache.TbTransactionalCache;
 import org.thingsboard.server.cache.VersionedTbCache;
 import org.thingsboard.server.common.data.AttributeScope;
 import org.thingsboard.server.common.data.StringUtils;
@@ -39,11 +42,13 @@ import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.stats.DefaultCounter;
 import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.cache.CacheExecutorService;
+import org.thingsboard.server.dao.dictionary.EntityKeysCatalog;
 import org.thingsboard.server.dao.service.Validator;
 import org.thingsboard.server.dao.sql.JpaExecutorService;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -62,6 +67,7 @@ import static org.thingsboard.server.dao.attributes.AttributeUtils.validate;
 @Slf4j
 public class CachedAttributesService implements AttributesService {
     private static final String STATS_NAME = "attributes.cache";
+    private static final String SNAPSHOT_STATS_NAME = "attributes.cache.snapshot";
     public static final String LOCAL_CACHE_TYPE = "caffeine";
 
     private final AttributesDao attributesDao;
@@ -70,30 +76,52 @@ public class CachedAttributesService implements AttributesService {
     private final DefaultCounter hitCounter;
     private final DefaultCounter missCounter;
     private final VersionedTbCache<AttributeCacheKey, AttributeKvEntry> cache;
+    private final TbTransactionalCache<AttributesSnapshotCacheKey, AttributesSnapshot> snapshotCache;
+    private final Map<AttributeScope, DefaultCounter> snapshotHitCounters = new EnumMap<>(AttributeScope.class);
+    private final Map<AttributeScope, DefaultCounter> snapshotMissCounters = new EnumMap<>(AttributeScope.class);
     private ListeningExecutorService cacheExecutor;
 
     @Value("${cache.type:caffeine}")
     private String cacheType;
     @Value("${sql.attributes.value_no_xss_validation:false}")
     private boolean valueNoXssValidation;
+    @Value("${sql.attributes.keys_catalog.enabled:false}")
+    private boolean keysCatalogEnabled;
+    @Value("${sql.attributes.keys_catalog.ttl_sec:300}")
+    private long keysCatalogTtlSec;
+    @Value("${sql.attributes.keys_catalog.max_entities:100000}")
+    private long keysCatalogMaxEntities;
+    @Value("${sql.attributes.keys_catalog.max_profiles:10000}")
+    private long keysCatalogMaxProfiles;
+
+    private EntityKeysCatalog keysCatalog;
 
     public CachedAttributesService(AttributesDao attributesDao,
                                    JpaExecutorService jpaExecutorService,
                                    StatsFactory statsFactory,
                                    CacheExecutorService cacheExecutorService,
-                                   VersionedTbCache<AttributeCacheKey, AttributeKvEntry> cache) {
+                                   VersionedTbCache<AttributeCacheKey, AttributeKvEntry> cache,
+                                   TbTransactionalCache<AttributesSnapshotCacheKey, AttributesSnapshot> snapshotCache) {
         this.attributesDao = attributesDao;
         this.jpaExecutorService = jpaExecutorService;
         this.cacheExecutorService = cacheExecutorService;
         this.cache = cache;
+        this.snapshotCache = snapshotCache;
 
         this.hitCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "hit");
         this.missCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "miss");
+        for (AttributeScope scope : AttributeScope.values()) {
+            snapshotHitCounters.put(scope, statsFactory.createDefaultCounter(SNAPSHOT_STATS_NAME, "scope", scope.name(), "result", "hit"));
+            snapshotMissCounters.put(scope, statsFactory.createDefaultCounter(SNAPSHOT_STATS_NAME, "scope", scope.name(), "result", "miss"));
+        }
     }
 
     @PostConstruct
     public void init() {
         this.cacheExecutor = getExecutor(cacheType, cacheExecutorService);
+        if (keysCatalogEnabled) {
+            this.keysCatalog = new EntityKeysCatalog(keysCatalogTtlSec, keysCatalogMaxEntities, keysCatalogMaxProfiles);
+        }
     }
 
     /**
@@ -122,6 +150,11 @@ public class CachedAttributesService implements AttributesService {
                 hitCounter.increment();
                 AttributeKvEntry cachedAttributeKvEntry = cachedAttributeValue.get();
                 return Optional.ofNullable(cachedAttributeKvEntry);
+            }
+            AttributesSnapshot snapshot = getSnapshot(entityId, scope);
+            if (snapshot != null) {
+                hitCounter.increment();
+                return Optional.ofNullable(snapshot.get(attributeKey));
             } else {
                 missCounter.increment();
                 Optional<AttributeKvEntry> result = attributesDao.find(tenantId, entityId, scope, attributeKey);
@@ -177,37 +210,92 @@ public class CachedAttributesService implements AttributesService {
 
     private Map<String, TbCacheValueWrapper<AttributeKvEntry>> findCachedAttributes(EntityId entityId, AttributeScope scope, Collection<String> attributeKeys) {
         Map<String, TbCacheValueWrapper<AttributeKvEntry>> cachedAttributes = new HashMap<>();
+        List<String> notCachedKeys = new ArrayList<>();
         for (String attributeKey : attributeKeys) {
             var cachedAttributeValue = cache.get(new AttributeCacheKey(scope, entityId, attributeKey));
             if (cachedAttributeValue != null) {
                 hitCounter.increment();
                 cachedAttributes.put(attributeKey, cachedAttributeValue);
             } else {
-                missCounter.increment();
+                notCachedKeys.add(attributeKey);
+            }
+        }
+        if (!notCachedKeys.isEmpty()) {
+            AttributesSnapshot snapshot = getSnapshot(entityId, scope);
+            for (String attributeKey : notCachedKeys) {
+                if (snapshot != null) {
+                    hitCounter.increment();
+                    cachedAttributes.put(attributeKey, SimpleTbCacheValueWrapper.wrap(snapshot.get(attributeKey)));
+                } else {
+                    missCounter.increment();
+                }
             }
         }
         return cachedAttributes;
     }
 
+    private AttributesSnapshot getSnapshot(EntityId entityId, AttributeScope scope) {
+        TbCacheValueWrapper<AttributesSnapshot> snapshot = snapshotCache.get(new AttributesSnapshotCacheKey(scope, entityId));
+        return snapshot != null ? snapshot.get() : null;
+    }
+
+    private void evictSnapshot(EntityId entityId, AttributeScope scope) {
+        snapshotCache.evict(new AttributesSnapshotCacheKey(scope, entityId));
+    }
+
     @Override
     public ListenableFuture<List<AttributeKvEntry>> findAll(TenantId tenantId, EntityId entityId, AttributeScope scope) {
         validate(entityId, scope);
-        // We can`t watch on cache because the keys are unknown.
-        return jpaExecutorService.submit(() -> attributesDao.findAll(tenantId, entityId, scope));
+        AttributesSnapshotCacheKey snapshotKey = new AttributesSnapshotCacheKey(scope, entityId);
+        return Futures.transformAsync(cacheExecutor.submit(() -> snapshotCache.get(snapshotKey)), cachedSnapshot -> {
+            if (cachedSnapshot != null && cachedSnapshot.get() != null) {
+                snapshotHitCounters.get(scope).increment();
+                return Futures.immediateFuture(cachedSnapshot.get().getAttributes());
+            }
+            snapshotMissCounters.get(scope).increment();
+            return jpaExecutorService.submit(() -> {
+                // the transaction fails if any attribute of the entity scope is saved or removed while the snapshot is loaded
+                TbCacheTransaction<AttributesSnapshotCacheKey, AttributesSnapshot> transaction = snapshotCache.newTransactionForKey(snapshotKey);
+                try {
+                    List<AttributeKvEntry> result = attributesDao.findAll(tenantId, entityId, scope);
+                    transaction.put(snapshotKey, new AttributesSnapshot(result));
+                    if (!transaction.commit()) {
+                        log.trace("[{}][{}] Snapshot was not cached due to the concurrent update", entityId, scope);
+                    }
+                    return result;
+                } catch (Throwable e) {
+                    transaction.rollback();
+                    throw e;
+                }
+            });
+        }, MoreExecutors.directExecutor());
     }
 
     @Override
     public List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId) {
+        if (keysCatalog != null) {
+            return keysCatalog.getProfileKeys(tenantId, deviceProfileId, () -> attributesDao.findAllKeysByDeviceProfileId(tenantId, deviceProfileId));
+        }
         return attributesDao.findAllKeysByDeviceProfileId(tenantId, deviceProfileId);
     }
 
     @Override
     public List<String> findAllKeysByEntityIds(TenantId tenantId, List<EntityId> entityIds) {
-        return attributesDao.findAllKeysByEntityIds(tenantId, entityIds);
+        return findAllKeysByEntityIds(tenantId, entityIds, null);
     }
 
     @Override
     public List<String> findAllKeysByEntityIds(TenantId tenantId, List<EntityId> entityIds, String scope) {
+        if (keysCatalog != null) {
+            int scopesMask = StringUtils.isEmpty(scope) ? EntityKeysCatalog.ALL_GROUPS : scopeBit(AttributeScope.valueOf(scope));
+            return keysCatalog.getKeys(entityIds, scopesMask, ids -> {
+                Map<EntityId, Map<String, Integer>> keys = new HashMap<>();
+                for (AttributeCacheKey key : attributesDao.findAllKeysWithScopeByEntityIds(tenantId, ids)) {
+                    keys.computeIfAbsent(key.getEntityId(), id -> new HashMap<>()).merge(key.getKey(), scopeBit(key.getScope()), (a, b) -> a | b);
+                }
+                return keys;
+            });
+        }
         if (StringUtils.isEmpty(scope)) {
             return attributesDao.findAllKeysByEntityIds(tenantId, entityIds);
         } else {
@@ -239,6 +327,10 @@ public class CachedAttributesService implements AttributesService {
         ListenableFuture<Long> future = attributesDao.save(tenantId, entityId, scope, attribute);
          return Futures.transform(future, version -> {
             put(entityId, scope, new BaseAttributeKvEntry(((BaseAttributeKvEntry)attribute).getKv(), attribute.getLastUpdateTs(), version));
+            evictSnapshot(entityId, scope);
+            if (keysCatalog != null) {
+                keysCatalog.onKeysSaved(entityId, List.of(attribute.getKey()), scopeBit(scope));
+            }
             return version;
         }, cacheExecutor);
     }
@@ -257,6 +349,10 @@ public class CachedAttributesService implements AttributesService {
         return Futures.allAsList(futures.stream().map(future -> Futures.transform(future, keyVersionPair -> {
             String key = keyVersionPair.getFirst();
             cache.evict(new AttributeCacheKey(scope, entityId, key), keyVersionPair.getSecond());
+            evictSnapshot(entityId, scope);
+            if (keysCatalog != null) {
+                keysCatalog.onKeysRemoved(entityId, List.of(key), scopeBit(scope));
+            }
             return key;
         }, cacheExecutor)).collect(Collectors.toList()));
     }
@@ -264,6 +360,12 @@ public class CachedAttributesService implements AttributesService {
     @Override
     public int removeAllByEntityId(TenantId tenantId, EntityId entityId) {
         List<Pair<AttributeScope, String>> result = attributesDao.removeAllByEntityId(tenantId, entityId);
+        for (AttributeScope scope : AttributeScope.values()) {
+            evictSnapshot(entityId, scope);
+        }
+        if (keysCatalog != null) {
+            keysCatalog.evict(entityId);
+        }
         result.forEach(deleted -> {
             AttributeScope scope = deleted.getKey();
             String key = deleted.getValue();
@@ -274,4 +376,8 @@ public class CachedAttributesService implements AttributesService {
         return result.size();
     }
 
+    private static int scopeBit(AttributeScope scope) {
+        return 1 << scope.getId();
+    }
+
 }
@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.dictionary;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory catalog of the attribute or latest timeseries keys of the entities, used to answer the "distinct keys" queries
+ * of the key selectors without scanning the key-value tables.
+ * <p>
+ * Every key of the entity is stored with a bit mask of the groups (e.g. attribute scopes) it is present in.
+ * The entries are loaded from the database on demand and are updated incrementally by the saves and deletes
+ * that go through the current node. The saves of the other nodes become visible after the entry expires.
+ * The keys of the device profiles are sampled by the database queries, so they are cached for the same period without updates.
+ */
+public class EntityKeysCatalog {
+
+    public static final int ALL_GROUPS = -1;
+
+    private final Cache<EntityId, Map<String, Integer>> entities;
+    private final Cache<ProfileKeysKey, List<String>> profiles;
+    private final ConcurrentMap<EntityId, PendingLoad> loading = new ConcurrentHashMap<>();
+
+    public EntityKeysCatalog(long ttlSec, long maxEntities, long maxProfiles) {
+        this.entities = Caffeine.newBuilder()
+                .maximumSize(maxEntities)
+                .expireAfterWrite(ttlSec, TimeUnit.SECONDS)
+                .build();
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxProfiles)
+                .expireAfterWrite(ttlSec, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public List<String> getProfileKeys(TenantId tenantId, DeviceProfileId deviceProfileId, Supplier<List<String>> loader) {
+        return profiles.get(new ProfileKeysKey(tenantId, deviceProfileId), key -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * Returns the sorted distinct keys of the entities that are present in any of the groups of the mask.
+     * The entities that are not in the catalog yet are loaded with a single call of the loader.
+     */
+    public List<String> getKeys(Collection<EntityId> entityIds, int groupsMask,
+                                Function<List<EntityId>, Map<EntityId, Map<String, Integer>>> loader) {
+        Set<String> result = new TreeSet<>();
+        List<EntityId> missing = new ArrayList<>();
+        for (EntityId entityId : new LinkedHashSet<>(entityIds)) {
+            Map<String, Integer> keys = entities.getIfPresent(entityId);
+            if (keys != null) {
+                collect(keys, groupsMask, result);
+            } else {
+                missing.add(entityId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Set<EntityId> registered = new HashSet<>();
+            for (EntityId entityId : missing) {
+                if (loading.putIfAbsent(entityId, new PendingLoad()) == null) {
+                    registered.add(entityId);
+                }
+            }
+            Map<EntityId, Map<String, Integer>> loaded;
+            try {
+                loaded = loader.apply(missing);
+            } catch (RuntimeException e) {
+                registered.forEach(loading::remove);
+                throw e;
+            }
+            for (EntityId entityId : missing) {
+                Map<String, Integer> keys = new ConcurrentHashMap<>(loaded.getOrDefault(entityId, Map.of()));
+                if (registered.contains(entityId)) {
+                    // Merged under the lock of the pending load, so the concurrent saves are either merged here or applied to the new entry
+                    loading.compute(entityId, (id, pending) -> {
+                        if (pending != null && !pending.invalidated) {
+                            pending.added.forEach((key, groups) -> keys.merge(key, groups, EntityKeysCatalog::union));
+                            entities.put(entityId, keys);
+                        }
+                        return null;
+                    });
+                }
+                collect(keys, groupsMask, result);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    public void onKeysSaved(EntityId entityId, Collection<String> keys, int groups) {
+        PendingLoad pending = loading.computeIfPresent(entityId, (id, load) -> {
+            keys.forEach(key -> load.added.merge(key, groups, EntityKeysCatalog::union));
+            return load;
+        });
+        if (pending == null) {
+            Map<String, Integer> entry = entities.getIfPresent(entityId);
+            if (entry != null) {
+                keys.forEach(key -> entry.merge(key, groups, EntityKeysCatalog::union));
+            }
+        }
+    }
+
+    public void onKeysRemoved(EntityId entityId, Collection<String> keys, int groups) {
+        if (!invalidatePendingLoad(entityId)) {
+            Map<String, Integer> entry = entities.getIfPresent(entityId);
+            if (entry != null) {
+                keys.forEach(key -> entry.computeIfPresent(key, (k, present) -> {
+                    int remaining = present & ~groups;
+                    return remaining != 0 ? remaining : null;
+                }));
+            }
+        }
+    }
+
+    public void evict(EntityId entityId) {
+        invalidatePendingLoad(entityId);
+        entities.invalidate(entityId);
+    }
+
+    private boolean invalidatePendingLoad(EntityId entityId) {
+        return loading.computeIfPresent(entityId, (id, load) -> {
+            load.invalidated = true;
+            return load;
+        }) != null;
+    }
+
+    private static void collect(Map<String, Integer> keys, int groupsMask, Set<String> result) {
+        keys.forEach((key, groups) -> {
+            if ((groups & groupsMask) != 0) {
+                result.add(key);
+            }
+        });
+    }
+
+    private static Integer union(Integer a, Integer b) {
+        return a | b;
+    }
+
+    private record ProfileKeysKey(TenantId tenantId, DeviceProfileId deviceProfileId) {
+    }
+
+    private static class PendingLoad {
+        private final Map<String, Integer> added = new ConcurrentHashMap<>();
+        private volatile boolean invalidated;
+    }
+
+}
@@ -81,6 +81,7 @@ public class BaseRelationService implements RelationService {
     private final ApplicationEventPublisher eventPublisher;
     private final JpaExecutorService executor;
     private final JpaRelationQueryExecutorService relationsExecutor;
+    private final RelationGraphIndex relationGraphIndex;
     protected ScheduledExecutorService timeoutExecutorService;
 
     @Value("${sql.relations.query_timeout:20}")
@@ -89,13 +90,14 @@ public class BaseRelationService implements RelationService {
     public BaseRelationService(RelationDao relationDao, @Lazy EntityService entityService,
                                TbTransactionalCache<RelationCacheKey, RelationCacheValue> cache,
                                ApplicationEventPublisher eventPublisher, JpaExecutorService executor,
-                               JpaRelationQueryExecutorService relationsExecutor) {
+                               JpaRelationQueryExecutorService relationsExecutor, RelationGraphIndex relationGraphIndex) {
         this.relationDao = relationDao;
         this.entityService = entityService;
         this.cache = cache;
         this.eventPublisher = eventPublisher;
         this.executor = executor;
         this.relationsExecutor = relationsExecutor;
+        this.relationGraphIndex = relationGraphIndex;
     }
 
     @PostConstruct
@@ -119,6 +121,9 @@ public class BaseRelationService implements RelationService {
         keys.add(new RelationCacheKey(null, event.getTo(), event.getType(), event.getTypeGroup(), EntitySearchDirection.TO));
         keys.add(new RelationCacheKey(null, event.getTo(), null, event.getTypeGroup(), EntitySearchDirection.TO));
         cache.evict(keys);
+        if (relationGraphIndex.isEnabled()) {
+            relationGraphIndex.invalidate(event);
+        }
         log.debug("Processed evict event: {}", event);
     }
 
@@ -630,6 +635,9 @@ public class BaseRelationService implements RelationService {
         if (relationTypeGroup == null) {
             relationTypeGroup = RelationTypeGroup.COMMON;
         }
+        if (relationTypeGroup == RelationTypeGroup.COMMON && relationGraphIndex.isEnabled()) {
+            return relationGraphIndex.getRelations(tenantId, rootId, direction);
+        }
         if (direction == EntitySearchDirection.FROM) {
             relations = findByFrom(tenantId, rootId, relationTypeGroup);
         } else {
@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.relation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable list of the COMMON relations of a single entity in one direction.
+ * The opposite ends are kept as primitive arrays, so a cached entity costs a few arrays instead of a list of relation objects.
+ */
+final class RelationAdjacency {
+
+    static final RelationAdjacency EMPTY = new RelationAdjacency(new long[0], new long[0], new byte[0], new String[0], null, null);
+
+    private static final EntityType[] ENTITY_TYPES = EntityType.values();
+
+    private final long[] msb;
+    private final long[] lsb;
+    private final byte[] entityTypes;
+    private final String[] types;
+    private final JsonNode[] additionalInfo;
+    private final long[] versions;
+
+    private RelationAdjacency(long[] msb, long[] lsb, byte[] entityTypes, String[] types, JsonNode[] additionalInfo, long[] versions) {
+        this.msb = msb;
+        this.lsb = lsb;
+        this.entityTypes = entityTypes;
+        this.types = types;
+        this.additionalInfo = additionalInfo;
+        this.versions = versions;
+    }
+
+    static RelationAdjacency of(List<EntityRelation> relations, EntitySearchDirection direction, UnaryOperator<String> typeInterner) {
+        if (relations == null || relations.isEmpty()) {
+            return EMPTY;
+        }
+        int size = relations.size();
+        long[] msb = new long[size];
+        long[] lsb = new long[size];
+        byte[] entityTypes = new byte[size];
+        String[] types = new String[size];
+        JsonNode[] additionalInfo = null;
+        long[] versions = null;
+        for (int i = 0; i < size; i++) {
+            EntityRelation relation = relations.get(i);
+            EntityId target = direction == EntitySearchDirection.FROM ? relation.getTo() : relation.getFrom();
+            UUID id = target.getId();
+            msb[i] = id.getMostSignificantBits();
+            lsb[i] = id.getLeastSignificantBits();
+            entityTypes[i] = (byte) target.getEntityType().ordinal();
+            types[i] = typeInterner.apply(relation.getType());
+            JsonNode info = relation.getAdditionalInfo();
+            if (info != null && !info.isNull()) {
+                if (additionalInfo == null) {
+                    additionalInfo = new JsonNode[size];
+                }
+                additionalInfo[i] = info;
+            }
+            if (relation.getVersion() != null) {
+                if (versions == null) {
+                    versions = new long[size];
+                }
+                versions[i] = relation.getVersion();
+            }
+        }
+        return new RelationAdjacency(msb, lsb, entityTypes, types, additionalInfo, versions);
+    }
+
+    int size() {
+        return msb.length;
+    }
+
+    EntityId getEntityId(int idx) {
+        return EntityIdFactory.getByTypeAndUuid(getEntityType(idx), new UUID(msb[idx], lsb[idx]));
+    }
+
+    EntityType getEntityType(int idx) {
+        return ENTITY_TYPES[entityTypes[idx]];
+    }
+
+    String getType(int idx) {
+        return types[idx];
+    }
+
+    EntityRelation toRelation(EntityId owner, EntitySearchDirection direction, int idx) {
+        EntityId target = getEntityId(idx);
+        EntityRelation relation = direction == EntitySearchDirection.FROM ?
+                new EntityRelation(owner, target, types[idx], RelationTypeGroup.COMMON, additionalInfo != null ? additionalInfo[idx] : null) :
+                new EntityRelation(target, owner, types[idx], RelationTypeGroup.COMMON, additionalInfo != null ? additionalInfo[idx] : null);
+        if (versions != null && versions[idx] != 0) {
+            relation.setVersion(versions[idx]);
+        }
+        return relation;
+    }
+
+    List<EntityRelation> toRelations(EntityId owner, EntitySearchDirection direction) {
+        if (msb.length == 0) {
+            return Collections.emptyList();
+        }
+        List<EntityRelation> relations = new ArrayList<>(msb.length);
+        for (int i = 0; i < msb.length; i++) {
+            relations.add(toRelation(owner, direction, i));
+        }
+        return relations;
+    }
+
+}
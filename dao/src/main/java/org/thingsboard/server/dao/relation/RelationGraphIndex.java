@@ -0,0 +1,307 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.relation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+import org.thingsboard.server.dao.sql.relation.JpaRelationQueryExecutorService;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * In-memory adjacency index of the COMMON relations, used to answer multi-level relation queries without recursive SQL.
+ * <p>
+ * The relation table is not partitioned by tenant, so the index is populated lazily: the relations of an entity are loaded
+ * the first time a traversal reaches it and are evicted on every {@link EntityRelationEvent} that touches the entity.
+ * Traversals that reach an entity which is not loaded yet report a miss, so callers fall back to SQL for cold tenants.
+ * <p>
+ * The events are processed locally, so the index is only consistent when relations are modified by the same node,
+ * which is the case for the monolith deployment.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RelationGraphIndex {
+
+    private final RelationDao relationDao;
+    private final JpaRelationQueryExecutorService relationsExecutor;
+
+    @Getter
+    @Value("${sql.relations.graph_index.enabled:false}")
+    private boolean enabled;
+    @Value("${sql.relations.graph_index.max_tenants:1000}")
+    private int maxTenants;
+    @Value("${sql.relations.graph_index.max_entities_per_tenant:1000000}")
+    private int maxEntitiesPerTenant;
+    @Value("${sql.relations.graph_index.tenant_ttl_sec:3600}")
+    private long tenantTtlSec;
+    @Value("${sql.relations.graph_index.max_traversal_steps:100000}")
+    private int maxTraversalSteps;
+
+    private Cache<TenantId, TenantRelationGraph> tenants;
+    private final Set<WarmUpKey> pendingWarmUps = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        tenants = Caffeine.newBuilder()
+                .maximumSize(maxTenants)
+                .expireAfterAccess(tenantTtlSec, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the COMMON relations of the entity, loading them from the database on a miss.
+     */
+    public List<EntityRelation> getRelations(TenantId tenantId, EntityId entityId, EntitySearchDirection direction) {
+        return getAdjacency(getGraph(tenantId), tenantId, entityId, direction).toRelations(entityId, direction);
+    }
+
+    /**
+     * Resolves the relations matched by a multi-level relation query, following the semantics of the hierarchical SQL query:
+     * every relation reachable from the roots within {@code maxLevel} levels is matched against the filter,
+     * and with {@code fetchLastLevelOnly} only relations that are on the level {@code lastLevel} of some path
+     * or lead to an entity without further matching relations are returned.
+     *
+     * @return matching relations, or {@code null} if the traversal reached an entity that is not loaded yet
+     * or exceeded the configured number of traversal steps
+     */
+    public List<EntityRelation> findRelations(TenantId tenantId, Collection<EntityId> roots, EntitySearchDirection direction,
+                                              int maxLevel, int lastLevel, boolean fetchLastLevelOnly,
+                                              BiPredicate<String, EntityType> filter) {
+        TenantRelationGraph graph = tenants.getIfPresent(tenantId);
+        if (graph == null) {
+            return null;
+        }
+        Map<EntityId, Integer> levels = new LinkedHashMap<>();
+        Map<EntityId, RelationAdjacency> expanded = new LinkedHashMap<>();
+        Queue<EntityId> queue = new ArrayDeque<>();
+        for (EntityId root : roots) {
+            if (levels.putIfAbsent(root, 0) == null) {
+                queue.add(root);
+            }
+        }
+        int steps = 0;
+        while (!queue.isEmpty()) {
+            EntityId entityId = queue.poll();
+            int level = levels.get(entityId);
+            if (level >= maxLevel) {
+                continue;
+            }
+            RelationAdjacency adjacency = graph.get(entityId, direction);
+            if (adjacency == null) {
+                return null;
+            }
+            expanded.put(entityId, adjacency);
+            for (int i = 0; i < adjacency.size(); i++) {
+                if (++steps > maxTraversalSteps) {
+                    return null;
+                }
+                EntityId target = adjacency.getEntityId(i);
+                if (levels.putIfAbsent(target, level + 1) == null) {
+                    queue.add(target);
+                }
+            }
+        }
+
+        Set<EntityId> lastLevelSources = null;
+        if (fetchLastLevelOnly && lastLevel > 0 && lastLevel <= maxLevel) {
+            lastLevelSources = findLastLevelSources(graph, roots, direction, lastLevel);
+            if (lastLevelSources == null) {
+                return null;
+            }
+        }
+
+        List<EntityRelation> result = new ArrayList<>();
+        Map<EntityId, Boolean> leaves = new HashMap<>();
+        for (Map.Entry<EntityId, RelationAdjacency> entry : expanded.entrySet()) {
+            EntityId source = entry.getKey();
+            RelationAdjacency adjacency = entry.getValue();
+            for (int i = 0; i < adjacency.size(); i++) {
+                if (!filter.test(adjacency.getType(i), adjacency.getEntityType(i))) {
+                    continue;
+                }
+                if (fetchLastLevelOnly && (lastLevelSources == null || !lastLevelSources.contains(source))) {
+                    EntityId target = adjacency.getEntityId(i);
+                    Boolean leaf = leaves.get(target);
+                    if (leaf == null) {
+                        RelationAdjacency next = graph.get(target, direction);
+                        if (next == null) {
+                            return null;
+                        }
+                        leaf = !hasMatchingRelation(next, filter);
+                        leaves.put(target, leaf);
+                    }
+                    if (!leaf) {
+                        continue;
+                    }
+                }
+                result.add(adjacency.toRelation(source, direction, i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the relations required by {@link #findRelations} for the given roots in the background.
+     */
+    public void warmUpAsync(TenantId tenantId, Collection<EntityId> roots, EntitySearchDirection direction, int maxLevel) {
+        WarmUpKey key = new WarmUpKey(tenantId, new HashSet<>(roots), direction, maxLevel);
+        if (!pendingWarmUps.add(key)) {
+            return;
+        }
+        relationsExecutor.submit(() -> {
+            try {
+                warmUp(tenantId, roots, direction, maxLevel);
+            } catch (Exception e) {
+                log.warn("[{}] Failed to load relations of {}", tenantId, roots, e);
+            } finally {
+                pendingWarmUps.remove(key);
+            }
+        });
+    }
+
+    void warmUp(TenantId tenantId, Collection<EntityId> roots, EntitySearchDirection direction, int maxLevel) {
+        TenantRelationGraph graph = getGraph(tenantId);
+        Map<EntityId, Integer> levels = new HashMap<>();
+        Queue<EntityId> queue = new ArrayDeque<>();
+        for (EntityId root : roots) {
+            if (levels.putIfAbsent(root, 0) == null) {
+                queue.add(root);
+            }
+        }
+        while (!queue.isEmpty() && graph.size() < maxEntitiesPerTenant) {
+            EntityId entityId = queue.poll();
+            int level = levels.get(entityId);
+            RelationAdjacency adjacency = getAdjacency(graph, tenantId, entityId, direction);
+            // entities on the last level are loaded as well, their relations are checked by the fetchLastLevelOnly queries
+            if (level >= maxLevel) {
+                continue;
+            }
+            for (int i = 0; i < adjacency.size(); i++) {
+                EntityId target = adjacency.getEntityId(i);
+                if (levels.putIfAbsent(target, level + 1) == null) {
+                    queue.add(target);
+                }
+            }
+        }
+    }
+
+    public void invalidate(EntityRelationEvent event) {
+        if (event.getTypeGroup() != null && event.getTypeGroup() != RelationTypeGroup.COMMON) {
+            return;
+        }
+        // the event does not carry the tenant id, entity ids are unique across tenants
+        tenants.asMap().values().forEach(graph -> graph.invalidate(event.getFrom(), event.getTo()));
+    }
+
+    private TenantRelationGraph getGraph(TenantId tenantId) {
+        return tenants.get(tenantId, id -> new TenantRelationGraph(maxEntitiesPerTenant));
+    }
+
+    private RelationAdjacency getAdjacency(TenantRelationGraph graph, TenantId tenantId, EntityId entityId, EntitySearchDirection direction) {
+        RelationAdjacency adjacency = graph.get(entityId, direction);
+        if (adjacency == null) {
+            long modifications = graph.getModifications();
+            List<EntityRelation> relations = direction == EntitySearchDirection.FROM ?
+                    relationDao.findAllByFrom(tenantId, entityId, RelationTypeGroup.COMMON) :
+                    relationDao.findAllByTo(tenantId, entityId, RelationTypeGroup.COMMON);
+            adjacency = RelationAdjacency.of(relations, direction, graph::intern);
+            graph.put(entityId, direction, adjacency, modifications);
+        }
+        return adjacency;
+    }
+
+    /**
+     * Finds the entities whose relations are on the level {@code lastLevel} of some path from the roots.
+     * Paths do not pass through the same entity twice, same as in the hierarchical SQL query,
+     * so the number of paths may grow exponentially for densely connected graphs and is limited by the traversal steps.
+     */
+    private Set<EntityId> findLastLevelSources(TenantRelationGraph graph, Collection<EntityId> roots, EntitySearchDirection direction, int lastLevel) {
+        Set<EntityId> sources = new HashSet<>();
+        int[] steps = new int[1];
+        for (EntityId root : new HashSet<>(roots)) {
+            Set<EntityId> path = new HashSet<>();
+            path.add(root);
+            if (!collectLastLevelSources(graph, root, 1, direction, lastLevel, path, sources, steps)) {
+                return null;
+            }
+        }
+        return sources;
+    }
+
+    private boolean collectLastLevelSources(TenantRelationGraph graph, EntityId entityId, int level, EntitySearchDirection direction,
+                                            int lastLevel, Set<EntityId> path, Set<EntityId> sources, int[] steps) {
+        if (level == lastLevel) {
+            sources.add(entityId);
+            return true;
+        }
+        RelationAdjacency adjacency = graph.get(entityId, direction);
+        if (adjacency == null) {
+            return false;
+        }
+        for (int i = 0; i < adjacency.size(); i++) {
+            if (++steps[0] > maxTraversalSteps) {
+                return false;
+            }
+            EntityId target = adjacency.getEntityId(i);
+            if (path.add(target)) {
+                boolean completed = collectLastLevelSources(graph, target, level + 1, direction, lastLevel, path, sources, steps);
+                path.remove(target);
+                if (!completed) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasMatchingRelation(RelationAdjacency adjacency, BiPredicate<String, EntityType> filter) {
+        for (int i = 0; i < adjacency.size(); i++) {
+            if (filter.test(adjacency.getType(i), adjacency.getEntityType(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record WarmUpKey(TenantId tenantId, Set<EntityId> roots, EntitySearchDirection direction, int maxLevel) {
+    }
+
+}
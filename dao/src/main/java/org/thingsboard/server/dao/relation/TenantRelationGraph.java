@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.relation;
+
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adjacency lists of the COMMON relations of one tenant, populated lazily entity by entity.
+ */
+final class TenantRelationGraph {
+
+    private final int maxEntities;
+    private final ConcurrentMap<EntityId, RelationAdjacency> outbound = new ConcurrentHashMap<>();
+    private final ConcurrentMap<EntityId, RelationAdjacency> inbound = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> relationTypes = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
+
+    TenantRelationGraph(int maxEntities) {
+        this.maxEntities = maxEntities;
+    }
+
+    RelationAdjacency get(EntityId entityId, EntitySearchDirection direction) {
+        return getMap(direction).get(entityId);
+    }
+
+    long getModifications() {
+        return modifications.get();
+    }
+
+    /**
+     * Stores adjacency loaded from the database, unless the graph was modified since the load started.
+     * Otherwise a relation saved or deleted during the load could be lost until the entry is evicted.
+     */
+    void put(EntityId entityId, EntitySearchDirection direction, RelationAdjacency adjacency, long loadedAt) {
+        if (size() >= maxEntities || modifications.get() != loadedAt) {
+            return;
+        }
+        getMap(direction).put(entityId, adjacency);
+        if (modifications.get() != loadedAt) {
+            getMap(direction).remove(entityId, adjacency);
+        }
+    }
+
+    void invalidate(EntityId from, EntityId to) {
+        modifications.incrementAndGet();
+        outbound.remove(from);
+        inbound.remove(to);
+    }
+
+    String intern(String relationType) {
+        String existing = relationTypes.putIfAbsent(relationType, relationType);
+        return existing != null ? existing : relationType;
+    }
+
+    int size() {
+        return outbound.size() + inbound.size();
+    }
+
+    private ConcurrentMap<EntityId, RelationAdjacency> getMap(EntitySearchDirection direction) {
+        return direction == EntitySearchDirection.FROM ? outbound : inbound;
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import lombok.Getter;
+
+/**
+ * Tunes the batch size and the polling delay of {@link TbSqlBlockingQueue} from the feedback of the saves.
+ * <p>
+ * The batch size grows additively while the batches are full, the queue still has a backlog and the saves are faster
+ * than the target latency, and it is halved as soon as a save exceeds the target latency.
+ * The batch size always stays between the configured batch size and the configured batch size multiplied by the factor.
+ * <p>
+ * The polling delay follows the average save latency capped by the configured max delay:
+ * waiting for a batch to fill up pays off only when the database is busy, so under the light load the entries are saved
+ * almost immediately instead of waiting for the whole max delay.
+ */
+class TbSqlAdaptiveBatchSizer {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetLatencyMs;
+    private final long maxDelay;
+
+    @Getter
+    private int batchSize;
+    @Getter
+    private long delay;
+    private double avgLatencyMs = -1;
+
+    TbSqlAdaptiveBatchSizer(TbSqlBlockingQueueParams params) {
+        this.minBatchSize = params.getBatchSize();
+        this.maxBatchSize = Math.max(minBatchSize, minBatchSize * Math.max(1, params.getMaxBatchSizeFactor()));
+        this.targetLatencyMs = params.getTargetLatencyMs();
+        this.maxDelay = params.getMaxDelay();
+        this.batchSize = minBatchSize;
+        this.delay = maxDelay;
+    }
+
+    void onBatchSaved(int savedCount, long latencyMs, int queueSize) {
+        avgLatencyMs = avgLatencyMs < 0 ? latencyMs : avgLatencyMs + LATENCY_SMOOTHING * (latencyMs - avgLatencyMs);
+        if (targetLatencyMs > 0 && latencyMs > targetLatencyMs) {
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+        } else if (savedCount >= batchSize && queueSize > 0) {
+            batchSize = Math.min(maxBatchSize, batchSize + minBatchSize);
+        }
+        delay = Math.min(maxDelay, Math.round(avgLatencyMs));
+    }
+
+}
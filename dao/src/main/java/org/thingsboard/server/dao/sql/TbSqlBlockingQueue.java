@@ -17,6 +17,7 @@ package org.thingsboard.server.dao.sql;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.data.util.CollectionsUtil;
@@ -29,22 +30,35 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
 
-    private final BlockingQueue<TbSqlQueueElement<E, R>> queue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<TbSqlQueueElement<E, R>> queue;
     private final TbSqlBlockingQueueParams params;
 
     private ExecutorService executor;
     private final MessagesStats stats;
+    /**
+     * Number of elements waiting in the queue. Updated on add, so it stays current while a batch is being saved.
+     */
+    @Getter
+    private final AtomicInteger queueSize = new AtomicInteger();
+    /**
+     * Size of the last saved batch in percent of the current batch size.
+     */
+    @Getter
+    private final AtomicInteger batchFillRatio = new AtomicInteger();
 
     public TbSqlBlockingQueue(TbSqlBlockingQueueParams params, MessagesStats stats) {
         this.params = params;
         this.stats = stats;
+        this.queue = new LinkedBlockingQueue<>(params.getCapacity() > 0 ? params.getCapacity() : Integer.MAX_VALUE);
     }
 
     @Override
@@ -52,11 +66,13 @@ public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
         executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("sql-queue-" + index + "-" + params.getLogName().toLowerCase()));
         executor.submit(() -> {
             String logName = params.getLogName();
-            int batchSize = params.getBatchSize();
             long maxDelay = params.getMaxDelay();
-            final List<TbSqlQueueElement<E, R>> entities = new ArrayList<>(batchSize);
+            TbSqlAdaptiveBatchSizer batchSizer = params.isAdaptive() ? new TbSqlAdaptiveBatchSizer(params) : null;
+            final List<TbSqlQueueElement<E, R>> entities = new ArrayList<>(params.getBatchSize());
             while (!Thread.interrupted()) {
                 try {
+                    int batchSize = batchSizer != null ? batchSizer.getBatchSize() : params.getBatchSize();
+                    long delay = batchSizer != null ? batchSizer.getDelay() : maxDelay;
                     long currentTs = System.currentTimeMillis();
                     TbSqlQueueElement<E, R> attr = queue.poll(maxDelay, TimeUnit.MILLISECONDS);
                     if (attr == null) {
@@ -65,6 +81,8 @@ public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
                         entities.add(attr);
                     }
                     queue.drainTo(entities, batchSize - 1);
+                    queueSize.addAndGet(-entities.size());
+                    batchFillRatio.set(entities.size() * 100 / batchSize);
                     boolean fullPack = entities.size() == batchSize;
                     if (log.isDebugEnabled()) {
                         log.debug("[{}] Going to save {} entities", logName, entities.size());
@@ -77,7 +95,11 @@ public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
                         entitiesToSave = entitiesToSave.stream().sorted((o1, o2) -> batchUpdateComparator.compare(o1.getEntity(), o2.getEntity())).toList();
                     }
 
+                    long saveStartTs = System.currentTimeMillis();
                     List<R> result = saveFunction.apply(entitiesToSave.stream().map(TbSqlQueueElement::getEntity).collect(Collectors.toList()));
+                    if (batchSizer != null) {
+                        batchSizer.onBatchSaved(entities.size(), System.currentTimeMillis() - saveStartTs, queue.size());
+                    }
 
                     if (params.isWithResponse()) {
                         for (int i = 0; i < entitiesToSave.size(); i++) {
@@ -93,7 +115,7 @@ public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
 
                     stats.incrementSuccessful(entities.size());
                     if (!fullPack) {
-                        long remainingDelay = maxDelay - (System.currentTimeMillis() - currentTs);
+                        long remainingDelay = delay - (System.currentTimeMillis() - currentTs);
                         if (remainingDelay > 0) {
                             Thread.sleep(remainingDelay);
                         }
@@ -137,8 +159,27 @@ public class TbSqlBlockingQueue<E, R> implements TbSqlQueue<E, R> {
     @Override
     public ListenableFuture<R> add(E element) {
         SettableFuture<R> future = SettableFuture.create();
-        queue.add(new TbSqlQueueElement<>(future, element));
+        TbSqlQueueElement<E, R> queueElement = new TbSqlQueueElement<>(future, element);
         stats.incrementTotal();
+        // counted before the element is queued, so the consumer never takes more elements than counted
+        queueSize.incrementAndGet();
+        if (params.getCapacity() > 0) {
+            // Backpressure: the producer waits for a free slot, and the element is rejected if the queue is still full
+            try {
+                if (!queue.offer(queueElement, params.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    queueSize.decrementAndGet();
+                    stats.incrementFailed();
+                    future.setException(new RejectedExecutionException("[" + params.getLogName() + "] Queue is full"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queueSize.decrementAndGet();
+                stats.incrementFailed();
+                future.setException(e);
+            }
+        } else {
+            queue.add(queueElement);
+        }
         return future;
     }
 }
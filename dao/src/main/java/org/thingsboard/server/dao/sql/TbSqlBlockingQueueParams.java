@@ -31,4 +31,15 @@ public class TbSqlBlockingQueueParams {
     private final String statsNamePrefix;
     private final boolean batchSortEnabled;
     private final boolean withResponse;
+    /**
+     * Tune the batch size and the polling delay from the observed insert latency and the queue depth.
+     */
+    private final boolean adaptive;
+    private final long targetLatencyMs;
+    private final int maxBatchSizeFactor;
+    /**
+     * Maximum number of pending elements; 0 means unbounded.
+     */
+    private final int capacity;
+    private final long offerTimeoutMs;
 }
@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adaptive batching and capacity settings shared by the attributes, timeseries and latest timeseries queues.
+ */
+@Data
+@Component
+public class TbSqlBlockingQueueSettings {
+
+    @Value("${sql.queue.adaptive.enabled:false}")
+    private boolean adaptive;
+
+    @Value("${sql.queue.adaptive.target_latency_ms:100}")
+    private long targetLatencyMs;
+
+    @Value("${sql.queue.adaptive.max_batch_size_factor:10}")
+    private int maxBatchSizeFactor;
+
+    @Value("${sql.queue.capacity:0}")
+    private int capacity;
+
+    @Value("${sql.queue.offer_timeout_ms:1000}")
+    private long offerTimeoutMs;
+
+    public TbSqlBlockingQueueParams.TbSqlBlockingQueueParamsBuilder paramsBuilder() {
+        return TbSqlBlockingQueueParams.builder()
+                .adaptive(adaptive)
+                .targetLatencyMs(targetLatencyMs)
+                .maxBatchSizeFactor(maxBatchSizeFactor)
+                .capacity(capacity)
+                .offerTimeoutMs(offerTimeoutMs);
+    }
+
+}
@@ -52,6 +52,8 @@ public class TbSqlBlockingQueueWrapper<E, R> {
         for (int i = 0; i < maxThreads; i++) {
             MessagesStats stats = statsFactory.createMessagesStats(params.getStatsNamePrefix() + ".queue." + i);
             TbSqlBlockingQueue<E, R> queue = new TbSqlBlockingQueue<>(params, stats);
+            statsFactory.createGauge(params.getStatsNamePrefix() + ".queue.size", queue.getQueueSize(), "queue", String.valueOf(i));
+            statsFactory.createGauge(params.getStatsNamePrefix() + ".queue.batchFillRatio", queue.getBatchFillRatio(), "queue", String.valueOf(i));
             queues.add(queue);
             queue.init(logExecutor, saveFunction, batchUpdateComparator, filter, i);
         }
@@ -55,6 +55,9 @@ public interface AttributeKvRepository extends JpaRepository<AttributeKvEntity,
             "entity_id in :entityIds ORDER BY attribute_key", nativeQuery = true)
     List<Integer> findAllKeysByEntityIds(@Param("entityIds") List<UUID> entityIds);
 
+    @Query("SELECT a.id FROM AttributeKvEntity a WHERE a.id.entityId IN :entityIds")
+    List<AttributeKvCompositeKey> findAllIdsByEntityIds(@Param("entityIds") List<UUID> entityIds);
+
     @Query(value = "SELECT DISTINCT attribute_key FROM attribute_kv WHERE " +
             "entity_id in :entityIds AND attribute_type = :attributeType ORDER BY attribute_key", nativeQuery = true)
     List<Integer> findAllKeysByEntityIdsAndAttributeType(@Param("entityIds") List<UUID> entityIds,
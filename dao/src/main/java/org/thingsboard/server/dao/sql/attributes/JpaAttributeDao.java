@@ -33,6 +33,7 @@ import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 import org.thingsboard.server.common.data.util.TbPair;
 import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.DaoUtil;
+import org.thingsboard.server.dao.attributes.AttributeCacheKey;
 import org.thingsboard.server.dao.attributes.AttributesDao;
 import org.thingsboard.server.dao.dictionary.KeyDictionaryDao;
 import org.thingsboard.server.dao.model.ModelConstants;
@@ -41,6 +42,7 @@ import org.thingsboard.server.dao.model.sql.AttributeKvEntity;
 import org.thingsboard.server.dao.sql.JpaAbstractDaoListeningExecutorService;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueSettings;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
 import org.thingsboard.server.dao.util.SqlDao;
 
@@ -48,7 +50,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -87,11 +91,14 @@ public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService impl
     @Value("${sql.batch_sort:true}")
     private boolean batchSortEnabled;
 
+    @Autowired
+    private TbSqlBlockingQueueSettings queueSettings;
+
     private TbSqlBlockingQueueWrapper<AttributeKvEntity, Long> queue;
 
     @PostConstruct
     private void init() {
-        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+        TbSqlBlockingQueueParams params = queueSettings.paramsBuilder()
                 .logName("Attributes")
                 .batchSize(batchSize)
                 .maxDelay(maxDelay)
@@ -177,6 +184,14 @@ public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService impl
                 .stream().map(id -> keyDictionaryDao.getKey(id)).collect(Collectors.toList());
     }
 
+    @Override
+    public List<AttributeCacheKey> findAllKeysWithScopeByEntityIds(TenantId tenantId, List<EntityId> entityIds) {
+        Map<UUID, EntityId> ids = entityIds.stream().collect(Collectors.toMap(EntityId::getId, Function.identity(), (a, b) -> a));
+        return attributeKvRepository.findAllIdsByEntityIds(new ArrayList<>(ids.keySet())).stream()
+                .map(id -> new AttributeCacheKey(AttributeScope.valueOf(id.getAttributeType()), ids.get(id.getEntityId()), keyDictionaryDao.getKey(id.getAttributeKey())))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public ListenableFuture<Long> save(TenantId tenantId, EntityId entityId, AttributeScope attributeScope, AttributeKvEntry attribute) {
         AttributeKvEntity entity = new AttributeKvEntity();
@@ -25,6 +25,7 @@ import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.query.ApiUsageStateFilter;
@@ -50,16 +51,22 @@ import org.thingsboard.server.common.data.query.EntityViewSearchQueryFilter;
 import org.thingsboard.server.common.data.query.EntityViewTypeFilter;
 import org.thingsboard.server.common.data.query.RelationsQueryFilter;
 import org.thingsboard.server.common.data.query.SingleEntityFilter;
+import org.thingsboard.server.common.data.relation.EntityRelation;
 import org.thingsboard.server.common.data.relation.EntitySearchDirection;
 import org.thingsboard.server.common.data.relation.RelationEntityTypeFilter;
+import org.thingsboard.server.dao.relation.RelationGraphIndex;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 @Repository
@@ -321,14 +328,20 @@ public class DefaultEntityQueryRepository implements EntityQueryRepository {
     @Value("${sql.relations.max_level:50}")
     int maxLevelAllowed; //This value has to be reasonable small to prevent infinite recursion as early as possible
 
+    @Value("${sql.relations.graph_index.max_query_entities:1000}")
+    int maxGraphIndexQueryEntities;
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final TransactionTemplate transactionTemplate;
     private final DefaultQueryLogComponent queryLog;
+    private final RelationGraphIndex relationGraphIndex;
 
-    public DefaultEntityQueryRepository(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, DefaultQueryLogComponent queryLog) {
+    public DefaultEntityQueryRepository(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, DefaultQueryLogComponent queryLog,
+                                        RelationGraphIndex relationGraphIndex) {
         this.jdbcTemplate = jdbcTemplate;
         this.transactionTemplate = transactionTemplate;
         this.queryLog = queryLog;
+        this.relationGraphIndex = relationGraphIndex;
     }
 
     @Override
@@ -645,7 +658,17 @@ public class DefaultEntityQueryRepository implements EntityQueryRepository {
         String lvlFilter = getLvlFilter(entityFilter.getMaxLevel());
         String selectFields = "SELECT tenant_id, customer_id, id, created_time, type, name, additional_info "
                 + (entityType.equals(EntityType.ENTITY_VIEW) ? "" : ", label ")
-                + "FROM " + entityType.name() + " WHERE id in ( SELECT entity_id";
+                + "FROM " + entityType.name() + " WHERE ";
+        String indexedIds = relationGraphIndex.isEnabled() ? entitySearchIdsFromIndex(ctx, entityFilter, entityType) : null;
+        if (indexedIds != null) {
+            String query = "( " + selectFields + indexedIds;
+            if (types != null && !types.isEmpty()) {
+                query += " and type in (:relation_sub_types)";
+                ctx.addStringListParameter("relation_sub_types", types);
+            }
+            return query + " )";
+        }
+        selectFields += "id in ( SELECT entity_id";
         String from = getQueryTemplate(entityFilter.getDirection(), false);
         String whereFilter = " WHERE";
         if (!StringUtils.isEmpty(entityFilter.getRelationType())) {
@@ -692,6 +715,10 @@ public class DefaultEntityQueryRepository implements EntityQueryRepository {
                 SELECT_ADDRESS + ", " + SELECT_ADDRESS_2 + ", " + SELECT_ZIP + ", " + SELECT_PHONE + ", " +
                 SELECT_ADDITIONAL_INFO + (entityFilter.isMultiRoot() ? (", " + SELECT_RELATED_PARENT_ID) : "") +
                 ", entity.entity_type as entity_type";
+        String indexedFrom = relationGraphIndex.isEnabled() ? relationFromIndex(ctx, entityFilter) : null;
+        if (indexedFrom != null) {
+            return "( " + selectFields + indexedFrom + ")";
+        }
         String from = getQueryTemplate(entityFilter.getDirection(), entityFilter.isMultiRoot());
 
         if (entityFilter.isMultiRoot()) {
@@ -794,6 +821,122 @@ public class DefaultEntityQueryRepository implements EntityQueryRepository {
         return whereFilter.toString();
     }
 
+    /**
+     * Resolves the related entities using the relation graph index instead of the hierarchical query.
+     * Returns {@code null} if the index has no complete data for the query yet, the index is warmed up in the background then.
+     */
+    private List<EntityRelation> findRelationsInIndex(QueryContext ctx, List<EntityId> roots, EntitySearchDirection direction, int maxLevel,
+                                                      boolean fetchLastLevelOnly, BiPredicate<String, EntityType> filter) {
+        int level = getMaxLevel(maxLevel);
+        List<EntityRelation> relations = relationGraphIndex.findRelations(ctx.getTenantId(), roots, direction, level, maxLevel, fetchLastLevelOnly, filter);
+        if (relations == null) {
+            relationGraphIndex.warmUpAsync(ctx.getTenantId(), roots, direction, level);
+        }
+        return relations;
+    }
+
+    private String entitySearchIdsFromIndex(QueryContext ctx, EntitySearchQueryFilter entityFilter, EntityType entityType) {
+        String relationType = entityFilter.getRelationType();
+        EntitySearchDirection direction = entityFilter.getDirection();
+        List<EntityRelation> relations = findRelationsInIndex(ctx, List.of(entityFilter.getRootEntity()), direction, entityFilter.getMaxLevel(),
+                entityFilter.isFetchLastLevelOnly(), (type, targetType) -> (StringUtils.isEmpty(relationType) || relationType.equals(type)) && entityType == targetType);
+        if (relations == null) {
+            return null;
+        }
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (EntityRelation relation : relations) {
+            ids.add((direction == EntitySearchDirection.FROM ? relation.getTo() : relation.getFrom()).getId());
+        }
+        if (ids.size() > maxGraphIndexQueryEntities) {
+            return null;
+        }
+        if (ids.isEmpty()) {
+            return "false";
+        }
+        ctx.addUuidListParameter("relation_entity_ids", new ArrayList<>(ids));
+        return "id in (:relation_entity_ids)";
+    }
+
+    private String relationFromIndex(QueryContext ctx, RelationsQueryFilter entityFilter) {
+        List<EntityId> roots;
+        if (entityFilter.isMultiRoot()) {
+            roots = entityFilter.getMultiRootEntityIds().stream()
+                    .map(id -> EntityIdFactory.getByTypeAndUuid(entityFilter.getMultiRootEntitiesType(), id))
+                    .collect(Collectors.toList());
+        } else {
+            roots = List.of(entityFilter.getRootEntity());
+        }
+        EntitySearchDirection direction = entityFilter.getDirection();
+        List<EntityRelation> relations = findRelationsInIndex(ctx, roots, direction, entityFilter.getMaxLevel(),
+                entityFilter.isFetchLastLevelOnly(), toRelationFilter(entityFilter));
+        if (relations == null) {
+            return null;
+        }
+        Set<List<EntityId>> rows = new LinkedHashSet<>();
+        for (EntityRelation relation : relations) {
+            EntityId entityId = direction == EntitySearchDirection.FROM ? relation.getTo() : relation.getFrom();
+            EntityId parentId = direction == EntitySearchDirection.FROM ? relation.getFrom() : relation.getTo();
+            rows.add(entityFilter.isMultiRoot() ? List.of(entityId, parentId) : List.of(entityId));
+        }
+        if (rows.size() > maxGraphIndexQueryEntities) {
+            return null;
+        }
+        String columns = entityFilter.isMultiRoot() ? "entity_id, entity_type, parent_id" : "entity_id, entity_type";
+        if (rows.isEmpty()) {
+            return " FROM (SELECT CAST(NULL AS uuid) AS entity_id, CAST(NULL AS varchar) AS entity_type" +
+                    (entityFilter.isMultiRoot() ? ", CAST(NULL AS uuid) AS parent_id" : "") + " WHERE false) entity";
+        }
+        StringBuilder values = new StringBuilder(" FROM (VALUES ");
+        int idx = 0;
+        for (List<EntityId> row : rows) {
+            if (idx > 0) {
+                values.append(", ");
+            }
+            EntityId entityId = row.get(0);
+            ctx.addUuidParameter("relation_entity_id" + idx, entityId.getId());
+            ctx.addStringParameter("relation_entity_type" + idx, entityId.getEntityType().name());
+            values.append("(CAST(:relation_entity_id").append(idx).append(" AS uuid), CAST(:relation_entity_type").append(idx).append(" AS varchar)");
+            if (entityFilter.isMultiRoot()) {
+                ctx.addUuidParameter("relation_parent_id" + idx, row.get(1).getId());
+                values.append(", CAST(:relation_parent_id").append(idx).append(" AS uuid)");
+            }
+            values.append(")");
+            idx++;
+        }
+        return values.append(") entity(").append(columns).append(")").toString();
+    }
+
+    /**
+     * Same condition as the one built for the hierarchical query, applied to the relation type and the entity type of the related entity.
+     */
+    private BiPredicate<String, EntityType> toRelationFilter(RelationsQueryFilter entityFilter) {
+        List<RelationEntityTypeFilter> filters = entityFilter.getFilters() == null ? Collections.emptyList() : entityFilter.getFilters().stream()
+                .filter(etf -> !StringUtils.isEmpty(etf.getRelationType()) || (etf.getEntityTypes() != null && !etf.getEntityTypes().isEmpty()))
+                .collect(Collectors.toList());
+        if (filters.isEmpty()) {
+            List<EntityType> entityTypes = Arrays.asList(RELATION_QUERY_ENTITY_TYPES);
+            return (type, targetType) -> entityTypes.contains(targetType);
+        }
+        boolean negate = entityFilter.isNegate();
+        return (type, targetType) -> {
+            boolean matches = false;
+            for (RelationEntityTypeFilter etf : filters) {
+                if (matches(etf, type, targetType)) {
+                    matches = true;
+                    break;
+                }
+            }
+            return matches != negate;
+        };
+    }
+
+    private static boolean matches(RelationEntityTypeFilter etf, String type, EntityType targetType) {
+        if (!StringUtils.isEmpty(etf.getRelationType()) && etf.getRelationType().equals(type) == etf.isNegate()) {
+            return false;
+        }
+        return etf.getEntityTypes() == null || etf.getEntityTypes().isEmpty() || etf.getEntityTypes().contains(targetType);
+    }
+
     String getLvlFilter(int maxLevel) {
         return "and re.lvl <= " + (getMaxLevel(maxLevel) - 1);
     }
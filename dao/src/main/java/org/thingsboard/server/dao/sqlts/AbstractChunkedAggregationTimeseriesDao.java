@@ -27,7 +27,6 @@ import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.Aggregation;
 import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
-import org.thingsboard.server.common.data.kv.IntervalType;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
@@ -67,9 +66,12 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
     @Autowired
     private KeyDictionaryDao keyDictionaryDao;
 
+    @Autowired
+    private BucketedAggregationRepository aggregationRepository;
+
     @PostConstruct
     protected void init() {
-        TbSqlBlockingQueueParams tsParams = TbSqlBlockingQueueParams.builder()
+        TbSqlBlockingQueueParams tsParams = queueSettings.paramsBuilder()
                 .logName("TS")
                 .batchSize(tsBatchSize)
                 .maxDelay(tsMaxDelay)
@@ -122,25 +124,9 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         if (Aggregation.NONE.equals(aggParams.getAggregation())) {
             return Futures.immediateFuture(findAllAsyncWithLimit(entityId, query));
         } else {
-            List<ListenableFuture<Optional<TsKvEntity>>> futures = new ArrayList<>();
-            var intervalType = aggParams.getIntervalType();
-            long startPeriod = query.getStartTs();
-            long endPeriod = Math.max(query.getStartTs() + 1, query.getEndTs());
-            while (startPeriod < endPeriod) {
-                long startTs = startPeriod;
-                long endTs;
-                if (IntervalType.MILLISECONDS.equals(intervalType)) {
-                    endTs = startPeriod + aggParams.getInterval();
-                } else {
-                    endTs = TimeUtils.calculateIntervalEnd(startTs, intervalType, aggParams.getTzId());
-                }
-                endTs = Math.min(endTs, endPeriod);
-                long ts = startTs + (endTs - startTs) / 2;
-                ListenableFuture<Optional<TsKvEntity>> aggregateTsKvEntry = findAndAggregateAsync(entityId, query.getKey(), startTs, endTs, ts, query.getAggregation());
-                futures.add(aggregateTsKvEntry);
-                startPeriod = endTs;
-            }
-            return getReadTsKvQueryResultFuture(query, Futures.allAsList(futures));
+            long[] bounds = TimeUtils.calculateIntervalBounds(query.getStartTs(), query.getEndTs(),
+                    aggParams.getIntervalType(), aggParams.getInterval(), aggParams.getTzId(), maxTsIntervals);
+            return getReadTsKvQueryResultFuture(query, findAndAggregateAsync(entityId, query.getKey(), bounds, query.getAggregation()));
         }
     }
 
@@ -158,43 +144,52 @@ public abstract class AbstractChunkedAggregationTimeseriesDao extends AbstractSq
         return new ReadTsKvQueryResult(query.getId(), tsKvEntries, lastTs);
     }
 
-    ListenableFuture<Optional<TsKvEntity>> findAndAggregateAsync(EntityId entityId, String key, long startTs, long endTs, long ts, Aggregation aggregation) {
+    ListenableFuture<List<Optional<? extends AbstractTsKvEntity>>> findAndAggregateAsync(EntityId entityId, String key, long[] bounds, Aggregation aggregation) {
         return service.submit(() -> {
-            TsKvEntity entity = switchAggregation(entityId, key, startTs, endTs, aggregation);
-            if (entity != null && entity.isNotEmpty()) {
-                entity.setEntityId(entityId.getId());
-                entity.setStrKey(key);
-                entity.setTs(ts);
-                return Optional.of(entity);
-            } else {
-                return Optional.empty();
+            var keyId = keyDictionaryDao.getOrSaveKeyId(key);
+            List<TsKvAggregationBucket> buckets = aggregationRepository.findAggregates(entityId.getId(), keyId, bounds, aggregation);
+            int intervals = bounds.length - 1;
+            List<Optional<? extends AbstractTsKvEntity>> result = new ArrayList<>(intervals);
+            int bucketIdx = 0;
+            for (int i = 0; i < intervals; i++) {
+                TsKvAggregationBucket bucket = bucketIdx < buckets.size() ? buckets.get(bucketIdx) : null;
+                if (bucket == null || bucket.getStartTs() != bounds[i]) {
+                    result.add(Optional.empty());
+                    continue;
+                }
+                bucketIdx++;
+                TsKvEntity entity = toTsKvEntity(bucket, aggregation);
+                if (entity.isNotEmpty()) {
+                    entity.setEntityId(entityId.getId());
+                    entity.setStrKey(key);
+                    entity.setTs(bucket.getStartTs() + (bucket.getEndTs() - bucket.getStartTs()) / 2);
+                    result.add(Optional.of(entity));
+                } else {
+                    result.add(Optional.empty());
+                }
             }
+            return result;
         });
     }
 
-    protected TsKvEntity switchAggregation(EntityId entityId, String key, long startTs, long endTs, Aggregation aggregation) {
-        var keyId = keyDictionaryDao.getOrSaveKeyId(key);
+    private static TsKvEntity toTsKvEntity(TsKvAggregationBucket bucket, Aggregation aggregation) {
         switch (aggregation) {
             case AVG:
-                return tsKvRepository.findAvg(entityId.getId(), keyId, startTs, endTs);
+            case SUM:
+                return new TsKvEntity(bucket.getLongValue(), bucket.getDoubleValue(), bucket.getLongValueCount(), bucket.getDoubleValueCount(),
+                        aggregation.name(), bucket.getAggValuesLastTs());
             case MAX:
-                var max = tsKvRepository.findNumericMax(entityId.getId(), keyId, startTs, endTs);
-                if (max.isNotEmpty()) {
-                    return max;
-                } else {
-                    return tsKvRepository.findStringMax(entityId.getId(), keyId, startTs, endTs);
-                }
             case MIN:
-                var min = tsKvRepository.findNumericMin(entityId.getId(), keyId, startTs, endTs);
-                if (min.isNotEmpty()) {
-                    return min;
+                var numeric = new TsKvEntity(bucket.getLongValue(), bucket.getDoubleValue(), bucket.getLongValueCount(), bucket.getDoubleValueCount(),
+                        aggregation.name(), bucket.getAggValuesLastTs());
+                if (numeric.isNotEmpty()) {
+                    return numeric;
                 } else {
-                    return tsKvRepository.findStringMin(entityId.getId(), keyId, startTs, endTs);
+                    return new TsKvEntity(bucket.getStrValue(), bucket.getStrValueLastTs());
                 }
-            case SUM:
-                return tsKvRepository.findSum(entityId.getId(), keyId, startTs, endTs);
             case COUNT:
-                return tsKvRepository.findCount(entityId.getId(), keyId, startTs, endTs);
+                return new TsKvEntity(bucket.getBooleanValueCount(), bucket.getStrValueCount(), bucket.getLongValueCount(),
+                        bucket.getDoubleValueCount(), bucket.getJsonValueCount(), bucket.getAggValuesLastTs());
             default:
                 throw new IllegalArgumentException("Not supported aggregation type: " + aggregation);
         }
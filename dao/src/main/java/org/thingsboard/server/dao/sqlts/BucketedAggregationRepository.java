@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.dao.util.SqlDao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Aggregates all intervals of a single key in one query: rows are assigned to the intervals
+ * with width_bucket over the sorted interval boundaries, so interval length may vary (e.g. timezone-aware months).
+ */
+@Slf4j
+@Repository
+@SqlDao
+public class BucketedAggregationRepository {
+
+    private static final String SUM_VALUES = "SUM(COALESCE(tskv.long_v, 0)) AS long_v, SUM(COALESCE(tskv.dbl_v, 0.0)) AS dbl_v, " +
+            "NULL AS str_v, NULL AS str_ts, ";
+    private static final String MAX_VALUES = "MAX(COALESCE(tskv.long_v, -9223372036854775807)) AS long_v, MAX(COALESCE(tskv.dbl_v, -1.79769E+308)) AS dbl_v, " +
+            "MAX(tskv.str_v) AS str_v, MAX(CASE WHEN tskv.str_v IS NULL THEN NULL ELSE tskv.ts END) AS str_ts, ";
+    private static final String MIN_VALUES = "MIN(COALESCE(tskv.long_v, 9223372036854775807)) AS long_v, MIN(COALESCE(tskv.dbl_v, 1.79769E+308)) AS dbl_v, " +
+            "MIN(tskv.str_v) AS str_v, MAX(CASE WHEN tskv.str_v IS NULL THEN NULL ELSE tskv.ts END) AS str_ts, ";
+    private static final String COUNT_VALUES = "NULL AS long_v, NULL AS dbl_v, NULL AS str_v, NULL AS str_ts, ";
+
+    private static final String SELECT_BUCKET = "SELECT width_bucket(tskv.ts, ?) AS bucket, ";
+    private static final String SELECT_COUNTS = "SUM(CASE WHEN tskv.bool_v IS NULL THEN 0 ELSE 1 END) AS bool_count, " +
+            "SUM(CASE WHEN tskv.str_v IS NULL THEN 0 ELSE 1 END) AS str_count, " +
+            "SUM(CASE WHEN tskv.long_v IS NULL THEN 0 ELSE 1 END) AS long_count, " +
+            "SUM(CASE WHEN tskv.dbl_v IS NULL THEN 0 ELSE 1 END) AS dbl_count, " +
+            "SUM(CASE WHEN tskv.json_v IS NULL THEN 0 ELSE 1 END) AS json_count, " +
+            "MAX(tskv.ts) AS max_ts ";
+    private static final String FROM_WHERE_CLAUSE = "FROM ts_kv tskv WHERE tskv.entity_id = ? AND tskv.key = ? AND tskv.ts >= ? AND tskv.ts < ? " +
+            "GROUP BY bucket ORDER BY bucket";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param bounds sorted interval boundaries as returned by {@link org.thingsboard.server.dao.util.TimeUtils#calculateIntervalBounds}
+     * @return aggregates of non-empty intervals ordered by interval start
+     */
+    public List<TsKvAggregationBucket> findAggregates(UUID entityId, int keyId, long[] bounds, Aggregation aggregation) {
+        String query = SELECT_BUCKET + getValuesClause(aggregation) + SELECT_COUNTS + FROM_WHERE_CLAUSE;
+        List<TsKvAggregationBucket> result = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            Long[] thresholds = new Long[bounds.length];
+            for (int i = 0; i < bounds.length; i++) {
+                thresholds[i] = bounds[i];
+            }
+            PreparedStatement stmt = connection.prepareStatement(query);
+            stmt.setArray(1, connection.createArrayOf("bigint", thresholds));
+            stmt.setObject(2, entityId);
+            stmt.setInt(3, keyId);
+            stmt.setLong(4, bounds[0]);
+            stmt.setLong(5, bounds[bounds.length - 1]);
+            return stmt;
+        }, rs -> {
+            int bucketIdx = rs.getInt("bucket");
+            if (bucketIdx < 1 || bucketIdx >= bounds.length) {
+                log.warn("[{}][{}] Unexpected aggregation bucket index: {}", entityId, keyId, bucketIdx);
+                return;
+            }
+            TsKvAggregationBucket bucket = new TsKvAggregationBucket();
+            bucket.setStartTs(bounds[bucketIdx - 1]);
+            bucket.setEndTs(bounds[bucketIdx]);
+            bucket.setLongValue(getLong(rs, "long_v"));
+            bucket.setDoubleValue(getDouble(rs, "dbl_v"));
+            bucket.setStrValue(rs.getString("str_v"));
+            bucket.setStrValueLastTs(getLong(rs, "str_ts"));
+            bucket.setBooleanValueCount(rs.getLong("bool_count"));
+            bucket.setStrValueCount(rs.getLong("str_count"));
+            bucket.setLongValueCount(rs.getLong("long_count"));
+            bucket.setDoubleValueCount(rs.getLong("dbl_count"));
+            bucket.setJsonValueCount(rs.getLong("json_count"));
+            bucket.setAggValuesLastTs(getLong(rs, "max_ts"));
+            result.add(bucket);
+        });
+        return result;
+    }
+
+    private static String getValuesClause(Aggregation aggregation) {
+        switch (aggregation) {
+            case AVG:
+            case SUM:
+                return SUM_VALUES;
+            case MAX:
+                return MAX_VALUES;
+            case MIN:
+                return MIN_VALUES;
+            case COUNT:
+                return COUNT_VALUES;
+            default:
+                throw new IllegalArgumentException("Not supported aggregation type: " + aggregation);
+        }
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Double getDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+}
@@ -40,8 +40,14 @@ import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
 import org.thingsboard.server.dao.timeseries.TsLatestCacheKey;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDaoCachedRedis;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Component
@@ -152,6 +158,49 @@ public class CachedRedisSqlTimeseriesLatestDao extends BaseAbstractSqlTimeseries
         }, MoreExecutors.directExecutor());
     }
 
+    /**
+     * Reads all requested keys from the cache in one round-trip and loads the misses from the SQL DAO in one bulk query.
+     */
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatest(TenantId tenantId, Map<EntityId, ? extends Collection<String>> keysByEntity) {
+        List<TsLatestCacheKey> cacheKeys = new ArrayList<>();
+        keysByEntity.forEach((entityId, keys) -> keys.forEach(key -> cacheKeys.add(new TsLatestCacheKey(entityId, key))));
+        ListenableFuture<Map<TsLatestCacheKey, TbCacheValueWrapper<TsKvEntry>>> cacheFuture = cacheExecutorService.submit(() -> cache.getAll(cacheKeys));
+
+        return Futures.transformAsync(cacheFuture, cached -> {
+            Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+            Map<EntityId, List<String>> missed = new HashMap<>();
+            for (TsLatestCacheKey cacheKey : cacheKeys) {
+                TbCacheValueWrapper<TsKvEntry> cacheValueWrap = cached.get(cacheKey);
+                if (cacheValueWrap == null) {
+                    missed.computeIfAbsent(cacheKey.getEntityId(), id -> new ArrayList<>()).add(cacheKey.getKey());
+                } else if (cacheValueWrap.get() != null) {
+                    result.computeIfAbsent(cacheKey.getEntityId(), id -> new ArrayList<>()).add(cacheValueWrap.get());
+                }
+            }
+            if (missed.isEmpty()) {
+                return Futures.immediateFuture(result);
+            }
+            log.debug("findLatest cache miss for {} entities", missed.size());
+            ListenableFuture<Map<EntityId, List<TsKvEntry>>> daoFuture = sqlDao.findLatest(tenantId, missed);
+
+            return Futures.transform(daoFuture, daoValues -> {
+                missed.forEach((entityId, keys) -> {
+                    Map<String, TsKvEntry> found = new HashMap<>();
+                    daoValues.getOrDefault(entityId, Collections.emptyList()).forEach(entry -> found.put(entry.getKey(), entry));
+                    for (String key : keys) {
+                        TsKvEntry entry = found.get(key);
+                        cache.put(new TsLatestCacheKey(entityId, key), entry);
+                        if (entry != null) {
+                            result.computeIfAbsent(entityId, id -> new ArrayList<>()).add(entry);
+                        }
+                    }
+                });
+                return result;
+            }, cacheExecutorService);
+        }, MoreExecutors.directExecutor());
+    }
+
     @Override
     public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
         return sqlDao.findAllLatest(tenantId, entityId);
@@ -167,4 +216,9 @@ public class CachedRedisSqlTimeseriesLatestDao extends BaseAbstractSqlTimeseries
         return sqlDao.findAllKeysByEntityIds(tenantId, entityIds);
     }
 
+    @Override
+    public Map<EntityId, Set<String>> findAllKeysPerEntity(TenantId tenantId, List<EntityId> entityIds) {
+        return sqlDao.findAllKeysPerEntity(tenantId, entityIds);
+    }
+
 }
@@ -45,6 +45,7 @@ import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestCompositeKey;
 import org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestEntity;
 import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueSettings;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
 import org.thingsboard.server.dao.sql.TbSqlQueueElement;
 import org.thingsboard.server.dao.sqlts.insert.latest.InsertLatestTsRepository;
@@ -53,12 +54,17 @@ import org.thingsboard.server.dao.sqlts.latest.TsKvLatestRepository;
 import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
 import org.thingsboard.server.dao.util.SqlTsLatestAnyDao;
 
+import java.sql.PreparedStatement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -69,6 +75,9 @@ import java.util.stream.Collectors;
 public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao implements TimeseriesLatestDao {
 
     private static final String DESC_ORDER = "DESC";
+    private static final int FIND_LATEST_BATCH_SIZE = 1024;
+    private static final String FIND_LATEST_BY_ENTITIES_QUERY = "SELECT entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v, version " +
+            "FROM ts_kv_latest WHERE entity_id = ANY(?) AND key = ANY(?)";
 
     @Autowired
     private TsKvLatestRepository tsKvLatestRepository;
@@ -99,6 +108,9 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
     @Value("${sql.batch_sort:true}")
     protected boolean batchSortEnabled;
 
+    @Autowired
+    private TbSqlBlockingQueueSettings queueSettings;
+
     @Autowired
     protected ScheduledLogExecutorComponent logExecutor;
 
@@ -110,7 +122,7 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
 
     @PostConstruct
     protected void init() {
-        TbSqlBlockingQueueParams tsLatestParams = TbSqlBlockingQueueParams.builder()
+        TbSqlBlockingQueueParams tsLatestParams = queueSettings.paramsBuilder()
                 .logName("TS Latest")
                 .batchSize(tsLatestBatchSize)
                 .maxDelay(tsLatestMaxDelay)
@@ -166,6 +178,15 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         return service.submit(() -> wrapNullTsKvEntry(key, doFindLatestSync(entityId, key)));
     }
 
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatest(TenantId tenantId, Map<EntityId, ? extends Collection<String>> keysByEntity) {
+        log.trace("findLatest [{}] for {} entities", tenantId, keysByEntity.size());
+        if (keysByEntity.isEmpty()) {
+            return Futures.immediateFuture(Collections.emptyMap());
+        }
+        return service.submit(() -> doFindLatestSync(keysByEntity));
+    }
+
     @Override
     public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
         return getFindAllLatestFuture(entityId);
@@ -185,6 +206,16 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         return tsKvLatestRepository.findAllKeysByEntityIds(entityIds.stream().map(EntityId::getId).collect(Collectors.toList()));
     }
 
+    @Override
+    public Map<EntityId, Set<String>> findAllKeysPerEntity(TenantId tenantId, List<EntityId> entityIds) {
+        Map<UUID, EntityId> ids = entityIds.stream().collect(Collectors.toMap(EntityId::getId, Function.identity(), (a, b) -> a));
+        Map<EntityId, Set<String>> result = new HashMap<>();
+        for (TsKvLatestCompositeKey id : tsKvLatestRepository.findAllIdsByEntityIds(new ArrayList<>(ids.keySet()))) {
+            result.computeIfAbsent(ids.get(id.getEntityId()), entityId -> new HashSet<>()).add(keyDictionaryDao.getKey(id.getKey()));
+        }
+        return result;
+    }
+
     private ListenableFuture<TsKvLatestRemovingResult> getNewLatestEntryFuture(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
         ListenableFuture<List<TsKvEntry>> future = findNewLatestEntryFuture(tenantId, entityId, query);
         return Futures.transformAsync(future, entryList -> {
@@ -222,6 +253,52 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         }
     }
 
+    /**
+     * Fetches the latest values of all entities with a single query per batch of entities instead of a query per key.
+     * The query selects the cross product of the entities and the keys, so the rows of keys that were not requested
+     * for a particular entity are skipped.
+     */
+    protected Map<EntityId, List<TsKvEntry>> doFindLatestSync(Map<EntityId, ? extends Collection<String>> keysByEntity) {
+        Map<UUID, EntityId> entityIds = new HashMap<>();
+        Map<TsKey, String> requested = new HashMap<>();
+        keysByEntity.forEach((entityId, keys) -> {
+            entityIds.put(entityId.getId(), entityId);
+            for (String key : keys) {
+                requested.put(new TsKey(entityId.getId(), keyDictionaryDao.getOrSaveKeyId(key)), key);
+            }
+        });
+        Integer[] keyIds = requested.keySet().stream().map(TsKey::getKey).distinct().toArray(Integer[]::new);
+        Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+        if (keyIds.length == 0) {
+            return result;
+        }
+        for (List<UUID> batch : Lists.partition(new ArrayList<>(entityIds.keySet()), FIND_LATEST_BATCH_SIZE)) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(FIND_LATEST_BY_ENTITIES_QUERY);
+                ps.setArray(1, con.createArrayOf("uuid", batch.toArray()));
+                ps.setArray(2, con.createArrayOf("int", keyIds));
+                return ps;
+            }, rs -> {
+                UUID entityId = rs.getObject("entity_id", UUID.class);
+                int keyId = rs.getInt("key");
+                String key = requested.get(new TsKey(entityId, keyId));
+                if (key == null) {
+                    return;
+                }
+                TsKvLatestEntity entity = new TsKvLatestEntity(entityId, keyId, key,
+                        rs.getString("str_v"),
+                        rs.getObject("bool_v", Boolean.class),
+                        rs.getObject("long_v", Long.class),
+                        rs.getObject("dbl_v", Double.class),
+                        rs.getString("json_v"),
+                        rs.getLong("ts"),
+                        rs.getObject("version", Long.class));
+                result.computeIfAbsent(entityIds.get(entityId), id -> new ArrayList<>()).add(DaoUtil.getData(entity));
+            });
+        }
+        return result;
+    }
+
     protected ListenableFuture<TsKvLatestRemovingResult> getRemoveLatestFuture(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
         ListenableFuture<TsKvEntry> latestFuture = service.submit(() -> doFindLatestSync(entityId, query.getKey()));
         return Futures.transformAsync(latestFuture, latest -> {
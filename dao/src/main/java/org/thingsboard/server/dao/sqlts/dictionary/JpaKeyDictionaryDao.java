@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.dao.sqlts.dictionary;
 
+import com.google.common.util.concurrent.Striped;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.exception.ConstraintViolationException;
@@ -28,30 +29,47 @@ import org.thingsboard.server.dao.model.sqlts.dictionary.KeyDictionaryEntry;
 import org.thingsboard.server.dao.sql.JpaAbstractDaoListeningExecutorService;
 import org.thingsboard.server.dao.util.SqlDao;
 
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Lock;
 
+/**
+ * Key dictionary entries are never updated or removed, so both directions of the mapping are cached forever
+ * and nodes of the cluster don't need to invalidate each other: a missing entry is simply loaded from the database.
+ */
 @Component
 @Slf4j
 @SqlDao
 @RequiredArgsConstructor
 public class JpaKeyDictionaryDao extends JpaAbstractDaoListeningExecutorService implements KeyDictionaryDao {
 
+    private static final int MAX_KEY_ID_ARRAY_SIZE = 1 << 20;
+
     private final KeyDictionaryRepository keyDictionaryRepository;
 
     private final ConcurrentMap<String, Integer> keyDictionaryMap = new ConcurrentHashMap<>();
-    private static final ReentrantLock creationLock = new ReentrantLock();
+    // Key ids are generated by a sequence, so they are dense and may be used as array indexes
+    private volatile String[] keysById = new String[1024];
+    private final ConcurrentMap<Integer, String> sparseKeysById = new ConcurrentHashMap<>();
+    private final Striped<Lock> creationLocks = Striped.lock(64);
+    private volatile boolean preloaded;
 
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public Integer getOrSaveKeyId(String strKey) {
         Integer keyId = keyDictionaryMap.get(strKey);
         if (keyId == null) {
+            preload();
+            keyId = keyDictionaryMap.get(strKey);
+            if (keyId != null) {
+                return keyId;
+            }
             Optional<KeyDictionaryEntry> tsKvDictionaryOptional;
             tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
             if (tsKvDictionaryOptional.isEmpty()) {
+                Lock creationLock = creationLocks.get(strKey);
                 creationLock.lock();
                 try {
                     keyId = keyDictionaryMap.get(strKey);
@@ -64,23 +82,24 @@ public class JpaKeyDictionaryDao extends JpaAbstractDaoListeningExecutorService
                         keyDictionaryEntry.setKey(strKey);
                         try {
                             KeyDictionaryEntry saved = keyDictionaryRepository.save(keyDictionaryEntry);
-                            keyDictionaryMap.put(saved.getKey(), saved.getKeyId());
+                            putToCache(saved.getKey(), saved.getKeyId());
                             keyId = saved.getKeyId();
                         } catch (DataIntegrityViolationException | ConstraintViolationException e) {
                             tsKvDictionaryOptional = keyDictionaryRepository.findById(new KeyDictionaryCompositeKey(strKey));
                             KeyDictionaryEntry dictionary = tsKvDictionaryOptional.orElseThrow(() -> new RuntimeException("Failed to get KeyDictionaryEntry entity from DB!"));
-                            keyDictionaryMap.put(dictionary.getKey(), dictionary.getKeyId());
+                            putToCache(dictionary.getKey(), dictionary.getKeyId());
                             keyId = dictionary.getKeyId();
                         }
                     } else {
                         keyId = tsKvDictionaryOptional.get().getKeyId();
+                        putToCache(strKey, keyId);
                     }
                 } finally {
                     creationLock.unlock();
                 }
             } else {
                 keyId = tsKvDictionaryOptional.get().getKeyId();
-                keyDictionaryMap.put(strKey, keyId);
+                putToCache(strKey, keyId);
             }
         }
         return keyId;
@@ -88,8 +107,62 @@ public class JpaKeyDictionaryDao extends JpaAbstractDaoListeningExecutorService
 
     @Override
     public String getKey(Integer keyId) {
-        Optional<KeyDictionaryEntry> byKeyId = keyDictionaryRepository.findByKeyId(keyId);
-        return byKeyId.map(KeyDictionaryEntry::getKey).orElse(null);
+        String key = getFromCache(keyId);
+        if (key == null) {
+            preload();
+            key = getFromCache(keyId);
+            if (key == null) {
+                Optional<KeyDictionaryEntry> byKeyId = keyDictionaryRepository.findByKeyId(keyId);
+                if (byKeyId.isPresent()) {
+                    key = byKeyId.get().getKey();
+                    putToCache(key, keyId);
+                }
+            }
+        }
+        return key;
+    }
+
+    private void preload() {
+        if (preloaded) {
+            return;
+        }
+        synchronized (this) {
+            if (preloaded) {
+                return;
+            }
+            try {
+                var entries = keyDictionaryRepository.findAll();
+                entries.forEach(entry -> putToCache(entry.getKey(), entry.getKeyId()));
+                log.info("Loaded {} key dictionary entries", entries.size());
+                preloaded = true;
+            } catch (Exception e) {
+                log.warn("Failed to preload key dictionary", e);
+            }
+        }
+    }
+
+    private String getFromCache(int keyId) {
+        String[] keys = keysById;
+        if (keyId >= 0 && keyId < keys.length) {
+            return keys[keyId];
+        }
+        return sparseKeysById.get(keyId);
+    }
+
+    private void putToCache(String key, int keyId) {
+        keyDictionaryMap.put(key, keyId);
+        if (keyId >= 0 && keyId < MAX_KEY_ID_ARRAY_SIZE) {
+            synchronized (keyDictionaryMap) {
+                String[] keys = keysById;
+                if (keyId >= keys.length) {
+                    keys = Arrays.copyOf(keys, Math.min(MAX_KEY_ID_ARRAY_SIZE, Math.max(keyId + 1, keys.length * 2)));
+                }
+                keys[keyId] = key;
+                keysById = keys;
+            }
+        } else {
+            sparseKeysById.put(keyId, key);
+        }
     }
 
 }
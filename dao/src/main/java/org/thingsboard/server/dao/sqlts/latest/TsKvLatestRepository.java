@@ -41,4 +41,8 @@ public interface TsKvLatestRepository extends JpaRepository<TsKvLatestEntity, Ts
             "WHERE ts_kv_latest.entity_id IN :entityIds ORDER BY key_dictionary.key", nativeQuery = true)
     List<String> findAllKeysByEntityIds(@Param("entityIds") List<UUID> entityIds);
 
+    @Query("SELECT new org.thingsboard.server.dao.model.sqlts.latest.TsKvLatestCompositeKey(e.entityId, e.key) " +
+            "FROM TsKvLatestEntity e WHERE e.entityId IN :entityIds")
+    List<TsKvLatestCompositeKey> findAllIdsByEntityIds(@Param("entityIds") List<UUID> entityIds);
+
 }
@@ -42,6 +42,8 @@ import org.thingsboard.server.dao.model.sqlts.timescale.ts.TimescaleTsKvEntity;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
 import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
 import org.thingsboard.server.dao.sqlts.AbstractSqlTimeseriesDao;
+import org.thingsboard.server.dao.sqlts.BucketedAggregationRepository;
+import org.thingsboard.server.dao.sqlts.TsKvAggregationBucket;
 import org.thingsboard.server.dao.sqlts.insert.InsertTsRepository;
 import org.thingsboard.server.dao.timeseries.TimeseriesDao;
 import org.thingsboard.server.dao.util.TimeUtils;
@@ -54,6 +56,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
@@ -66,6 +69,9 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
     @Autowired
     private AggregationRepository aggregationRepository;
 
+    @Autowired
+    private BucketedAggregationRepository bucketedAggregationRepository;
+
     @Autowired
     private StatsFactory statsFactory;
 
@@ -79,7 +85,7 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
 
     @PostConstruct
     protected void init() {
-        TbSqlBlockingQueueParams tsParams = TbSqlBlockingQueueParams.builder()
+        TbSqlBlockingQueueParams tsParams = queueSettings.paramsBuilder()
                 .logName("TS Timescale")
                 .batchSize(tsBatchSize)
                 .maxDelay(tsMaxDelay)
@@ -160,16 +166,10 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
             List<Optional<? extends AbstractTsKvEntity>> data = findAllAndAggregateAsync(entityId, query.getKey(), startTs, endTs, timeBucket, query.getAggregation());
             return getReadTsKvQueryResultFuture(query, Futures.immediateFuture(data));
         } else {
-            //TODO: @dshvaika improve according to native capabilities of Timescale.
-            long startPeriod = query.getStartTs();
-            long endPeriod = Math.max(query.getStartTs() + 1, query.getEndTs());
-            List<TimescaleTsKvEntity> timescaleTsKvEntities = new ArrayList<>();
-            while (startPeriod < endPeriod) {
-                long startTs = startPeriod;
-                long endTs = Math.min(TimeUtils.calculateIntervalEnd(startTs, intervalType, aggParams.getTzId()), endPeriod);
-                timescaleTsKvEntities.addAll(switchAggregation(query.getKey(), startTs, endTs, endTs - startTs, query.getAggregation(), entityId.getId()));
-                startPeriod = endTs;
-            }
+            long[] bounds = TimeUtils.calculateIntervalBounds(query.getStartTs(), query.getEndTs(), intervalType, aggParams.getInterval(), aggParams.getTzId(), maxTsIntervals);
+            Integer keyId = keyDictionaryDao.getOrSaveKeyId(query.getKey());
+            List<TimescaleTsKvEntity> timescaleTsKvEntities = bucketedAggregationRepository.findAggregates(entityId.getId(), keyId, bounds, query.getAggregation())
+                    .stream().map(bucket -> toTimescaleTsKvEntity(bucket, query.getAggregation())).collect(Collectors.toList());
             return getReadTsKvQueryResultFuture(query, Futures.immediateFuture(toResultList(entityId, query.getKey(), timescaleTsKvEntities)));
         }
     }
@@ -228,6 +228,17 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
         }
     }
 
+    private static TimescaleTsKvEntity toTimescaleTsKvEntity(TsKvAggregationBucket bucket, Aggregation aggregation) {
+        long interval = bucket.getEndTs() - bucket.getStartTs();
+        if (Aggregation.COUNT.equals(aggregation)) {
+            return new TimescaleTsKvEntity(bucket.getStartTs(), interval, bucket.getBooleanValueCount(), bucket.getStrValueCount(),
+                    bucket.getLongValueCount(), bucket.getDoubleValueCount(), bucket.getJsonValueCount(), bucket.getAggValuesLastTs());
+        } else {
+            return new TimescaleTsKvEntity(bucket.getStartTs(), interval, bucket.getLongValue(), bucket.getDoubleValue(),
+                    bucket.getLongValueCount(), bucket.getDoubleValueCount(), bucket.getStrValue(), aggregation.name(), bucket.getAggValuesLastTs());
+        }
+    }
+
     private List<TimescaleTsKvEntity> switchAggregation(String key, long startTs, long endTs, long timeBucket, Aggregation aggregation, UUID entityId) {
         Integer keyId = keyDictionaryDao.getOrSaveKeyId(key);
         switch (aggregation) {
@@ -19,6 +19,7 @@ import com.google.common.base.Function;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +39,7 @@ import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.kv.TsKvLatestRemovingResult;
+import org.thingsboard.server.dao.dictionary.EntityKeysCatalog;
 import org.thingsboard.server.dao.entityview.EntityViewService;
 import org.thingsboard.server.dao.exception.IncorrectParameterException;
 import org.thingsboard.server.dao.service.Validator;
@@ -45,8 +47,12 @@ import org.thingsboard.server.dao.service.Validator;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.thingsboard.server.common.data.StringUtils.isBlank;
@@ -62,6 +68,7 @@ public class BaseTimeseriesService implements TimeseriesService {
     private static final int INSERTS_PER_ENTRY = 3;
     private static final int INSERTS_PER_ENTRY_WITHOUT_LATEST = 2;
     private static final int DELETES_PER_ENTRY = INSERTS_PER_ENTRY;
+    private static final int LATEST_KEYS_GROUP = 1;
     public static final Function<List<Integer>, Integer> SUM_ALL_INTEGERS = new Function<>() {
         @Override
         public @Nullable Integer apply(@Nullable List<Integer> input) {
@@ -79,6 +86,26 @@ public class BaseTimeseriesService implements TimeseriesService {
 
     @Value("${database.ts_max_intervals}")
     private long maxTsIntervals;
+    @Value("${database.ts_latest.type:sql}")
+    private String tsLatestType;
+    @Value("${sql.ts_latest.keys_catalog.enabled:false}")
+    private boolean keysCatalogEnabled;
+    @Value("${sql.ts_latest.keys_catalog.ttl_sec:300}")
+    private long keysCatalogTtlSec;
+    @Value("${sql.ts_latest.keys_catalog.max_entities:100000}")
+    private long keysCatalogMaxEntities;
+    @Value("${sql.ts_latest.keys_catalog.max_profiles:10000}")
+    private long keysCatalogMaxProfiles;
+    @Value("${database.ts.type:sql}")
+    private String tsType;
+    @Value("${database.ts.hot_tier.enabled:false}")
+    private boolean hotTierEnabled;
+    @Value("${database.ts.hot_tier.window_sec:3600}")
+    private long hotTierWindowSec;
+    @Value("${database.ts.hot_tier.max_series:100000}")
+    private long hotTierMaxSeries;
+    @Value("${database.ts.hot_tier.block_size:128}")
+    private int hotTierBlockSize;
 
     @Autowired
     private TimeseriesDao timeseriesDao;
@@ -89,6 +116,23 @@ public class BaseTimeseriesService implements TimeseriesService {
     @Autowired
     private EntityViewService entityViewService;
 
+    private EntityKeysCatalog keysCatalog;
+
+    private TimeseriesHotTier hotTier;
+
+    @PostConstruct
+    public void init() {
+        // The Cassandra latest DAO does not support the keys queries
+        if (keysCatalogEnabled && !"cassandra".equalsIgnoreCase(tsLatestType)) {
+            keysCatalog = new EntityKeysCatalog(keysCatalogTtlSec, keysCatalogMaxEntities, keysCatalogMaxProfiles);
+        }
+        if (hotTierEnabled) {
+            // The aggregation in memory follows the SQL semantics, so the aggregated reads of Cassandra are not served from memory
+            hotTier = new TimeseriesHotTier(TimeUnit.SECONDS.toMillis(hotTierWindowSec), hotTierMaxSeries, hotTierBlockSize,
+                    !"cassandra".equalsIgnoreCase(tsType), maxTsIntervals);
+        }
+    }
+
     @Override
     public ListenableFuture<List<ReadTsKvQueryResult>> findAllByQueries(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
         validate(entityId);
@@ -101,9 +145,23 @@ public class BaseTimeseriesService implements TimeseriesService {
                     queries.stream()
                             .filter(query -> keys.isEmpty() || keys.contains(query.getKey()))
                             .collect(Collectors.toList());
-            return timeseriesDao.findAllAsync(tenantId, entityView.getEntityId(), updateQueriesForEntityView(entityView, filteredQueries));
+            return findAllAsync(tenantId, entityView.getEntityId(), updateQueriesForEntityView(entityView, filteredQueries));
         }
-        return timeseriesDao.findAllAsync(tenantId, entityId, queries);
+        return findAllAsync(tenantId, entityId, queries);
+    }
+
+    private ListenableFuture<List<ReadTsKvQueryResult>> findAllAsync(TenantId tenantId, EntityId entityId, List<ReadTsKvQuery> queries) {
+        if (hotTier == null) {
+            return timeseriesDao.findAllAsync(tenantId, entityId, queries);
+        }
+        List<ListenableFuture<ReadTsKvQueryResult>> futures = new ArrayList<>(queries.size());
+        for (ReadTsKvQuery query : queries) {
+            futures.add(hotTier.findAllAsync(entityId, query, daoQuery ->
+                    Futures.transform(timeseriesDao.findAllAsync(tenantId, entityId, List.of(daoQuery)),
+                            results -> results != null && !results.isEmpty() ? results.get(0) : null, MoreExecutors.directExecutor())));
+        }
+        return Futures.transform(Futures.allAsList(futures),
+                results -> results.stream().filter(Objects::nonNull).collect(Collectors.toList()), MoreExecutors.directExecutor());
     }
 
     @Override
@@ -134,6 +192,18 @@ public class BaseTimeseriesService implements TimeseriesService {
         return Futures.allAsList(futures);
     }
 
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatest(TenantId tenantId, Map<EntityId, ? extends Collection<String>> keysByEntity) {
+        keysByEntity.forEach((entityId, keys) -> {
+            validate(entityId);
+            keys.forEach(key -> Validator.validateString(key, k -> "Incorrect key " + k));
+        });
+        if (keysByEntity.isEmpty()) {
+            return Futures.immediateFuture(Collections.emptyMap());
+        }
+        return timeseriesLatestDao.findLatest(tenantId, keysByEntity);
+    }
+
     @Override
     public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
         validate(entityId);
@@ -142,11 +212,25 @@ public class BaseTimeseriesService implements TimeseriesService {
 
     @Override
     public List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId) {
+        if (keysCatalog != null) {
+            return keysCatalog.getProfileKeys(tenantId, deviceProfileId, () -> timeseriesLatestDao.findAllKeysByDeviceProfileId(tenantId, deviceProfileId));
+        }
         return timeseriesLatestDao.findAllKeysByDeviceProfileId(tenantId, deviceProfileId);
     }
 
     @Override
     public List<String> findAllKeysByEntityIds(TenantId tenantId, List<EntityId> entityIds) {
+        if (keysCatalog != null) {
+            return keysCatalog.getKeys(entityIds, EntityKeysCatalog.ALL_GROUPS, ids -> {
+                Map<EntityId, Map<String, Integer>> keys = new HashMap<>();
+                timeseriesLatestDao.findAllKeysPerEntity(tenantId, ids).forEach((entityId, entityKeys) -> {
+                    Map<String, Integer> groups = new HashMap<>();
+                    entityKeys.forEach(key -> groups.put(key, LATEST_KEYS_GROUP));
+                    keys.put(entityId, groups);
+                });
+                return keys;
+            });
+        }
         return timeseriesLatestDao.findAllKeysByEntityIds(tenantId, entityIds);
     }
 
@@ -190,14 +274,25 @@ public class BaseTimeseriesService implements TimeseriesService {
     public ListenableFuture<List<Long>> saveLatest(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries) {
         List<ListenableFuture<Long>> futures = new ArrayList<>(tsKvEntries.size());
         for (TsKvEntry tsKvEntry : tsKvEntries) {
-            futures.add(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry));
+            futures.add(saveLatestAndUpdateKeysCatalog(tenantId, entityId, tsKvEntry));
         }
         return Futures.allAsList(futures);
     }
 
     private void saveAndRegisterFutures(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
         doSaveAndRegisterFuturesFor(tenantId, futures, entityId, tsKvEntry, ttl);
-        futures.add(Futures.transform(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
+        futures.add(Futures.transform(saveLatestAndUpdateKeysCatalog(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
+    }
+
+    private ListenableFuture<Long> saveLatestAndUpdateKeysCatalog(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry) {
+        ListenableFuture<Long> future = timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry);
+        if (keysCatalog == null) {
+            return future;
+        }
+        return Futures.transform(future, version -> {
+            keysCatalog.onKeysSaved(entityId, List.of(tsKvEntry.getKey()), LATEST_KEYS_GROUP);
+            return version;
+        }, MoreExecutors.directExecutor());
     }
 
     private void saveWithoutLatestAndRegisterFutures(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
@@ -210,6 +305,9 @@ public class BaseTimeseriesService implements TimeseriesService {
         }
         futures.add(timeseriesDao.savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
         futures.add(timeseriesDao.save(tenantId, entityId, tsKvEntry, ttl));
+        if (hotTier != null) {
+            hotTier.onSaved(entityId, tsKvEntry, ttl);
+        }
     }
 
     private List<ReadTsKvQuery> updateQueriesForEntityView(EntityView entityView, List<ReadTsKvQuery> queries) {
@@ -239,7 +337,7 @@ public class BaseTimeseriesService implements TimeseriesService {
         for (DeleteTsKvQuery tsKvQuery : deleteTsKvQueries) {
             deleteAndRegisterFutures(tenantId, futures, entityId, tsKvQuery);
         }
-        return Futures.allAsList(futures);
+        return evictFromKeysCatalog(entityId, Futures.allAsList(futures));
     }
 
     @Override
@@ -250,7 +348,7 @@ public class BaseTimeseriesService implements TimeseriesService {
             DeleteTsKvQuery query = new BaseDeleteTsKvQuery(key, 0, System.currentTimeMillis(), false);
             futures.add(timeseriesLatestDao.removeLatest(tenantId, entityId, query));
         }
-        return Futures.allAsList(futures);
+        return evictFromKeysCatalog(entityId, Futures.allAsList(futures));
     }
 
     @Override
@@ -266,7 +364,23 @@ public class BaseTimeseriesService implements TimeseriesService {
         }, MoreExecutors.directExecutor());
     }
 
+    /**
+     * The removed latest value may be replaced by the previous value of the key, so the keys of the entity are reloaded on the next request.
+     */
+    private <T> ListenableFuture<T> evictFromKeysCatalog(EntityId entityId, ListenableFuture<T> future) {
+        if (keysCatalog == null) {
+            return future;
+        }
+        return Futures.transform(future, result -> {
+            keysCatalog.evict(entityId);
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
     private void deleteAndRegisterFutures(TenantId tenantId, List<ListenableFuture<TsKvLatestRemovingResult>> futures, EntityId entityId, DeleteTsKvQuery query) {
+        if (hotTier != null) {
+            hotTier.onRemoved(entityId, query.getKey());
+        }
         futures.add(Futures.transform(timeseriesDao.remove(tenantId, entityId, query), v -> null, MoreExecutors.directExecutor()));
         if (query.getDeleteLatest()) {
             futures.add(timeseriesLatestDao.removeLatest(tenantId, entityId, query));
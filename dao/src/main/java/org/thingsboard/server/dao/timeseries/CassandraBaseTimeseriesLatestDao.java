@@ -41,9 +41,14 @@ import org.thingsboard.server.dao.nosql.TbResultSet;
 import org.thingsboard.server.dao.sqlts.AggregationTimeseriesDao;
 import org.thingsboard.server.dao.util.NoSqlTsLatestDao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
 
@@ -79,6 +84,28 @@ public class CassandraBaseTimeseriesLatestDao extends AbstractCassandraBaseTimes
         return getFuture(executeAsyncRead(tenantId, stmt), function);
     }
 
+    @Override
+    public ListenableFuture<Map<EntityId, List<TsKvEntry>>> findLatest(TenantId tenantId, Map<EntityId, ? extends Collection<String>> keysByEntity) {
+        List<EntityId> entityIds = new ArrayList<>();
+        List<ListenableFuture<Optional<TsKvEntry>>> futures = new ArrayList<>();
+        keysByEntity.forEach((entityId, keys) -> {
+            for (String key : keys) {
+                entityIds.add(entityId);
+                futures.add(findLatestOpt(tenantId, entityId, key));
+            }
+        });
+        return Futures.transform(Futures.allAsList(futures), entries -> {
+            Map<EntityId, List<TsKvEntry>> result = new HashMap<>();
+            for (int i = 0; i < entries.size(); i++) {
+                TsKvEntry entry = entries.get(i).orElse(null);
+                if (entry != null) {
+                    result.computeIfAbsent(entityIds.get(i), id -> new ArrayList<>()).add(entry);
+                }
+            }
+            return result;
+        }, MoreExecutors.directExecutor());
+    }
+
     @Override
     public ListenableFuture<List<TsKvEntry>> findAllLatest(TenantId tenantId, EntityId entityId) {
         BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(getFindAllLatestStmt().bind());
@@ -99,6 +126,11 @@ public class CassandraBaseTimeseriesLatestDao extends AbstractCassandraBaseTimes
         return Collections.emptyList();
     }
 
+    @Override
+    public Map<EntityId, Set<String>> findAllKeysPerEntity(TenantId tenantId, List<EntityId> entityIds) {
+        return Collections.emptyMap();
+    }
+
     @Override
     public ListenableFuture<Long> saveLatest(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry) {
         BoundStatementBuilder stmtBuilder = new BoundStatementBuilder(getLatestStmt().bind());
@@ -0,0 +1,229 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Append-only block of numeric timeseries points, compressed as described in the Facebook Gorilla paper:
+ * the timestamps are stored as the delta of deltas and the values as the XOR with the previous value.
+ * <p>
+ * Long and double values share the same column: a double is stored as its raw bits, and one extra bit per point keeps the type.
+ * The points must be appended in the increasing order of the timestamps.
+ */
+class CompressedTsBlock {
+
+    private static final int INITIAL_WORDS = 16;
+
+    private final int capacity;
+    private long[] words = new long[INITIAL_WORDS];
+    private int bitPos;
+
+    @Getter
+    private int count;
+    @Getter
+    private long firstTs;
+    @Getter
+    private long lastTs;
+    private long prevDelta;
+    private long prevBits;
+    private int prevLeading = -1;
+    private int prevTrailing;
+
+    CompressedTsBlock(int capacity) {
+        this.capacity = capacity;
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    void append(long ts, boolean isDouble, long bits) {
+        if (count == 0) {
+            writeBits(ts, 64);
+            writeBits(isDouble ? 1 : 0, 1);
+            writeBits(bits, 64);
+            firstTs = ts;
+        } else {
+            long delta = ts - lastTs;
+            writeDeltaOfDelta(delta - prevDelta);
+            writeBits(isDouble ? 1 : 0, 1);
+            writeValue(bits);
+            prevDelta = delta;
+        }
+        lastTs = ts;
+        prevBits = bits;
+        count++;
+        if (isFull()) {
+            words = Arrays.copyOf(words, (bitPos + 63) >>> 6);
+        }
+    }
+
+    void forEach(PointConsumer consumer) {
+        new Reader().forEach(consumer);
+    }
+
+    long getSizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            writeBits(0b10, 2);
+            writeBits(dod, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            writeBits(0b110, 3);
+            writeBits(dod, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            writeBits(0b1110, 4);
+            writeBits(dod, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(dod, 64);
+        }
+    }
+
+    private void writeValue(long bits) {
+        long xor = bits ^ prevBits;
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        int leading = Long.numberOfLeadingZeros(xor);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+            writeBits(0b10, 2);
+            writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+        } else {
+            int significant = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 6);
+            writeBits(significant - 1, 6);
+            writeBits(xor >>> trailing, significant);
+            prevLeading = leading;
+            prevTrailing = trailing;
+        }
+    }
+
+    private void writeBits(long value, int n) {
+        int required = (bitPos + n + 63) >>> 6;
+        if (required > words.length) {
+            words = Arrays.copyOf(words, Math.max(required, words.length * 2));
+        }
+        if (n < 64) {
+            value &= (1L << n) - 1;
+        }
+        int idx = bitPos >>> 6;
+        int free = 64 - (bitPos & 63);
+        if (n <= free) {
+            words[idx] |= value << (free - n);
+        } else {
+            int rest = n - free;
+            words[idx] |= value >>> rest;
+            words[idx + 1] |= value << (64 - rest);
+        }
+        bitPos += n;
+    }
+
+    @FunctionalInterface
+    interface PointConsumer {
+
+        void accept(long ts, boolean isDouble, long bits);
+
+    }
+
+    private class Reader {
+
+        private int pos;
+        private long ts;
+        private long delta;
+        private long bits;
+        private int leading;
+        private int trailing;
+
+        void forEach(PointConsumer consumer) {
+            for (int i = 0; i < count; i++) {
+                boolean isDouble;
+                if (i == 0) {
+                    ts = readBits(64);
+                    isDouble = readBits(1) == 1;
+                    bits = readBits(64);
+                } else {
+                    delta += readDeltaOfDelta();
+                    ts += delta;
+                    isDouble = readBits(1) == 1;
+                    readValue();
+                }
+                consumer.accept(ts, isDouble, bits);
+            }
+        }
+
+        private long readDeltaOfDelta() {
+            if (readBits(1) == 0) {
+                return 0;
+            } else if (readBits(1) == 0) {
+                return readSigned(7);
+            } else if (readBits(1) == 0) {
+                return readSigned(9);
+            } else if (readBits(1) == 0) {
+                return readSigned(12);
+            } else {
+                return readBits(64);
+            }
+        }
+
+        private void readValue() {
+            if (readBits(1) == 0) {
+                return;
+            }
+            if (readBits(1) == 0) {
+                bits ^= readBits(64 - leading - trailing) << trailing;
+            } else {
+                leading = (int) readBits(6);
+                int significant = (int) readBits(6) + 1;
+                trailing = 64 - leading - significant;
+                bits ^= readBits(significant) << trailing;
+            }
+        }
+
+        private long readSigned(int n) {
+            long value = readBits(n);
+            return value > (1L << (n - 1)) ? value - (1L << n) : value;
+        }
+
+        private long readBits(int n) {
+            int idx = pos >>> 6;
+            int offset = pos & 63;
+            int free = 64 - offset;
+            long result;
+            if (n <= free) {
+                result = (words[idx] << offset) >>> (64 - n);
+            } else {
+                int rest = n - free;
+                long high = (words[idx] << offset) >>> offset;
+                result = (high << rest) | (words[idx + 1] >>> (64 - rest));
+            }
+            pos += n;
+            return result;
+        }
+
+    }
+
+}
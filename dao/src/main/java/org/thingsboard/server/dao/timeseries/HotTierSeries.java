@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.kv.KvEntry;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Recent points of a single timeseries key of an entity, kept as a ring of compressed blocks.
+ * <p>
+ * The series knows the timestamp it covers from: all points with the timestamp greater than or equal to it
+ * that were saved through this node are in memory. The coverage starts not earlier than the creation of the series,
+ * moves forward when old blocks are dropped, and moves past the last point when a point arrives out of order,
+ * because such a point cannot be appended to the compressed block.
+ */
+class HotTierSeries {
+
+    private final int blockSize;
+    private final Deque<CompressedTsBlock> blocks = new ArrayDeque<>();
+    private long coveredFrom;
+    private long lastTs = Long.MIN_VALUE;
+
+    HotTierSeries(int blockSize, long createdTs) {
+        this.blockSize = blockSize;
+        this.coveredFrom = createdTs;
+    }
+
+    synchronized void append(long ts, KvEntry kv) {
+        DataType dataType = kv.getDataType();
+        if (coveredFrom == Long.MAX_VALUE) {
+            return;
+        }
+        if (dataType != DataType.LONG && dataType != DataType.DOUBLE) {
+            // Only the numeric series are kept in memory
+            blocks.clear();
+            coveredFrom = Long.MAX_VALUE;
+            return;
+        }
+        if (ts <= lastTs) {
+            blocks.clear();
+            coveredFrom = Math.max(coveredFrom, lastTs + 1);
+            return;
+        }
+        if (lastTs == Long.MIN_VALUE) {
+            coveredFrom = Math.max(coveredFrom, ts);
+        }
+        CompressedTsBlock block = blocks.peekLast();
+        if (block == null || block.isFull()) {
+            block = new CompressedTsBlock(blockSize);
+            blocks.addLast(block);
+        }
+        if (dataType == DataType.DOUBLE) {
+            block.append(ts, true, Double.doubleToRawLongBits(kv.getDoubleValue().orElse(0.0)));
+        } else {
+            block.append(ts, false, kv.getLongValue().orElse(0L));
+        }
+        lastTs = ts;
+    }
+
+    synchronized long getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    /**
+     * Drops the blocks that contain only the points older than the given timestamp.
+     */
+    synchronized void trim(long minTs) {
+        while (!blocks.isEmpty() && blocks.peekFirst().getLastTs() < minTs) {
+            CompressedTsBlock block = blocks.pollFirst();
+            coveredFrom = Math.max(coveredFrom, block.getLastTs() + 1);
+        }
+    }
+
+    /**
+     * Passes the points of the range [startTs, endTs) to the consumer in the increasing order of the timestamps.
+     */
+    synchronized void read(long startTs, long endTs, CompressedTsBlock.PointConsumer consumer) {
+        for (CompressedTsBlock block : blocks) {
+            if (block.getLastTs() < startTs) {
+                continue;
+            }
+            if (block.getFirstTs() >= endTs) {
+                break;
+            }
+            block.forEach((ts, isDouble, bits) -> {
+                if (ts >= startTs && ts < endTs) {
+                    consumer.accept(ts, isDouble, bits);
+                }
+            });
+        }
+    }
+
+    synchronized long getSizeInBytes() {
+        long size = 0;
+        for (CompressedTsBlock block : blocks) {
+            size += block.getSizeInBytes();
+        }
+        return size;
+    }
+
+}
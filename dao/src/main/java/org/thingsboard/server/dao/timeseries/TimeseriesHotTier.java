@@ -0,0 +1,268 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.AggregationParams;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.dao.model.sqlts.ts.TsKvEntity;
+import org.thingsboard.server.dao.util.TimeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Per-node in-memory tier of the recent timeseries points.
+ * <p>
+ * The numeric points saved through this node are appended to compressed per-key series.
+ * The reads are split at the timestamp the series covers from: the covered part is answered from memory,
+ * and the older part is read from the DAO and merged with it, so the result is the same as if the whole range was read from the DAO.
+ * The aggregation in memory follows the semantics of the SQL timeseries DAO.
+ */
+@Slf4j
+class TimeseriesHotTier {
+
+    private final long windowMs;
+    private final int blockSize;
+    private final boolean aggregationEnabled;
+    private final long maxIntervals;
+    private final Cache<SeriesKey, HotTierSeries> series;
+
+    TimeseriesHotTier(long windowMs, long maxSeries, int blockSize, boolean aggregationEnabled, long maxIntervals) {
+        this.windowMs = windowMs;
+        this.blockSize = blockSize;
+        this.aggregationEnabled = aggregationEnabled;
+        this.maxIntervals = maxIntervals;
+        this.series = Caffeine.newBuilder()
+                .maximumSize(maxSeries)
+                .expireAfterAccess(windowMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    void onSaved(EntityId entityId, TsKvEntry entry, long ttl) {
+        SeriesKey key = new SeriesKey(entityId, entry.getKey());
+        if (ttl > 0 && TimeUnit.SECONDS.toMillis(ttl) < windowMs) {
+            // The points would expire in the DB while they are still in memory
+            series.invalidate(key);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        HotTierSeries hotSeries = series.get(key, k -> new HotTierSeries(blockSize, now));
+        hotSeries.append(entry.getTs(), entry);
+        hotSeries.trim(now - windowMs);
+    }
+
+    void onRemoved(EntityId entityId, String key) {
+        series.invalidate(new SeriesKey(entityId, key));
+    }
+
+    ListenableFuture<ReadTsKvQueryResult> findAllAsync(EntityId entityId, ReadTsKvQuery query,
+                                                       Function<ReadTsKvQuery, ListenableFuture<ReadTsKvQueryResult>> daoReader) {
+        HotTierSeries hotSeries = series.getIfPresent(new SeriesKey(entityId, query.getKey()));
+        if (hotSeries == null) {
+            return daoReader.apply(query);
+        }
+        long coveredFrom = hotSeries.getCoveredFrom();
+        if (query.getEndTs() <= coveredFrom) {
+            return daoReader.apply(query);
+        }
+        if (Aggregation.NONE.equals(query.getAggregation())) {
+            return findRaw(hotSeries, coveredFrom, query, daoReader);
+        } else if (aggregationEnabled) {
+            return findAggregated(hotSeries, coveredFrom, query, daoReader);
+        } else {
+            return daoReader.apply(query);
+        }
+    }
+
+    private ListenableFuture<ReadTsKvQueryResult> findRaw(HotTierSeries hotSeries, long coveredFrom, ReadTsKvQuery query,
+                                                          Function<ReadTsKvQuery, ListenableFuture<ReadTsKvQueryResult>> daoReader) {
+        long splitTs = Math.max(query.getStartTs(), coveredFrom);
+        List<TsKvEntry> recent = new ArrayList<>();
+        hotSeries.read(splitTs, query.getEndTs(), (ts, isDouble, bits) -> recent.add(toTsKvEntry(query.getKey(), ts, isDouble, bits)));
+        boolean desc = "DESC".equalsIgnoreCase(query.getOrder());
+        if (desc) {
+            Collections.reverse(recent);
+        }
+        int limit = query.getLimit();
+        if (splitTs == query.getStartTs() || (desc && recent.size() >= limit)) {
+            return Futures.immediateFuture(toResult(query, head(recent, limit)));
+        }
+        int daoLimit = desc ? limit - recent.size() : limit;
+        ReadTsKvQuery daoQuery = new BaseReadTsKvQuery(query.getKey(), query.getStartTs(), splitTs, query.getAggParameters(), daoLimit, query.getOrder());
+        return Futures.transform(daoReader.apply(daoQuery), daoResult -> {
+            List<TsKvEntry> older = daoResult != null ? daoResult.getData() : Collections.emptyList();
+            List<TsKvEntry> data = new ArrayList<>(older.size() + recent.size());
+            if (desc) {
+                data.addAll(recent);
+                data.addAll(older);
+            } else {
+                data.addAll(older);
+                data.addAll(recent);
+            }
+            return toResult(query, head(data, limit));
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<ReadTsKvQueryResult> findAggregated(HotTierSeries hotSeries, long coveredFrom, ReadTsKvQuery query,
+                                                                 Function<ReadTsKvQuery, ListenableFuture<ReadTsKvQueryResult>> daoReader) {
+        AggregationParams aggParams = query.getAggParameters();
+        long[] bounds = TimeUtils.calculateIntervalBounds(query.getStartTs(), query.getEndTs(),
+                aggParams.getIntervalType(), aggParams.getInterval(), aggParams.getTzId(), maxIntervals);
+        int intervals = bounds.length - 1;
+        int firstCovered = 0;
+        while (firstCovered < intervals && bounds[firstCovered] < coveredFrom) {
+            firstCovered++;
+        }
+        if (firstCovered == intervals) {
+            return daoReader.apply(query);
+        }
+        List<TsKvEntry> recent = new ArrayList<>();
+        long recentLastTs = aggregate(hotSeries, query, bounds, firstCovered, recent);
+        if (firstCovered == 0) {
+            return Futures.immediateFuture(new ReadTsKvQueryResult(query.getId(), recent, Math.max(recentLastTs, query.getStartTs())));
+        }
+        ReadTsKvQuery daoQuery = new BaseReadTsKvQuery(query.getKey(), query.getStartTs(), bounds[firstCovered], aggParams, query.getLimit(), query.getOrder());
+        return Futures.transform(daoReader.apply(daoQuery), daoResult -> {
+            List<TsKvEntry> data = new ArrayList<>();
+            long lastTs = Math.max(recentLastTs, query.getStartTs());
+            if (daoResult != null) {
+                data.addAll(daoResult.getData());
+                lastTs = Math.max(lastTs, daoResult.getLastEntryTs());
+            }
+            data.addAll(recent);
+            return new ReadTsKvQueryResult(query.getId(), data, lastTs);
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Aggregates the points of the intervals starting from the given one, the same way the SQL DAO aggregates the buckets.
+     * Returns the timestamp of the last aggregated point.
+     */
+    private long aggregate(HotTierSeries hotSeries, ReadTsKvQuery query, long[] bounds, int fromInterval, List<TsKvEntry> result) {
+        Aggregation aggregation = query.getAggregation();
+        int intervals = bounds.length - 1;
+        Bucket bucket = new Bucket();
+        int[] idx = {fromInterval};
+        long[] lastTs = {Long.MIN_VALUE};
+        hotSeries.read(bounds[fromInterval], bounds[intervals], (ts, isDouble, bits) -> {
+            while (ts >= bounds[idx[0] + 1]) {
+                bucket.flush(query.getKey(), aggregation, bounds[idx[0]], bounds[idx[0] + 1], result);
+                idx[0]++;
+            }
+            bucket.add(ts, isDouble, bits, aggregation);
+            lastTs[0] = Math.max(lastTs[0], ts);
+        });
+        bucket.flush(query.getKey(), aggregation, bounds[idx[0]], bounds[idx[0] + 1], result);
+        return lastTs[0];
+    }
+
+    private static TsKvEntry toTsKvEntry(String key, long ts, boolean isDouble, long bits) {
+        if (isDouble) {
+            return new BasicTsKvEntry(ts, new DoubleDataEntry(key, Double.longBitsToDouble(bits)));
+        } else {
+            return new BasicTsKvEntry(ts, new LongDataEntry(key, bits));
+        }
+    }
+
+    private static ReadTsKvQueryResult toResult(ReadTsKvQuery query, List<TsKvEntry> data) {
+        long lastTs = data.stream().mapToLong(TsKvEntry::getTs).max().orElse(query.getStartTs());
+        return new ReadTsKvQueryResult(query.getId(), data, lastTs);
+    }
+
+    private static List<TsKvEntry> head(List<TsKvEntry> data, int limit) {
+        return data.size() > limit ? new ArrayList<>(data.subList(0, limit)) : data;
+    }
+
+    private record SeriesKey(EntityId entityId, String key) {}
+
+    private static class Bucket {
+
+        private long longValue;
+        private double doubleValue;
+        private long longCount;
+        private long doubleCount;
+        private long lastTs;
+
+        void add(long ts, boolean isDouble, long bits, Aggregation aggregation) {
+            if (isDouble) {
+                double value = Double.longBitsToDouble(bits);
+                doubleValue = doubleCount == 0 ? value : combine(doubleValue, value, aggregation);
+                doubleCount++;
+            } else {
+                longValue = longCount == 0 ? bits : combine(longValue, bits, aggregation);
+                longCount++;
+            }
+            lastTs = Math.max(lastTs, ts);
+        }
+
+        void flush(String key, Aggregation aggregation, long startTs, long endTs, List<TsKvEntry> result) {
+            if (longCount + doubleCount == 0) {
+                return;
+            }
+            TsKvEntity entity;
+            if (Aggregation.COUNT.equals(aggregation)) {
+                entity = new TsKvEntity(0L, 0L, longCount, doubleCount, 0L, lastTs);
+            } else {
+                entity = new TsKvEntity(longValue, doubleValue, longCount, doubleCount, aggregation.name(), lastTs);
+            }
+            if (entity.isNotEmpty()) {
+                entity.setStrKey(key);
+                entity.setTs(startTs + (endTs - startTs) / 2);
+                result.add(entity.toData());
+            }
+            longValue = 0;
+            doubleValue = 0.0;
+            longCount = 0;
+            doubleCount = 0;
+            lastTs = 0;
+        }
+
+        private static long combine(long current, long value, Aggregation aggregation) {
+            return switch (aggregation) {
+                case MIN -> Math.min(current, value);
+                case MAX -> Math.max(current, value);
+                default -> current + value;
+            };
+        }
+
+        private static double combine(double current, double value, Aggregation aggregation) {
+            return switch (aggregation) {
+                case MIN -> Math.min(current, value);
+                case MAX -> Math.max(current, value);
+                default -> current + value;
+            };
+        }
+
+    }
+
+}
@@ -16,6 +16,7 @@
 package org.thingsboard.server.dao.util;
 
 import org.thingsboard.server.common.data.kv.IntervalType;
+import org.thingsboard.server.dao.exception.IncorrectParameterException;
 
 import java.time.Instant;
 import java.time.ZoneId;
@@ -23,9 +24,63 @@ import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.IsoFields;
 import java.time.temporal.WeekFields;
+import java.util.Arrays;
 
 public class TimeUtils {
 
+    private static final long MIN_COUNTED_INTERVAL_MS = 1000;
+
+    /**
+     * Splits [startTs, endTs) into aggregation intervals and returns their boundaries:
+     * the i-th interval is [bounds[i], bounds[i + 1]), the last boundary is always the (adjusted) end of the period.
+     *
+     * Sub-second milliseconds intervals are counted against maxIntervals in 1 second steps, the same way the query is validated
+     * by the timeseries service, so the number of allocated intervals is bounded by 1000 * maxIntervals.
+     *
+     * @throws IncorrectParameterException if the interval is not positive or the period is split into more than maxIntervals intervals
+     */
+    public static long[] calculateIntervalBounds(long startTs, long endTs, IntervalType intervalType, long interval, ZoneId tzId, long maxIntervals) {
+        long endPeriod = Math.max(startTs + 1, endTs);
+        if (IntervalType.MILLISECONDS.equals(intervalType)) {
+            if (interval <= 0) {
+                throw new IncorrectParameterException("Incorrect TsKvQuery. Interval must be positive - " + interval + ".");
+            }
+            long period = endPeriod - startTs;
+            validateIntervalCount(period < 0 ? period : period / Math.max(interval, MIN_COUNTED_INTERVAL_MS), maxIntervals);
+            long intervalCount = (period - 1) / interval + 1;
+            validateIntervalCount(intervalCount, Integer.MAX_VALUE - 1);
+            int count = (int) intervalCount;
+            long[] bounds = new long[count + 1];
+            for (int i = 0; i < count; i++) {
+                bounds[i] = startTs + i * interval;
+            }
+            bounds[count] = endPeriod;
+            return bounds;
+        }
+        long[] bounds = new long[16];
+        int count = 0;
+        long startPeriod = startTs;
+        while (startPeriod < endPeriod) {
+            validateIntervalCount(count + 1, maxIntervals);
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[count++] = startPeriod;
+            startPeriod = Math.min(calculateIntervalEnd(startPeriod, intervalType, tzId), endPeriod);
+        }
+        bounds = Arrays.copyOf(bounds, count + 1);
+        bounds[count] = endPeriod;
+        return bounds;
+    }
+
+    private static void validateIntervalCount(long intervalCount, long maxIntervals) {
+        // a negative count means that the period is too long to be represented in milliseconds
+        if (intervalCount > maxIntervals || intervalCount < 0) {
+            throw new IncorrectParameterException("Incorrect TsKvQuery. Number of intervals is to high - " + intervalCount + ". " +
+                    "Please increase 'interval' parameter for your query or reduce the time range of the query.");
+        }
+    }
+
     public static long calculateIntervalEnd(long startTs, IntervalType intervalType, ZoneId tzId) {
         var startTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(startTs), tzId);
         switch (intervalType) {
@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.dictionary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EntityKeysCatalogTest {
+
+    private static final int SERVER = 1;
+    private static final int SHARED = 2;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceId device1 = new DeviceId(UUID.randomUUID());
+    private final DeviceId device2 = new DeviceId(UUID.randomUUID());
+
+    private EntityKeysCatalog catalog;
+    private Map<EntityId, Map<String, Integer>> db;
+    private List<List<EntityId>> loads;
+
+    @BeforeEach
+    public void setUp() {
+        catalog = new EntityKeysCatalog(60, 1000, 100);
+        db = new HashMap<>();
+        loads = new ArrayList<>();
+    }
+
+    @Test
+    public void testKeysAreLoadedOnceForAllMissingEntities() {
+        db.put(device1, Map.of("b", SERVER, "a", SHARED));
+        db.put(device2, Map.of("c", SERVER));
+
+        assertThat(catalog.getKeys(List.of(device1, device2), EntityKeysCatalog.ALL_GROUPS, loader())).containsExactly("a", "b", "c");
+        assertThat(catalog.getKeys(List.of(device1, device2), EntityKeysCatalog.ALL_GROUPS, loader())).containsExactly("a", "b", "c");
+        assertThat(catalog.getKeys(List.of(device1), SERVER, loader())).containsExactly("b");
+
+        assertThat(loads).containsExactly(List.of(device1, device2));
+    }
+
+    @Test
+    public void testSavesAndRemovalsUpdateLoadedEntities() {
+        db.put(device1, Map.of("a", SERVER));
+        catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, loader());
+
+        catalog.onKeysSaved(device1, List.of("a", "b"), SHARED);
+        assertThat(catalog.getKeys(List.of(device1), SHARED, loader())).containsExactly("a", "b");
+
+        catalog.onKeysRemoved(device1, List.of("a"), SHARED);
+        assertThat(catalog.getKeys(List.of(device1), SHARED, loader())).containsExactly("b");
+        assertThat(catalog.getKeys(List.of(device1), SERVER, loader())).containsExactly("a");
+
+        catalog.onKeysRemoved(device1, List.of("a"), SERVER);
+        assertThat(catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, loader())).containsExactly("b");
+        assertThat(loads).hasSize(1);
+    }
+
+    @Test
+    public void testSaveDuringLoadIsMergedIntoLoadedKeys() {
+        db.put(device1, Map.of("a", SERVER));
+
+        List<String> keys = catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, ids -> {
+            catalog.onKeysSaved(device1, List.of("b"), SERVER);
+            return loader().apply(ids);
+        });
+
+        assertThat(keys).containsExactly("a", "b");
+        assertThat(catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, loader())).containsExactly("a", "b");
+    }
+
+    @Test
+    public void testRemovalDuringLoadIsNotCached() {
+        db.put(device1, Map.of("a", SERVER));
+
+        catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, ids -> {
+            catalog.onKeysRemoved(device1, List.of("a"), SERVER);
+            return loader().apply(ids);
+        });
+        db.put(device1, Map.of());
+
+        assertThat(catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, loader())).isEmpty();
+    }
+
+    @Test
+    public void testEvictedEntityIsReloaded() {
+        db.put(device1, Map.of("a", SERVER));
+        catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, loader());
+
+        catalog.evict(device1);
+        db.put(device1, Map.of("b", SERVER));
+
+        assertThat(catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, loader())).containsExactly("b");
+        assertThat(loads).hasSize(2);
+    }
+
+    @Test
+    public void testFailedLoadIsRetried() {
+        assertThatThrownBy(() -> catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, ids -> {
+            throw new IllegalStateException("DB is down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        db.put(device1, Map.of("a", SERVER));
+        assertThat(catalog.getKeys(List.of(device1), EntityKeysCatalog.ALL_GROUPS, loader())).containsExactly("a");
+    }
+
+    @Test
+    public void testProfileKeysAreCached() {
+        DeviceProfileId profileId = new DeviceProfileId(UUID.randomUUID());
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(catalog.getProfileKeys(tenantId, profileId, () -> {
+            calls.incrementAndGet();
+            return List.of("a", "b");
+        })).containsExactly("a", "b");
+        assertThat(catalog.getProfileKeys(tenantId, profileId, () -> {
+            calls.incrementAndGet();
+            return List.of("c");
+        })).containsExactly("a", "b");
+        catalog.getProfileKeys(tenantId, null, List::of);
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    private Function<List<EntityId>, Map<EntityId, Map<String, Integer>>> loader() {
+        return ids -> {
+            loads.add(List.copyOf(ids));
+            Map<EntityId, Map<String, Integer>> result = new HashMap<>();
+            ids.forEach(id -> {
+                if (db.containsKey(id)) {
+                    result.put(id, db.get(id));
+                }
+            });
+            return result;
+        };
+    }
+
+}
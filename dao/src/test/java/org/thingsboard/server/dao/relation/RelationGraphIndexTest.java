@@ -0,0 +1,149 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.relation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+import org.thingsboard.server.dao.sql.relation.JpaRelationQueryExecutorService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RelationGraphIndexTest {
+
+    private static final BiPredicate<String, EntityType> ANY = (type, entityType) -> true;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final Map<EntityId, List<EntityRelation>> relations = new HashMap<>();
+    private RelationDao relationDao;
+    private RelationGraphIndex index;
+
+    private final AssetId building = new AssetId(UUID.randomUUID());
+    private final AssetId floor1 = new AssetId(UUID.randomUUID());
+    private final AssetId floor2 = new AssetId(UUID.randomUUID());
+    private final AssetId room = new AssetId(UUID.randomUUID());
+    private final DeviceId sensor1 = new DeviceId(UUID.randomUUID());
+    private final DeviceId sensor2 = new DeviceId(UUID.randomUUID());
+
+    @BeforeEach
+    public void setUp() {
+        relationDao = mock(RelationDao.class);
+        when(relationDao.findAllByFrom(any(), any(), eq(RelationTypeGroup.COMMON))).thenAnswer(inv ->
+                new ArrayList<>(relations.getOrDefault(inv.getArgument(1), List.of())));
+        index = new RelationGraphIndex(relationDao, mock(JpaRelationQueryExecutorService.class));
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "maxTenants", 10);
+        ReflectionTestUtils.setField(index, "maxEntitiesPerTenant", 1000);
+        ReflectionTestUtils.setField(index, "tenantTtlSec", 60L);
+        ReflectionTestUtils.setField(index, "maxTraversalSteps", 1000);
+        index.init();
+
+        addRelation(building, floor1, EntityRelation.CONTAINS_TYPE);
+        addRelation(building, floor2, EntityRelation.CONTAINS_TYPE);
+        addRelation(floor1, room, EntityRelation.CONTAINS_TYPE);
+        addRelation(room, sensor1, EntityRelation.CONTAINS_TYPE);
+        addRelation(floor2, sensor2, EntityRelation.MANAGES_TYPE);
+    }
+
+    @Test
+    public void testColdTenantIsReportedAsMiss() {
+        assertThat(index.findRelations(tenantId, List.of(building), EntitySearchDirection.FROM, 5, 5, false, ANY)).isNull();
+
+        index.warmUp(tenantId, List.of(building), EntitySearchDirection.FROM, 5);
+
+        assertThat(targets(index.findRelations(tenantId, List.of(building), EntitySearchDirection.FROM, 5, 5, false, ANY)))
+                .containsExactlyInAnyOrder(floor1, floor2, room, sensor1, sensor2);
+    }
+
+    @Test
+    public void testLevelAndTypeFilters() {
+        index.warmUp(tenantId, List.of(building), EntitySearchDirection.FROM, 5);
+
+        assertThat(targets(index.findRelations(tenantId, List.of(building), EntitySearchDirection.FROM, 2, 2, false, ANY)))
+                .containsExactlyInAnyOrder(floor1, floor2, room, sensor2);
+        assertThat(targets(index.findRelations(tenantId, List.of(building), EntitySearchDirection.FROM, 5, 5, false,
+                (type, entityType) -> entityType == EntityType.DEVICE && EntityRelation.CONTAINS_TYPE.equals(type))))
+                .containsExactly(sensor1);
+    }
+
+    @Test
+    public void testFetchLastLevelOnly() {
+        index.warmUp(tenantId, List.of(building), EntitySearchDirection.FROM, 5);
+
+        // sensor2 is a leaf on the second level, room is on the last level
+        assertThat(targets(index.findRelations(tenantId, List.of(building), EntitySearchDirection.FROM, 2, 2, true, ANY)))
+                .containsExactlyInAnyOrder(room, sensor2);
+        assertThat(targets(index.findRelations(tenantId, List.of(building), EntitySearchDirection.FROM, 5, 0, true, ANY)))
+                .containsExactlyInAnyOrder(sensor1, sensor2);
+    }
+
+    @Test
+    public void testCyclesAreTraversedOnce() {
+        addRelation(sensor1, building, EntityRelation.CONTAINS_TYPE);
+        index.warmUp(tenantId, List.of(building), EntitySearchDirection.FROM, 10);
+
+        List<EntityRelation> result = index.findRelations(tenantId, List.of(building), EntitySearchDirection.FROM, 10, 10, false, ANY);
+        assertThat(result).hasSize(6);
+        assertThat(targets(result)).contains(building);
+    }
+
+    @Test
+    public void testInvalidateReloadsChangedEntity() {
+        index.warmUp(tenantId, List.of(building), EntitySearchDirection.FROM, 5);
+        verify(relationDao, times(1)).findAllByFrom(any(), eq(room), eq(RelationTypeGroup.COMMON));
+
+        DeviceId sensor3 = new DeviceId(UUID.randomUUID());
+        EntityRelation relation = addRelation(room, sensor3, EntityRelation.CONTAINS_TYPE);
+        index.invalidate(EntityRelationEvent.from(relation));
+
+        assertThat(index.findRelations(tenantId, List.of(building), EntitySearchDirection.FROM, 5, 5, false, ANY)).isNull();
+        assertThat(targets(index.getRelations(tenantId, room, EntitySearchDirection.FROM))).containsExactlyInAnyOrder(sensor1, sensor3);
+        verify(relationDao, times(2)).findAllByFrom(any(), eq(room), eq(RelationTypeGroup.COMMON));
+    }
+
+    private EntityRelation addRelation(EntityId from, EntityId to, String type) {
+        EntityRelation relation = new EntityRelation(from, to, type);
+        relations.computeIfAbsent(from, id -> new ArrayList<>()).add(relation);
+        return relation;
+    }
+
+    private static List<EntityId> targets(List<EntityRelation> relations) {
+        return relations.stream().map(EntityRelation::getTo).collect(Collectors.toList());
+    }
+
+}
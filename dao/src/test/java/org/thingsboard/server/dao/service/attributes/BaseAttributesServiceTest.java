@@ -241,6 +241,32 @@ public abstract class BaseAttributesServiceTest extends AbstractServiceTest {
         });
     }
 
+    @Test
+    public void testFindAllAfterUpdateAndRemove() throws Exception {
+        var tenantId = new TenantId(UUID.randomUUID());
+        var deviceId = new DeviceId(UUID.randomUUID());
+        var scope = AttributeScope.SERVER_SCOPE;
+
+        Assert.assertTrue(attributesService.findAll(tenantId, deviceId, scope).get(10, TimeUnit.SECONDS).isEmpty());
+
+        saveAttribute(tenantId, deviceId, scope, "TEST1", OLD_VALUE);
+        List<AttributeKvEntry> all = attributesService.findAll(tenantId, deviceId, scope).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(1, all.size());
+        Assert.assertEquals(OLD_VALUE, all.get(0).getValueAsString());
+
+        saveAttribute(tenantId, deviceId, scope, "TEST1", NEW_VALUE);
+        saveAttribute(tenantId, deviceId, scope, "TEST2", NEW_VALUE);
+        all = attributesService.findAll(tenantId, deviceId, scope).get(10, TimeUnit.SECONDS);
+        assertThat(all).extracting(AttributeKvEntry::getKey).containsExactlyInAnyOrder("TEST1", "TEST2");
+        assertThat(all).extracting(AttributeKvEntry::getValueAsString).containsOnly(NEW_VALUE);
+
+        attributesService.removeAll(tenantId, deviceId, scope, List.of("TEST1")).get(10, TimeUnit.SECONDS);
+        all = attributesService.findAll(tenantId, deviceId, scope).get(10, TimeUnit.SECONDS);
+        assertThat(all).extracting(AttributeKvEntry::getKey).containsExactly("TEST2");
+        Assert.assertTrue(attributesService.find(tenantId, deviceId, scope, "TEST1").get(10, TimeUnit.SECONDS).isEmpty());
+        Assert.assertEquals(List.of(NEW_VALUE), getAttributeValues(tenantId, deviceId, scope, Arrays.asList("TEST1", "TEST2")));
+    }
+
     private void testConcurrentFetchAndUpdate(TenantId tenantId, DeviceId deviceId, ListeningExecutorService pool) throws Exception {
         var scope = AttributeScope.SERVER_SCOPE;
         var key = "TEST";
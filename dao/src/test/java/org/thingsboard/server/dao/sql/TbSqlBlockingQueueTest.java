@@ -0,0 +1,176 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.stats.MessagesStats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+public class TbSqlBlockingQueueTest {
+
+    private ScheduledLogExecutorComponent logExecutor;
+    private TbSqlBlockingQueue<Integer, Integer> queue;
+
+    @BeforeEach
+    public void setUp() {
+        logExecutor = new ScheduledLogExecutorComponent();
+        logExecutor.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (queue != null) {
+            queue.destroy();
+        }
+        logExecutor.stop();
+    }
+
+    @Test
+    public void givenFastSavesWithBacklog_whenBatchesAreFull_thenBatchSizeGrowsUpToLimit() {
+        TbSqlAdaptiveBatchSizer sizer = new TbSqlAdaptiveBatchSizer(params(100, 3, 50));
+
+        sizer.onBatchSaved(100, 5, 1000);
+        assertThat(sizer.getBatchSize()).isEqualTo(200);
+        sizer.onBatchSaved(200, 5, 1000);
+        sizer.onBatchSaved(300, 5, 1000);
+        assertThat(sizer.getBatchSize()).isEqualTo(300);
+
+        sizer.onBatchSaved(120, 5, 0);
+        assertThat(sizer.getBatchSize()).isEqualTo(300);
+    }
+
+    @Test
+    public void givenSlowSave_whenBatchSaved_thenBatchSizeIsHalvedDownToConfiguredSize() {
+        TbSqlAdaptiveBatchSizer sizer = new TbSqlAdaptiveBatchSizer(params(100, 4, 50));
+        sizer.onBatchSaved(100, 5, 1000);
+        sizer.onBatchSaved(200, 5, 1000);
+        sizer.onBatchSaved(300, 5, 1000);
+        assertThat(sizer.getBatchSize()).isEqualTo(400);
+
+        sizer.onBatchSaved(400, 80, 1000);
+        assertThat(sizer.getBatchSize()).isEqualTo(200);
+        sizer.onBatchSaved(200, 80, 1000);
+        sizer.onBatchSaved(100, 80, 1000);
+        assertThat(sizer.getBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    public void givenSaveLatency_whenBatchSaved_thenDelayFollowsLatencyCappedByMaxDelay() {
+        TbSqlAdaptiveBatchSizer sizer = new TbSqlAdaptiveBatchSizer(params(100, 4, 50));
+        assertThat(sizer.getDelay()).isEqualTo(20);
+
+        sizer.onBatchSaved(1, 2, 0);
+        assertThat(sizer.getDelay()).isEqualTo(2);
+
+        for (int i = 0; i < 50; i++) {
+            sizer.onBatchSaved(100, 200, 0);
+        }
+        assertThat(sizer.getDelay()).isEqualTo(20);
+    }
+
+    @Test
+    public void givenBoundedQueueIsFull_whenAdd_thenElementIsRejected() {
+        queue = new TbSqlBlockingQueue<>(TbSqlBlockingQueueParams.builder()
+                .logName("Test").batchSize(10).maxDelay(20)
+                .capacity(1).offerTimeoutMs(10)
+                .build(), mock(MessagesStats.class));
+
+        ListenableFuture<Integer> accepted = queue.add(1);
+        ListenableFuture<Integer> rejected = queue.add(2);
+
+        assertThat(accepted).isNotDone();
+        assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void givenAdaptiveQueue_whenElementsAdded_thenAllAreSaved() throws Exception {
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("Test").batchSize(10).maxDelay(20).statsPrintIntervalMs(TimeUnit.MINUTES.toMillis(1))
+                .withResponse(true)
+                .adaptive(true).targetLatencyMs(50).maxBatchSizeFactor(4)
+                .capacity(1000).offerTimeoutMs(1000)
+                .build();
+        queue = new TbSqlBlockingQueue<>(params, mock(MessagesStats.class));
+        queue.init(logExecutor, entities -> entities, Comparator.naturalOrder(), entities -> entities, 0);
+
+        List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(queue.add(i));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(i);
+        }
+        assertThat(queue.getBatchFillRatio().get()).isPositive();
+    }
+
+    @Test
+    public void givenSlowSave_whenElementsAdded_thenQueueSizeIsUpToDate() throws Exception {
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("Test").batchSize(10).maxDelay(20).statsPrintIntervalMs(TimeUnit.MINUTES.toMillis(1))
+                .build();
+        queue = new TbSqlBlockingQueue<>(params, mock(MessagesStats.class));
+        CountDownLatch saveStarted = new CountDownLatch(1);
+        CountDownLatch saveReleased = new CountDownLatch(1);
+        queue.init(logExecutor, entities -> {
+            saveStarted.countDown();
+            try {
+                saveReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return entities;
+        }, Comparator.naturalOrder(), entities -> entities, 0);
+
+        ListenableFuture<Integer> first = queue.add(0);
+        assertThat(saveStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 5; i++) {
+            queue.add(i);
+        }
+        assertThat(queue.getQueueSize().get()).isEqualTo(5);
+
+        saveReleased.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        await().atMost(10, TimeUnit.SECONDS).until(() -> queue.getQueueSize().get() == 0);
+    }
+
+    private TbSqlBlockingQueueParams params(int batchSize, int maxBatchSizeFactor, long targetLatencyMs) {
+        return TbSqlBlockingQueueParams.builder()
+                .logName("Test")
+                .batchSize(batchSize)
+                .maxDelay(20)
+                .adaptive(true)
+                .targetLatencyMs(targetLatencyMs)
+                .maxBatchSizeFactor(maxBatchSizeFactor)
+                .build();
+    }
+
+}
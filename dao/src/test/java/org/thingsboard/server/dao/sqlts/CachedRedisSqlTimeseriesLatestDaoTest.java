@@ -0,0 +1,118 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.SimpleTbCacheValueWrapper;
+import org.thingsboard.server.cache.TbCacheValueWrapper;
+import org.thingsboard.server.cache.VersionedTbCache;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.cache.CacheExecutorService;
+import org.thingsboard.server.dao.timeseries.TsLatestCacheKey;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+public class CachedRedisSqlTimeseriesLatestDaoTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceId firstDeviceId = new DeviceId(UUID.randomUUID());
+    private final DeviceId secondDeviceId = new DeviceId(UUID.randomUUID());
+
+    private CacheExecutorService cacheExecutorService;
+    private SqlTimeseriesLatestDao sqlDao;
+    private VersionedTbCache<TsLatestCacheKey, TsKvEntry> cache;
+    private CachedRedisSqlTimeseriesLatestDao dao;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        cacheExecutorService = new CacheExecutorService();
+        ReflectionTestUtils.setField(cacheExecutorService, "poolSize", 1);
+        cacheExecutorService.init();
+        sqlDao = mock(SqlTimeseriesLatestDao.class);
+        cache = mock(VersionedTbCache.class);
+        dao = new CachedRedisSqlTimeseriesLatestDao(cacheExecutorService, sqlDao, mock(StatsFactory.class), cache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cacheExecutorService.destroy();
+    }
+
+    @Test
+    public void givenAllKeysCached_whenFindLatest_thenSqlIsNotQueried() throws Exception {
+        TsKvEntry entry = createEntry("temperature", 1000);
+        given(cache.getAll(anyCollection())).willReturn(Map.of(
+                new TsLatestCacheKey(firstDeviceId, "temperature"), SimpleTbCacheValueWrapper.wrap(entry),
+                new TsLatestCacheKey(secondDeviceId, "temperature"), SimpleTbCacheValueWrapper.empty()));
+
+        Map<EntityId, List<TsKvEntry>> result = dao.findLatest(tenantId, Map.of(
+                firstDeviceId, List.of("temperature"),
+                secondDeviceId, List.of("temperature"))).get();
+
+        assertThat(result).containsOnlyKeys(firstDeviceId);
+        assertThat(result.get(firstDeviceId)).containsExactly(entry);
+        then(sqlDao).should(never()).findLatest(any(), anyMap());
+    }
+
+    @Test
+    public void givenCacheMisses_whenFindLatest_thenMissesAreLoadedInBulkAndCached() throws Exception {
+        TsKvEntry cached = createEntry("temperature", 1000);
+        TsKvEntry loaded = createEntry("humidity", 2000);
+        Map<TsLatestCacheKey, TbCacheValueWrapper<TsKvEntry>> cachedValues = Map.of(
+                new TsLatestCacheKey(firstDeviceId, "temperature"), SimpleTbCacheValueWrapper.wrap(cached));
+        given(cache.getAll(anyCollection())).willReturn(cachedValues);
+        given(sqlDao.findLatest(eq(tenantId), anyMap())).willReturn(Futures.immediateFuture(Map.of(secondDeviceId, List.of(loaded))));
+
+        Map<EntityId, List<TsKvEntry>> result = dao.findLatest(tenantId, Map.of(
+                firstDeviceId, List.of("temperature"),
+                secondDeviceId, List.of("humidity", "pressure"))).get();
+
+        assertThat(result.get(firstDeviceId)).containsExactly(cached);
+        assertThat(result.get(secondDeviceId)).containsExactly(loaded);
+        then(sqlDao).should().findLatest(tenantId, Map.of(secondDeviceId, List.of("humidity", "pressure")));
+        then(cache).should().put(new TsLatestCacheKey(secondDeviceId, "humidity"), loaded);
+        then(cache).should().put(eq(new TsLatestCacheKey(secondDeviceId, "pressure")), isNull());
+    }
+
+    private TsKvEntry createEntry(String key, long ts) {
+        return new BasicTsKvEntry(ts, new LongDataEntry(key, ts), ts);
+    }
+
+}
@@ -21,6 +21,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
 import org.thingsboard.server.common.data.kv.StringDataEntry;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
@@ -30,6 +31,7 @@ import org.thingsboard.server.dao.timeseries.TimeseriesLatestDao;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -102,6 +104,30 @@ public class SqlTimeseriesLatestDaoTest extends AbstractServiceTest {
         }
     }
 
+    @Test
+    public void findLatestForMultipleEntitiesTest() throws Exception {
+        DeviceId firstDeviceId = new DeviceId(UUID.randomUUID());
+        DeviceId secondDeviceId = new DeviceId(UUID.randomUUID());
+        DeviceId emptyDeviceId = new DeviceId(UUID.randomUUID());
+        var firstEntry = createEntry("key_1", 1000);
+        var secondEntry = createEntry("key_2", 2000);
+        timeseriesLatestDao.saveLatest(tenantId, firstDeviceId, firstEntry).get();
+        timeseriesLatestDao.saveLatest(tenantId, firstDeviceId, createEntry("key_2", 1500)).get();
+        timeseriesLatestDao.saveLatest(tenantId, secondDeviceId, secondEntry).get();
+
+        Map<EntityId, List<TsKvEntry>> found = timeseriesLatestDao.findLatest(tenantId, Map.of(
+                firstDeviceId, List.of("key_1"),
+                secondDeviceId, List.of("key_1", "key_2"),
+                emptyDeviceId, List.of("key_1"))).get();
+
+        assertEquals(2, found.size());
+        assertEquals(1, found.get(firstDeviceId).size());
+        equalsIgnoreVersion(firstEntry, found.get(firstDeviceId).get(0));
+        assertEquals(1, found.get(secondDeviceId).size());
+        equalsIgnoreVersion(secondEntry, found.get(secondDeviceId).get(0));
+        assertNotNull(found.get(secondDeviceId).get(0).getVersion());
+    }
+
     private TsKvEntry createEntry(String key, long ts) {
         return new BasicTsKvEntry(ts, new StringDataEntry(key, RandomStringUtils.random(10)));
     }
@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sqlts.dictionary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.dao.model.sqlts.dictionary.KeyDictionaryEntry;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class JpaKeyDictionaryDaoTest {
+
+    private KeyDictionaryRepository repository;
+    private JpaKeyDictionaryDao dao;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(KeyDictionaryRepository.class);
+        dao = new JpaKeyDictionaryDao(repository);
+    }
+
+    @Test
+    void givenPreloadedDictionary_whenResolveKeys_thenNoLookupsById() {
+        given(repository.findAll()).willReturn(List.of(entry("temperature", 1), entry("humidity", 2), entry("sparse", 5_000_000)));
+
+        assertThat(dao.getKey(1)).isEqualTo("temperature");
+        assertThat(dao.getKey(2)).isEqualTo("humidity");
+        assertThat(dao.getKey(5_000_000)).isEqualTo("sparse");
+        assertThat(dao.getOrSaveKeyId("humidity")).isEqualTo(2);
+
+        verify(repository, times(1)).findAll();
+        verify(repository, never()).findByKeyId(anyInt());
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void givenNewKey_whenSaved_thenResolvedFromCache() {
+        given(repository.findAll()).willReturn(List.of());
+        given(repository.findById(any())).willReturn(Optional.empty());
+        given(repository.save(any())).willReturn(entry("pressure", 2048));
+
+        assertThat(dao.getOrSaveKeyId("pressure")).isEqualTo(2048);
+        assertThat(dao.getOrSaveKeyId("pressure")).isEqualTo(2048);
+        assertThat(dao.getKey(2048)).isEqualTo("pressure");
+
+        verify(repository, times(1)).save(any());
+        verify(repository, never()).findByKeyId(anyInt());
+    }
+
+    @Test
+    void givenKeyCreatedByOtherNode_whenResolveById_thenLoadedOnce() {
+        given(repository.findAll()).willReturn(List.of());
+        given(repository.findByKeyId(7)).willReturn(Optional.of(entry("voltage", 7)));
+
+        assertThat(dao.getKey(7)).isEqualTo("voltage");
+        assertThat(dao.getKey(7)).isEqualTo("voltage");
+        assertThat(dao.getKey(8)).isNull();
+
+        verify(repository, times(1)).findByKeyId(7);
+    }
+
+    private static KeyDictionaryEntry entry(String key, int keyId) {
+        KeyDictionaryEntry entry = new KeyDictionaryEntry();
+        entry.setKey(key);
+        entry.setKeyId(keyId);
+        return entry;
+    }
+
+}
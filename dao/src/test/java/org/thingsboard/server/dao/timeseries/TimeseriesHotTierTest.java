@@ -0,0 +1,187 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.AggregationParams;
+import org.thingsboard.server.common.data.kv.BaseReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
+import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeseriesHotTierTest {
+
+    private static final String KEY = "temperature";
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    @Test
+    public void givenRandomValues_whenBlockDecoded_thenValuesAreEqual() {
+        Random random = new Random(42);
+        CompressedTsBlock block = new CompressedTsBlock(1000);
+        List<long[]> points = new ArrayList<>();
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            ts += switch (i % 4) {
+                case 0 -> 1000;
+                case 1 -> random.nextInt(100);
+                case 2 -> random.nextInt(100_000);
+                default -> random.nextLong(1L << 40);
+            };
+            boolean isDouble = random.nextBoolean();
+            long bits = isDouble ? Double.doubleToRawLongBits(random.nextGaussian() * 100) : random.nextLong();
+            block.append(ts, isDouble, bits);
+            points.add(new long[]{ts, isDouble ? 1 : 0, bits});
+        }
+
+        List<long[]> decoded = new ArrayList<>();
+        block.forEach((pointTs, isDouble, bits) -> decoded.add(new long[]{pointTs, isDouble ? 1 : 0, bits}));
+
+        assertThat(decoded).hasSize(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertThat(decoded.get(i)).containsExactly(points.get(i));
+        }
+    }
+
+    @Test
+    public void givenRegularSeries_whenBlockFull_thenItIsCompressed() {
+        CompressedTsBlock block = new CompressedTsBlock(128);
+        long ts = 1_700_000_000_000L;
+        for (int i = 0; i < 128; i++) {
+            block.append(ts + i * 1000L, true, Double.doubleToRawLongBits(20.0 + (i % 4) * 0.5));
+        }
+        assertThat(block.isFull()).isTrue();
+        assertThat(block.getSizeInBytes()).isLessThan(128 * 16 / 4);
+    }
+
+    @Test
+    public void givenCoveredRange_whenFindRaw_thenAnsweredFromMemory() throws Exception {
+        TimeseriesHotTier hotTier = new TimeseriesHotTier(3_600_000, 1000, 4, true, 700);
+        long now = futureTs();
+        for (int i = 0; i < 10; i++) {
+            hotTier.onSaved(deviceId, new BasicTsKvEntry(now + i, new LongDataEntry(KEY, (long) i)), 0);
+        }
+
+        ReadTsKvQueryResult result = hotTier.findAllAsync(deviceId, new BaseReadTsKvQuery(KEY, now, now + 100, 3, "DESC"), failingDao()).get();
+
+        assertThat(result.getData()).extracting(TsKvEntry::getLongValue).containsExactly(
+                Optional.of(9L), Optional.of(8L), Optional.of(7L));
+        assertThat(result.getLastEntryTs()).isEqualTo(now + 9);
+    }
+
+    @Test
+    public void givenPartiallyCoveredRange_whenFindRaw_thenOlderPartIsReadFromDao() throws Exception {
+        TimeseriesHotTier hotTier = new TimeseriesHotTier(3_600_000, 1000, 4, true, 700);
+        long now = futureTs();
+        hotTier.onSaved(deviceId, new BasicTsKvEntry(now, new DoubleDataEntry(KEY, 1.5)), 0);
+        hotTier.onSaved(deviceId, new BasicTsKvEntry(now + 10, new DoubleDataEntry(KEY, 2.5)), 0);
+        TsKvEntry older = new BasicTsKvEntry(now - 1000, new DoubleDataEntry(KEY, 0.5));
+        AtomicReference<ReadTsKvQuery> daoQuery = new AtomicReference<>();
+
+        ReadTsKvQueryResult result = hotTier.findAllAsync(deviceId, new BaseReadTsKvQuery(KEY, now - 60_000, now + 60_000, 10, "ASC"), query -> {
+            daoQuery.set(query);
+            return Futures.immediateFuture(new ReadTsKvQueryResult(query.getId(), List.of(older), older.getTs()));
+        }).get();
+
+        assertThat(daoQuery.get().getStartTs()).isEqualTo(now - 60_000);
+        assertThat(daoQuery.get().getEndTs()).isEqualTo(now);
+        assertThat(result.getData()).extracting(TsKvEntry::getTs).containsExactly(now - 1000, now, now + 10);
+    }
+
+    @Test
+    public void givenOutOfOrderPoint_whenFind_thenCoverageMovesPastLastPoint() throws Exception {
+        TimeseriesHotTier hotTier = new TimeseriesHotTier(3_600_000, 1000, 4, true, 700);
+        long now = futureTs();
+        hotTier.onSaved(deviceId, new BasicTsKvEntry(now + 10, new LongDataEntry(KEY, 1L)), 0);
+        hotTier.onSaved(deviceId, new BasicTsKvEntry(now + 5, new LongDataEntry(KEY, 2L)), 0);
+        hotTier.onSaved(deviceId, new BasicTsKvEntry(now + 20, new LongDataEntry(KEY, 3L)), 0);
+        AtomicReference<ReadTsKvQuery> daoQuery = new AtomicReference<>();
+
+        ReadTsKvQueryResult result = hotTier.findAllAsync(deviceId, new BaseReadTsKvQuery(KEY, now, now + 100, 10, "DESC"), query -> {
+            daoQuery.set(query);
+            return Futures.immediateFuture(new ReadTsKvQueryResult(query.getId(), List.of(
+                    new BasicTsKvEntry(now + 10, new LongDataEntry(KEY, 1L)),
+                    new BasicTsKvEntry(now + 5, new LongDataEntry(KEY, 2L))), now + 10));
+        }).get();
+
+        assertThat(daoQuery.get().getEndTs()).isEqualTo(now + 11);
+        assertThat(result.getData()).extracting(TsKvEntry::getTs).containsExactly(now + 20, now + 10, now + 5);
+    }
+
+    @Test
+    public void givenNonNumericSeries_whenFind_thenDaoIsUsed() throws Exception {
+        TimeseriesHotTier hotTier = new TimeseriesHotTier(3_600_000, 1000, 4, true, 700);
+        long now = futureTs();
+        hotTier.onSaved(deviceId, new BasicTsKvEntry(now, new StringDataEntry(KEY, "on")), 0);
+        ReadTsKvQuery query = new BaseReadTsKvQuery(KEY, now, now + 100, 10, "DESC");
+        ReadTsKvQueryResult daoResult = new ReadTsKvQueryResult(query.getId(), List.of(), now);
+
+        assertThat(hotTier.findAllAsync(deviceId, query, q -> Futures.immediateFuture(daoResult)).get()).isSameAs(daoResult);
+    }
+
+    @Test
+    public void givenCoveredRange_whenFindAggregated_thenBucketsAreCalculatedInMemory() throws Exception {
+        TimeseriesHotTier hotTier = new TimeseriesHotTier(3_600_000, 1000, 4, true, 700);
+        long start = futureTs();
+        for (int i = 0; i < 10; i++) {
+            hotTier.onSaved(deviceId, new BasicTsKvEntry(start + i * 100, i % 2 == 0 ? new LongDataEntry(KEY, (long) i) : new DoubleDataEntry(KEY, i + 0.5)), 0);
+        }
+
+        List<TsKvEntry> avg = find(hotTier, start, Aggregation.AVG);
+        assertThat(avg).hasSize(2);
+        assertThat(avg.get(0).getTs()).isEqualTo(start + 250);
+        assertThat(avg.get(0).getDoubleValue()).contains((0 + 1.5 + 2 + 3.5 + 4) / 5);
+        assertThat(find(hotTier, start, Aggregation.SUM).get(1).getDoubleValue()).contains(5.5 + 6 + 7.5 + 8 + 9.5);
+        assertThat(find(hotTier, start, Aggregation.MAX).get(0).getDoubleValue()).contains(4.0);
+        assertThat(find(hotTier, start, Aggregation.MIN).get(1).getDoubleValue()).contains(5.5);
+        assertThat(find(hotTier, start, Aggregation.COUNT).get(1).getLongValue()).contains(5L);
+    }
+
+    private List<TsKvEntry> find(TimeseriesHotTier hotTier, long start, Aggregation aggregation) throws Exception {
+        ReadTsKvQuery query = new BaseReadTsKvQuery(KEY, start, start + 1000, AggregationParams.milliseconds(aggregation, 500), 100, "ASC");
+        return hotTier.findAllAsync(deviceId, query, failingDao()).get().getData();
+    }
+
+    /**
+     * The series covers the points starting from its creation, so the tests use the timestamps after it.
+     */
+    private static long futureTs() {
+        return System.currentTimeMillis() + 60_000;
+    }
+
+    private static Function<ReadTsKvQuery, ListenableFuture<ReadTsKvQueryResult>> failingDao() {
+        return query -> Futures.immediateFailedFuture(new IllegalStateException("Unexpected DAO read: " + query));
+    }
+
+}
@@ -17,10 +17,12 @@ package org.thingsboard.server.dao.util;
 
 import org.junit.jupiter.api.Test;
 import org.thingsboard.server.common.data.kv.IntervalType;
+import org.thingsboard.server.dao.exception.IncorrectParameterException;
 
 import java.time.ZoneId;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class TimeUtilsTest {
 
@@ -57,4 +59,43 @@ class TimeUtilsTest {
         assertThat(TimeUtils.calculateIntervalEnd(ts, IntervalType.QUARTER, ZoneId.of("America/New_York"))).isEqualTo(1711944000000L); // Monday, April 1, 2024 7:00:00 GMT+03:00 DST
     }
 
+    @Test
+    void testMillisecondsIntervalBounds() {
+        assertThat(TimeUtils.calculateIntervalBounds(1, 3000, IntervalType.MILLISECONDS, 2000, ZoneId.of("UTC"), 1000)).containsExactly(1, 2001, 3000);
+        assertThat(TimeUtils.calculateIntervalBounds(1, 3000, IntervalType.MILLISECONDS, 3000, ZoneId.of("UTC"), 1000)).containsExactly(1, 3000);
+        assertThat(TimeUtils.calculateIntervalBounds(0, 0, IntervalType.MILLISECONDS, 1, ZoneId.of("UTC"), 1000)).containsExactly(0, 1);
+        assertThat(TimeUtils.calculateIntervalBounds(1, 3000, IntervalType.MILLISECONDS, Integer.MAX_VALUE, ZoneId.of("UTC"), 1000)).containsExactly(1, 3000);
+        assertThat(TimeUtils.calculateIntervalBounds(1, 3000, IntervalType.MILLISECONDS, 3, ZoneId.of("UTC"), 1000)).hasSize(1001).startsWith(1, 4, 7).endsWith(2998, 3000);
+        // sub-second intervals are counted in 1 second steps: 6000 intervals of 100 ms fit into the limit of 600
+        assertThat(TimeUtils.calculateIntervalBounds(0, 600_000, IntervalType.MILLISECONDS, 100, ZoneId.of("UTC"), 600)).hasSize(6001);
+    }
+
+    @Test
+    void testIntervalBoundsValidation() {
+        assertThatThrownBy(() -> TimeUtils.calculateIntervalBounds(1, 3000, IntervalType.MILLISECONDS, 0, ZoneId.of("UTC"), 1000))
+                .isInstanceOf(IncorrectParameterException.class);
+        assertThatThrownBy(() -> TimeUtils.calculateIntervalBounds(1, 3000, IntervalType.MILLISECONDS, -1, ZoneId.of("UTC"), 1000))
+                .isInstanceOf(IncorrectParameterException.class);
+        assertThatThrownBy(() -> TimeUtils.calculateIntervalBounds(0, 1_000_000, IntervalType.MILLISECONDS, 1000, ZoneId.of("UTC"), 999))
+                .isInstanceOf(IncorrectParameterException.class);
+        assertThatThrownBy(() -> TimeUtils.calculateIntervalBounds(0, 1_000_000, IntervalType.MILLISECONDS, 100, ZoneId.of("UTC"), 999))
+                .isInstanceOf(IncorrectParameterException.class);
+        assertThatThrownBy(() -> TimeUtils.calculateIntervalBounds(Long.MIN_VALUE, Long.MAX_VALUE, IntervalType.MILLISECONDS, 1, ZoneId.of("UTC"), 1000))
+                .isInstanceOf(IncorrectParameterException.class);
+        assertThatThrownBy(() -> TimeUtils.calculateIntervalBounds(1704899727000L, 1711929600000L, IntervalType.MONTH, 0, ZoneId.of("Europe/Kyiv"), 3))
+                .isInstanceOf(IncorrectParameterException.class);
+    }
+
+    @Test
+    void testMonthIntervalBounds() {
+        long startTs = 1704899727000L; // Wednesday, January 10 15:15:27 GMT
+        long endTs = 1711929600000L; // Monday, April 1, 2024 3:00:00 GMT+03:00
+        assertThat(TimeUtils.calculateIntervalBounds(startTs, endTs, IntervalType.MONTH, 0, ZoneId.of("Europe/Kyiv"), 700))
+                .containsExactly(startTs,
+                        1706738400000L, // Thursday, February 1, 2024 0:00:00 GMT+02:00
+                        1709244000000L, // Friday, March 1, 2024 0:00:00 GMT+02:00
+                        1711918800000L, // Monday, April 1, 2024 0:00:00 GMT+03:00 DST
+                        endTs);
+    }
+
 }
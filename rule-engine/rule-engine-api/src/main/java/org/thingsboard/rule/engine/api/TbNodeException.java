@@ -35,6 +35,11 @@ public class TbNodeException extends Exception implements TbActorError {
         this.unrecoverable = unrecoverable;
     }
 
+    public TbNodeException(String message, Throwable cause) {
+        super(message, cause);
+        this.unrecoverable = false;
+    }
+
     public TbNodeException(Exception e) {
         this(e, false);
     }
@@ -15,9 +15,13 @@
  */
 package org.thingsboard.rule.engine.geo;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
 import org.locationtech.spatial4j.context.jts.JtsSpatialContext;
 import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
 import org.thingsboard.common.util.JacksonUtil;
@@ -26,28 +30,82 @@ import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
 import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.server.common.data.AttributeScope;
 import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
 import org.thingsboard.server.common.msg.TbMsg;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+@Slf4j
 public abstract class AbstractGeofencingNode<T extends TbGpsGeofencingFilterNodeConfiguration> implements TbNode {
 
+    private static final int DEFAULT_PERIMETERS_REFRESH_INTERVAL_SEC = 60;
+
     protected T config;
     protected JtsSpatialContext jtsCtx;
 
+    private EntityId perimetersEntityId;
+    private volatile PerimeterIndex perimeterIndex;
+    private volatile long perimeterIndexTs;
+    private final AtomicBoolean perimeterIndexLoading = new AtomicBoolean();
+    // the initial load of the perimeters, null if it is not started or failed
+    private volatile ListenableFuture<PerimeterIndex> perimeterIndexFuture;
+    // messages received before the perimeters are loaded, processed in the order of arrival
+    private final Queue<TbMsg> pendingMsgs = new ArrayDeque<>();
+
     @Override
     public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
         this.config = TbNodeUtils.convert(configuration, getConfigClazz());
         JtsSpatialContextFactory factory = new JtsSpatialContextFactory();
         factory.normWrapLongitude = true;
         jtsCtx = factory.newSpatialContext();
+        if (config.isFetchPerimetersFromRelatedEntities()) {
+            if (StringUtils.isEmpty(config.getPerimeterKeyName())) {
+                throw new TbNodeException("Perimeter key name must be specified to fetch perimeters from related entities!", true);
+            }
+            try {
+                perimetersEntityId = EntityIdFactory.getByTypeAndId(config.getPerimetersEntityType(), config.getPerimetersEntityId());
+            } catch (Exception e) {
+                throw new TbNodeException("Invalid entity to fetch related perimeters: " + config.getPerimetersEntityType() + " " + config.getPerimetersEntityId(), true);
+            }
+            startPerimeterIndexLoad(ctx);
+        }
+    }
+
+    @Override
+    public void onMsg(TbContext ctx, TbMsg msg) throws TbNodeException {
+        if (config.isFetchPerimetersFromRelatedEntities()) {
+            synchronized (pendingMsgs) {
+                if (perimeterIndex == null || !pendingMsgs.isEmpty()) {
+                    pendingMsgs.add(msg);
+                    if (pendingMsgs.size() == 1) {
+                        awaitPerimeterIndex(ctx);
+                    }
+                    return;
+                }
+            }
+        }
+        processMsg(ctx, msg);
     }
 
+    protected abstract void processMsg(TbContext ctx, TbMsg msg) throws TbNodeException;
+
     abstract protected Class<T> getConfigClazz();
 
-    protected boolean checkMatches(TbMsg msg) throws TbNodeException {
+    protected boolean checkMatches(TbContext ctx, TbMsg msg) throws TbNodeException {
         JsonElement msgDataElement = JsonParser.parseString(msg.getData());
         if (!msgDataElement.isJsonObject()) {
             throw new TbNodeException("Incoming Message is not a valid JSON object!");
@@ -55,6 +113,9 @@ public abstract class AbstractGeofencingNode<T extends TbGpsGeofencingFilterNode
         JsonObject msgDataObj = msgDataElement.getAsJsonObject();
         double latitude = getValueFromMessageByName(msg, msgDataObj, config.getLatitudeKeyName());
         double longitude = getValueFromMessageByName(msg, msgDataObj, config.getLongitudeKeyName());
+        if (config.isFetchPerimetersFromRelatedEntities()) {
+            return getPerimeterIndex(ctx).contains(new Coordinates(latitude, longitude));
+        }
         List<Perimeter> perimeters = getPerimeters(msg);
         boolean matches = false;
         for (Perimeter perimeter : perimeters) {
@@ -102,21 +163,7 @@ public abstract class AbstractGeofencingNode<T extends TbGpsGeofencingFilterNode
             } else {
                 String perimeterValue = msg.getMetaData().getValue(config.getPerimeterKeyName());
                 if (!StringUtils.isEmpty(perimeterValue)) {
-                    if (config.getPerimeterType().equals(PerimeterType.POLYGON)) {
-                        Perimeter perimeter = new Perimeter();
-                        perimeter.setPerimeterType(PerimeterType.POLYGON);
-                        perimeter.setPolygonsDefinition(perimeterValue);
-                        return Collections.singletonList(perimeter);
-                    } else {
-                        var circleDef = JacksonUtil.toJsonNode(perimeterValue);
-                        Perimeter perimeter = new Perimeter();
-                        perimeter.setPerimeterType(PerimeterType.CIRCLE);
-                        perimeter.setCenterLatitude(circleDef.get("latitude").asDouble());
-                        perimeter.setCenterLongitude(circleDef.get("longitude").asDouble());
-                        perimeter.setRange(circleDef.get("radius").asDouble());
-                        perimeter.setRangeUnit(circleDef.has("radiusUnit") ? RangeUnit.valueOf(circleDef.get("radiusUnit").asText()) : RangeUnit.METER);
-                        return Collections.singletonList(perimeter);
-                    }
+                    return Collections.singletonList(parsePerimeter(perimeterValue));
                 } else {
                     throw new TbNodeException("Missing perimeter definition!");
                 }
@@ -133,6 +180,159 @@ public abstract class AbstractGeofencingNode<T extends TbGpsGeofencingFilterNode
         }
     }
 
+    private Perimeter parsePerimeter(String perimeterValue) {
+        Perimeter perimeter = new Perimeter();
+        if (config.getPerimeterType().equals(PerimeterType.POLYGON)) {
+            perimeter.setPerimeterType(PerimeterType.POLYGON);
+            perimeter.setPolygonsDefinition(perimeterValue);
+        } else {
+            var circleDef = JacksonUtil.toJsonNode(perimeterValue);
+            perimeter.setPerimeterType(PerimeterType.CIRCLE);
+            perimeter.setCenterLatitude(circleDef.get("latitude").asDouble());
+            perimeter.setCenterLongitude(circleDef.get("longitude").asDouble());
+            perimeter.setRange(circleDef.get("radius").asDouble());
+            perimeter.setRangeUnit(circleDef.has("radiusUnit") ? RangeUnit.valueOf(circleDef.get("radiusUnit").asText()) : RangeUnit.METER);
+        }
+        return perimeter;
+    }
+
+    private ListenableFuture<PerimeterIndex> startPerimeterIndexLoad(TbContext ctx) {
+        ListenableFuture<PerimeterIndex> future = loadPerimeterIndex(ctx);
+        perimeterIndexFuture = future;
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(PerimeterIndex result) {
+                setPerimeterIndex(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                resetPerimeterIndexFuture(future);
+                log.warn("[{}] Failed to load perimeters of the entities related to {}", ctx.getSelfId(), perimetersEntityId, t);
+            }
+        }, ctx.getDbCallbackExecutor());
+        return future;
+    }
+
+    private void awaitPerimeterIndex(TbContext ctx) {
+        ListenableFuture<PerimeterIndex> loading = perimeterIndexFuture;
+        ListenableFuture<PerimeterIndex> future = loading != null ? loading : startPerimeterIndexLoad(ctx);
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(PerimeterIndex result) {
+                setPerimeterIndex(result);
+                processPendingMsgs(ctx);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                resetPerimeterIndexFuture(future);
+                failPendingMsgs(ctx, new TbNodeException("Failed to load perimeters of the entities related to " + perimetersEntityId + "!", t));
+            }
+        }, ctx.getDbCallbackExecutor());
+    }
+
+    // the next message starts a new load
+    private synchronized void resetPerimeterIndexFuture(ListenableFuture<PerimeterIndex> failed) {
+        if (perimeterIndexFuture == failed) {
+            perimeterIndexFuture = null;
+        }
+    }
+
+    private void setPerimeterIndex(PerimeterIndex index) {
+        if (perimeterIndex == null) {
+            perimeterIndexTs = System.currentTimeMillis();
+            perimeterIndex = index;
+        }
+    }
+
+    private void processPendingMsgs(TbContext ctx) {
+        synchronized (pendingMsgs) {
+            TbMsg msg;
+            while ((msg = pendingMsgs.peek()) != null) {
+                try {
+                    processMsg(ctx, msg);
+                } catch (Exception e) {
+                    ctx.tellFailure(msg, e);
+                }
+                // removed after processing, so that the messages received meanwhile are queued behind it
+                pendingMsgs.poll();
+            }
+        }
+    }
+
+    private void failPendingMsgs(TbContext ctx, Throwable t) {
+        synchronized (pendingMsgs) {
+            TbMsg msg;
+            while ((msg = pendingMsgs.poll()) != null) {
+                ctx.tellFailure(msg, t);
+            }
+        }
+    }
+
+    private PerimeterIndex getPerimeterIndex(TbContext ctx) {
+        PerimeterIndex index = perimeterIndex;
+        if (isPerimeterIndexExpired() && perimeterIndexLoading.compareAndSet(false, true)) {
+            // the current index keeps serving messages until the refreshed one is built
+            ListenableFuture<PerimeterIndex> future = loadPerimeterIndex(ctx);
+            future.addListener(() -> perimeterIndexLoading.set(false), ctx.getDbCallbackExecutor());
+            Futures.addCallback(future, new FutureCallback<>() {
+                @Override
+                public void onSuccess(PerimeterIndex result) {
+                    perimeterIndex = result;
+                    perimeterIndexTs = System.currentTimeMillis();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    log.warn("[{}] Failed to refresh perimeters of the entities related to {}", ctx.getSelfId(), perimetersEntityId, t);
+                }
+            }, ctx.getDbCallbackExecutor());
+        }
+        return index;
+    }
+
+    private boolean isPerimeterIndexExpired() {
+        int refreshIntervalSec = config.getPerimetersRefreshIntervalSec() > 0 ?
+                config.getPerimetersRefreshIntervalSec() : DEFAULT_PERIMETERS_REFRESH_INTERVAL_SEC;
+        return System.currentTimeMillis() - perimeterIndexTs > TimeUnit.SECONDS.toMillis(refreshIntervalSec);
+    }
+
+    private ListenableFuture<PerimeterIndex> loadPerimeterIndex(TbContext ctx) {
+        String relationType = StringUtils.isEmpty(config.getPerimetersRelationType()) ? EntityRelation.CONTAINS_TYPE : config.getPerimetersRelationType();
+        boolean fromDirection = config.getPerimetersDirection() != EntitySearchDirection.TO;
+        ListenableFuture<List<EntityRelation>> relationsFuture = fromDirection ?
+                ctx.getRelationService().findByFromAndTypeAsync(ctx.getTenantId(), perimetersEntityId, relationType, RelationTypeGroup.COMMON) :
+                ctx.getRelationService().findByToAndTypeAsync(ctx.getTenantId(), perimetersEntityId, relationType, RelationTypeGroup.COMMON);
+        return Futures.transformAsync(relationsFuture, relations -> {
+            List<ListenableFuture<Optional<AttributeKvEntry>>> attributeFutures = new ArrayList<>(relations.size());
+            for (EntityRelation relation : relations) {
+                EntityId entityId = fromDirection ? relation.getTo() : relation.getFrom();
+                attributeFutures.add(ctx.getAttributesService().find(ctx.getTenantId(), entityId, AttributeScope.SERVER_SCOPE, config.getPerimeterKeyName()));
+            }
+            return Futures.transform(Futures.allAsList(attributeFutures), this::buildPerimeterIndex, ctx.getDbCallbackExecutor());
+        }, ctx.getDbCallbackExecutor());
+    }
+
+    private PerimeterIndex buildPerimeterIndex(List<Optional<AttributeKvEntry>> attributes) {
+        List<Perimeter> perimeters = new ArrayList<>(attributes.size());
+        for (Optional<AttributeKvEntry> attribute : attributes) {
+            if (attribute.isEmpty()) {
+                continue;
+            }
+            try {
+                Perimeter perimeter = parsePerimeter(attribute.get().getValueAsString());
+                if (perimeter.getPerimeterType() == PerimeterType.POLYGON) {
+                    GeoUtil.getPolygons(perimeter.getPolygonsDefinition());
+                }
+                perimeters.add(perimeter);
+            } catch (Exception e) {
+                log.debug("Skipping invalid perimeter definition: {}", attribute.get().getValueAsString(), e);
+            }
+        }
+        return PerimeterIndex.build(perimeters);
+    }
+
     protected Double getValueFromMessageByName(TbMsg msg, JsonObject msgDataObj, String keyName) throws TbNodeException {
         double value;
         if (msgDataObj.has(keyName) && msgDataObj.get(keyName).isJsonPrimitive()) {
@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.geo;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.spatial4j.distance.DistanceUtils;
+
+import java.util.List;
+
+/**
+ * Immutable STR-tree over a large set of perimeters. The tree returns the perimeters whose bounding box
+ * contains the point and only those are checked precisely, so a point is matched against thousands
+ * of perimeters in logarithmic time.
+ */
+public class PerimeterIndex {
+
+    private final STRtree tree;
+    private final int size;
+
+    private PerimeterIndex(STRtree tree, int size) {
+        this.tree = tree;
+        this.size = size;
+    }
+
+    public static PerimeterIndex build(List<Perimeter> perimeters) {
+        STRtree tree = new STRtree();
+        for (Perimeter perimeter : perimeters) {
+            if (perimeter.getPerimeterType() == PerimeterType.CIRCLE) {
+                tree.insert(getCircleEnvelope(perimeter), perimeter);
+            } else {
+                PreparedGeometry polygons = GeoUtil.getPolygons(perimeter.getPolygonsDefinition());
+                tree.insert(polygons.getGeometry().getEnvelopeInternal(), polygons);
+            }
+        }
+        tree.build();
+        return new PerimeterIndex(tree, perimeters.size());
+    }
+
+    public boolean contains(Coordinates coordinates) {
+        Envelope point = new Envelope(coordinates.getLatitude(), coordinates.getLatitude(), coordinates.getLongitude(), coordinates.getLongitude());
+        for (Object candidate : tree.query(point)) {
+            if (candidate instanceof PreparedGeometry polygons) {
+                if (GeoUtil.contains(polygons, coordinates)) {
+                    return true;
+                }
+            } else {
+                Perimeter circle = (Perimeter) candidate;
+                Coordinates center = new Coordinates(circle.getCenterLatitude(), circle.getCenterLongitude());
+                if (circle.getRange() > GeoUtil.distance(coordinates, center, circle.getRangeUnit())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static Envelope getCircleEnvelope(Perimeter circle) {
+        double latitude = circle.getCenterLatitude();
+        double longitude = circle.getCenterLongitude();
+        // angular radius of the circle on the sphere used by GeoUtil.distance, with a small margin for the rounding
+        double radius = Math.toRadians(circle.getRangeUnit().toKm(circle.getRange()) / DistanceUtils.DEG_TO_KM * 1.01);
+        double latitudeDelta = Math.toDegrees(radius);
+        double minLatitude = latitude - latitudeDelta;
+        double maxLatitude = latitude + latitudeDelta;
+        double sinRadius = Math.sin(radius);
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        if (minLatitude <= -90 || maxLatitude >= 90 || radius >= Math.PI / 2 || sinRadius >= cosLatitude) {
+            return new Envelope(Math.max(minLatitude, -90), Math.min(maxLatitude, 90), -180, 180);
+        }
+        double longitudeDelta = Math.toDegrees(Math.asin(sinRadius / cosLatitude));
+        if (longitude - longitudeDelta < -180 || longitude + longitudeDelta > 180) {
+            return new Envelope(minLatitude, maxLatitude, -180, 180);
+        }
+        return new Envelope(minLatitude, maxLatitude, longitude - longitudeDelta, longitude + longitudeDelta);
+    }
+
+}
@@ -75,8 +75,8 @@ public class TbGpsGeofencingActionNode extends AbstractGeofencingNode<TbGpsGeofe
     private final Gson gson = new Gson();
 
     @Override
-    public void onMsg(TbContext ctx, TbMsg msg) throws TbNodeException {
-        boolean matches = checkMatches(msg);
+    protected void processMsg(TbContext ctx, TbMsg msg) throws TbNodeException {
+        boolean matches = checkMatches(ctx, msg);
         long ts = System.currentTimeMillis();
 
         EntityGeofencingState entityState = entityStates.computeIfAbsent(msg.getOriginator(), key -> {
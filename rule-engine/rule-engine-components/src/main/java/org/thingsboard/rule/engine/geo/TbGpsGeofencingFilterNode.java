@@ -42,6 +42,9 @@ import org.thingsboard.server.common.msg.TbMsg;
                 "<li>Fetch perimeter from message metadata - checkbox to load perimeter from message metadata; " +
                 "   Enable if your perimeter is specific to device/asset and you store it as device/asset attribute;</li>" +
                 "<li>Perimeter key name - name of the metadata key that stores perimeter information;</li>" +
+                "<li>Fetch perimeters from related entities - checkbox to check the location against the perimeters stored in the server side attribute " +
+                "   with the perimeter key name of all entities related to the specified entity, for example, thousands of zones that belong to one asset. " +
+                "   The perimeters are kept in a spatial index that is refreshed in the background every 'perimetersRefreshIntervalSec' seconds;</li>" +
                 "<li>For Polygon perimeter type: <ul>" +
                 "    <li>Polygon definition - string that contains array of coordinates in the following format: [[lat1, lon1],[lat2, lon2],[lat3, lon3], ... , [latN, lonN]]</li>" +
                 "</ul></li>" +
@@ -64,8 +67,8 @@ import org.thingsboard.server.common.msg.TbMsg;
 public class TbGpsGeofencingFilterNode extends AbstractGeofencingNode<TbGpsGeofencingFilterNodeConfiguration> {
 
     @Override
-    public void onMsg(TbContext ctx, TbMsg msg) throws TbNodeException {
-        ctx.tellNext(msg, checkMatches(msg) ? TbNodeConnectionType.TRUE : TbNodeConnectionType.FALSE);
+    protected void processMsg(TbContext ctx, TbMsg msg) throws TbNodeException {
+        ctx.tellNext(msg, checkMatches(ctx, msg) ? TbNodeConnectionType.TRUE : TbNodeConnectionType.FALSE);
     }
 
     @Override
@@ -17,6 +17,7 @@ package org.thingsboard.rule.engine.geo;
 
 import lombok.Data;
 import org.thingsboard.rule.engine.api.NodeConfiguration;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
 
 /**
  * Created by ashvayka on 19.01.18.
@@ -32,6 +33,14 @@ public class TbGpsGeofencingFilterNodeConfiguration implements NodeConfiguration
     // If Perimeter is fetched from metadata
     private String perimeterKeyName;
 
+    // If Perimeters are fetched from the server side attribute 'perimeterKeyName' of the entities related to the specified entity
+    private boolean fetchPerimetersFromRelatedEntities;
+    private String perimetersEntityType;
+    private String perimetersEntityId;
+    private String perimetersRelationType;
+    private EntitySearchDirection perimetersDirection;
+    private int perimetersRefreshIntervalSec;
+
     //For Polygons
     private String polygonsDefinition;
 
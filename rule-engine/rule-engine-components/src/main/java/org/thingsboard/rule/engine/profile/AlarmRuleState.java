@@ -15,7 +15,11 @@
  */
 package org.thingsboard.rule.engine.profile;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.rule.engine.profile.state.PersistedAlarmRuleState;
 import org.thingsboard.server.common.adaptor.JsonConverter;
@@ -46,9 +50,12 @@ import org.thingsboard.server.common.msg.tools.SchedulerUtils;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static org.thingsboard.server.common.data.StringUtils.equalsAny;
 import static org.thingsboard.server.common.data.StringUtils.splitByCommaWithoutQuotes;
@@ -64,6 +71,10 @@ class AlarmRuleState {
     private PersistedAlarmRuleState state;
     private boolean updateFlag;
     private final DynamicPredicateValueCtx dynamicPredicateValueCtx;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<CompiledFilter> compiledCondition;
 
     AlarmRuleState(AlarmSeverity severity, AlarmRule alarmRule, Set<AlarmConditionFilterKey> entityKeys, PersistedAlarmRuleState state, DynamicPredicateValueCtx dynamicPredicateValueCtx) {
         this.severity = severity;
@@ -76,6 +87,7 @@ class AlarmRuleState {
         }
         this.spec = getSpec(alarmRule);
         this.dynamicPredicateValueCtx = dynamicPredicateValueCtx;
+        this.compiledCondition = alarmRule.getCondition().getCondition() != null ? compile(alarmRule.getCondition()) : null;
     }
 
     public boolean validateTsUpdate(Set<AlarmConditionFilterKey> changedKeys) {
@@ -123,7 +135,7 @@ class AlarmRuleState {
         boolean active = isActive(data, data.getTs());
         switch (spec.getType()) {
             case SIMPLE:
-                return (active && eval(alarmRule.getCondition(), data)) ? AlarmEvalResult.TRUE : AlarmEvalResult.FALSE;
+                return (active && evalCondition(data)) ? AlarmEvalResult.TRUE : AlarmEvalResult.FALSE;
             case DURATION:
                 return evalDuration(data, active);
             case REPEATING:
@@ -225,7 +237,7 @@ class AlarmRuleState {
     }
 
     private AlarmEvalResult evalRepeating(DataSnapshot data, boolean active) {
-        if (active && eval(alarmRule.getCondition(), data)) {
+        if (active && evalCondition(data)) {
             state.setEventCount(state.getEventCount() + 1);
             updateFlag = true;
             long requiredRepeats = resolveRequiredRepeats(data);
@@ -236,7 +248,7 @@ class AlarmRuleState {
     }
 
     private AlarmEvalResult evalDuration(DataSnapshot data, boolean active) {
-        if (active && eval(alarmRule.getCondition(), data)) {
+        if (active && evalCondition(data)) {
             if (state.getLastEventTs() > 0) {
                 if (data.getTs() > state.getLastEventTs()) {
                     state.setDuration(state.getDuration() + (data.getTs() - state.getLastEventTs()));
@@ -320,26 +332,43 @@ class AlarmRuleState {
         }
     }
 
-    private boolean eval(AlarmCondition condition, DataSnapshot data) {
-        boolean eval = true;
-        for (var filter : condition.getCondition()) {
-            EntityKeyValue value;
-            if (filter.getKey().getType().equals(AlarmConditionKeyType.CONSTANT)) {
+    private boolean evalCondition(DataSnapshot data) {
+        for (CompiledFilter filter : compiledCondition) {
+            EntityKeyValue value = filter.constant() ? filter.constantValue() : data.getValue(filter.key());
+            if (value == null || !filter.predicate().eval(data, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Alarm conditions are compiled once per rule state: constant values are parsed, predicate operations are resolved
+     * and static predicate values are pre-processed, so that the evaluation of every update only walks flat closures.
+     */
+    private List<CompiledFilter> compile(AlarmCondition condition) {
+        List<CompiledFilter> result = new ArrayList<>(condition.getCondition().size());
+        for (AlarmConditionFilter filter : condition.getCondition()) {
+            boolean constant = filter.getKey().getType().equals(AlarmConditionKeyType.CONSTANT);
+            EntityKeyValue constantValue = null;
+            if (constant) {
                 try {
-                    value = getConstantValue(filter);
+                    constantValue = getConstantValue(filter);
                 } catch (RuntimeException e) {
                     log.warn("Failed to parse constant value from filter: {}", filter, e);
-                    value = null;
                 }
-            } else {
-                value = data.getValue(filter.getKey());
             }
-            if (value == null) {
-                return false;
+            CompiledPredicate predicate;
+            try {
+                predicate = compile(filter.getPredicate(), filter);
+            } catch (RuntimeException e) {
+                predicate = (data, value) -> {
+                    throw e;
+                };
             }
-            eval = eval && eval(data, value, filter.getPredicate(), filter);
+            result.add(new CompiledFilter(filter.getKey(), constant, constantValue, predicate));
         }
-        return eval;
+        return result;
     }
 
     private EntityKeyValue getConstantValue(AlarmConditionFilter filter) {
@@ -362,121 +391,144 @@ class AlarmRuleState {
         return value;
     }
 
-    private boolean eval(DataSnapshot data, EntityKeyValue value, KeyFilterPredicate predicate, AlarmConditionFilter filter) {
+    private CompiledPredicate compile(KeyFilterPredicate predicate, AlarmConditionFilter filter) {
         switch (predicate.getType()) {
             case STRING:
-                return evalStrPredicate(data, value, (StringFilterPredicate) predicate, filter);
+                return compileStrPredicate((StringFilterPredicate) predicate, filter);
             case NUMERIC:
-                return evalNumPredicate(data, value, (NumericFilterPredicate) predicate, filter);
+                return compileNumPredicate((NumericFilterPredicate) predicate, filter);
             case BOOLEAN:
-                return evalBoolPredicate(data, value, (BooleanFilterPredicate) predicate, filter);
+                return compileBoolPredicate((BooleanFilterPredicate) predicate, filter);
             case COMPLEX:
-                return evalComplexPredicate(data, value, (ComplexFilterPredicate) predicate, filter);
+                return compileComplexPredicate((ComplexFilterPredicate) predicate, filter);
             default:
-                return false;
+                return (data, value) -> false;
         }
     }
 
-    private boolean evalComplexPredicate(DataSnapshot data, EntityKeyValue ekv, ComplexFilterPredicate predicate, AlarmConditionFilter filter) {
+    private CompiledPredicate compileComplexPredicate(ComplexFilterPredicate predicate, AlarmConditionFilter filter) {
+        CompiledPredicate[] predicates = predicate.getPredicates().stream()
+                .map(kfp -> compile(kfp, filter))
+                .toArray(CompiledPredicate[]::new);
         switch (predicate.getOperation()) {
             case OR:
-                for (KeyFilterPredicate kfp : predicate.getPredicates()) {
-                    if (eval(data, ekv, kfp, filter)) {
-                        return true;
+                return (data, ekv) -> {
+                    for (CompiledPredicate p : predicates) {
+                        if (p.eval(data, ekv)) {
+                            return true;
+                        }
                     }
-                }
-                return false;
+                    return false;
+                };
             case AND:
-                for (KeyFilterPredicate kfp : predicate.getPredicates()) {
-                    if (!eval(data, ekv, kfp, filter)) {
-                        return false;
+                return (data, ekv) -> {
+                    for (CompiledPredicate p : predicates) {
+                        if (!p.eval(data, ekv)) {
+                            return false;
+                        }
                     }
-                }
-                return true;
+                    return true;
+                };
             default:
                 throw new RuntimeException("Operation not supported: " + predicate.getOperation());
         }
     }
 
-    private boolean evalBoolPredicate(DataSnapshot data, EntityKeyValue ekv, BooleanFilterPredicate predicate, AlarmConditionFilter filter) {
-        Boolean val = getBoolValue(ekv);
-        if (val == null) {
-            return false;
-        }
-        Boolean predicateValue = getPredicateValue(data, predicate.getValue(), filter, AlarmRuleState::getBoolValue);
-        if (predicateValue == null) {
-            return false;
-        }
-        switch (predicate.getOperation()) {
-            case EQUAL:
-                return val.equals(predicateValue);
-            case NOT_EQUAL:
-                return !val.equals(predicateValue);
-            default:
-                throw new RuntimeException("Operation not supported: " + predicate.getOperation());
-        }
+    private CompiledPredicate compileBoolPredicate(BooleanFilterPredicate predicate, AlarmConditionFilter filter) {
+        return compileSimplePredicate(predicate.getValue(), filter, AlarmRuleState::getBoolValue, predicateValue -> {
+            switch (predicate.getOperation()) {
+                case EQUAL:
+                    return val -> val.equals(predicateValue);
+                case NOT_EQUAL:
+                    return val -> !val.equals(predicateValue);
+                default:
+                    throw new RuntimeException("Operation not supported: " + predicate.getOperation());
+            }
+        });
     }
 
-    private boolean evalNumPredicate(DataSnapshot data, EntityKeyValue ekv, NumericFilterPredicate predicate, AlarmConditionFilter filter) {
-        Double val = getDblValue(ekv);
-        if (val == null) {
-            return false;
-        }
-        Double predicateValue = getPredicateValue(data, predicate.getValue(), filter, AlarmRuleState::getDblValue);
-        if (predicateValue == null) {
-            return false;
-        }
-        switch (predicate.getOperation()) {
-            case NOT_EQUAL:
-                return !val.equals(predicateValue);
-            case EQUAL:
-                return val.equals(predicateValue);
-            case GREATER:
-                return val > predicateValue;
-            case GREATER_OR_EQUAL:
-                return val >= predicateValue;
-            case LESS:
-                return val < predicateValue;
-            case LESS_OR_EQUAL:
-                return val <= predicateValue;
-            default:
-                throw new RuntimeException("Operation not supported: " + predicate.getOperation());
-        }
+    private CompiledPredicate compileNumPredicate(NumericFilterPredicate predicate, AlarmConditionFilter filter) {
+        return compileSimplePredicate(predicate.getValue(), filter, AlarmRuleState::getDblValue, predicateValue -> {
+            switch (predicate.getOperation()) {
+                case NOT_EQUAL:
+                    return val -> !val.equals(predicateValue);
+                case EQUAL:
+                    return val -> val.equals(predicateValue);
+                case GREATER:
+                    return val -> val > predicateValue;
+                case GREATER_OR_EQUAL:
+                    return val -> val >= predicateValue;
+                case LESS:
+                    return val -> val < predicateValue;
+                case LESS_OR_EQUAL:
+                    return val -> val <= predicateValue;
+                default:
+                    throw new RuntimeException("Operation not supported: " + predicate.getOperation());
+            }
+        });
     }
 
-    private boolean evalStrPredicate(DataSnapshot data, EntityKeyValue ekv, StringFilterPredicate predicate, AlarmConditionFilter filter) {
-        String val = getStrValue(ekv);
-        if (val == null) {
-            return false;
-        }
-        String predicateValue = getPredicateValue(data, predicate.getValue(), filter, AlarmRuleState::getStrValue);
-        if (predicateValue == null) {
-            return false;
-        }
-        if (predicate.isIgnoreCase()) {
-            val = val.toLowerCase();
-            predicateValue = predicateValue.toLowerCase();
-        }
-        switch (predicate.getOperation()) {
-            case CONTAINS:
-                return val.contains(predicateValue);
-            case EQUAL:
-                return val.equals(predicateValue);
-            case STARTS_WITH:
-                return val.startsWith(predicateValue);
-            case ENDS_WITH:
-                return val.endsWith(predicateValue);
-            case NOT_EQUAL:
-                return !val.equals(predicateValue);
-            case NOT_CONTAINS:
-                return !val.contains(predicateValue);
-            case IN:
-                return equalsAny(val, splitByCommaWithoutQuotes(predicateValue));
-            case NOT_IN:
-                return !equalsAny(val, splitByCommaWithoutQuotes(predicateValue));
-            default:
-                throw new RuntimeException("Operation not supported: " + predicate.getOperation());
-        }
+    private CompiledPredicate compileStrPredicate(StringFilterPredicate predicate, AlarmConditionFilter filter) {
+        boolean ignoreCase = predicate.isIgnoreCase();
+        return compileSimplePredicate(predicate.getValue(), filter, AlarmRuleState::getStrValue, value -> {
+            String predicateValue = ignoreCase ? value.toLowerCase() : value;
+            Predicate<String> matcher;
+            switch (predicate.getOperation()) {
+                case CONTAINS:
+                    matcher = val -> val.contains(predicateValue);
+                    break;
+                case EQUAL:
+                    matcher = val -> val.equals(predicateValue);
+                    break;
+                case STARTS_WITH:
+                    matcher = val -> val.startsWith(predicateValue);
+                    break;
+                case ENDS_WITH:
+                    matcher = val -> val.endsWith(predicateValue);
+                    break;
+                case NOT_EQUAL:
+                    matcher = val -> !val.equals(predicateValue);
+                    break;
+                case NOT_CONTAINS:
+                    matcher = val -> !val.contains(predicateValue);
+                    break;
+                case IN:
+                    List<String> values = splitByCommaWithoutQuotes(predicateValue);
+                    matcher = val -> equalsAny(val, values);
+                    break;
+                case NOT_IN:
+                    List<String> excluded = splitByCommaWithoutQuotes(predicateValue);
+                    matcher = val -> !equalsAny(val, excluded);
+                    break;
+                default:
+                    throw new RuntimeException("Operation not supported: " + predicate.getOperation());
+            }
+            return ignoreCase ? val -> matcher.test(val.toLowerCase()) : matcher;
+        });
+    }
+
+    private <T> CompiledPredicate compileSimplePredicate(FilterPredicateValue<T> value, AlarmConditionFilter filter,
+                                                         Function<EntityKeyValue, T> transformFunction,
+                                                         Function<T, Predicate<T>> matcherFactory) {
+        if (value.getDynamicValue() == null) {
+            T predicateValue = filter.getKey().getType() != AlarmConditionKeyType.CONSTANT ? value.getDefaultValue() : null;
+            if (predicateValue == null) {
+                return (data, ekv) -> false;
+            }
+            Predicate<T> matcher = matcherFactory.apply(predicateValue);
+            return (data, ekv) -> {
+                T val = transformFunction.apply(ekv);
+                return val != null && matcher.test(val);
+            };
+        }
+        return (data, ekv) -> {
+            T val = transformFunction.apply(ekv);
+            if (val == null) {
+                return false;
+            }
+            T predicateValue = getPredicateValue(data, value, filter, transformFunction);
+            return predicateValue != null && matcherFactory.apply(predicateValue).test(val);
+        };
     }
 
     private <T> T getPredicateValue(DataSnapshot data, FilterPredicateValue<T> value, AlarmConditionFilter filter, Function<EntityKeyValue, T> transformFunction) {
@@ -606,4 +658,14 @@ class AlarmRuleState {
                 return null;
         }
     }
+
+    @FunctionalInterface
+    private interface CompiledPredicate {
+
+        boolean eval(DataSnapshot data, EntityKeyValue value);
+
+    }
+
+    private record CompiledFilter(AlarmConditionFilterKey key, boolean constant, EntityKeyValue constantValue, CompiledPredicate predicate) {}
+
 }
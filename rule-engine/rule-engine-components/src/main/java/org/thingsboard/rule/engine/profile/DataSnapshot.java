@@ -80,6 +80,14 @@ class DataSnapshot {
         }
     }
 
+    void putAll(DataSnapshot other) {
+        other.values.forEach((key, value) -> {
+            if (keys.contains(key)) {
+                values.put(key, value);
+            }
+        });
+    }
+
     EntityKeyValue getValue(AlarmConditionFilterKey key) {
         return values.get(key);
     }
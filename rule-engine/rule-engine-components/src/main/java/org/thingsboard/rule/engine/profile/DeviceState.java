@@ -15,6 +15,10 @@
  */
 package org.thingsboard.rule.engine.profile;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.JsonParser;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.JacksonUtil;
@@ -44,11 +48,14 @@ import org.thingsboard.server.common.data.rule.RuleNodeState;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.dao.sql.query.EntityKeyMapping;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -78,6 +85,9 @@ class DeviceState {
     private DataSnapshot latestValues;
     private final ConcurrentMap<String, AlarmState> alarmStates = new ConcurrentHashMap<>();
     private final DynamicPredicateValueCtx dynamicPredicateValueCtx;
+    private final Set<AlarmConditionFilterKey> fetchedKeys = new HashSet<>();
+    private final Queue<TbMsg> pendingMsgs = new ArrayDeque<>();
+    private boolean snapshotLoading;
 
     DeviceState(TbContext ctx, TbDeviceProfileNodeConfiguration config, DeviceId deviceId, ProfileState deviceProfile, RuleNodeState state) {
         this.persistState = config.isPersistAlarmRulesState();
@@ -110,15 +120,11 @@ class DeviceState {
         }
     }
 
-    public void updateProfile(TbContext ctx, DeviceProfile deviceProfile) throws ExecutionException, InterruptedException {
-        Set<AlarmConditionFilterKey> oldKeys = Set.copyOf(this.deviceProfile.getEntityKeys());
+    public synchronized void updateProfile(TbContext ctx, DeviceProfile deviceProfile) throws ExecutionException, InterruptedException {
         this.deviceProfile.updateDeviceProfile(deviceProfile);
+        fetchedKeys.retainAll(this.deviceProfile.getEntityKeys());
         if (latestValues != null) {
-            Set<AlarmConditionFilterKey> keysToFetch = new HashSet<>(this.deviceProfile.getEntityKeys());
-            keysToFetch.removeAll(oldKeys);
-            if (!keysToFetch.isEmpty()) {
-                addEntityKeysToSnapshot(ctx, deviceId, keysToFetch, latestValues);
-            }
+            loadSnapshot(ctx);
         }
         Set<String> newAlarmStateIds = this.deviceProfile.getAlarmSettings().stream().map(DeviceProfileAlarm::getId).collect(Collectors.toSet());
         alarmStates.keySet().removeIf(id -> !newAlarmStateIds.contains(id));
@@ -131,7 +137,7 @@ class DeviceState {
         }
     }
 
-    public void harvestAlarms(TbContext ctx, long ts) throws ExecutionException, InterruptedException {
+    public synchronized void harvestAlarms(TbContext ctx, long ts) throws ExecutionException, InterruptedException {
         log.debug("[{}] Going to harvest alarms: {}", ctx.getSelfId(), ts);
         boolean stateChanged = false;
         for (AlarmState state : alarmStates.values()) {
@@ -143,10 +149,95 @@ class DeviceState {
         }
     }
 
-    public void process(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
+    public synchronized void process(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
+        loadSnapshot(ctx);
+        if (snapshotLoading) {
+            pendingMsgs.add(msg);
+        } else {
+            doProcess(ctx, msg);
+        }
+    }
+
+    /*
+     * Fetches the values of the profile keys that are not in the snapshot yet. When the data is already available
+     * (e.g. served from cache) it is applied immediately, otherwise incoming messages are queued until the fetch completes,
+     * so that the rule engine thread never blocks on the database.
+     */
+    private void loadSnapshot(TbContext ctx) throws ExecutionException {
+        while (!snapshotLoading) {
+            Set<AlarmConditionFilterKey> keysToFetch = new HashSet<>(deviceProfile.getEntityKeys());
+            keysToFetch.removeAll(fetchedKeys);
+            if (latestValues != null && keysToFetch.isEmpty()) {
+                return;
+            }
+            fetchedKeys.addAll(keysToFetch);
+            ListenableFuture<DataSnapshot> future = fetchSnapshot(ctx, deviceId, keysToFetch);
+            if (future.isDone()) {
+                try {
+                    applySnapshot(Futures.getDone(future));
+                } catch (ExecutionException | RuntimeException e) {
+                    fetchedKeys.removeAll(keysToFetch);
+                    throw e;
+                }
+            } else {
+                snapshotLoading = true;
+                Futures.addCallback(future, new FutureCallback<>() {
+                    @Override
+                    public void onSuccess(DataSnapshot snapshot) {
+                        synchronized (DeviceState.this) {
+                            snapshotLoading = false;
+                            applySnapshot(snapshot);
+                            processPendingMsgs(ctx);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        synchronized (DeviceState.this) {
+                            snapshotLoading = false;
+                            fetchedKeys.removeAll(keysToFetch);
+                            failPendingMsgs(ctx, t);
+                        }
+                    }
+                }, ctx.getDbCallbackExecutor());
+            }
+        }
+    }
+
+    private void applySnapshot(DataSnapshot snapshot) {
         if (latestValues == null) {
-            latestValues = fetchLatestValues(ctx, deviceId);
+            latestValues = new DataSnapshot(deviceProfile.getEntityKeys());
+        }
+        latestValues.putAll(snapshot);
+    }
+
+    private void processPendingMsgs(TbContext ctx) {
+        try {
+            loadSnapshot(ctx);
+        } catch (Exception e) {
+            failPendingMsgs(ctx, e);
+            return;
+        }
+        while (!snapshotLoading && !pendingMsgs.isEmpty()) {
+            TbMsg msg = pendingMsgs.poll();
+            try {
+                doProcess(ctx, msg);
+            } catch (Exception e) {
+                log.debug("[{}] Failed to process pending msg: {}", deviceId, msg.getId(), e);
+                ctx.tellFailure(msg, e);
+            }
+        }
+    }
+
+    private void failPendingMsgs(TbContext ctx, Throwable t) {
+        log.debug("[{}] Failed to fetch alarm rules data snapshot", deviceId, t);
+        TbMsg msg;
+        while ((msg = pendingMsgs.poll()) != null) {
+            ctx.tellFailure(msg, t);
         }
+    }
+
+    private void doProcess(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
         boolean stateChanged = false;
         if (msg.isTypeOf(POST_TELEMETRY_REQUEST)) {
             stateChanged = processTelemetry(ctx, msg);
@@ -236,12 +327,7 @@ class DeviceState {
                     .peek(latestValues::removeValue)
                     .map(DataSnapshot::toConditionKey).collect(Collectors.toSet());
             SnapshotUpdate update = new SnapshotUpdate(AlarmConditionKeyType.ATTRIBUTE, removedKeys);
-
-            for (DeviceProfileAlarm alarm : deviceProfile.getAlarmSettings()) {
-                AlarmState alarmState = alarmStates.computeIfAbsent(alarm.getId(),
-                        a -> new AlarmState(this.deviceProfile, deviceId, alarm, getOrInitPersistedAlarmState(alarm), dynamicPredicateValueCtx));
-                stateChanged |= alarmState.process(ctx, msg, latestValues, update);
-            }
+            stateChanged = processUpdate(ctx, msg, update);
         }
         ctx.tellSuccess(msg);
         return stateChanged;
@@ -256,11 +342,7 @@ class DeviceState {
         Set<AttributeKvEntry> attributes = JsonConverter.convertToAttributes(JsonParser.parseString(msg.getData()));
         if (!attributes.isEmpty()) {
             SnapshotUpdate update = merge(latestValues, attributes, scope);
-            for (DeviceProfileAlarm alarm : deviceProfile.getAlarmSettings()) {
-                AlarmState alarmState = alarmStates.computeIfAbsent(alarm.getId(),
-                        a -> new AlarmState(this.deviceProfile, deviceId, alarm, getOrInitPersistedAlarmState(alarm), dynamicPredicateValueCtx));
-                stateChanged |= alarmState.process(ctx, msg, latestValues, update);
-            }
+            stateChanged = processUpdate(ctx, msg, update);
         }
         ctx.tellSuccess(msg);
         return stateChanged;
@@ -275,22 +357,37 @@ class DeviceState {
             List<KvEntry> data = entry.getValue();
             SnapshotUpdate update = merge(latestValues, ts, data);
             if (update.hasUpdate()) {
-                for (DeviceProfileAlarm alarm : deviceProfile.getAlarmSettings()) {
-                    AlarmState alarmState = alarmStates.computeIfAbsent(alarm.getId(),
-                            a -> new AlarmState(this.deviceProfile, deviceId, alarm, getOrInitPersistedAlarmState(alarm), dynamicPredicateValueCtx));
-                    try {
-                        stateChanged |= alarmState.process(ctx, msg, latestValues, update);
-                    } catch (ApiUsageLimitsExceededException e) {
-                        alarmStates.remove(alarm.getId());
-                        throw e;
-                    }
-                }
+                stateChanged |= processUpdate(ctx, msg, update);
             }
         }
         ctx.tellSuccess(msg);
         return stateChanged;
     }
 
+    private boolean processUpdate(TbContext ctx, TbMsg msg, SnapshotUpdate update) throws ExecutionException, InterruptedException {
+        boolean stateChanged = false;
+        Set<String> affectedAlarmIds = deviceProfile.getAffectedAlarmIds(update.getKeys());
+        for (DeviceProfileAlarm alarm : deviceProfile.getAlarmSettings()) {
+            if (!affectedAlarmIds.contains(alarm.getId())) {
+                // none of the alarm rules depend on the updated keys, so there is nothing to evaluate
+                AlarmState alarmState = alarmStates.get(alarm.getId());
+                if (alarmState != null) {
+                    alarmState.updateLastMsg(msg, latestValues);
+                }
+                continue;
+            }
+            AlarmState alarmState = alarmStates.computeIfAbsent(alarm.getId(),
+                    a -> new AlarmState(this.deviceProfile, deviceId, alarm, getOrInitPersistedAlarmState(alarm), dynamicPredicateValueCtx));
+            try {
+                stateChanged |= alarmState.process(ctx, msg, latestValues, update);
+            } catch (ApiUsageLimitsExceededException e) {
+                alarmStates.remove(alarm.getId());
+                throw e;
+            }
+        }
+        return stateChanged;
+    }
+
     private SnapshotUpdate merge(DataSnapshot latestValues, Long newTs, List<KvEntry> data) {
         Set<AlarmConditionFilterKey> keys = new HashSet<>();
         for (KvEntry entry : data) {
@@ -329,14 +426,8 @@ class DeviceState {
         return EntityKeyType.ATTRIBUTE;
     }
 
-    private DataSnapshot fetchLatestValues(TbContext ctx, EntityId originator) throws ExecutionException, InterruptedException {
-        Set<AlarmConditionFilterKey> entityKeysToFetch = deviceProfile.getEntityKeys();
+    private ListenableFuture<DataSnapshot> fetchSnapshot(TbContext ctx, EntityId originator, Set<AlarmConditionFilterKey> entityKeysToFetch) {
         DataSnapshot result = new DataSnapshot(entityKeysToFetch);
-        addEntityKeysToSnapshot(ctx, originator, entityKeysToFetch, result);
-        return result;
-    }
-
-    private void addEntityKeysToSnapshot(TbContext ctx, EntityId originator, Set<AlarmConditionFilterKey> entityKeysToFetch, DataSnapshot result) throws InterruptedException, ExecutionException {
         Set<String> attributeKeys = new HashSet<>();
         Set<String> latestTsKeys = new HashSet<>();
 
@@ -374,19 +465,26 @@ class DeviceState {
             }
         }
 
-        if (!latestTsKeys.isEmpty()) {
-            List<TsKvEntry> data = ctx.getTimeseriesService().findLatest(ctx.getTenantId(), originator, latestTsKeys).get();
-            for (TsKvEntry entry : data) {
+        ListenableFuture<List<TsKvEntry>> latestTsFuture = latestTsKeys.isEmpty() ? Futures.immediateFuture(Collections.emptyList()) :
+                ctx.getTimeseriesService().findLatest(ctx.getTenantId(), originator, latestTsKeys);
+        List<ListenableFuture<List<AttributeKvEntry>>> attributeFutures = new ArrayList<>();
+        if (!attributeKeys.isEmpty()) {
+            attributeFutures.add(ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.CLIENT_SCOPE, attributeKeys));
+            attributeFutures.add(ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.SHARED_SCOPE, attributeKeys));
+            attributeFutures.add(ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.SERVER_SCOPE, attributeKeys));
+        }
+        ListenableFuture<List<List<AttributeKvEntry>>> attributesFuture = Futures.allAsList(attributeFutures);
+        return Futures.whenAllSucceed(latestTsFuture, attributesFuture).call(() -> {
+            for (TsKvEntry entry : Futures.getDone(latestTsFuture)) {
                 if (entry.getValue() != null) {
                     result.putValue(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, entry.getKey()), entry.getTs(), toEntityValue(entry));
                 }
             }
-        }
-        if (!attributeKeys.isEmpty()) {
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.CLIENT_SCOPE, attributeKeys).get());
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.SHARED_SCOPE, attributeKeys).get());
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, AttributeScope.SERVER_SCOPE, attributeKeys).get());
-        }
+            for (List<AttributeKvEntry> data : Futures.getDone(attributesFuture)) {
+                addToSnapshot(result, data);
+            }
+            return result;
+        }, MoreExecutors.directExecutor());
     }
 
     private void addToSnapshot(DataSnapshot snapshot, List<AttributeKvEntry> data) {
@@ -55,6 +55,7 @@ class ProfileState {
 
     private final Map<String, Map<AlarmSeverity, Set<AlarmConditionFilterKey>>> alarmCreateKeys = new HashMap<>();
     private final Map<String, Set<AlarmConditionFilterKey>> alarmClearKeys = new HashMap<>();
+    private final Map<AlarmConditionFilterKey, Set<String>> alarmIdsByKey = new HashMap<>();
 
     ProfileState(DeviceProfile deviceProfile) {
         updateDeviceProfile(deviceProfile);
@@ -65,6 +66,7 @@ class ProfileState {
         alarmSettings.clear();
         alarmCreateKeys.clear();
         alarmClearKeys.clear();
+        alarmIdsByKey.clear();
         entityKeys.clear();
         if (deviceProfile.getProfileData().getAlarms() != null) {
             alarmSettings.addAll(deviceProfile.getProfileData().getAlarms());
@@ -92,6 +94,8 @@ class ProfileState {
                     }
                     addEntityKeysFromAlarmConditionSpec(alarm.getClearRule());
                 }
+                createAlarmKeys.values().forEach(keys -> indexAlarmKeys(alarm.getId(), keys));
+                indexAlarmKeys(alarm.getId(), getClearAlarmKeys(alarm.getId()));
             }
         }
     }
@@ -159,6 +163,12 @@ class ProfileState {
         }
     }
 
+    private void indexAlarmKeys(String alarmId, Set<AlarmConditionFilterKey> keys) {
+        for (AlarmConditionFilterKey key : keys) {
+            alarmIdsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(alarmId);
+        }
+    }
+
     DeviceProfileId getProfileId() {
         return deviceProfile.getId();
     }
@@ -185,4 +195,18 @@ class ProfileState {
             return keys;
         }
     }
+
+    Set<String> getAffectedAlarmIds(Set<AlarmConditionFilterKey> changedKeys) {
+        if (changedKeys.size() == 1) {
+            return alarmIdsByKey.getOrDefault(changedKeys.iterator().next(), Collections.emptySet());
+        }
+        Set<String> result = new HashSet<>();
+        for (AlarmConditionFilterKey key : changedKeys) {
+            Set<String> alarmIds = alarmIdsByKey.get(key);
+            if (alarmIds != null) {
+                result.addAll(alarmIds);
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PerimeterIndexTest {
+
+    @Test
+    public void givenPolygons_whenContains_thenMatchesGeoUtil() {
+        PerimeterIndex index = PerimeterIndex.build(List.of(polygon(GeoUtilTest.SIMPLE_RECT_WITH_HOLE_IN_CENTER), polygon(GeoUtilTest.SAND_CLOCK)));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.contains(GeoUtilTest.POINT_INSIDE_SIMPLE_RECT_NEAR_BORDER)).isTrue();
+        assertThat(index.contains(GeoUtilTest.POINT_INSIDE_SAND_CLOCK_NEAR_BORDER)).isTrue();
+        assertThat(index.contains(GeoUtilTest.POINT_OUTSIDE_SIMPLE_RECT)).isFalse();
+        assertThat(index.contains(GeoUtilTest.POINT_OUTSIDE_SELF_INTERSECTING_3)).isFalse();
+    }
+
+    @Test
+    public void givenCircles_whenContains_thenDistanceIsChecked() {
+        PerimeterIndex index = PerimeterIndex.build(List.of(circle(49.0384, 31.4513, 1.0, RangeUnit.KILOMETER), circle(0, 179.9999, 500, RangeUnit.METER)));
+
+        assertThat(index.contains(new Coordinates(49.0354, 31.4513))).isTrue();
+        assertThat(index.contains(new Coordinates(49.0384, 31.4640))).isTrue();
+        assertThat(index.contains(new Coordinates(49.0284, 31.4513))).isFalse();
+        assertThat(index.contains(new Coordinates(0, -179.9999))).isTrue();
+    }
+
+    @Test
+    public void givenThousandsOfPerimeters_whenContains_thenOnlyMatchingZoneIsFound() {
+        List<Perimeter> perimeters = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            for (int j = 0; j < 60; j++) {
+                double lat = 40 + i * 0.1;
+                double lon = 20 + j * 0.1;
+                perimeters.add(polygon("[[" + lat + "," + lon + "],[" + (lat + 0.05) + "," + (lon + 0.05) + "]]"));
+            }
+        }
+        PerimeterIndex index = PerimeterIndex.build(perimeters);
+
+        assertThat(index.size()).isEqualTo(3000);
+        assertThat(index.contains(new Coordinates(42.02, 23.03))).isTrue();
+        assertThat(index.contains(new Coordinates(42.07, 23.03))).isFalse();
+        assertThat(index.contains(new Coordinates(30, 10))).isFalse();
+    }
+
+    private static Perimeter polygon(String definition) {
+        Perimeter perimeter = new Perimeter();
+        perimeter.setPerimeterType(PerimeterType.POLYGON);
+        perimeter.setPolygonsDefinition(definition);
+        return perimeter;
+    }
+
+    private static Perimeter circle(double latitude, double longitude, double range, RangeUnit rangeUnit) {
+        Perimeter perimeter = new Perimeter();
+        perimeter.setPerimeterType(PerimeterType.CIRCLE);
+        perimeter.setCenterLatitude(latitude);
+        perimeter.setCenterLongitude(longitude);
+        perimeter.setRange(range);
+        perimeter.setRangeUnit(rangeUnit);
+        return perimeter;
+    }
+
+}
@@ -16,21 +16,35 @@
 package org.thingsboard.rule.engine.geo;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.TestDbCallbackExecutor;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.server.common.data.AttributeScope;
+import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
 import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.dao.attributes.AttributesService;
+import org.thingsboard.server.dao.relation.RelationService;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -39,6 +53,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -426,6 +441,122 @@ class TbGpsGeofencingFilterNodeTest {
         assertThat(newMsg).isSameAs(msg);
     }
 
+    // Related entities tests
+
+    @Test
+    void givenPerimetersOfRelatedEntities_whenOnMsg_thenPointIsCheckedAgainstAllPerimeters() throws TbNodeException {
+        // GIVEN
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        AssetId zonesId = new AssetId(UUID.randomUUID());
+        AssetId rectZoneId = new AssetId(UUID.randomUUID());
+        AssetId sandClockZoneId = new AssetId(UUID.randomUUID());
+        RelationService relationService = mock(RelationService.class);
+        AttributesService attributesService = mock(AttributesService.class);
+        when(ctx.getTenantId()).thenReturn(tenantId);
+        when(ctx.getRelationService()).thenReturn(relationService);
+        when(ctx.getAttributesService()).thenReturn(attributesService);
+        when(ctx.getDbCallbackExecutor()).thenReturn(new TestDbCallbackExecutor());
+        when(relationService.findByFromAndTypeAsync(tenantId, zonesId, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON)).thenReturn(Futures.immediateFuture(List.of(
+                new EntityRelation(zonesId, rectZoneId, EntityRelation.CONTAINS_TYPE),
+                new EntityRelation(zonesId, sandClockZoneId, EntityRelation.CONTAINS_TYPE))));
+        when(attributesService.find(tenantId, rectZoneId, AttributeScope.SERVER_SCOPE, "ss_perimeter"))
+                .thenReturn(Futures.immediateFuture(Optional.of(new BaseAttributeKvEntry(new StringDataEntry("ss_perimeter", GeoUtilTest.SIMPLE_RECT_WITH_HOLE_IN_CENTER), 0L))));
+        when(attributesService.find(tenantId, sandClockZoneId, AttributeScope.SERVER_SCOPE, "ss_perimeter"))
+                .thenReturn(Futures.immediateFuture(Optional.of(new BaseAttributeKvEntry(new StringDataEntry("ss_perimeter", GeoUtilTest.SAND_CLOCK), 0L))));
+
+        var config = new TbGpsGeofencingFilterNodeConfiguration().defaultConfiguration();
+        config.setFetchPerimeterInfoFromMessageMetadata(false);
+        config.setFetchPerimetersFromRelatedEntities(true);
+        config.setPerimetersEntityType(zonesId.getEntityType().name());
+        config.setPerimetersEntityId(zonesId.getId().toString());
+        node.init(ctx, new TbNodeConfiguration(JacksonUtil.valueToTree(config)));
+
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        TbMsg insideMsg = getTbMsg(deviceId, TbMsgMetaData.EMPTY,
+                GeoUtilTest.POINT_INSIDE_SAND_CLOCK_NEAR_BORDER.getLatitude(), GeoUtilTest.POINT_INSIDE_SAND_CLOCK_NEAR_BORDER.getLongitude());
+        TbMsg outsideMsg = getTbMsg(deviceId, TbMsgMetaData.EMPTY,
+                GeoUtilTest.POINT_OUTSIDE_SIMPLE_RECT.getLatitude(), GeoUtilTest.POINT_OUTSIDE_SIMPLE_RECT.getLongitude());
+
+        // WHEN
+        node.onMsg(ctx, insideMsg);
+        node.onMsg(ctx, outsideMsg);
+
+        // THEN
+        verify(ctx).tellNext(insideMsg, TbNodeConnectionType.TRUE);
+        verify(ctx).tellNext(outsideMsg, TbNodeConnectionType.FALSE);
+        verify(relationService, times(1)).findByFromAndTypeAsync(tenantId, zonesId, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON);
+    }
+
+    @Test
+    void givenPerimetersOfRelatedEntitiesNotLoadedYet_whenOnMsg_thenMsgIsProcessedAfterLoad() throws TbNodeException {
+        // GIVEN
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        AssetId zonesId = new AssetId(UUID.randomUUID());
+        AssetId sandClockZoneId = new AssetId(UUID.randomUUID());
+        RelationService relationService = mock(RelationService.class);
+        AttributesService attributesService = mock(AttributesService.class);
+        SettableFuture<List<EntityRelation>> relationsFuture = SettableFuture.create();
+        when(ctx.getTenantId()).thenReturn(tenantId);
+        when(ctx.getRelationService()).thenReturn(relationService);
+        when(ctx.getAttributesService()).thenReturn(attributesService);
+        when(ctx.getDbCallbackExecutor()).thenReturn(new TestDbCallbackExecutor());
+        when(relationService.findByFromAndTypeAsync(tenantId, zonesId, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON)).thenReturn(relationsFuture);
+        when(attributesService.find(tenantId, sandClockZoneId, AttributeScope.SERVER_SCOPE, "ss_perimeter"))
+                .thenReturn(Futures.immediateFuture(Optional.of(new BaseAttributeKvEntry(new StringDataEntry("ss_perimeter", GeoUtilTest.SAND_CLOCK), 0L))));
+        initWithRelatedPerimeters(zonesId);
+
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        TbMsg insideMsg = getTbMsg(deviceId, TbMsgMetaData.EMPTY,
+                GeoUtilTest.POINT_INSIDE_SAND_CLOCK_NEAR_BORDER.getLatitude(), GeoUtilTest.POINT_INSIDE_SAND_CLOCK_NEAR_BORDER.getLongitude());
+
+        // WHEN
+        node.onMsg(ctx, insideMsg);
+
+        // THEN
+        verify(ctx, never()).tellNext(any(), any(String.class));
+        relationsFuture.set(List.of(new EntityRelation(zonesId, sandClockZoneId, EntityRelation.CONTAINS_TYPE)));
+        verify(ctx).tellNext(insideMsg, TbNodeConnectionType.TRUE);
+        verify(relationService, times(1)).findByFromAndTypeAsync(tenantId, zonesId, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON);
+    }
+
+    @Test
+    void givenPerimetersOfRelatedEntitiesFailedToLoad_whenOnMsg_thenFailureWithCauseAndLoadIsRetried() throws TbNodeException {
+        // GIVEN
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        AssetId zonesId = new AssetId(UUID.randomUUID());
+        RelationService relationService = mock(RelationService.class);
+        RuntimeException cause = new RuntimeException("DB is down");
+        when(ctx.getTenantId()).thenReturn(tenantId);
+        when(ctx.getRelationService()).thenReturn(relationService);
+        when(ctx.getDbCallbackExecutor()).thenReturn(new TestDbCallbackExecutor());
+        when(relationService.findByFromAndTypeAsync(tenantId, zonesId, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON))
+                .thenReturn(Futures.immediateFailedFuture(cause));
+        initWithRelatedPerimeters(zonesId);
+
+        TbMsg msg = getTbMsg(new DeviceId(UUID.randomUUID()), TbMsgMetaData.EMPTY,
+                GeoUtilTest.POINT_OUTSIDE_SIMPLE_RECT.getLatitude(), GeoUtilTest.POINT_OUTSIDE_SIMPLE_RECT.getLongitude());
+
+        // WHEN
+        node.onMsg(ctx, msg);
+
+        // THEN
+        ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(ctx).tellFailure(eq(msg), errorCaptor.capture());
+        assertThat(errorCaptor.getValue()).isInstanceOf(TbNodeException.class);
+        assertThat(errorCaptor.getValue().getCause()).isSameAs(cause);
+        // one load is started in init and the failed one is retried by the message
+        verify(relationService, times(2)).findByFromAndTypeAsync(tenantId, zonesId, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON);
+    }
+
+    private void initWithRelatedPerimeters(AssetId zonesId) throws TbNodeException {
+        var config = new TbGpsGeofencingFilterNodeConfiguration().defaultConfiguration();
+        config.setFetchPerimeterInfoFromMessageMetadata(false);
+        config.setFetchPerimetersFromRelatedEntities(true);
+        config.setPerimetersEntityType(zonesId.getEntityType().name());
+        config.setPerimetersEntityId(zonesId.getId().toString());
+        node.init(ctx, new TbNodeConfiguration(JacksonUtil.valueToTree(config)));
+    }
+
     private TbMsgMetaData getMetadataForOldVersionCirclePerimeter() {
         var metadata = new TbMsgMetaData();
         metadata.putValue("centerLatitude", String.valueOf(CIRCLE_CENTER.getLatitude()));
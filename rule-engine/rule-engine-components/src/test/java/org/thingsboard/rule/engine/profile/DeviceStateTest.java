@@ -16,10 +16,12 @@
 package org.thingsboard.rule.engine.profile;
 
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.TestDbCallbackExecutor;
 import org.thingsboard.rule.engine.api.RuleEngineAlarmService;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.server.common.data.AttributeScope;
@@ -39,6 +41,7 @@ import org.thingsboard.server.common.data.device.profile.DeviceProfileData;
 import org.thingsboard.server.common.data.device.profile.SimpleAlarmConditionSpec;
 import org.thingsboard.server.common.data.id.AlarmId;
 import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.data.query.BooleanFilterPredicate;
 import org.thingsboard.server.common.data.query.EntityKeyValueType;
@@ -178,6 +181,32 @@ public class DeviceStateTest {
         });
     }
 
+    @Test
+    public void whenSnapshotIsNotFetchedYet_thenMsgIsProcessedAfterFetchCompletes() throws Exception {
+        SettableFuture<List<AttributeKvEntry>> attributesFuture = SettableFuture.create();
+        when(ctx.getAttributesService().find(any(), any(), any(AttributeScope.class), anyCollection())).thenReturn(attributesFuture);
+        when(ctx.getDbCallbackExecutor()).thenReturn(new TestDbCallbackExecutor());
+
+        DeviceProfileAlarm alarmConfig = createAlarmConfigWithBoolAttrCondition("enabled", false);
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        DeviceState deviceState = createDeviceState(deviceId, alarmConfig);
+
+        TbMsg attributeUpdateMsg = TbMsg.newMsg()
+                .type(TbMsgType.POST_ATTRIBUTES_REQUEST)
+                .originator(deviceId)
+                .copyMetaData(TbMsgMetaData.EMPTY)
+                .data("{ \"enabled\": false }")
+                .build();
+
+        deviceState.process(ctx, attributeUpdateMsg);
+        verify(ctx, never()).tellSuccess(any());
+        verify(ctx, never()).enqueueForTellNext(any(), anyString());
+
+        attributesFuture.set(Collections.emptyList());
+
+        verify(ctx).enqueueForTellNext(any(), eq("Alarm Created"));
+        verify(ctx).tellSuccess(attributeUpdateMsg);
+    }
 
     private DeviceState createDeviceState(DeviceId deviceId, DeviceProfileAlarm... alarmConfigs) {
         DeviceProfile deviceProfile = new DeviceProfile();